@@ -191,6 +191,19 @@ public @interface BugPattern {
    */
   boolean documentSuppression() default true;
 
+  /**
+   * The canonical names of types that a compilation unit has to refer to for this check to report
+   * anything in it. If any are given, the check is skipped for compilation units that don't refer
+   * to any of them, or to any of their subtypes.
+   *
+   * <p>A compilation unit refers to a type if it mentions it or one of its members, or if the type
+   * of one of its expressions, declarations or type arguments is that type. For example, a check
+   * that only matches calls to Mockito's static methods can require {@code
+   * org.mockito.Mockito}, but a check that looks at the annotations of overridden methods in
+   * supertypes can't require those annotations.
+   */
+  String[] requiredTypes() default {};
+
   /** @deprecated this is a no-op that will be removed in the future */
   @Deprecated
   boolean generateExamplesFromTestCases() default true;
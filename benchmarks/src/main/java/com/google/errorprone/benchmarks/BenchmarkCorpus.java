@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import java.net.URI;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A fixed, deterministically generated corpus of Java sources for benchmarks.
+ *
+ * <p>The sources deliberately exercise a wide range of tree kinds (loops, switches, lambdas, method
+ * references, try/catch, nested classes, string formatting and collection calls), so that most
+ * checks have something to look at. The same {@link Shape} and size always produce the same
+ * sources, so results from different runs are comparable.
+ */
+public final class BenchmarkCorpus {
+
+  /** The kind of code that a corpus consists of. */
+  public enum Shape {
+    /** {@code size} medium-sized classes that mix most kinds of statements and expressions. */
+    MIXED {
+      @Override
+      void generate(int size, ImmutableList.Builder<JavaFileObject> sources) {
+        for (int i = 0; i < size; i++) {
+          String name = "Generated" + i;
+          sources.add(source(name, generateClass(name, i, 20)));
+        }
+      }
+    },
+    /** A single class with {@code 20 * size} methods, like generated code. */
+    LARGE_FILE {
+      @Override
+      void generate(int size, ImmutableList.Builder<JavaFileObject> sources) {
+        sources.add(source("GeneratedLarge", generateClass("GeneratedLarge", 0, 20 * size)));
+      }
+    },
+    /** {@code size} classes made mostly of lambdas, method references and stream pipelines. */
+    LAMBDAS {
+      @Override
+      void generate(int size, ImmutableList.Builder<JavaFileObject> sources) {
+        for (int i = 0; i < size; i++) {
+          String name = "Lambdas" + i;
+          sources.add(source(name, generateLambdaClass(name, i)));
+        }
+      }
+    },
+    /**
+     * A chain of {@code size} generic classes, each extending the previous one, overriding its
+     * methods and implementing interfaces with default methods.
+     */
+    HIERARCHY {
+      @Override
+      void generate(int size, ImmutableList.Builder<JavaFileObject> sources) {
+        generateHierarchy(size, sources);
+      }
+    };
+
+    abstract void generate(int size, ImmutableList.Builder<JavaFileObject> sources);
+  }
+
+  /** Returns {@code classCount} generated compilation units in package {@code bench}. */
+  public static ImmutableList<JavaFileObject> sources(int classCount) {
+    return sources(Shape.MIXED, classCount);
+  }
+
+  /** Returns the compilation units of a corpus of the given shape, in package {@code bench}. */
+  public static ImmutableList<JavaFileObject> sources(Shape shape, int size) {
+    ImmutableList.Builder<JavaFileObject> sources = ImmutableList.builder();
+    shape.generate(size, sources);
+    return sources.build();
+  }
+
+  /** Returns a compilation unit named {@code name} in package {@code bench}. */
+  static JavaFileObject source(String name, String content) {
+    return new StringSource("bench/" + name + ".java", content);
+  }
+
+  private static String generateClass(String name, int seed, int methodCount) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package bench;\n\n");
+    sb.append("import java.util.ArrayList;\n");
+    sb.append("import java.util.HashMap;\n");
+    sb.append("import java.util.List;\n");
+    sb.append("import java.util.Map;\n");
+    sb.append("import java.util.Objects;\n");
+    sb.append("import java.util.function.Function;\n");
+    sb.append("import java.util.stream.Collectors;\n\n");
+    sb.append("/** Generated benchmark class. */\n");
+    sb.append("public class ").append(name).append(" {\n");
+    sb.append("  private final List<String> names = new ArrayList<>();\n");
+    sb.append("  private final Map<String, Integer> counts = new HashMap<>();\n");
+    sb.append("  private int total;\n\n");
+    for (int m = 0; m < methodCount; m++) {
+      appendMethod(sb, m, seed);
+    }
+    sb.append("  static class Nested {\n");
+    sb.append("    private final String value;\n\n");
+    sb.append("    Nested(String value) {\n");
+    sb.append("      this.value = value;\n");
+    sb.append("    }\n\n");
+    sb.append("    @Override\n");
+    sb.append("    public boolean equals(Object o) {\n");
+    sb.append("      return o instanceof Nested && Objects.equals(value, ((Nested) o).value);\n");
+    sb.append("    }\n\n");
+    sb.append("    @Override\n");
+    sb.append("    public int hashCode() {\n");
+    sb.append("      return Objects.hashCode(value);\n");
+    sb.append("    }\n");
+    sb.append("  }\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void appendMethod(StringBuilder sb, int m, int seed) {
+    int k = (m + seed) % 5;
+    sb.append("  public int method").append(m).append("(List<String> input, int limit) {\n");
+    sb.append("    int result = ").append(m).append(";\n");
+    sb.append("    for (int i = 0; i < limit; i++) {\n");
+    sb.append("      String s = input.get(i % input.size());\n");
+    sb.append("      if (s == null || s.isEmpty()) {\n");
+    sb.append("        continue;\n");
+    sb.append("      }\n");
+    sb.append("      result += s.length() * ").append(k + 1).append(";\n");
+    sb.append("      counts.merge(s, 1, Integer::sum);\n");
+    sb.append("    }\n");
+    sb.append("    switch (result % 4) {\n");
+    sb.append("      case 0:\n");
+    sb.append("        names.add(String.format(\"%s-%d\", \"m").append(m).append("\", result));\n");
+    sb.append("        break;\n");
+    sb.append("      case 1:\n");
+    sb.append("        names.addAll(\n");
+    sb.append("            input.stream().map(String::trim).filter(x -> x.length() > ")
+        .append(k)
+        .append(").collect(Collectors.toList()));\n");
+    sb.append("        break;\n");
+    sb.append("      default:\n");
+    sb.append("        total += result;\n");
+    sb.append("    }\n");
+    sb.append("    Function<String, Integer> f = x -> counts.getOrDefault(x, 0) + ")
+        .append(m)
+        .append(";\n");
+    sb.append("    try {\n");
+    sb.append("      result += Integer.parseInt(input.isEmpty() ? \"0\" : input.get(0));\n");
+    sb.append("    } catch (NumberFormatException e) {\n");
+    sb.append("      result -= f.apply(e.getMessage() == null ? \"\" : e.getMessage());\n");
+    sb.append("    }\n");
+    sb.append("    StringBuilder sb = new StringBuilder();\n");
+    sb.append("    for (String name : names) {\n");
+    sb.append("      sb.append(name).append(',');\n");
+    sb.append("    }\n");
+    sb.append("    return result + sb.length() + new Nested(sb.toString()).hashCode();\n");
+    sb.append("  }\n\n");
+  }
+
+  private static String generateLambdaClass(String name, int seed) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package bench;\n\n");
+    sb.append("import java.util.Comparator;\n");
+    sb.append("import java.util.HashMap;\n");
+    sb.append("import java.util.List;\n");
+    sb.append("import java.util.Map;\n");
+    sb.append("import java.util.Optional;\n");
+    sb.append("import java.util.function.BiFunction;\n");
+    sb.append("import java.util.function.Function;\n");
+    sb.append("import java.util.function.Supplier;\n");
+    sb.append("import java.util.stream.Collectors;\n");
+    sb.append("import java.util.stream.Stream;\n\n");
+    sb.append("/** Generated benchmark class. */\n");
+    sb.append("public class ").append(name).append(" {\n");
+    for (int m = 0; m < 20; m++) {
+      int k = (m + seed) % 5 + 1;
+      sb.append("  public List<String> pipeline").append(m).append("(List<String> input) {\n");
+      sb.append("    Supplier<Map<Integer, List<Integer>>> groups = HashMap::new;\n");
+      sb.append("    Function<Integer, Function<Integer, Integer>> add = a -> b -> a + b + ")
+          .append(k)
+          .append(";\n");
+      sb.append("    BiFunction<String, Integer, String> repeat =\n");
+      sb.append("        (s, n) ->\n");
+      sb.append("            Stream.generate(() -> s).limit(n).collect(Collectors.joining());\n");
+      sb.append("    return input.stream()\n");
+      sb.append("        .filter(s -> s != null && !s.isEmpty())\n");
+      sb.append("        .map(String::trim)\n");
+      sb.append("        .flatMap(s -> Stream.of(s.split(\",\")))\n");
+      sb.append("        .sorted(Comparator.comparing(String::length).thenComparing(s -> s))\n");
+      sb.append("        .collect(\n");
+      sb.append("            Collectors.groupingBy(\n");
+      sb.append("                s -> s.length() % ")
+          .append(k)
+          .append(", groups, Collectors.mapping(String::length, Collectors.toList())))\n");
+      sb.append("        .entrySet()\n");
+      sb.append("        .stream()\n");
+      sb.append("        .map(\n");
+      sb.append("            e ->\n");
+      sb.append("                repeat.apply(\n");
+      sb.append("                    String.valueOf(e.getKey()),\n");
+      sb.append("                    add.apply(e.getValue().stream().reduce(0, Integer::sum))\n");
+      sb.append("                        .apply(e.getValue().size())))\n");
+      sb.append("        .map(s -> Optional.ofNullable(s).map(x -> x + ")
+          .append(m)
+          .append(").orElseGet(() -> \"\"))\n");
+      sb.append("        .collect(Collectors.toList());\n");
+      sb.append("  }\n\n");
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void generateHierarchy(
+      int depth, ImmutableList.Builder<JavaFileObject> sources) {
+    sources.add(
+        source(
+            "Base",
+            "package bench;\n\n"
+                + "/** Generated benchmark interface. */\n"
+                + "public interface Base<T extends Comparable<T>> {\n"
+                + "  T transform(T value);\n\n"
+                + "  default String describe() {\n"
+                + "    return getClass().getSimpleName();\n"
+                + "  }\n"
+                + "}\n"));
+    for (int i = 0; i < 5; i++) {
+      sources.add(
+          source(
+              "Mixin" + i,
+              "package bench;\n\n"
+                  + "/** Generated benchmark interface. */\n"
+                  + "public interface Mixin"
+                  + i
+                  + "<T extends Comparable<T>> extends Base<T> {\n"
+                  + "  default int weight"
+                  + i
+                  + "(T value) {\n"
+                  + "    return transform(value).compareTo(value) + "
+                  + i
+                  + ";\n"
+                  + "  }\n"
+                  + "}\n"));
+    }
+    sources.add(
+        source(
+            "Level0",
+            "package bench;\n\n"
+                + "/** Generated benchmark class. */\n"
+                + "public class Level0<T extends Comparable<T>> implements Base<T> {\n"
+                + "  @Override\n"
+                + "  public T transform(T value) {\n"
+                + "    return value;\n"
+                + "  }\n\n"
+                + "  public int depth() {\n"
+                + "    return 0;\n"
+                + "  }\n"
+                + "}\n"));
+    for (int i = 1; i < depth; i++) {
+      sources.add(
+          source(
+              "Level" + i,
+              "package bench;\n\n"
+                  + "/** Generated benchmark class. */\n"
+                  + "public class Level"
+                  + i
+                  + "<T extends Comparable<T>> extends Level"
+                  + (i - 1)
+                  + "<T>\n"
+                  + "    implements Mixin"
+                  + (i % 5)
+                  + "<T> {\n"
+                  + "  @Override\n"
+                  + "  public T transform(T value) {\n"
+                  + "    T result = super.transform(value);\n"
+                  + "    return result.compareTo(value) > 0 ? result : value;\n"
+                  + "  }\n\n"
+                  + "  @Override\n"
+                  + "  public String describe() {\n"
+                  + "    return \"Level"
+                  + i
+                  + ":\" + super.describe() + weight"
+                  + (i % 5)
+                  + "(null);\n"
+                  + "  }\n\n"
+                  + "  @Override\n"
+                  + "  public int depth() {\n"
+                  + "    return super.depth() + 1;\n"
+                  + "  }\n"
+                  + "}\n"));
+    }
+  }
+
+  private static final class StringSource extends SimpleJavaFileObject {
+    private final String content;
+
+    StringSource(String path, String content) {
+      super(URI.create("file:///" + path), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+  }
+
+  private BenchmarkCorpus() {}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterables.getOnlyElement;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.CompositeCodeTransformer;
+import com.google.errorprone.refaster.RefasterRuleBuilderScanner;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.TreePath;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures matching a Refaster block template against methods with long lists of statements.
+ *
+ * <p>The template matches two consecutive statements, so it is unified against every statement of
+ * every block, and the unifier is forked for each alternative. Every tenth statement of the corpus
+ * starts a match.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockTemplateBenchmark {
+
+  @Param({"100", "500"})
+  public int statementCount;
+
+  @Param({"10"})
+  public int methodCount;
+
+  private CompiledCorpus corpus;
+  private CodeTransformer transformer;
+
+  @Setup
+  public void setUp() {
+    corpus =
+        CompiledCorpus.compile(
+            ImmutableList.of(
+                BenchmarkCorpus.source("Statements", generateCorpus(methodCount, statementCount))));
+    transformer = CompositeCodeTransformer.compose(compileRule());
+  }
+
+  @Benchmark
+  public void apply(Blackhole blackhole) {
+    for (CompilationUnitTree compilationUnit : corpus.compilationUnits()) {
+      transformer.apply(new TreePath(compilationUnit), corpus.context(), blackhole::consume);
+    }
+  }
+
+  private static final String RULE =
+      "package bench;\n\n"
+          + "import com.google.errorprone.refaster.annotation.AfterTemplate;\n"
+          + "import com.google.errorprone.refaster.annotation.BeforeTemplate;\n"
+          + "import java.util.Collections;\n"
+          + "import java.util.List;\n\n"
+          + "public class AddTwice {\n"
+          + "  @BeforeTemplate\n"
+          + "  void before(List<String> list, String s) {\n"
+          + "    list.add(s);\n"
+          + "    list.add(s);\n"
+          + "  }\n\n"
+          + "  @AfterTemplate\n"
+          + "  void after(List<String> list, String s) {\n"
+          + "    list.addAll(Collections.nCopies(2, s));\n"
+          + "  }\n"
+          + "}\n";
+
+  private static Collection<? extends CodeTransformer> compileRule() {
+    CompiledCorpus rule =
+        CompiledCorpus.compile(ImmutableList.of(BenchmarkCorpus.source("AddTwice", RULE)));
+    ClassTree classTree =
+        (ClassTree) getOnlyElement(getOnlyElement(rule.compilationUnits()).getTypeDecls());
+    Collection<? extends CodeTransformer> rules =
+        RefasterRuleBuilderScanner.extractRules(classTree, rule.context());
+    checkState(!rules.isEmpty(), "expected a rule");
+    return rules;
+  }
+
+  private static String generateCorpus(int methodCount, int statementCount) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package bench;\n\n");
+    sb.append("import java.util.List;\n\n");
+    sb.append("public class Statements {\n");
+    for (int m = 0; m < methodCount; m++) {
+      sb.append("  void method").append(m).append("(List<String> list, String s) {\n");
+      for (int i = 0; i < statementCount; i++) {
+        switch (i % 10) {
+          case 0:
+          case 1:
+            sb.append("    list.add(s);\n");
+            break;
+          case 5:
+            sb.append("    if (list.isEmpty()) {\n");
+            sb.append("      list.add(\"").append(i).append("\");\n");
+            sb.append("      list.add(s);\n");
+            sb.append("    }\n");
+            break;
+          case 7:
+            sb.append("    int n").append(i).append(" = list.size();\n");
+            break;
+          default:
+            sb.append("    list.add(\"").append(i).append("\");\n");
+            break;
+        }
+      }
+      sb.append("  }\n");
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
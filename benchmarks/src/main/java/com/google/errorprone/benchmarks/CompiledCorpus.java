@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.ErrorProneOptions;
+import com.google.errorprone.SubContext;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.api.JavacTool;
+import com.sun.tools.javac.util.Context;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+
+/**
+ * Parsed and attributed compilation units, together with a {@link Context} that Error Prone can
+ * scan them in.
+ */
+public final class CompiledCorpus {
+
+  private final Context context;
+  private final ImmutableList<CompilationUnitTree> compilationUnits;
+
+  private CompiledCorpus(Context context, ImmutableList<CompilationUnitTree> compilationUnits) {
+    this.context = context;
+    this.compilationUnits = compilationUnits;
+  }
+
+  /** Parses and attributes {@code sources}, failing if they don't compile cleanly. */
+  public static CompiledCorpus compile(List<JavaFileObject> sources) {
+    return compile(sources, ErrorProneOptions.empty());
+  }
+
+  /** Parses and attributes {@code sources}, failing if they don't compile cleanly. */
+  public static CompiledCorpus compile(
+      List<JavaFileObject> sources, ErrorProneOptions errorProneOptions) {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavacTaskImpl task =
+        (JavacTaskImpl)
+            JavacTool.create()
+                .getTask(
+                    null,
+                    null,
+                    diagnostics,
+                    ImmutableList.of("-proc:none", "-XDshould-stop.at=FLOW"),
+                    null,
+                    sources);
+    ImmutableList<CompilationUnitTree> compilationUnits = ImmutableList.copyOf(task.parse());
+    task.analyze();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      checkState(diagnostic.getKind() != Diagnostic.Kind.ERROR, "%s", diagnostic);
+    }
+    Context context = new SubContext(task.getContext());
+    context.put(ErrorProneOptions.class, errorProneOptions);
+    return new CompiledCorpus(context, compilationUnits);
+  }
+
+  public Context context() {
+    return context;
+  }
+
+  public ImmutableList<CompilationUnitTree> compilationUnits() {
+    return compilationUnits;
+  }
+}
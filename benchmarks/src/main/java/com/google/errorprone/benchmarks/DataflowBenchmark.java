@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.benchmarks.BenchmarkCorpus.Shape;
+import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.ProcessingEnvironment;
+import org.checkerframework.shaded.dataflow.cfg.CFGBuilder;
+import org.checkerframework.shaded.dataflow.cfg.UnderlyingAST;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of building control flow graphs and of running nullness propagation over them.
+ *
+ * <p>{@code buildCfgs} builds the graph of every method in the corpus. {@code nullness} asks for
+ * the nullness of every returned expression and local variable initializer, which analyzes each
+ * method (or lambda) at most once per compilation unit, since later queries hit the dataflow cache.
+ * The cache lives for the rest of the compilation unit, so each invocation first analyzes an
+ * expression in a separate, trivial compilation unit to start from an empty cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataflowBenchmark {
+
+  @Param({"MIXED", "LARGE_FILE", "LAMBDAS", "HIERARCHY"})
+  public Shape shape;
+
+  @Param({"50"})
+  public int size;
+
+  private CompiledCorpus corpus;
+  private ProcessingEnvironment processingEnvironment;
+  private NullnessAnalysis nullnessAnalysis;
+  private ImmutableList<TreePath> methods;
+  private ImmutableList<TreePath> expressions;
+  private CompiledCorpus resetCorpus;
+  private TreePath resetExpression;
+
+  @Setup
+  public void setUp() {
+    corpus = CompiledCorpus.compile(BenchmarkCorpus.sources(shape, size));
+    processingEnvironment = JavacProcessingEnvironment.instance(corpus.context());
+    nullnessAnalysis = NullnessAnalysis.instance(corpus.context());
+    ImmutableList.Builder<TreePath> methods = ImmutableList.builder();
+    ImmutableList.Builder<TreePath> expressions = ImmutableList.builder();
+    for (CompilationUnitTree compilationUnit : corpus.compilationUnits()) {
+      collect(compilationUnit, methods, expressions);
+    }
+    this.methods = methods.build();
+    this.expressions = expressions.build();
+
+    resetCorpus =
+        CompiledCorpus.compile(
+            ImmutableList.of(
+                BenchmarkCorpus.source(
+                    "Reset", "package bench; class Reset { Object f() { return this; } }")));
+    ImmutableList.Builder<TreePath> resetExpressions = ImmutableList.builder();
+    collect(resetCorpus.compilationUnits().get(0), ImmutableList.builder(), resetExpressions);
+    resetExpression = resetExpressions.build().get(0);
+  }
+
+  @Benchmark
+  public void buildCfgs(Blackhole blackhole) {
+    for (TreePath method : methods) {
+      MethodTree methodTree = (MethodTree) method.getLeaf();
+      ClassTree classTree = (ClassTree) method.getParentPath().getLeaf();
+      blackhole.consume(
+          CFGBuilder.build(
+              method.getCompilationUnit(),
+              new UnderlyingAST.CFGMethod(methodTree, classTree),
+              false,
+              false,
+              processingEnvironment));
+    }
+  }
+
+  @Benchmark
+  public void nullness(Blackhole blackhole) {
+    blackhole.consume(nullnessAnalysis.getNullness(resetExpression, resetCorpus.context()));
+    for (TreePath expression : expressions) {
+      blackhole.consume(nullnessAnalysis.getNullness(expression, corpus.context()));
+    }
+  }
+
+  /**
+   * Collects the methods with bodies that are declared directly in a class, and the expressions
+   * whose nullness to compute.
+   */
+  private static void collect(
+      CompilationUnitTree compilationUnit,
+      ImmutableList.Builder<TreePath> methods,
+      ImmutableList.Builder<TreePath> expressions) {
+    new TreePathScanner<Void, Void>() {
+      @Override
+      public Void visitMethod(MethodTree tree, Void unused) {
+        if (tree.getBody() != null
+            && getCurrentPath().getParentPath().getLeaf() instanceof ClassTree) {
+          methods.add(getCurrentPath());
+        }
+        return super.visitMethod(tree, null);
+      }
+
+      @Override
+      public Void visitReturn(ReturnTree tree, Void unused) {
+        if (tree.getExpression() != null) {
+          expressions.add(new TreePath(getCurrentPath(), tree.getExpression()));
+        }
+        return super.visitReturn(tree, null);
+      }
+
+      @Override
+      public Void visitVariable(VariableTree tree, Void unused) {
+        if (tree.getInitializer() != null
+            && !(getCurrentPath().getParentPath().getLeaf() instanceof ClassTree)) {
+          expressions.add(new TreePath(getCurrentPath(), tree.getInitializer()));
+        }
+        return super.visitVariable(tree, null);
+      }
+    }.scan(compilationUnit, null);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.benchmarks.BenchmarkCorpus.Shape;
+import com.google.errorprone.scanner.BuiltInCheckerSuppliers;
+import com.google.errorprone.scanner.ErrorProneScanner;
+import com.google.errorprone.scanner.ErrorProneScannerTransformer;
+import com.google.errorprone.scanner.Scanner;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.TreePath;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of scanning a fixed corpus with {@link ErrorProneScanner}.
+ *
+ * <p>The {@code NONE} configuration has no checks enabled, so it measures the per-node overhead of
+ * the scanner itself (tree traversal, suppression tracking and dispatch).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorProneScannerBenchmark {
+
+  /** The set of checks to scan with. */
+  public enum Checks {
+    NONE {
+      @Override
+      Scanner scanner() {
+        return new ErrorProneScanner();
+      }
+    },
+    DEFAULT {
+      @Override
+      Scanner scanner() {
+        return BuiltInCheckerSuppliers.defaultChecks().get();
+      }
+    },
+    ALL {
+      @Override
+      Scanner scanner() {
+        return BuiltInCheckerSuppliers.allChecks().get();
+      }
+    };
+
+    abstract Scanner scanner();
+  }
+
+  @Param({"NONE", "DEFAULT", "ALL"})
+  public Checks checks;
+
+  @Param({"MIXED", "LARGE_FILE", "LAMBDAS", "HIERARCHY"})
+  public Shape shape;
+
+  @Param({"50"})
+  public int size;
+
+  private CompiledCorpus corpus;
+  private CodeTransformer transformer;
+
+  @Setup
+  public void setUp() {
+    corpus = CompiledCorpus.compile(BenchmarkCorpus.sources(shape, size));
+    transformer = ErrorProneScannerTransformer.create(checks.scanner());
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    for (CompilationUnitTree compilationUnit : corpus.compilationUnits()) {
+      transformer.apply(new TreePath(compilationUnit), corpus.context(), blackhole::consume);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.errorprone.apply.PatchFileDestination;
+import com.google.errorprone.apply.SourceFile;
+import com.google.errorprone.benchmarks.BenchmarkCorpus.Shape;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.fixes.Replacements;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of applying fixes to a single large file, both in place and as a patch.
+ *
+ * <p>The replacements are spread evenly through the file, renaming every {@code n}th occurrence of
+ * a local variable. Nothing is written to disk: the patch is only generated, since {@link
+ * PatchFileDestination} doesn't write anything until it's flushed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FixApplicationBenchmark {
+
+  private static final String TARGET = "result";
+
+  @Param({"10", "100", "1000"})
+  public int replacementCount;
+
+  @Param({"50"})
+  public int size;
+
+  private String source;
+  private Replacements replacements;
+  private PatchFileDestination patchFileDestination;
+
+  @Setup
+  public void setUp() {
+    try {
+      source =
+          BenchmarkCorpus.sources(Shape.LARGE_FILE, size)
+              .get(0)
+              .getCharContent(false)
+              .toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    List<Integer> occurrences = new ArrayList<>();
+    for (int i = source.indexOf(TARGET); i != -1; i = source.indexOf(TARGET, i + 1)) {
+      occurrences.add(i);
+    }
+    replacements = new Replacements();
+    int step = Math.max(1, occurrences.size() / replacementCount);
+    for (int i = 0; i < occurrences.size() && i / step < replacementCount; i += step) {
+      int start = occurrences.get(i);
+      replacements.add(Replacement.create(start, start + TARGET.length(), "renamed"));
+    }
+    Path root = Paths.get("/");
+    patchFileDestination = new PatchFileDestination(root, root, root.resolve("bench.patch"));
+  }
+
+  @Benchmark
+  public void applyInPlace(Blackhole blackhole) {
+    SourceFile sourceFile = new SourceFile("bench/GeneratedLarge.java", source);
+    sourceFile.makeReplacements(replacements);
+    blackhole.consume(sourceFile.getSourceText());
+  }
+
+  @Benchmark
+  public void generatePatch(Blackhole blackhole) {
+    patchFileDestination.writeFile(
+        new SourceFile("bench/GeneratedLarge.java", source), replacements.descending());
+    blackhole.consume(patchFileDestination);
+  }
+}
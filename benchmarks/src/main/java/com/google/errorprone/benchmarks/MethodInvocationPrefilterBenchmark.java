@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.benchmarks.BenchmarkCorpus.Shape;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.ClassNewInstance;
+import com.google.errorprone.bugpatterns.GetClassOnAnnotation;
+import com.google.errorprone.bugpatterns.IdentityHashMapBoxing;
+import com.google.errorprone.bugpatterns.InvalidTimeZoneID;
+import com.google.errorprone.bugpatterns.MathRoundIntLong;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.scanner.ErrorProneScanner;
+import com.google.errorprone.scanner.ErrorProneScannerTransformer;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.util.TreePath;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of dispatching method invocations to the checks that declare a {@link
+ * MethodInvocationTreeMatcher#methodInvocationPrefilter}, with and without the prefilter.
+ *
+ * <p>Without it, the same checks are wrapped so that they're called for every method invocation,
+ * and have to reject the ones they aren't interested in themselves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodInvocationPrefilterBenchmark {
+
+  @Param({"true", "false"})
+  public boolean prefilter;
+
+  @Param({"MIXED", "LARGE_FILE", "LAMBDAS", "HIERARCHY"})
+  public Shape shape;
+
+  @Param({"50"})
+  public int size;
+
+  private CompiledCorpus corpus;
+  private CodeTransformer transformer;
+
+  @Setup
+  public void setUp() {
+    corpus = CompiledCorpus.compile(BenchmarkCorpus.sources(shape, size));
+    ImmutableList<BugChecker> checkers =
+        prefilter
+            ? ImmutableList.of(
+                new ClassNewInstance(),
+                new GetClassOnAnnotation(),
+                new IdentityHashMapBoxing(),
+                new InvalidTimeZoneID(),
+                new MathRoundIntLong())
+            : ImmutableList.of(
+                new UnfilteredClassNewInstance(),
+                new UnfilteredGetClassOnAnnotation(),
+                new UnfilteredIdentityHashMapBoxing(),
+                new UnfilteredInvalidTimeZoneID(),
+                new UnfilteredMathRoundIntLong());
+    transformer = ErrorProneScannerTransformer.create(new ErrorProneScanner(checkers));
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    for (CompilationUnitTree compilationUnit : corpus.compilationUnits()) {
+      transformer.apply(new TreePath(compilationUnit), corpus.context(), blackhole::consume);
+    }
+  }
+
+  /**
+   * Calls a check for every method invocation, by hiding its prefilter. Each subclass needs its own
+   * {@link BugPattern} so that the scanner can tell them apart.
+   */
+  abstract static class Unfiltered extends BugChecker implements MethodInvocationTreeMatcher {
+    private final MethodInvocationTreeMatcher delegate;
+
+    Unfiltered(MethodInvocationTreeMatcher delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      return delegate.matchMethodInvocation(tree, state);
+    }
+  }
+
+  @BugPattern(name = "UnfilteredClassNewInstance", summary = "", severity = WARNING)
+  static final class UnfilteredClassNewInstance extends Unfiltered {
+    UnfilteredClassNewInstance() {
+      super(new ClassNewInstance());
+    }
+  }
+
+  @BugPattern(name = "UnfilteredGetClassOnAnnotation", summary = "", severity = WARNING)
+  static final class UnfilteredGetClassOnAnnotation extends Unfiltered {
+    UnfilteredGetClassOnAnnotation() {
+      super(new GetClassOnAnnotation());
+    }
+  }
+
+  @BugPattern(name = "UnfilteredIdentityHashMapBoxing", summary = "", severity = WARNING)
+  static final class UnfilteredIdentityHashMapBoxing extends Unfiltered {
+    UnfilteredIdentityHashMapBoxing() {
+      super(new IdentityHashMapBoxing());
+    }
+  }
+
+  @BugPattern(name = "UnfilteredInvalidTimeZoneID", summary = "", severity = WARNING)
+  static final class UnfilteredInvalidTimeZoneID extends Unfiltered {
+    UnfilteredInvalidTimeZoneID() {
+      super(new InvalidTimeZoneID());
+    }
+  }
+
+  @BugPattern(name = "UnfilteredMathRoundIntLong", summary = "", severity = WARNING)
+  static final class UnfilteredMathRoundIntLong extends Unfiltered {
+    UnfilteredMathRoundIntLong() {
+      super(new MathRoundIntLong());
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.CompositeCodeTransformer;
+import com.google.errorprone.refaster.RefasterRuleBuilderScanner;
+import com.google.errorprone.refaster.RefasterRuleSet;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.api.JavacTool;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how the cost of applying Refaster rules to a fixed corpus grows with the number of
+ * rules.
+ *
+ * <p>{@code SEPARATELY} applies each rule in its own scan, as a {@link CompositeCodeTransformer}
+ * does, so its cost grows linearly with the number of rules. {@code TOGETHER} applies them as a
+ * {@link RefasterRuleSet}, which only attempts to match the templates that could match each tree,
+ * so its cost grows with the number of rules that are relevant to the corpus.
+ *
+ * <p>A few of the generated rules rewrite methods that the corpus invokes, and each of the others
+ * rewrites invocations of a different method that the corpus never invokes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefasterBenchmark {
+
+  /** How the rules are combined. */
+  public enum Combination {
+    SEPARATELY {
+      @Override
+      CodeTransformer combine(List<CodeTransformer> rules) {
+        return CompositeCodeTransformer.compose(rules);
+      }
+    },
+    TOGETHER {
+      @Override
+      CodeTransformer combine(List<CodeTransformer> rules) {
+        return RefasterRuleSet.compose(rules);
+      }
+    };
+
+    abstract CodeTransformer combine(List<CodeTransformer> rules);
+  }
+
+  @Param({"SEPARATELY", "TOGETHER"})
+  public Combination combination;
+
+  @Param({"10", "100", "1000"})
+  public int ruleCount;
+
+  @Param({"20"})
+  public int classCount;
+
+  private CompiledCorpus corpus;
+  private CodeTransformer transformer;
+
+  @Setup
+  public void setUp() {
+    corpus = CompiledCorpus.compile(BenchmarkCorpus.sources(classCount));
+    transformer = combination.combine(compileRules(ruleCount));
+  }
+
+  @Benchmark
+  public void apply(Blackhole blackhole) {
+    for (CompilationUnitTree compilationUnit : corpus.compilationUnits()) {
+      transformer.apply(new TreePath(compilationUnit), corpus.context(), blackhole::consume);
+    }
+  }
+
+  /**
+   * Rewrites of {@code String} methods that the corpus invokes, as the return type, the
+   * before-template expression, and the after-template expression.
+   */
+  private static final ImmutableList<String[]> CORPUS_REWRITES =
+      ImmutableList.of(
+          new String[] {"boolean", "s.isEmpty()", "s.length() == 0"},
+          new String[] {"int", "s.length()", "s.toCharArray().length"},
+          new String[] {"String", "s.trim()", "s.isEmpty() ? s : s.trim()"},
+          new String[] {"String", "s.toString()", "s"});
+
+  private static List<CodeTransformer> compileRules(int ruleCount) {
+    StringBuilder api = new StringBuilder();
+    api.append("package rules;\n\n");
+    api.append("public final class Api {\n");
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 0; i < ruleCount; i++) {
+      String[] rewrite;
+      if (i < CORPUS_REWRITES.size()) {
+        rewrite = CORPUS_REWRITES.get(i);
+      } else {
+        api.append("  public static String method").append(i).append("(String s) {\n");
+        api.append("    return s;\n");
+        api.append("  }\n");
+        rewrite = new String[] {"String", "Api.method" + i + "(s)", "s"};
+      }
+      sources.add(
+          new StringSource(
+              "rules/Rule" + i + ".java",
+              "package rules;\n\n"
+                  + "import com.google.errorprone.refaster.annotation.AfterTemplate;\n"
+                  + "import com.google.errorprone.refaster.annotation.BeforeTemplate;\n\n"
+                  + "public class Rule"
+                  + i
+                  + " {\n"
+                  + "  @BeforeTemplate\n"
+                  + "  "
+                  + rewrite[0]
+                  + " before(String s) {\n"
+                  + "    return "
+                  + rewrite[1]
+                  + ";\n"
+                  + "  }\n\n"
+                  + "  @AfterTemplate\n"
+                  + "  "
+                  + rewrite[0]
+                  + " after(String s) {\n"
+                  + "    return "
+                  + rewrite[2]
+                  + ";\n"
+                  + "  }\n"
+                  + "}\n"));
+    }
+    api.append("}\n");
+    sources.add(new StringSource("rules/Api.java", api.toString()));
+
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavacTaskImpl task =
+        (JavacTaskImpl)
+            JavacTool.create()
+                .getTask(
+                    null,
+                    null,
+                    diagnostics,
+                    ImmutableList.of("-proc:none", "-XDshould-stop.at=FLOW"),
+                    null,
+                    sources);
+    Iterable<? extends CompilationUnitTree> compilationUnits = task.parse();
+    task.analyze();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      checkState(diagnostic.getKind() != Diagnostic.Kind.ERROR, "%s", diagnostic);
+    }
+    List<CodeTransformer> rules = new ArrayList<>();
+    for (CompilationUnitTree compilationUnit : compilationUnits) {
+      for (Tree tree : compilationUnit.getTypeDecls()) {
+        ClassTree classTree = (ClassTree) tree;
+        if (classTree.getSimpleName().toString().startsWith("Rule")) {
+          rules.addAll(RefasterRuleBuilderScanner.extractRules(classTree, task.getContext()));
+        }
+      }
+    }
+    checkState(rules.size() == ruleCount, "expected %s rules, got %s", ruleCount, rules.size());
+    return rules;
+  }
+
+  private static final class StringSource extends SimpleJavaFileObject {
+    private final String content;
+
+    StringSource(String path, String content) {
+      super(URI.create("file:///" + path), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two sets of JMH results in CSV format (as written by {@code -rf csv}), and fails if any
+ * benchmark got slower than the baseline by more than a threshold.
+ *
+ * <p>Usage: {@code RegressionCheck <baseline.csv> <current.csv> [threshold]}, where the threshold
+ * is the allowed relative slowdown, {@code 0.10} by default. A benchmark only counts as a
+ * regression if the difference is also larger than the combined error of the two results, so that
+ * noisy benchmarks don't fail the check. Benchmarks that are only in one of the files are ignored.
+ */
+public final class RegressionCheck {
+
+  private static final double DEFAULT_THRESHOLD = 0.10;
+
+  /** A single benchmark result: its score and the error of the score. */
+  @VisibleForTesting
+  static final class Result {
+    final String mode;
+    final double score;
+    final double error;
+    final String unit;
+
+    Result(String mode, double score, double error, String unit) {
+      this.mode = mode;
+      this.score = score;
+      this.error = error;
+      this.unit = unit;
+    }
+
+    /** Returns true if lower scores are better, i.e. if the score is a time rather than a rate. */
+    boolean lowerIsBetter() {
+      return !mode.equals("thrpt");
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("usage: RegressionCheck <baseline.csv> <current.csv> [threshold]");
+      System.exit(2);
+    }
+    double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+    ImmutableMap<String, Result> baseline =
+        parse(Files.readAllLines(Paths.get(args[0]), UTF_8));
+    ImmutableMap<String, Result> current = parse(Files.readAllLines(Paths.get(args[1]), UTF_8));
+    ImmutableList<String> regressions = regressions(baseline, current, threshold);
+    for (String regression : regressions) {
+      System.out.println(regression);
+    }
+    if (!regressions.isEmpty()) {
+      System.out.printf(
+          "%d benchmark(s) regressed by more than %.0f%%%n", regressions.size(), threshold * 100);
+      System.exit(1);
+    }
+    System.out.println("No regressions");
+  }
+
+  /** Parses JMH's CSV output into results, keyed by the benchmark's name, mode and parameters. */
+  @VisibleForTesting
+  static ImmutableMap<String, Result> parse(List<String> lines) {
+    checkArgument(!lines.isEmpty(), "no results");
+    List<String> header = splitRow(lines.get(0));
+    int benchmark = header.indexOf("Benchmark");
+    int mode = header.indexOf("Mode");
+    int score = header.indexOf("Score");
+    int unit = header.indexOf("Unit");
+    int error = -1;
+    for (int i = 0; i < header.size(); i++) {
+      if (header.get(i).startsWith("Score Error")) {
+        error = i;
+      }
+    }
+    checkArgument(
+        benchmark != -1 && mode != -1 && score != -1 && error != -1 && unit != -1,
+        "not a JMH CSV file: %s",
+        lines.get(0));
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (String line : lines.subList(1, lines.size())) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      List<String> row = splitRow(line);
+      StringBuilder key = new StringBuilder(row.get(benchmark)).append(' ').append(row.get(mode));
+      for (int i = 0; i < header.size(); i++) {
+        if (header.get(i).startsWith("Param: ") && !row.get(i).isEmpty()) {
+          key.append(' ').append(header.get(i).substring("Param: ".length()));
+          key.append('=').append(row.get(i));
+        }
+      }
+      results.put(
+          key.toString(),
+          new Result(
+              row.get(mode),
+              parseNumber(row.get(score)),
+              parseNumber(row.get(error)),
+              row.get(unit)));
+    }
+    return ImmutableMap.copyOf(results);
+  }
+
+  /** Returns a description of every benchmark in {@code current} that regressed. */
+  @VisibleForTesting
+  static ImmutableList<String> regressions(
+      Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+    ImmutableList.Builder<String> regressions = ImmutableList.builder();
+    for (Map.Entry<String, Result> entry : current.entrySet()) {
+      Result before = baseline.get(entry.getKey());
+      Result after = entry.getValue();
+      if (before == null || !before.unit.equals(after.unit)) {
+        continue;
+      }
+      double slowdown =
+          before.lowerIsBetter()
+              ? (after.score - before.score) / before.score
+              : (before.score - after.score) / before.score;
+      double noise = nonNegative(before.error) + nonNegative(after.error);
+      if (slowdown > threshold && Math.abs(after.score - before.score) > noise) {
+        regressions.add(
+            String.format(
+                Locale.ROOT,
+                "%s: %.3f -> %.3f %s (%+.1f%%)",
+                entry.getKey(),
+                before.score,
+                after.score,
+                after.unit,
+                slowdown * 100));
+      }
+    }
+    return regressions.build();
+  }
+
+  /** Returns the size of an error, which JMH reports as NaN if there were too few samples. */
+  private static double nonNegative(double error) {
+    return Double.isNaN(error) ? 0 : Math.abs(error);
+  }
+
+  private static double parseNumber(String value) {
+    return value.isEmpty() || value.equals("NaN") ? Double.NaN : Double.parseDouble(value);
+  }
+
+  /** Splits a CSV row, removing the quotes around quoted fields. */
+  private static List<String> splitRow(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '"') {
+        if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = !quoted;
+        }
+      } else if (c == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  private RegressionCheck() {}
+}
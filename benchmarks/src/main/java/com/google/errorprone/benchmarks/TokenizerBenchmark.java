@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.benchmarks.BenchmarkCorpus.Shape;
+import com.google.errorprone.util.ErrorProneTokens;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaFileObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of re-tokenizing source code with {@link ErrorProneTokens}, which checks that
+ * look at comments or at the exact source of a tree do for the trees they're interested in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+
+  @Param({"MIXED", "LARGE_FILE", "LAMBDAS", "HIERARCHY"})
+  public Shape shape;
+
+  @Param({"50"})
+  public int size;
+
+  private CompiledCorpus corpus;
+  private ImmutableList<String> sources;
+
+  @Setup
+  public void setUp() {
+    ImmutableList<JavaFileObject> files = BenchmarkCorpus.sources(shape, size);
+    corpus = CompiledCorpus.compile(files);
+    ImmutableList.Builder<String> sources = ImmutableList.builder();
+    for (JavaFileObject file : files) {
+      try {
+        sources.add(file.getCharContent(false).toString());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    this.sources = sources.build();
+  }
+
+  @Benchmark
+  public void tokenize(Blackhole blackhole) {
+    for (String source : sources) {
+      blackhole.consume(ErrorProneTokens.getTokens(source, corpus.context()));
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.benchmarks.RegressionCheck.Result;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link RegressionCheck}Test */
+@RunWith(JUnit4.class)
+public class RegressionCheckTest {
+
+  private static final String HEADER =
+      "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\","
+          + "\"Unit\",\"Param: shape\",\"Param: size\"";
+
+  @Test
+  public void parse() {
+    ImmutableMap<String, Result> results =
+        RegressionCheck.parse(
+            ImmutableList.of(
+                HEADER,
+                "\"bench.DataflowBenchmark.nullness\",\"avgt\",1,5,12.5,0.5,\"ms/op\",MIXED,50",
+                "\"bench.FixApplicationBenchmark.apply\",\"avgt\",1,5,1.25,NaN,\"ms/op\",,50"));
+    assertThat(results.keySet())
+        .containsExactly(
+            "bench.DataflowBenchmark.nullness avgt shape=MIXED size=50",
+            "bench.FixApplicationBenchmark.apply avgt size=50")
+        .inOrder();
+    Result nullness = results.get("bench.DataflowBenchmark.nullness avgt shape=MIXED size=50");
+    assertThat(nullness.score).isEqualTo(12.5);
+    assertThat(nullness.error).isEqualTo(0.5);
+    assertThat(nullness.unit).isEqualTo("ms/op");
+  }
+
+  @Test
+  public void slowerIsRegression() {
+    assertThat(
+            RegressionCheck.regressions(
+                ImmutableMap.of("b avgt", new Result("avgt", 10, 0.1, "ms/op")),
+                ImmutableMap.of("b avgt", new Result("avgt", 12, 0.1, "ms/op")),
+                0.10))
+        .containsExactly("b avgt: 10.000 -> 12.000 ms/op (+20.0%)");
+  }
+
+  @Test
+  public void fasterIsNotRegression() {
+    assertThat(
+            RegressionCheck.regressions(
+                ImmutableMap.of("b avgt", new Result("avgt", 10, 0.1, "ms/op")),
+                ImmutableMap.of("b avgt", new Result("avgt", 5, 0.1, "ms/op")),
+                0.10))
+        .isEmpty();
+  }
+
+  @Test
+  public void lowerThroughputIsRegression() {
+    assertThat(
+            RegressionCheck.regressions(
+                ImmutableMap.of("b thrpt", new Result("thrpt", 100, 1, "ops/s")),
+                ImmutableMap.of("b thrpt", new Result("thrpt", 50, 1, "ops/s")),
+                0.10))
+        .hasSize(1);
+  }
+
+  @Test
+  public void withinErrorIsNotRegression() {
+    assertThat(
+            RegressionCheck.regressions(
+                ImmutableMap.of("b avgt", new Result("avgt", 10, 2, "ms/op")),
+                ImmutableMap.of("b avgt", new Result("avgt", 12, 2, "ms/op")),
+                0.10))
+        .isEmpty();
+  }
+
+  @Test
+  public void newBenchmarkIsIgnored() {
+    assertThat(
+            RegressionCheck.regressions(
+                ImmutableMap.of(),
+                ImmutableMap.of("b avgt", new Result("avgt", 12, 0.1, "ms/op")),
+                0.10))
+        .isEmpty();
+  }
+}
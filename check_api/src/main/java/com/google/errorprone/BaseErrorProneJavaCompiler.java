@@ -16,11 +16,14 @@
 
 package com.google.errorprone;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.StandardSystemProperty.JAVA_SPECIFICATION_VERSION;
 
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.RefactoringCollection.RefactoringResult;
+import com.google.errorprone.RefactoringCollection.RefactoringResultType;
 import com.google.errorprone.scanner.ErrorProneScannerTransformer;
+import com.google.errorprone.scanner.ScannerCache;
 import com.google.errorprone.scanner.ScannerSupplier;
 import com.sun.source.util.TaskEvent;
 import com.sun.source.util.TaskEvent.Kind;
@@ -31,6 +34,7 @@ import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.JavacMessages;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.Log.WriterKind;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -55,14 +59,31 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
 
   private final JavaCompiler javacTool;
   private final ScannerSupplier scannerSupplier;
+  @Nullable private final ScannerCache scannerCache;
 
   public BaseErrorProneJavaCompiler(ScannerSupplier scannerSupplier) {
     this(JavacTool.create(), scannerSupplier);
   }
 
   BaseErrorProneJavaCompiler(JavaCompiler javacTool, ScannerSupplier scannerSupplier) {
+    this(javacTool, scannerSupplier, null);
+  }
+
+  /**
+   * Creates a compiler whose tasks reuse the checks instantiated by earlier tasks with the same
+   * configuration, for use by long-lived processes that run many compilations.
+   */
+  public BaseErrorProneJavaCompiler(ScannerSupplier scannerSupplier, ScannerCache scannerCache) {
+    this(JavacTool.create(), scannerSupplier, checkNotNull(scannerCache));
+  }
+
+  BaseErrorProneJavaCompiler(
+      JavaCompiler javacTool,
+      ScannerSupplier scannerSupplier,
+      @Nullable ScannerCache scannerCache) {
     this.javacTool = javacTool;
     this.scannerSupplier = scannerSupplier;
+    this.scannerCache = scannerCache;
   }
 
   @Override
@@ -83,6 +104,9 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
             javacTool.getTask(
                 out, fileManager, diagnosticListener, javacOpts, classes, compilationUnits);
     setupMessageBundle(task.getContext());
+    if (scannerCache != null) {
+      task.getContext().put(ScannerCache.class, scannerCache);
+    }
     RefactoringCollection[] refactoringCollection = {null};
     task.addTaskListener(
         createAnalyzer(
@@ -224,7 +248,7 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
                   if (!namedCheckers.isEmpty()) {
                     toUse = toUse.filter(bci -> namedCheckers.contains(bci.canonicalName()));
                   }
-                  return ErrorProneScannerTransformer.create(toUse.get());
+                  return ErrorProneScannerTransformer.create(ScannerCache.scanner(toUse, context));
                 })
             .get();
 
@@ -247,22 +271,30 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
 
     @Override
     public void finished(TaskEvent event) {
-      if (event.getKind() != Kind.GENERATE) {
-        return;
-      }
-      RefactoringResult refactoringResult;
-      try {
-        refactoringResult = refactoringCollection.applyChanges(event.getSourceFile().toUri());
-      } catch (Exception e) {
-        PrintWriter out = Log.instance(context).getWriter(WriterKind.ERROR);
-        out.println(e.getMessage());
-        out.flush();
+      if (event.getKind() == Kind.COMPILATION) {
+        ImmutableList<RefactoringResult> refactoringResults;
+        try {
+          refactoringResults = refactoringCollection.flush();
+        } catch (IOException e) {
+          PrintWriter out = Log.instance(context).getWriter(WriterKind.ERROR);
+          out.println("Failed to apply refactoring changes: " + e.getMessage());
+          out.flush();
+          return;
+        }
+        for (RefactoringResult refactoringResult : refactoringResults) {
+          PrintWriter out =
+              Log.instance(context)
+                  .getWriter(
+                      refactoringResult.type() == RefactoringResultType.FAILED
+                          ? WriterKind.ERROR
+                          : WriterKind.NOTICE);
+          out.println(refactoringResult.message());
+          out.flush();
+        }
         return;
       }
-      if (refactoringResult.type() == RefactoringCollection.RefactoringResultType.CHANGED) {
-        PrintWriter out = Log.instance(context).getWriter(WriterKind.NOTICE);
-        out.println(refactoringResult.message());
-        out.flush();
+      if (event.getKind() == Kind.GENERATE) {
+        refactoringCollection.applyChanges(event.getSourceFile().toUri());
       }
     }
   }
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.BugPattern.LinkType;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.bugpatterns.BugChecker;
 import java.io.Serializable;
@@ -37,8 +38,27 @@ import javax.annotation.Nullable;
  */
 public class BugCheckerInfo implements Serializable {
 
-  /** The BugChecker class. */
-  private final Class<? extends BugChecker> checker;
+  /**
+   * Creates instances of a check without reflection, for checks whose metadata was collected when
+   * they were compiled.
+   *
+   * <p>Implementations return {@link Object} rather than {@link BugChecker} so that the code that
+   * constructs checks can be verified without loading the classes of checks that are never
+   * constructed.
+   */
+  public interface Factory extends Serializable {
+    /** Returns a new instance of the check, which is a {@link BugChecker}. */
+    Object create(ErrorProneFlags flags);
+  }
+
+  /** The binary name of the BugChecker class. */
+  private final String checkerClassName;
+
+  /** The BugChecker class, or null if it hasn't been loaded yet. */
+  @Nullable private volatile Class<? extends BugChecker> checker;
+
+  /** Creates instances of the check, or null if they are created reflectively. */
+  @Nullable private final Factory factory;
 
   /**
    * The canonical name of this check. Corresponds to the {@code name} attribute from its {@code
@@ -84,6 +104,13 @@ public class BugCheckerInfo implements Serializable {
   /** True if the check can be disabled using command-line flags. */
   private final boolean disableable;
 
+  /**
+   * The canonical names of the types that a compilation unit has to refer to for this check to
+   * report anything in it. Corresponds to the {@code requiredTypes} attribute from its {@code
+   * BugPattern}.
+   */
+  private final ImmutableSet<String> requiredTypes;
+
   public static BugCheckerInfo create(Class<? extends BugChecker> checker) {
     BugPattern pattern =
         checkNotNull(
@@ -102,20 +129,64 @@ public class BugCheckerInfo implements Serializable {
     return new BugCheckerInfo(checker, pattern);
   }
 
+  /**
+   * Creates a {@link BugCheckerInfo} from metadata that was read from the check's {@code
+   * BugPattern} annotation at compile time, without loading the check's class.
+   *
+   * <p>The remaining parameters are the values of the corresponding {@code BugPattern}
+   * attributes, which must already have been validated.
+   *
+   * @param checkerClassName the binary name of the BugChecker class
+   * @param factory creates instances of the BugChecker class
+   */
+  public static BugCheckerInfo create(
+      String checkerClassName,
+      Factory factory,
+      String name,
+      ImmutableSet<String> altNames,
+      String summary,
+      SeverityLevel severity,
+      LinkType linkType,
+      String link,
+      ImmutableSet<Class<? extends Annotation>> suppressionAnnotations,
+      ImmutableSet<String> tags,
+      boolean disableable,
+      ImmutableSet<String> requiredTypes) {
+    return new BugCheckerInfo(
+        checkerClassName,
+        null,
+        checkNotNull(factory),
+        name,
+        ImmutableSet.<String>builder().add(name).addAll(altNames).build(),
+        summary,
+        severity,
+        createLinkUrl(name, linkType, link),
+        suppressionAnnotations.stream().anyMatch(a -> isSuppressWarnings(a)),
+        suppressionAnnotations.stream()
+            .filter(a -> !isSuppressWarnings(a))
+            .collect(toImmutableSet()),
+        tags,
+        disableable,
+        requiredTypes);
+  }
+
   private BugCheckerInfo(Class<? extends BugChecker> checker, BugPattern pattern) {
     this(
+        checker.getName(),
         checker,
+        null,
         pattern.name(),
         ImmutableSet.<String>builder().add(pattern.name()).add(pattern.altNames()).build(),
         pattern.summary(),
         pattern.severity(),
-        createLinkUrl(pattern),
+        createLinkUrl(pattern.name(), pattern.linkType(), pattern.link()),
         Stream.of(pattern.suppressionAnnotations()).anyMatch(a -> isSuppressWarnings(a)),
         Stream.of(pattern.suppressionAnnotations())
             .filter(a -> !isSuppressWarnings(a))
             .collect(toImmutableSet()),
         ImmutableSet.copyOf(pattern.tags()),
-        pattern.disableable());
+        pattern.disableable(),
+        ImmutableSet.copyOf(pattern.requiredTypes()));
   }
 
   private static boolean isSuppressWarnings(Class<? extends Annotation> annotation) {
@@ -123,7 +194,9 @@ public class BugCheckerInfo implements Serializable {
   }
 
   private BugCheckerInfo(
-      Class<? extends BugChecker> checker,
+      String checkerClassName,
+      @Nullable Class<? extends BugChecker> checker,
+      @Nullable Factory factory,
       String canonicalName,
       ImmutableSet<String> allNames,
       String message,
@@ -132,8 +205,11 @@ public class BugCheckerInfo implements Serializable {
       boolean supportsSuppressWarnings,
       Set<Class<? extends Annotation>> customSuppressionAnnotations,
       ImmutableSet<String> tags,
-      boolean disableable) {
+      boolean disableable,
+      ImmutableSet<String> requiredTypes) {
+    this.checkerClassName = checkerClassName;
     this.checker = checker;
+    this.factory = factory;
     this.canonicalName = canonicalName;
     this.allNames = allNames;
     this.message = message;
@@ -143,6 +219,7 @@ public class BugCheckerInfo implements Serializable {
     this.customSuppressionAnnotations = customSuppressionAnnotations;
     this.tags = tags;
     this.disableable = disableable;
+    this.requiredTypes = requiredTypes;
   }
 
   /**
@@ -155,7 +232,9 @@ public class BugCheckerInfo implements Serializable {
       return this;
     }
     return new BugCheckerInfo(
+        checkerClassName,
         checker,
+        factory,
         canonicalName,
         allNames,
         message,
@@ -164,27 +243,27 @@ public class BugCheckerInfo implements Serializable {
         supportsSuppressWarnings,
         customSuppressionAnnotations,
         tags,
-        disableable);
+        disableable,
+        requiredTypes);
   }
 
   @Nullable
-  private static String createLinkUrl(BugPattern pattern) {
-    switch (pattern.linkType()) {
+  private static String createLinkUrl(String name, LinkType linkType, String link) {
+    switch (linkType) {
       case AUTOGENERATED:
-        return String.format("https://errorprone.info/bugpattern/%s", pattern.name());
+        return String.format("https://errorprone.info/bugpattern/%s", name);
       case CUSTOM:
         // annotation.link() must be provided.
-        if (pattern.link().isEmpty()) {
+        if (link.isEmpty()) {
           throw new IllegalStateException(
               "If linkType element of @BugPattern is CUSTOM, "
                   + "a link element must also be provided.");
         }
-        return pattern.link();
+        return link;
       case NONE:
         return null;
     }
-    throw new AssertionError(
-        "Unexpected value for linkType element of @BugPattern: " + pattern.linkType());
+    throw new AssertionError("Unexpected value for linkType element of @BugPattern: " + linkType);
   }
 
   public String canonicalName() {
@@ -227,13 +306,42 @@ public class BugCheckerInfo implements Serializable {
     return tags;
   }
 
+  public ImmutableSet<String> requiredTypes() {
+    return requiredTypes;
+  }
+
+  /** Returns the BugChecker class, loading it if necessary. */
   public Class<? extends BugChecker> checkerClass() {
-    return checker;
+    Class<? extends BugChecker> result = checker;
+    if (result == null) {
+      ClassLoader loader = factory.getClass().getClassLoader();
+      try {
+        result = Class.forName(checkerClassName, false, loader).asSubclass(BugChecker.class);
+      } catch (ClassNotFoundException e) {
+        throw new LinkageError("Could not load BugChecker " + checkerClassName, e);
+      }
+      checker = result;
+    }
+    return result;
+  }
+
+  /** Returns the binary name of the BugChecker class, without loading it. */
+  public String checkerClassName() {
+    return checkerClassName;
+  }
+
+  /**
+   * Returns a factory for instances of the check, or {@code null} if they have to be created
+   * reflectively from {@link #checkerClass}.
+   */
+  @Nullable
+  public Factory factory() {
+    return factory;
   }
 
   @Override
   public int hashCode() {
-    return checker.hashCode();
+    return checkerClassName.hashCode();
   }
 
   @Override
@@ -241,7 +349,7 @@ public class BugCheckerInfo implements Serializable {
     if (!(o instanceof BugCheckerInfo)) {
       return false;
     }
-    return checker.equals(((BugCheckerInfo) o).checker);
+    return checkerClassName.equals(((BugCheckerInfo) o).checkerClassName);
   }
 
   @Override
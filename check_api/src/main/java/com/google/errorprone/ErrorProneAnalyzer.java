@@ -22,8 +22,12 @@ import static com.google.common.base.Verify.verify;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.hash.HashCode;
 import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.ErrorProneTimings.Span;
+import com.google.errorprone.matchers.Description;
 import com.google.errorprone.scanner.ErrorProneScannerTransformer;
+import com.google.errorprone.scanner.ScannerCache;
 import com.google.errorprone.scanner.ScannerSupplier;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.CompilationUnitTree;
@@ -40,7 +44,11 @@ import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.PropagatedException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 import javax.tools.JavaFileObject;
@@ -53,30 +61,42 @@ public class ErrorProneAnalyzer implements TaskListener {
   private final Set<Tree> seen = new HashSet<>();
 
   private final Supplier<CodeTransformer> transformer;
+  private final Supplier<Optional<IncrementalAnalysisCache>> incrementalCache;
   private final ErrorProneOptions errorProneOptions;
   private final Context context;
   private final DescriptionListener.Factory descriptionListenerFactory;
 
   public static ErrorProneAnalyzer createByScanningForPlugins(
       ScannerSupplier scannerSupplier, ErrorProneOptions errorProneOptions, Context context) {
+    Supplier<ScannerSupplier> withPlugins =
+        scansPlugins(scannerSupplier, errorProneOptions, context);
+    Path incrementalCacheDirectory = errorProneOptions.getIncrementalCacheDirectory();
     return new ErrorProneAnalyzer(
-        scansPlugins(scannerSupplier, errorProneOptions, context),
+        Suppliers.memoize(
+            () ->
+                ErrorProneScannerTransformer.create(
+                    ScannerCache.scanner(withPlugins.get(), context))),
+        incrementalCacheDirectory == null
+            ? Suppliers.ofInstance(Optional.empty())
+            : Suppliers.memoize(
+                () ->
+                    Optional.of(
+                        IncrementalAnalysisCache.create(
+                            incrementalCacheDirectory, withPlugins.get(), errorProneOptions))),
         errorProneOptions,
         context,
         JavacErrorDescriptionListener.provider(context));
   }
 
-  private static Supplier<CodeTransformer> scansPlugins(
+  private static Supplier<ScannerSupplier> scansPlugins(
       ScannerSupplier scannerSupplier, ErrorProneOptions errorProneOptions, Context context) {
     return Suppliers.memoize(
         () -> {
           // we can't load plugins from the processorpath until the filemanager has been
           // initialized, so do it lazily
           try {
-            return ErrorProneScannerTransformer.create(
-                ErrorPronePlugins.loadPlugins(scannerSupplier, context)
-                    .applyOverrides(errorProneOptions)
-                    .get());
+            return ErrorPronePlugins.loadPlugins(scannerSupplier, context)
+                .applyOverrides(errorProneOptions);
           } catch (InvalidCommandLineOptionException e) {
             throw new PropagatedException(e);
           }
@@ -90,6 +110,7 @@ public class ErrorProneAnalyzer implements TaskListener {
       DescriptionListener.Factory descriptionListenerFactory) {
     return new ErrorProneAnalyzer(
         Suppliers.ofInstance(codeTransformer),
+        Suppliers.ofInstance(Optional.empty()),
         errorProneOptions,
         context,
         descriptionListenerFactory);
@@ -97,22 +118,34 @@ public class ErrorProneAnalyzer implements TaskListener {
 
   private ErrorProneAnalyzer(
       Supplier<CodeTransformer> transformer,
+      Supplier<Optional<IncrementalAnalysisCache>> incrementalCache,
       ErrorProneOptions errorProneOptions,
       Context context,
       DescriptionListener.Factory descriptionListenerFactory) {
     this.transformer = checkNotNull(transformer);
+    this.incrementalCache = checkNotNull(incrementalCache);
     this.errorProneOptions = checkNotNull(errorProneOptions);
     this.descriptionListenerFactory = checkNotNull(descriptionListenerFactory);
 
     Context errorProneContext = new SubContext(context);
     errorProneContext.put(ErrorProneOptions.class, errorProneOptions);
     this.context = errorProneContext;
+    if (errorProneOptions.getProfileOutput() != null) {
+      ErrorProneTimings.instance(errorProneContext).enableProfiling();
+    }
   }
 
   private int errorProneErrors = 0;
 
   @Override
   public void finished(TaskEvent taskEvent) {
+    if (taskEvent.getKind() == Kind.COMPILATION) {
+      Path profileOutput = errorProneOptions.getProfileOutput();
+      if (profileOutput != null) {
+        ErrorProneTimings.instance(context).writeProfile(profileOutput);
+      }
+      return;
+    }
     if (taskEvent.getKind() != Kind.ANALYZE) {
       return;
     }
@@ -145,11 +178,11 @@ public class ErrorProneAnalyzer implements TaskListener {
         // We only get TaskEvents for compilation units if they contain no package declarations
         // (e.g. package-info.java files).  In this case it's safe to analyze the
         // CompilationUnitTree immediately.
-        transformer.get().apply(path, context, countingDescriptionListener);
+        analyze(path, compilation, countingDescriptionListener);
       } else if (finishedCompilation(path.getCompilationUnit())) {
         // Otherwise this TaskEvent is for a ClassTree, and we can scan the whole
         // CompilationUnitTree once we've seen all the enclosed classes.
-        transformer.get().apply(new TreePath(compilation), context, countingDescriptionListener);
+        analyze(new TreePath(compilation), compilation, countingDescriptionListener);
       }
     } catch (ErrorProneError e) {
       e.logFatalError(log, context);
@@ -174,6 +207,38 @@ public class ErrorProneAnalyzer implements TaskListener {
     }
   }
 
+  /**
+   * Scans the compilation unit, or replays its findings from the incremental cache if it and its
+   * dependencies haven't changed since it was last scanned.
+   */
+  private void analyze(
+      TreePath path, JCCompilationUnit compilation, DescriptionListener descriptionListener) {
+    try (Span unused = ErrorProneTimings.instance(context).compilationUnitSpan(compilation)) {
+      Optional<IncrementalAnalysisCache> cache = incrementalCache.get();
+      HashCode key = cache.isPresent() ? cache.get().key(compilation, context) : null;
+      if (key == null) {
+        transformer.get().apply(path, context, descriptionListener);
+        return;
+      }
+      List<Description> cached = cache.get().get(key, compilation);
+      if (cached != null) {
+        cached.forEach(descriptionListener::onDescribed);
+        return;
+      }
+      List<Description> descriptions = new ArrayList<>();
+      transformer
+          .get()
+          .apply(
+              path,
+              context,
+              d -> {
+                descriptions.add(d);
+                descriptionListener.onDescribed(d);
+              });
+      cache.get().put(key, descriptions, compilation);
+    }
+  }
+
   /** Returns true if the given source file should be excluded from analysis. */
   private boolean shouldExcludeSourceFile(CompilationUnitTree tree) {
     Pattern excludedPattern = errorProneOptions.getExcludedPattern();
@@ -26,10 +26,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.apply.ImportOrganizer;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
 import java.nio.file.FileSystems;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -50,6 +48,8 @@ public class ErrorProneOptions {
   private static final String PATCH_OUTPUT_LOCATION = "-XepPatchLocation:";
   private static final String PATCH_IMPORT_ORDER_PREFIX = "-XepPatchImportOrder:";
   private static final String EXCLUDED_PATHS_PREFIX = "-XepExcludedPaths:";
+  private static final String INCREMENTAL_CACHE_PREFIX = "-XepIncrementalCache:";
+  private static final String PROFILE_PREFIX = "-XepProfile:";
   private static final String IGNORE_LARGE_CODE_GENERATORS = "-XepIgnoreLargeCodeGenerators:";
 
   private static final String ERRORS_AS_WARNINGS_FLAG = "-XepAllErrorsAsWarnings";
@@ -70,6 +70,8 @@ public class ErrorProneOptions {
             || option.startsWith(PATCH_OUTPUT_LOCATION)
             || option.startsWith(PATCH_CHECKS_PREFIX)
             || option.startsWith(EXCLUDED_PATHS_PREFIX)
+            || option.startsWith(INCREMENTAL_CACHE_PREFIX)
+            || option.startsWith(PROFILE_PREFIX)
             || option.equals(IGNORE_UNKNOWN_CHECKS_FLAG)
             || option.equals(DISABLE_WARNINGS_IN_GENERATED_CODE_FLAG)
             || option.equals(ERRORS_AS_WARNINGS_FLAG)
@@ -166,6 +168,8 @@ public class ErrorProneOptions {
   private final ErrorProneFlags flags;
   private final PatchingOptions patchingOptions;
   private final Pattern excludedPattern;
+  private final Path incrementalCacheDirectory;
+  private final Path profileOutput;
   private final boolean ignoreSuppressionAnnotations;
   private final boolean ignoreLargeCodeGenerators;
 
@@ -182,6 +186,8 @@ public class ErrorProneOptions {
       ErrorProneFlags flags,
       PatchingOptions patchingOptions,
       Pattern excludedPattern,
+      Path incrementalCacheDirectory,
+      Path profileOutput,
       boolean ignoreSuppressionAnnotations,
       boolean ignoreLargeCodeGenerators) {
     this.severityMap = severityMap;
@@ -196,6 +202,8 @@ public class ErrorProneOptions {
     this.flags = flags;
     this.patchingOptions = patchingOptions;
     this.excludedPattern = excludedPattern;
+    this.incrementalCacheDirectory = incrementalCacheDirectory;
+    this.profileOutput = profileOutput;
     this.ignoreSuppressionAnnotations = ignoreSuppressionAnnotations;
     this.ignoreLargeCodeGenerators = ignoreLargeCodeGenerators;
   }
@@ -248,6 +256,22 @@ public class ErrorProneOptions {
     return excludedPattern;
   }
 
+  /**
+   * Returns the directory in which to persist the findings for each compilation unit between
+   * builds, or {@code null} if every compilation unit should be analyzed.
+   */
+  public Path getIncrementalCacheDirectory() {
+    return incrementalCacheDirectory;
+  }
+
+  /**
+   * Returns the file to write a per-check profile of the compilation to, or {@code null} if the
+   * compilation shouldn't be profiled.
+   */
+  public Path getProfileOutput() {
+    return profileOutput;
+  }
+
   private static class Builder {
     private boolean ignoreUnknownChecks = false;
     private boolean disableAllWarnings = false;
@@ -262,6 +286,8 @@ public class ErrorProneOptions {
     private final ErrorProneFlags.Builder flagsBuilder = ErrorProneFlags.builder();
     private final PatchingOptions.Builder patchingOptionsBuilder = PatchingOptions.builder();
     private Pattern excludedPattern;
+    private Path incrementalCacheDirectory;
+    private Path profileOutput;
 
     private void parseSeverity(String arg) {
       // Strip prefix
@@ -355,6 +381,8 @@ public class ErrorProneOptions {
           flagsBuilder.build(),
           patchingOptionsBuilder.build(),
           excludedPattern,
+          incrementalCacheDirectory,
+          profileOutput,
           ignoreSuppressionAnnotations,
           ignoreLargeCodeGenerators);
     }
@@ -362,6 +390,14 @@ public class ErrorProneOptions {
     public void setExcludedPattern(Pattern excludedPattern) {
       this.excludedPattern = excludedPattern;
     }
+
+    public void setIncrementalCacheDirectory(Path incrementalCacheDirectory) {
+      this.incrementalCacheDirectory = incrementalCacheDirectory;
+    }
+
+    public void setProfileOutput(Path profileOutput) {
+      this.profileOutput = profileOutput;
+    }
   }
 
   private static final ErrorProneOptions EMPTY = new Builder().build(ImmutableList.of());
@@ -434,17 +470,15 @@ public class ErrorProneOptions {
           } else if (arg.startsWith(PATCH_CHECKS_PREFIX)) {
             String remaining = arg.substring(PATCH_CHECKS_PREFIX.length());
             if (remaining.startsWith("refaster:")) {
-              // Refaster rule, load from InputStream at file
+              // Refaster rule, load from the compiled rule file
               builder
                   .patchingOptionsBuilder()
                   .customRefactorer(
                       () -> {
                         String path = remaining.substring("refaster:".length());
-                        try (InputStream in =
-                                Files.newInputStream(FileSystems.getDefault().getPath(path));
-                            ObjectInputStream ois = new ObjectInputStream(in)) {
-                          return (CodeTransformer) ois.readObject();
-                        } catch (IOException | ClassNotFoundException e) {
+                        try {
+                          return RefasterRuleFile.load(FileSystems.getDefault().getPath(path));
+                        } catch (IOException | RuntimeException e) {
                           throw new RuntimeException("Can't load Refaster rule from " + path, e);
                         }
                       });
@@ -460,6 +494,18 @@ public class ErrorProneOptions {
             String pathRegex = arg.substring(EXCLUDED_PATHS_PREFIX.length());
             builder.setExcludedPattern(Pattern.compile(pathRegex));
 
+          } else if (arg.startsWith(INCREMENTAL_CACHE_PREFIX)) {
+            String remaining = arg.substring(INCREMENTAL_CACHE_PREFIX.length());
+            if (remaining.isEmpty()) {
+              throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+            }
+            builder.setIncrementalCacheDirectory(FileSystems.getDefault().getPath(remaining));
+          } else if (arg.startsWith(PROFILE_PREFIX)) {
+            String remaining = arg.substring(PROFILE_PREFIX.length());
+            if (remaining.isEmpty()) {
+              throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+            }
+            builder.setProfileOutput(FileSystems.getDefault().getPath(remaining));
           } else {
             remainingArgs.add(arg);
           }
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparingLong;
+
+import com.sun.source.tree.Tree;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * A breakdown of the time spent in Error Prone over a compilation, recorded by {@link
+ * ErrorProneTimings} when {@code -XepProfile} is set.
+ *
+ * <p>For each check, the profile records the total time and number of invocations, broken down by
+ * the kind of tree the check matched and by compilation unit. Phases that aren't attributed to a
+ * single check, such as dataflow analysis and speculative compilation, are recorded separately;
+ * their time is also included in the time of the check that triggered them.
+ *
+ * <p>The profile is written both as a JSON report, and as a trace in the Chrome trace event format
+ * that can be loaded into {@code chrome://tracing} or Perfetto.
+ */
+final class ErrorProneProfile {
+
+  /**
+   * The number of slowest compilation units recorded for each check, and the number of slowest
+   * checks recorded for each compilation unit.
+   */
+  private static final int TOP_N = 10;
+
+  /** The maximum number of phase events in the trace, to bound the memory used by profiling. */
+  private static final int MAX_TRACE_EVENTS = 100_000;
+
+  private final long startNanos;
+  private final Map<String, CheckProfile> checks = new HashMap<>();
+  private final Map<String, Stats> phases = new TreeMap<>();
+  private final List<CompilationUnitProfile> compilationUnits = new ArrayList<>();
+  private final List<TraceEvent> phaseEvents = new ArrayList<>();
+
+  /** The time spent in each check in the compilation unit that's currently being analyzed. */
+  @Nullable private Map<String, Long> currentCompilationUnit;
+
+  ErrorProneProfile(long startNanos) {
+    this.startNanos = startNanos;
+  }
+
+  synchronized void recordCheck(String check, Tree.Kind kind, long nanos) {
+    checks.computeIfAbsent(check, CheckProfile::new).record(kind, nanos);
+    if (currentCompilationUnit != null) {
+      currentCompilationUnit.merge(check, nanos, Long::sum);
+    }
+  }
+
+  synchronized void recordPhase(String phase, long start, long nanos) {
+    phases.computeIfAbsent(phase, p -> new Stats()).record(nanos);
+    if (phaseEvents.size() < MAX_TRACE_EVENTS) {
+      phaseEvents.add(new TraceEvent(phase, "phase", start - startNanos, nanos));
+    }
+  }
+
+  synchronized void startCompilationUnit() {
+    currentCompilationUnit = new HashMap<>();
+  }
+
+  synchronized void endCompilationUnit(String name, long start, long nanos) {
+    Map<String, Long> checkNanos = currentCompilationUnit;
+    currentCompilationUnit = null;
+    if (checkNanos == null) {
+      return;
+    }
+    PriorityQueue<Entry> slowestChecks = new PriorityQueue<>(comparingLong(e -> e.nanos));
+    for (Map.Entry<String, Long> e : checkNanos.entrySet()) {
+      checks.get(e.getKey()).recordCompilationUnit(name, e.getValue());
+      offer(slowestChecks, new Entry(e.getKey(), e.getValue()));
+    }
+    compilationUnits.add(
+        new CompilationUnitProfile(
+            name, start - startNanos, nanos, sortedDescending(slowestChecks)));
+  }
+
+  /**
+   * Writes the JSON report to {@code output}, and the trace to a sibling file with the extension
+   * {@code .trace.json}.
+   */
+  synchronized void write(Path output) {
+    writeJson(output, this::writeReport);
+    writeJson(tracePath(output), this::writeTrace);
+  }
+
+  static Path tracePath(Path output) {
+    String name = output.getFileName().toString();
+    if (name.endsWith(".json")) {
+      name = name.substring(0, name.length() - ".json".length());
+    }
+    return output.resolveSibling(name + ".trace.json");
+  }
+
+  private interface JsonContent {
+    void writeTo(StringBuilder out);
+  }
+
+  private static void writeJson(Path path, JsonContent content) {
+    StringBuilder out = new StringBuilder();
+    content.writeTo(out);
+    try {
+      Path parent = path.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      try (Writer writer = Files.newBufferedWriter(path, UTF_8)) {
+        writer.append(out).append('\n');
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write Error Prone profile to " + path, e);
+    }
+  }
+
+  private void writeReport(StringBuilder out) {
+    long totalNanos = 0;
+    for (CompilationUnitProfile compilationUnit : compilationUnits) {
+      totalNanos += compilationUnit.nanos;
+    }
+    out.append("{\n  \"compilationUnits\": ").append(compilationUnits.size());
+    out.append(",\n  \"millis\": ").append(millis(totalNanos));
+    out.append(",\n  \"phases\": {");
+    String separator = "\n";
+    for (Map.Entry<String, Stats> phase : phases.entrySet()) {
+      out.append(separator).append("    ");
+      quote(out, phase.getKey());
+      out.append(": ");
+      phase.getValue().writeTo(out);
+      separator = ",\n";
+    }
+    out.append("\n  },\n  \"checks\": [");
+    List<CheckProfile> sortedChecks = new ArrayList<>(checks.values());
+    sortedChecks.sort(comparingLong((CheckProfile c) -> c.total.nanos).reversed());
+    separator = "\n";
+    for (CheckProfile check : sortedChecks) {
+      out.append(separator);
+      check.writeTo(out);
+      separator = ",\n";
+    }
+    out.append("\n  ],\n  \"slowestCompilationUnits\": [");
+    List<CompilationUnitProfile> sortedCompilationUnits = new ArrayList<>(compilationUnits);
+    sortedCompilationUnits.sort(comparingLong((CompilationUnitProfile c) -> c.nanos).reversed());
+    separator = "\n";
+    for (CompilationUnitProfile compilationUnit : sortedCompilationUnits) {
+      out.append(separator).append("    {\"name\": ");
+      quote(out, compilationUnit.name);
+      out.append(", \"millis\": ").append(millis(compilationUnit.nanos));
+      out.append(", \"slowestChecks\": ");
+      writeEntries(out, compilationUnit.slowestChecks);
+      out.append('}');
+      separator = ",\n";
+    }
+    out.append("\n  ]\n}");
+  }
+
+  private void writeTrace(StringBuilder out) {
+    out.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+    String separator = "\n";
+    for (CompilationUnitProfile compilationUnit : compilationUnits) {
+      out.append(separator);
+      new TraceEvent(
+              compilationUnit.name,
+              "compilation-unit",
+              compilationUnit.startNanos,
+              compilationUnit.nanos)
+          .writeTo(out, compilationUnit.slowestChecks);
+      separator = ",\n";
+    }
+    for (TraceEvent event : phaseEvents) {
+      out.append(separator);
+      event.writeTo(out, null);
+      separator = ",\n";
+    }
+    out.append("\n]}");
+  }
+
+  private static void writeEntries(StringBuilder out, List<Entry> entries) {
+    out.append('[');
+    String separator = "";
+    for (Entry entry : entries) {
+      out.append(separator).append("{\"name\": ");
+      quote(out, entry.name);
+      out.append(", \"millis\": ").append(millis(entry.nanos)).append('}');
+      separator = ", ";
+    }
+    out.append(']');
+  }
+
+  private static void offer(PriorityQueue<Entry> slowest, Entry entry) {
+    if (slowest.size() < TOP_N) {
+      slowest.add(entry);
+    } else if (slowest.peek().nanos < entry.nanos) {
+      slowest.poll();
+      slowest.add(entry);
+    }
+  }
+
+  private static List<Entry> sortedDescending(PriorityQueue<Entry> slowest) {
+    List<Entry> result = new ArrayList<>(slowest);
+    result.sort(comparingLong((Entry e) -> e.nanos).reversed());
+    return result;
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  private static String micros(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e3);
+  }
+
+  private static void quote(StringBuilder out, String s) {
+    out.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+      }
+    }
+    out.append('"');
+  }
+
+  /** An invocation count and total time. */
+  private static final class Stats {
+    long invocations;
+    long nanos;
+
+    void record(long nanos) {
+      this.invocations++;
+      this.nanos += nanos;
+    }
+
+    void writeTo(StringBuilder out) {
+      out.append("{\"invocations\": ").append(invocations);
+      out.append(", \"millis\": ").append(millis(nanos)).append('}');
+    }
+  }
+
+  private static final class CheckProfile {
+    final String name;
+    final Stats total = new Stats();
+    final Map<Tree.Kind, Stats> byTreeKind = new EnumMap<>(Tree.Kind.class);
+    final PriorityQueue<Entry> slowestCompilationUnits =
+        new PriorityQueue<>(comparingLong(e -> e.nanos));
+
+    CheckProfile(String name) {
+      this.name = name;
+    }
+
+    void record(Tree.Kind kind, long nanos) {
+      total.record(nanos);
+      byTreeKind.computeIfAbsent(kind, k -> new Stats()).record(nanos);
+    }
+
+    void recordCompilationUnit(String compilationUnit, long nanos) {
+      offer(slowestCompilationUnits, new Entry(compilationUnit, nanos));
+    }
+
+    void writeTo(StringBuilder out) {
+      out.append("    {\"name\": ");
+      quote(out, name);
+      out.append(", \"invocations\": ").append(total.invocations);
+      out.append(", \"millis\": ").append(millis(total.nanos));
+      out.append(",\n      \"byTreeKind\": {");
+      String separator = "";
+      for (Map.Entry<Tree.Kind, Stats> kind : byTreeKind.entrySet()) {
+        out.append(separator);
+        quote(out, kind.getKey().name());
+        out.append(": ");
+        kind.getValue().writeTo(out);
+        separator = ", ";
+      }
+      out.append("},\n      \"slowestCompilationUnits\": ");
+      writeEntries(out, sortedDescending(slowestCompilationUnits));
+      out.append('}');
+    }
+  }
+
+  private static final class CompilationUnitProfile {
+    final String name;
+    final long startNanos;
+    final long nanos;
+    final List<Entry> slowestChecks;
+
+    CompilationUnitProfile(String name, long startNanos, long nanos, List<Entry> slowestChecks) {
+      this.name = name;
+      this.startNanos = startNanos;
+      this.nanos = nanos;
+      this.slowestChecks = slowestChecks;
+    }
+  }
+
+  private static final class Entry {
+    final String name;
+    final long nanos;
+
+    Entry(String name, long nanos) {
+      this.name = name;
+      this.nanos = nanos;
+    }
+  }
+
+  /** A complete ("X") event in the Chrome trace event format. */
+  private static final class TraceEvent {
+    final String name;
+    final String category;
+    final long startNanos;
+    final long nanos;
+
+    TraceEvent(String name, String category, long startNanos, long nanos) {
+      this.name = name;
+      this.category = category;
+      this.startNanos = startNanos;
+      this.nanos = nanos;
+    }
+
+    void writeTo(StringBuilder out, @Nullable List<Entry> args) {
+      out.append("{\"name\": ");
+      quote(out, name);
+      out.append(", \"cat\": ");
+      quote(out, category);
+      out.append(", \"ph\": \"X\", \"pid\": 1, \"tid\": 1");
+      out.append(", \"ts\": ").append(micros(startNanos));
+      out.append(", \"dur\": ").append(micros(nanos));
+      if (args != null && !args.isEmpty()) {
+        out.append(", \"args\": {");
+        String separator = "";
+        for (Entry entry : args) {
+          out.append(separator);
+          quote(out, entry.name);
+          out.append(": ").append(millis(entry.nanos));
+          separator = ", ";
+        }
+        out.append('}');
+      }
+      out.append('}');
+    }
+  }
+}
@@ -18,14 +18,27 @@ package com.google.errorprone;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 
-import com.google.common.base.Stopwatch;
+import com.google.common.base.Ticker;
 import com.google.errorprone.matchers.Suppressible;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
 import com.sun.tools.javac.util.Context;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
 
-/** A collection of timing data for the runtime of individual checks. */
+/**
+ * A collection of timing data for the runtime of individual checks.
+ *
+ * <p>Spans may be opened concurrently, and a span for a check may be opened while another span for
+ * the same check is still open; the elapsed time of each span is accumulated independently.
+ *
+ * <p>If profiling is enabled with {@code -XepProfile}, a more detailed {@link ErrorProneProfile} is
+ * also recorded.
+ */
 public final class ErrorProneTimings {
 
   private static final Context.Key<ErrorProneTimings> timingsKey = new Context.Key<>();
@@ -42,18 +55,91 @@ public final class ErrorProneTimings {
     context.put(timingsKey, this);
   }
 
-  private final Map<String, Stopwatch> timers = new HashMap<>();
+  private final Ticker ticker = Ticker.systemTicker();
+
+  private final Map<String, LongAdder> timers = new ConcurrentHashMap<>();
+
+  @Nullable private volatile ErrorProneProfile profile;
+
+  /** A timing span that can be closed without throwing a checked exception. */
+  public interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Span NO_OP_SPAN = () -> {};
 
   /** Creates a timing span for the given {@link Suppressible}. */
   public AutoCloseable span(Suppressible suppressible) {
     String key = suppressible.canonicalName();
-    Stopwatch sw = timers.computeIfAbsent(key, k -> Stopwatch.createUnstarted()).start();
-    return () -> sw.stop();
+    LongAdder elapsedNanos = timers.computeIfAbsent(key, k -> new LongAdder());
+    long start = ticker.read();
+    return () -> elapsedNanos.add(ticker.read() - start);
+  }
+
+  /**
+   * Creates a timing span for the given {@link Suppressible} matching {@code tree}, which is also
+   * attributed to the kind of tree if profiling is enabled.
+   */
+  public AutoCloseable span(Suppressible suppressible, Tree tree) {
+    ErrorProneProfile profile = this.profile;
+    if (profile == null) {
+      return span(suppressible);
+    }
+    String key = suppressible.canonicalName();
+    LongAdder elapsedNanos = timers.computeIfAbsent(key, k -> new LongAdder());
+    Tree.Kind kind = tree.getKind();
+    long start = ticker.read();
+    return () -> {
+      long elapsed = ticker.read() - start;
+      elapsedNanos.add(elapsed);
+      profile.recordCheck(key, kind, elapsed);
+    };
+  }
+
+  /**
+   * Creates a timing span for a phase of the analysis that isn't attributed to a single check, such
+   * as building a control flow graph. Phases are only timed if profiling is enabled.
+   */
+  public Span phaseSpan(String phase) {
+    ErrorProneProfile profile = this.profile;
+    if (profile == null) {
+      return NO_OP_SPAN;
+    }
+    long start = ticker.read();
+    return () -> profile.recordPhase(phase, start, ticker.read() - start);
+  }
+
+  /** Creates a timing span for the analysis of a compilation unit, if profiling is enabled. */
+  Span compilationUnitSpan(CompilationUnitTree compilationUnit) {
+    ErrorProneProfile profile = this.profile;
+    if (profile == null) {
+      return NO_OP_SPAN;
+    }
+    String name = compilationUnit.getSourceFile().getName();
+    profile.startCompilationUnit();
+    long start = ticker.read();
+    return () -> profile.endCompilationUnit(name, start, ticker.read() - start);
+  }
+
+  /** Starts recording an {@link ErrorProneProfile}, if it isn't already being recorded. */
+  synchronized void enableProfiling() {
+    if (profile == null) {
+      profile = new ErrorProneProfile(ticker.read());
+    }
+  }
+
+  /** Writes the profile to {@code output}; see {@link ErrorProneProfile#write}. */
+  void writeProfile(Path output) {
+    ErrorProneProfile profile = this.profile;
+    if (profile != null) {
+      profile.write(output);
+    }
   }
 
   /** Returns the elapsed durations of each timer. */
   public Map<String, Duration> timings() {
     return timers.entrySet().stream()
-        .collect(toImmutableMap(e -> e.getKey(), e -> e.getValue().elapsed()));
+        .collect(toImmutableMap(e -> e.getKey(), e -> Duration.ofNanos(e.getValue().sum())));
   }
 }
@@ -0,0 +1,693 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.fixes.Fix;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Attribute;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Kinds.Kind;
+import com.sun.tools.javac.code.Scope.LookupKind;
+import com.sun.tools.javac.code.Source;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.PackageSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.ArrayType;
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.JCDiagnostic.DiagnosticPosition;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * A persistent cache of the findings for each compilation unit, enabled with {@code
+ * -XepIncrementalCache:<directory>}.
+ *
+ * <p>Entries are keyed by a hash of the compilation unit's source, the signatures of the classes it
+ * references, and the Error Prone configuration (version, the code of the enabled checks, their
+ * severities and flags). The signatures cover the referenced classes' supertypes, the types of
+ * their instance fields (transitively, since checks like {@code Immutable} walk them), and the
+ * annotations on their packages, members and parameters. On a hit the stored findings are replayed
+ * instead of scanning the compilation unit.
+ *
+ * <p>Each entry is a separate file, written to a temporary file and atomically renamed into place,
+ * so builds sharing a directory never observe partially written entries. Reading an entry marks it
+ * as recently used, and the least recently used entries are evicted when the cache is opened if the
+ * directory has grown beyond {@link #MAX_BYTES}.
+ */
+final class IncrementalAnalysisCache {
+
+  /** The maximum total size of the cache entries, in bytes. */
+  static final long MAX_BYTES = 256L << 20;
+
+  private static final int MAGIC = 0x45504943; // "EPIC"
+  private static final int FORMAT_VERSION = 1;
+  private static final String ENTRY_SUFFIX = ".findings";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  // The flags that are part of a declaration, rather than javac's bookkeeping (which depends on how
+  // far the compilation has progressed).
+  private static final long SIGNATURE_FLAGS = Flags.ExtendedStandardFlags | Flags.DEPRECATED;
+
+  // The hashes of the jars and directories that checks were loaded from, keyed by the path, size
+  // and modification time of their files, so that they're only read once per build daemon.
+  private static final ConcurrentHashMap<List<Object>, HashCode> codeHashes =
+      new ConcurrentHashMap<>();
+
+  private final Path directory;
+  private final HashCode configuration;
+  // The signature hashes of the classes seen so far in this compilation; most compilation units
+  // depend on the same handful of classes.
+  private final Map<ClassSymbol, HashCode> signatures = new HashMap<>();
+
+  private IncrementalAnalysisCache(Path directory, HashCode configuration) {
+    this.directory = directory;
+    this.configuration = configuration;
+  }
+
+  /**
+   * Opens the cache in {@code directory}, creating it if necessary, for the checks and options in
+   * {@code scannerSupplier} and {@code errorProneOptions}.
+   */
+  static IncrementalAnalysisCache create(
+      Path directory, ScannerSupplier scannerSupplier, ErrorProneOptions errorProneOptions) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    putString(hasher, ErrorProneVersion.loadVersionFromPom().or("unknown version"));
+    Map<String, BugCheckerInfo> checks = new TreeMap<>();
+    for (BugCheckerInfo check : scannerSupplier.getEnabledChecks()) {
+      checks.put(check.canonicalName(), check);
+    }
+    for (BugCheckerInfo check : checks.values()) {
+      putString(hasher, check.canonicalName());
+      putString(hasher, check.checkerClassName());
+      putString(hasher, String.valueOf(scannerSupplier.severities().get(check.canonicalName())));
+    }
+    hashCheckerCode(checks.values(), hasher);
+    Map<String, String> flags = new TreeMap<>(scannerSupplier.getFlags().getFlagsMap());
+    for (Map.Entry<String, String> flag : flags.entrySet()) {
+      putString(hasher, flag.getKey());
+      putString(hasher, flag.getValue());
+    }
+    hasher.putBoolean(errorProneOptions.isDropErrorsToWarnings());
+    hasher.putBoolean(errorProneOptions.isIgnoreSuppressionAnnotations());
+    hasher.putBoolean(errorProneOptions.disableWarningsInGeneratedCode());
+    hasher.putBoolean(errorProneOptions.isTestOnlyTarget());
+    hasher.putBoolean(errorProneOptions.ignoreLargeCodeGenerators());
+    try {
+      Files.createDirectories(directory);
+      evict(directory, MAX_BYTES);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open incremental cache in " + directory, e);
+    }
+    return new IncrementalAnalysisCache(directory, hasher.hash());
+  }
+
+  /**
+   * Returns the key for the findings of {@code compilation}, or {@code null} if its findings can't
+   * be cached.
+   */
+  @Nullable
+  HashCode key(JCCompilationUnit compilation, Context context) {
+    CharSequence source;
+    try {
+      source = compilation.getSourceFile().getCharContent(false);
+    } catch (IOException e) {
+      return null;
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putBytes(configuration.asBytes());
+    putString(hasher, Source.instance(context).name);
+    String path = compilation.getSourceFile().toUri().getPath();
+    putString(hasher, path == null ? "" : path.substring(path.lastIndexOf('/') + 1));
+    putString(hasher, source.toString());
+    try {
+      hashDependencies(compilation, hasher);
+    } catch (RuntimeException e) {
+      // e.g. a CompletionFailure for a class that isn't on the classpath
+      return null;
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Returns the findings previously stored for {@code key}, positioned in {@code compilation}, or
+   * {@code null} if there aren't any.
+   */
+  @Nullable
+  ImmutableList<Description> get(HashCode key, JCCompilationUnit compilation) {
+    Path entry = entryPath(key);
+    if (!Files.exists(entry)) {
+      return null;
+    }
+    try {
+      ImmutableList<Description> descriptions =
+          decode(ByteBuffer.wrap(Files.readAllBytes(entry)), compilation);
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      return descriptions;
+    } catch (IOException | RuntimeException e) {
+      // the entry was evicted concurrently, or is corrupt; either way, re-analyze
+      return null;
+    }
+  }
+
+  /** Stores the findings for {@code key}, on a best-effort basis. */
+  void put(HashCode key, List<Description> descriptions, JCCompilationUnit compilation) {
+    byte[] bytes;
+    try {
+      bytes = encode(descriptions, compilation);
+    } catch (RuntimeException e) {
+      // some positions can't be resolved outside of the original compilation
+      return;
+    }
+    try {
+      Path temp = Files.createTempFile(directory, key.toString(), TEMP_SUFFIX);
+      try {
+        Files.write(temp, bytes);
+        Files.move(temp, entryPath(key), ATOMIC_MOVE, REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      // another build may have written the same entry concurrently
+    }
+  }
+
+  private Path entryPath(HashCode key) {
+    return directory.resolve(key + ENTRY_SUFFIX);
+  }
+
+  /**
+   * Deletes the least recently used entries until the entries in {@code directory} take up at most
+   * {@code maxBytes}, along with any temporary files abandoned by crashed builds.
+   */
+  private static void evict(Path directory, long maxBytes) throws IOException {
+    List<Path> entries = new ArrayList<>();
+    Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+    long totalBytes = 0;
+    long now = System.currentTimeMillis();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path path : stream) {
+        String name = path.getFileName().toString();
+        BasicFileAttributes attrs;
+        try {
+          attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+          continue;
+        }
+        if (name.endsWith(ENTRY_SUFFIX)) {
+          entries.add(path);
+          attributes.put(path, attrs);
+          totalBytes += attrs.size();
+        } else if (name.endsWith(TEMP_SUFFIX)
+            && now - attrs.lastModifiedTime().toMillis() > STALE_TEMP_FILE_MILLIS) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+    if (totalBytes <= maxBytes) {
+      return;
+    }
+    entries.sort(Comparator.comparing(path -> attributes.get(path).lastModifiedTime()));
+    for (Path entry : entries) {
+      if (totalBytes <= maxBytes) {
+        break;
+      }
+      Files.deleteIfExists(entry);
+      totalBytes -= attributes.get(entry).size();
+    }
+  }
+
+  /**
+   * Hashes the contents of the jars and directories the checks were loaded from, so that rebuilding
+   * a plugin, or Error Prone itself without bumping its version, invalidates the findings.
+   */
+  private static void hashCheckerCode(Collection<BugCheckerInfo> checks, Hasher hasher) {
+    Set<Path> locations = new TreeSet<>();
+    for (BugCheckerInfo check : checks) {
+      CodeSource codeSource = check.checkerClass().getProtectionDomain().getCodeSource();
+      if (codeSource == null || codeSource.getLocation() == null) {
+        continue;
+      }
+      try {
+        locations.add(Paths.get(codeSource.getLocation().toURI()));
+      } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+        // not loaded from the file system, so there's nothing we could hash
+        putString(hasher, codeSource.getLocation().toString());
+      }
+    }
+    for (Path location : locations) {
+      putString(hasher, location.toString());
+      try {
+        hasher.putBytes(codeHash(location).asBytes());
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read checks from " + location, e);
+      }
+    }
+  }
+
+  private static HashCode codeHash(Path location) throws IOException {
+    if (!Files.isDirectory(location)) {
+      BasicFileAttributes attrs = Files.readAttributes(location, BasicFileAttributes.class);
+      return codeHashes.computeIfAbsent(
+          ImmutableList.of(location, attrs.size(), attrs.lastModifiedTime()),
+          k -> hash(ImmutableList.of(location)));
+    }
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(location)) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(toList());
+    }
+    List<Object> key = new ArrayList<>();
+    for (Path file : files) {
+      BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+      key.add(ImmutableList.of(file, attrs.size(), attrs.lastModifiedTime()));
+    }
+    return codeHashes.computeIfAbsent(key, k -> hash(files));
+  }
+
+  private static HashCode hash(List<Path> files) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (Path file : files) {
+      putString(hasher, file.toString());
+      try {
+        hasher.putBytes(MoreFiles.asByteSource(file).read());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Hashes the signatures of the classes referenced by {@code compilation}, their supertypes and
+   * the types of their instance fields, and the annotations on their packages, so that changes to
+   * the APIs the compilation unit depends on invalidate its findings.
+   */
+  private void hashDependencies(JCCompilationUnit compilation, Hasher hasher) {
+    Set<ClassSymbol> classes = new LinkedHashSet<>();
+    new TreeScanner() {
+      @Override
+      public void scan(JCTree tree) {
+        if (tree != null) {
+          addType(classes, tree.type);
+          Symbol sym = TreeInfo.symbolFor(tree);
+          if (sym != null && sym.enclClass() != null) {
+            classes.add(sym.enclClass());
+          }
+        }
+        super.scan(tree);
+      }
+    }.scan(compilation);
+    // Add supertypes and the types of instance fields as they're discovered; checks such as
+    // Immutable and ThreadSafe look through the fields of a field's type, so this is transitive.
+    // The ordered sets make the iteration deterministic.
+    List<ClassSymbol> worklist = new ArrayList<>(classes);
+    Set<PackageSymbol> packages = new LinkedHashSet<>();
+    packages.add(compilation.packge);
+    for (int i = 0; i < worklist.size(); i++) {
+      ClassSymbol sym = worklist.get(i);
+      packages.add(sym.packge());
+      Set<ClassSymbol> discovered = new LinkedHashSet<>();
+      for (Type supertype : supertypes(sym)) {
+        if (supertype.tsym instanceof ClassSymbol) {
+          discovered.add((ClassSymbol) supertype.tsym);
+        }
+      }
+      if (sym.type.hasTag(TypeTag.CLASS)) {
+        for (Symbol member : sym.members().getSymbols(LookupKind.NON_RECURSIVE)) {
+          if (member instanceof VarSymbol && !member.isStatic()) {
+            addType(discovered, member.type);
+          }
+        }
+      }
+      for (ClassSymbol d : discovered) {
+        if (classes.add(d)) {
+          worklist.add(d);
+        }
+      }
+    }
+    for (PackageSymbol pkg : packages) {
+      // e.g. @CheckReturnValue in a package-info.java
+      putString(hasher, pkg.getQualifiedName().toString());
+      hashAnnotations(pkg, hasher);
+    }
+    for (ClassSymbol sym : worklist) {
+      if (sym.sourcefile == compilation.getSourceFile()) {
+        // covered by the hash of the source
+        continue;
+      }
+      if (!sym.type.hasTag(TypeTag.CLASS)
+          || (sym.owner.kind != Kind.PCK && sym.owner.kind != Kind.TYP)) {
+        // local classes, and javac's synthetic classes for primitives, arrays and method types
+        continue;
+      }
+      hasher.putBytes(
+          signatures.computeIfAbsent(sym, IncrementalAnalysisCache::signature).asBytes());
+    }
+  }
+
+  private static void addType(Set<ClassSymbol> classes, @Nullable Type type) {
+    if (type == null) {
+      return;
+    }
+    if (type instanceof ArrayType) {
+      addType(classes, ((ArrayType) type).elemtype);
+      return;
+    }
+    if (type.hasTag(TypeTag.CLASS) && classes.add((ClassSymbol) type.tsym)) {
+      for (Type argument : type.getTypeArguments()) {
+        addType(classes, argument);
+      }
+    }
+  }
+
+  private static ImmutableList<Type> supertypes(ClassSymbol sym) {
+    ImmutableList.Builder<Type> supertypes = ImmutableList.builder();
+    if (sym.getSuperclass() != null) {
+      supertypes.add(sym.getSuperclass());
+    }
+    return supertypes.addAll(sym.getInterfaces()).build();
+  }
+
+  private static HashCode signature(ClassSymbol sym) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, sym.flatName().toString());
+    hasher.putLong(sym.flags() & SIGNATURE_FLAGS);
+    for (Type supertype : supertypes(sym)) {
+      putString(hasher, supertype.toString());
+    }
+    hashAnnotations(sym, hasher);
+    for (Symbol member : sym.members().getSymbols(LookupKind.NON_RECURSIVE)) {
+      putString(hasher, member.name.toString());
+      hasher.putLong(member.flags() & SIGNATURE_FLAGS);
+      putString(hasher, String.valueOf(member.type));
+      hashAnnotations(member, hasher);
+      if (member instanceof MethodSymbol) {
+        MethodSymbol method = (MethodSymbol) member;
+        for (Type thrown : method.getThrownTypes()) {
+          putString(hasher, thrown.toString());
+        }
+        for (VarSymbol param : method.getParameters()) {
+          hashAnnotations(param, hasher);
+        }
+      } else if (member instanceof VarSymbol) {
+        putString(hasher, String.valueOf(((VarSymbol) member).getConstValue()));
+      }
+    }
+    return hasher.hash();
+  }
+
+  private static void hashAnnotations(Symbol sym, Hasher hasher) {
+    List<? extends Attribute.Compound> annotations = sym.getRawAttributes();
+    hasher.putInt(annotations.size());
+    for (Attribute.Compound annotation : annotations) {
+      putString(hasher, annotation.toString());
+    }
+    List<? extends Attribute.Compound> typeAnnotations = sym.getRawTypeAttributes();
+    hasher.putInt(typeAnnotations.size());
+    for (Attribute.Compound annotation : typeAnnotations) {
+      putString(hasher, annotation.toString());
+    }
+  }
+
+  private static void putString(Hasher hasher, String string) {
+    hasher.putInt(string.length()).putString(string, UTF_8);
+  }
+
+  private static byte[] encode(List<Description> descriptions, JCCompilationUnit compilation) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(descriptions.size());
+      for (Description description : descriptions) {
+        DiagnosticPosition position = description.position;
+        writeString(out, description.checkName);
+        writeString(out, description.getRawMessage());
+        writeString(out, description.getLink() == null ? "" : description.getLink());
+        writeString(out, description.severity.name());
+        out.writeInt(position.getStartPosition());
+        out.writeInt(preferredPosition(position));
+        out.writeInt(position.getEndPosition(compilation.endPositions));
+        // JavacErrorDescriptionListener drops fixes that edit imports when reporting on an import,
+        // so store only the fixes that it would have applied.
+        boolean onImport =
+            position.getTree() == null || position.getTree().getKind() == Tree.Kind.IMPORT;
+        List<Fix> fixes = new ArrayList<>();
+        for (Fix fix : description.fixes) {
+          if (!onImport
+              || (fix.getImportsToAdd().isEmpty() && fix.getImportsToRemove().isEmpty())) {
+            fixes.add(fix);
+          }
+        }
+        out.writeInt(fixes.size());
+        for (Fix fix : fixes) {
+          writeString(out, fix.getShortDescription());
+          Set<Replacement> replacements = fix.getReplacements(compilation.endPositions);
+          out.writeInt(replacements.size());
+          for (Replacement replacement : replacements) {
+            out.writeInt(replacement.startPosition());
+            out.writeInt(replacement.endPosition());
+            writeString(out, replacement.replaceWith());
+          }
+          writeStrings(out, fix.getImportsToAdd());
+          writeStrings(out, fix.getImportsToRemove());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static int preferredPosition(DiagnosticPosition position) {
+    try {
+      return position.getPreferredPosition();
+    } catch (UnsupportedOperationException e) {
+      // e.g. IndexedPosition
+      return position.getStartPosition();
+    }
+  }
+
+  private static ImmutableList<Description> decode(
+      ByteBuffer buffer, JCCompilationUnit compilation) {
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IllegalArgumentException("not an incremental cache entry");
+    }
+    int descriptionCount = buffer.getInt();
+    ImmutableList.Builder<Description> descriptions = ImmutableList.builder();
+    for (int i = 0; i < descriptionCount; i++) {
+      String checkName = readString(buffer);
+      String message = readString(buffer);
+      String link = readString(buffer);
+      SeverityLevel severity = SeverityLevel.valueOf(readString(buffer));
+      DiagnosticPosition position =
+          new CachedPosition(compilation, buffer.getInt(), buffer.getInt(), buffer.getInt());
+      Description.Builder description =
+          Description.builder(position, checkName, link.isEmpty() ? null : link, severity, message);
+      int fixCount = buffer.getInt();
+      for (int j = 0; j < fixCount; j++) {
+        String shortDescription = readString(buffer);
+        int replacementCount = buffer.getInt();
+        ImmutableSet.Builder<Replacement> replacements = ImmutableSet.builder();
+        for (int k = 0; k < replacementCount; k++) {
+          replacements.add(
+              Replacement.create(buffer.getInt(), buffer.getInt(), readString(buffer)));
+        }
+        description.addFix(
+            new CachedFix(
+                shortDescription, replacements.build(), readStrings(buffer), readStrings(buffer)));
+      }
+      descriptions.add(description.build());
+    }
+    return descriptions.build();
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeStrings(DataOutputStream out, Collection<String> strings)
+      throws IOException {
+    out.writeInt(strings.size());
+    for (String string : strings) {
+      writeString(out, string);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static ImmutableList<String> readStrings(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    ImmutableList.Builder<String> strings = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      strings.add(readString(buffer));
+    }
+    return strings.build();
+  }
+
+  /**
+   * The position of a replayed finding. There is no tree to report the finding on, so the
+   * compilation unit stands in for it.
+   */
+  private static final class CachedPosition implements DiagnosticPosition {
+    private final JCCompilationUnit compilation;
+    private final int startPosition;
+    private final int preferredPosition;
+    private final int endPosition;
+
+    CachedPosition(
+        JCCompilationUnit compilation, int startPosition, int preferredPosition, int endPosition) {
+      this.compilation = compilation;
+      this.startPosition = startPosition;
+      this.preferredPosition = preferredPosition;
+      this.endPosition = endPosition;
+    }
+
+    @Override
+    public JCTree getTree() {
+      return compilation;
+    }
+
+    @Override
+    public int getStartPosition() {
+      return startPosition;
+    }
+
+    @Override
+    public int getPreferredPosition() {
+      return preferredPosition;
+    }
+
+    @Override
+    public int getEndPosition(EndPosTable endPosTable) {
+      return endPosition;
+    }
+  }
+
+  /** A replayed fix, with its replacements already resolved to source positions. */
+  private static final class CachedFix implements Fix {
+    private final String shortDescription;
+    private final ImmutableSet<Replacement> replacements;
+    private final ImmutableList<String> importsToAdd;
+    private final ImmutableList<String> importsToRemove;
+
+    CachedFix(
+        String shortDescription,
+        ImmutableSet<Replacement> replacements,
+        ImmutableList<String> importsToAdd,
+        ImmutableList<String> importsToRemove) {
+      this.shortDescription = shortDescription;
+      this.replacements = replacements;
+      this.importsToAdd = importsToAdd;
+      this.importsToRemove = importsToRemove;
+    }
+
+    @Override
+    public String toString(JCCompilationUnit compilationUnit) {
+      StringBuilder result = new StringBuilder("replace ");
+      for (Replacement replacement : replacements) {
+        result.append(
+            String.format(
+                "position %d:%d with \"%s\" ",
+                replacement.startPosition(), replacement.endPosition(), replacement.replaceWith()));
+      }
+      return result.toString();
+    }
+
+    @Override
+    public String getShortDescription() {
+      return shortDescription;
+    }
+
+    @Override
+    public Set<Replacement> getReplacements(EndPosTable endPositions) {
+      return replacements;
+    }
+
+    @Override
+    public ImmutableList<String> getImportsToAdd() {
+      return importsToAdd;
+    }
+
+    @Override
+    public ImmutableList<String> getImportsToRemove() {
+      return importsToRemove;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return replacements.isEmpty() && importsToAdd.isEmpty() && importsToRemove.isEmpty();
+    }
+  }
+}
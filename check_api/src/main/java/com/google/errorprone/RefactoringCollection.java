@@ -16,14 +16,14 @@
 
 package com.google.errorprone;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.StandardOpenOption.APPEND;
-import static java.nio.file.StandardOpenOption.CREATE;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.errorprone.ErrorProneOptions.PatchingOptions;
 import com.google.errorprone.apply.DescriptionBasedDiff;
 import com.google.errorprone.apply.FileDestination;
@@ -38,22 +38,24 @@ import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /** A container of fixes that have been collected during a single compilation phase. */
 class RefactoringCollection implements DescriptionListener.Factory {
 
-  private static final Logger logger = Logger.getLogger(RefactoringCollection.class.getName());
-
   private final Multimap<URI, DelegatingDescriptionListener> foundSources = HashMultimap.create();
   private final Path rootPath;
   private final FileDestination fileDestination;
@@ -61,6 +63,14 @@ class RefactoringCollection implements DescriptionListener.Factory {
   private final DescriptionListener.Factory descriptionsFactory;
   private final ImportOrganizer importOrganizer;
 
+  /**
+   * Reads, applies the fixes to and writes out each file once javac has finished with it, so that
+   * the I/O and import organizing overlap with the rest of the compilation.
+   */
+  private final ExecutorService workerService;
+  // the pending work for each file, in the order in which the files were generated
+  private final Map<URI, Future<?>> pendingFiles = new LinkedHashMap<>();
+
   @AutoValue
   abstract static class RefactoringResult {
     abstract String message();
@@ -73,8 +83,8 @@ class RefactoringCollection implements DescriptionListener.Factory {
   }
 
   enum RefactoringResultType {
-    NO_CHANGES,
     CHANGED,
+    FAILED,
   }
 
   static RefactoringCollection refactor(PatchingOptions patchingOptions, Context context) {
@@ -96,27 +106,15 @@ class RefactoringCollection implements DescriptionListener.Factory {
       Path baseDir = rootPath.resolve(patchingOptions.baseDirectory());
       Path patchFilePath = baseDir.resolve("error-prone.patch");
 
-      PatchFileDestination patchFileDestination = new PatchFileDestination(baseDir, rootPath);
+      fileDestination = new PatchFileDestination(baseDir, rootPath, patchFilePath);
       postProcess =
-          new Function<URI, RefactoringResult>() {
-            private final AtomicBoolean first = new AtomicBoolean(true);
-
-            @Override
-            public RefactoringResult apply(URI uri) {
-              try {
-                writePatchFile(first, uri, patchFileDestination, patchFilePath);
-                return RefactoringResult.create(
-                    "Changes were written to "
-                        + patchFilePath
-                        + ". Please inspect the file and apply with: "
-                        + "patch -p0 -u -i error-prone.patch",
-                    RefactoringResultType.CHANGED);
-              } catch (IOException e) {
-                throw new RuntimeException("Failed to emit patch file!", e);
-              }
-            }
-          };
-      fileDestination = patchFileDestination;
+          uri ->
+              RefactoringResult.create(
+                  "Changes were written to "
+                      + patchFilePath
+                      + ". Please inspect the file and apply with: "
+                      + "patch -p0 -u -i error-prone.patch",
+                  RefactoringResultType.CHANGED);
     }
 
     ImportOrganizer importOrganizer = patchingOptions.importOrganizer();
@@ -135,6 +133,21 @@ class RefactoringCollection implements DescriptionListener.Factory {
     this.postProcess = postProcess;
     this.descriptionsFactory = JavacErrorDescriptionListener.providerForRefactoring(context);
     this.importOrganizer = importOrganizer;
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            5,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(50),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("error-prone-refactoring-%d")
+                .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    this.workerService = executor;
   }
 
   private static Path buildRootPath() {
@@ -157,47 +170,75 @@ class RefactoringCollection implements DescriptionListener.Factory {
     return delegate;
   }
 
-  RefactoringResult applyChanges(URI uri) throws Exception {
+  /**
+   * Starts applying the changes that were collected for {@code uri}, once javac has generated it.
+   * The outcome is reported by {@link #flush}.
+   */
+  void applyChanges(URI uri) {
     Collection<DelegatingDescriptionListener> listeners = foundSources.removeAll(uri);
     if (listeners.isEmpty()) {
-      return RefactoringResult.create("", RefactoringResultType.NO_CHANGES);
+      return;
     }
 
-    doApplyProcess(fileDestination, new FsFileSource(rootPath), listeners);
-    return postProcess.apply(uri);
+    // The diffs hold everything they need from the compilation unit, so javac can move on.
+    ImmutableList<DescriptionBasedDiff> diffs =
+        listeners.stream().map(listener -> listener.base).collect(toImmutableList());
+    pendingFiles.put(
+        uri,
+        workerService.submit(
+            () -> {
+              doApplyProcess(fileDestination, new FsFileSource(rootPath), diffs);
+              return null;
+            }));
   }
 
-  private static void writePatchFile(
-      AtomicBoolean first, URI uri, PatchFileDestination fileDestination, Path patchFilePatch)
-      throws IOException {
-    String patchFile = fileDestination.patchFile(uri);
-    if (patchFile != null) {
-      if (first.compareAndSet(true, false)) {
+  /**
+   * Waits for the changes to every file to be applied, and writes out any changes that the file
+   * destination has buffered, which for patch files happens once at the end of the compilation.
+   *
+   * @return the outcome for each file that had changes, in the order in which the files were
+   *     generated; a file whose changes couldn't be applied is reported as {@link
+   *     RefactoringResultType#FAILED}, and doesn't stop the others from being written
+   * @throws IOException if the buffered changes couldn't be written out
+   */
+  ImmutableList<RefactoringResult> flush() throws IOException {
+    ImmutableList.Builder<RefactoringResult> results = ImmutableList.builder();
+    try {
+      for (Map.Entry<URI, Future<?>> pendingFile : pendingFiles.entrySet()) {
+        URI uri = pendingFile.getKey();
         try {
-          Files.deleteIfExists(patchFilePatch);
-        } catch (IOException e) {
-          throw new UncheckedIOException(e);
+          pendingFile.getValue().get();
+          results.add(postProcess.apply(uri));
+        } catch (ExecutionException e) {
+          results.add(
+              RefactoringResult.create(
+                  String.format("Failed to apply refactoring changes to %s: %s", uri, e.getCause()),
+                  RefactoringResultType.FAILED));
         }
       }
-      Files.createDirectories(patchFilePatch.getParent());
-      Files.write(patchFilePatch, patchFile.getBytes(UTF_8), APPEND, CREATE);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while applying fixes");
+    } finally {
+      pendingFiles.clear();
     }
+    fileDestination.flush();
+    return results.build();
   }
 
   private void doApplyProcess(
       FileDestination fileDestination,
       FileSource fileSource,
-      Collection<DelegatingDescriptionListener> listeners) {
-    for (DelegatingDescriptionListener listener : listeners) {
-      try {
-        SourceFile file = fileSource.readFile(listener.base.getRelevantFileName());
-        listener.base.applyDifferences(file);
+      Collection<DescriptionBasedDiff> diffs)
+      throws IOException {
+    for (DescriptionBasedDiff diff : diffs) {
+      SourceFile file = fileSource.readFile(diff.getRelevantFileName());
+      if (fileDestination instanceof PatchFileDestination) {
+        // The replacements describe the changed lines directly, so there's no need to diff.
+        ((PatchFileDestination) fileDestination).writeFile(file, diff.getReplacements());
+      } else {
+        diff.applyDifferences(file);
         fileDestination.writeFile(file);
-      } catch (IOException e) {
-        logger.log(
-            Level.WARNING,
-            "Failed to apply diff to file " + listener.base.getRelevantFileName(),
-            e);
       }
     }
   }
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableClassToInstanceMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.util.Context;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Reads and writes the {@code .analyzer} files that compiled Refaster rules are stored in.
+ *
+ * <p>A file starts with a magic number and a format version, followed by each of the rules as a
+ * separate, length-prefixed chunk. Each chunk is a Java serialization stream in which equal strings
+ * are only written once. The file is memory-mapped when it is loaded, and each rule is only
+ * deserialized the first time it is applied.
+ *
+ * <p>The chunks may be followed by an {@link Assembler}, written by a {@link
+ * ChunkedCodeTransformer}, that puts the rules back together when the file is loaded. Refaster
+ * rule sets use it to store the index of their templates, so that a rule is only deserialized once
+ * a tree it could match is found.
+ *
+ * <p>Files written by older versions of Error Prone, which consist of a single serialized {@link
+ * CodeTransformer}, can still be loaded, and can be converted with {@link #convert}.
+ */
+public final class RefasterRuleFile {
+
+  private static final int MAGIC = 0x45505252; // "EPRR"
+  /** The current format version; version 1 files don't have an assembler. */
+  private static final int VERSION = 2;
+
+  /** The first two bytes of a Java serialization stream. */
+  private static final short STREAM_MAGIC = (short) 0xaced;
+
+  private RefasterRuleFile() {}
+
+  /**
+   * A transformer that is written as separate chunks, which can be loaded independently, and an
+   * {@link Assembler} that puts them back together.
+   */
+  public interface ChunkedCodeTransformer extends CodeTransformer {
+    /** The transformers to write as separate chunks. */
+    ImmutableList<CodeTransformer> chunks();
+
+    /** Puts the {@link #chunks} back together when the file is loaded. */
+    Assembler assembler();
+  }
+
+  /** Puts the chunks of a {@link ChunkedCodeTransformer} back together. */
+  public interface Assembler extends Serializable {
+    /**
+     * Returns the transformer that was written, given suppliers that deserialize each of its
+     * chunks the first time they are called.
+     */
+    CodeTransformer assemble(ImmutableList<Supplier<CodeTransformer>> chunks);
+  }
+
+  /**
+   * Writes {@code transformer} to {@code path}; if it is a {@link CompositeCodeTransformer} or a
+   * {@link ChunkedCodeTransformer}, each of its transformers is written separately, so that they
+   * can be loaded independently.
+   */
+  public static void write(CodeTransformer transformer, Path path) throws IOException {
+    ImmutableList<CodeTransformer> transformers;
+    Assembler assembler = null;
+    if (transformer instanceof ChunkedCodeTransformer) {
+      transformers = ((ChunkedCodeTransformer) transformer).chunks();
+      assembler = ((ChunkedCodeTransformer) transformer).assembler();
+    } else if (transformer instanceof CompositeCodeTransformer) {
+      transformers = ((CompositeCodeTransformer) transformer).transformers();
+    } else {
+      transformers = ImmutableList.of(transformer);
+    }
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(transformers.size());
+      ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+      for (CodeTransformer t : transformers) {
+        writeChunk(t, chunk, out);
+      }
+      if (assembler == null) {
+        out.writeInt(0);
+      } else {
+        writeChunk(assembler, chunk, out);
+      }
+    }
+  }
+
+  private static void writeChunk(Object object, ByteArrayOutputStream chunk, DataOutputStream out)
+      throws IOException {
+    chunk.reset();
+    try (ObjectOutputStream objects = new StringSharingObjectOutputStream(chunk)) {
+      objects.writeObject(object);
+    }
+    out.writeInt(chunk.size());
+    chunk.writeTo(out);
+  }
+
+  /** Loads the transformer stored at {@code path}, in either the current or the legacy format. */
+  public static CodeTransformer load(Path path) throws IOException {
+    Chunks chunks = read(path);
+    if (chunks.legacy) {
+      return chunks.transformers.get(0).get();
+    }
+    if (chunks.assembler != null) {
+      return chunks.assembler.assemble(chunks.transformers);
+    }
+    ImmutableList.Builder<CodeTransformer> transformers = ImmutableList.builder();
+    for (Supplier<CodeTransformer> transformer : chunks.transformers) {
+      transformers.add(new LazyCodeTransformer(transformer));
+    }
+    ImmutableList<CodeTransformer> result = transformers.build();
+    return result.size() == 1 ? result.get(0) : CompositeCodeTransformer.compose(result);
+  }
+
+  /** The contents of a file: a lazily deserialized transformer for each chunk, and an assembler. */
+  private static final class Chunks {
+    final ImmutableList<Supplier<CodeTransformer>> transformers;
+    @Nullable final Assembler assembler;
+    /** Whether the file consists of a single serialized transformer. */
+    final boolean legacy;
+
+    Chunks(
+        ImmutableList<Supplier<CodeTransformer>> transformers,
+        @Nullable Assembler assembler,
+        boolean legacy) {
+      this.transformers = transformers;
+      this.assembler = assembler;
+      this.legacy = legacy;
+    }
+  }
+
+  private static Chunks read(Path path) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.remaining() >= 2 && buffer.getShort(0) == STREAM_MAGIC) {
+      CodeTransformer transformer =
+          (CodeTransformer) deserialize(buffer, Interners.newStrongInterner());
+      return new Chunks(ImmutableList.of(Suppliers.ofInstance(transformer)), null, true);
+    }
+    if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+      throw new IOException(path + " is not a compiled Refaster rule");
+    }
+    int version = buffer.getInt();
+    if (version != 1 && version != VERSION) {
+      throw new IOException(String.format("%s has unsupported format version %d", path, version));
+    }
+    int count = buffer.getInt();
+    // Strings are shared between the rules in the file as they are loaded.
+    Interner<String> strings = Interners.newStrongInterner();
+    ImmutableList.Builder<Supplier<CodeTransformer>> transformers = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      ByteBuffer chunk = nextChunk(buffer);
+      transformers.add(Suppliers.memoize(() -> (CodeTransformer) deserialize(chunk, strings)));
+    }
+    Assembler assembler = null;
+    if (version >= 2) {
+      ByteBuffer chunk = nextChunk(buffer);
+      if (chunk.hasRemaining()) {
+        assembler = (Assembler) deserialize(chunk, strings);
+      }
+    }
+    return new Chunks(transformers.build(), assembler, false);
+  }
+
+  private static ByteBuffer nextChunk(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    ByteBuffer chunk = buffer.slice();
+    chunk.limit(length);
+    buffer.position(buffer.position() + length);
+    return chunk;
+  }
+
+  /** Rewrites a file in the legacy format (or the current format) in the current format. */
+  public static void convert(Path input, Path output) throws IOException {
+    write(CompositeCodeTransformer.compose(loadAll(input)), output);
+  }
+
+  /**
+   * Eagerly loads all of the transformers stored at {@code path}, without assembling them, and
+   * flattening any {@link CompositeCodeTransformer}s and {@link ChunkedCodeTransformer}s.
+   */
+  public static ImmutableList<CodeTransformer> loadAll(Path path) throws IOException {
+    ImmutableList.Builder<CodeTransformer> result = ImmutableList.builder();
+    for (Supplier<CodeTransformer> transformer : read(path).transformers) {
+      flatten(transformer.get(), result);
+    }
+    return result.build();
+  }
+
+  private static void flatten(
+      CodeTransformer transformer, ImmutableList.Builder<CodeTransformer> result) {
+    if (transformer instanceof ChunkedCodeTransformer) {
+      for (CodeTransformer t : ((ChunkedCodeTransformer) transformer).chunks()) {
+        flatten(t, result);
+      }
+    } else if (transformer instanceof CompositeCodeTransformer) {
+      for (CodeTransformer t : ((CompositeCodeTransformer) transformer).transformers()) {
+        flatten(t, result);
+      }
+    } else {
+      result.add(transformer);
+    }
+  }
+
+  private static Object deserialize(ByteBuffer buffer, Interner<String> strings) {
+    try (ObjectInputStream in =
+        new StringInterningObjectInputStream(
+            new BufferedInputStream(new ByteBufferInputStream(buffer)), strings)) {
+      return in.readObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Can't load Refaster rule", e);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Can't load Refaster rule", e);
+    }
+  }
+
+  /** A transformer that is deserialized the first time it's used. */
+  private static final class LazyCodeTransformer implements CodeTransformer {
+    private final Supplier<CodeTransformer> delegate;
+
+    LazyCodeTransformer(Supplier<CodeTransformer> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void apply(TreePath path, Context context, DescriptionListener listener) {
+      delegate.get().apply(path, context, listener);
+    }
+
+    @Override
+    public ImmutableClassToInstanceMap<Annotation> annotations() {
+      return delegate.get().annotations();
+    }
+
+    @Override
+    public String toString() {
+      return delegate.get().toString();
+    }
+  }
+
+  /**
+   * Writes each distinct string once, and refers back to it afterwards. Templates repeat the same
+   * names and types many times, but they aren't necessarily the same instances.
+   */
+  private static final class StringSharingObjectOutputStream extends ObjectOutputStream {
+    private final Map<String, String> strings = new HashMap<>();
+
+    StringSharingObjectOutputStream(OutputStream out) throws IOException {
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj instanceof String ? strings.computeIfAbsent((String) obj, s -> s) : obj;
+    }
+  }
+
+  private static final class StringInterningObjectInputStream extends ObjectInputStream {
+    private final Interner<String> strings;
+
+    StringInterningObjectInputStream(InputStream in, Interner<String> strings) throws IOException {
+      super(in);
+      this.strings = strings;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return obj instanceof String ? strings.intern((String) obj) : obj;
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
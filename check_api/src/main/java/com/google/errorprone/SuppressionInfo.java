@@ -81,6 +81,14 @@ public class SuppressionInfo {
     return !ASTHelpers.annotationsAmong(sym, GENERATED_ANNOTATIONS.get(state), state).isEmpty();
   }
 
+  /**
+   * Returns true if this object contains no suppression signals, i.e. no check could be considered
+   * suppressed by it.
+   */
+  public boolean isEmpty() {
+    return !inGeneratedCode && suppressWarningsStrings.isEmpty() && customSuppressions.isEmpty();
+  }
+
   /**
    * Returns true if this checker should be considered suppressed given the signals present in this
    * object.
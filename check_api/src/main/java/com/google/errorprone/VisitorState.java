@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.errorprone.util.ASTHelpers.getStartPosition;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.errorprone.BugPattern.SeverityLevel;
@@ -30,8 +31,11 @@ import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Suppressible;
 import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.util.CompilationUnitTokens;
 import com.google.errorprone.util.ErrorProneToken;
 import com.google.errorprone.util.ErrorProneTokens;
+import com.google.errorprone.util.SymbolUseIndex;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Kinds.Kind;
@@ -313,6 +317,15 @@ public class VisitorState {
         statsKey(bugChecker.canonicalName() + "-" + key), count);
   }
 
+  /**
+   * Increment the counter for {@code key}, which isn't specific to any one check, by {@code
+   * count}. This is for statistics that Error Prone's own infrastructure collects, such as cache
+   * hit rates.
+   */
+  public void incrementCounter(String key, int count) {
+    sharedState.statisticsCollector.incrementCounter(statsKey(key), count);
+  }
+
   /**
    * Returns a copy of all of the counters previously added to this VisitorState with {@link
    * #incrementCounter}.
@@ -559,10 +572,15 @@ public class VisitorState {
   /**
    * Returns the list of {@link Token}s for the given {@link JCTree}.
    *
-   * <p>This is moderately expensive (the source of the node has to be re-lexed), so it should only
-   * be used if a fix is already going to be emitted.
+   * <p>The tokens of the current compilation unit are lexed at most once and then reused, but this
+   * still allocates, so it should only be used if a fix is already going to be emitted.
    */
   public List<ErrorProneToken> getTokensForNode(Tree tree) {
+    int start = getStartPosition(tree);
+    List<ErrorProneToken> tokens = getCachedTokens(start, getEndPosition(tree), start);
+    if (tokens != null) {
+      return tokens;
+    }
     return ErrorProneTokens.getTokens(getSourceForNode(tree), context);
   }
 
@@ -570,11 +588,15 @@ public class VisitorState {
    * Returns the list of {@link Token}s for the given {@link JCTree}, offset by the start position
    * of the tree within the overall source.
    *
-   * <p>This is moderately expensive (the source of the node has to be re-lexed), so it should only
-   * be used if a fix is already going to be emitted.
+   * <p>The tokens of the current compilation unit are lexed at most once and then reused, but this
+   * still allocates, so it should only be used if a fix is already going to be emitted.
    */
   public List<ErrorProneToken> getOffsetTokensForNode(Tree tree) {
     int start = getStartPosition(tree);
+    List<ErrorProneToken> tokens = getCachedTokens(start, getEndPosition(tree), 0);
+    if (tokens != null) {
+      return tokens;
+    }
     return ErrorProneTokens.getTokens(getSourceForNode(tree), start, context);
   }
 
@@ -582,14 +604,68 @@ public class VisitorState {
    * Returns the list of {@link Token}s for source code between the given positions, offset by the
    * start position.
    *
-   * <p>This is moderately expensive (the source of the node has to be re-lexed), so it should only
-   * be used if a fix is already going to be emitted.
+   * <p>The tokens of the current compilation unit are lexed at most once and then reused, but this
+   * still allocates, so it should only be used if a fix is already going to be emitted.
    */
   public List<ErrorProneToken> getOffsetTokens(int start, int end) {
+    List<ErrorProneToken> tokens = getCachedTokens(start, end, 0);
+    if (tokens != null) {
+      return tokens;
+    }
     return ErrorProneTokens.getTokens(
         getSourceCode().subSequence(start, end).toString(), start, context);
   }
 
+  /**
+   * Returns the list of {@link Token}s for the entire current compilation unit, or an empty list if
+   * its source is not available.
+   *
+   * <p>The compilation unit is lexed at most once, and the result is shared with the other token
+   * methods on this class.
+   */
+  public List<ErrorProneToken> getTokensForCompilationUnit() {
+    CompilationUnitTokens tokens = getCompilationUnitTokens();
+    return tokens != null ? tokens.getTokens() : ImmutableList.of();
+  }
+
+  @Nullable
+  private List<ErrorProneToken> getCachedTokens(int start, int end, int offset) {
+    if (start < 0 || end < start) {
+      return null;
+    }
+    CompilationUnitTokens tokens = getCompilationUnitTokens();
+    return tokens != null ? tokens.getTokens(start, end, offset) : null;
+  }
+
+  @Nullable
+  private CompilationUnitTokens getCompilationUnitTokens() {
+    CompilationUnitTree compilationUnit = getPath().getCompilationUnit();
+    if (sharedState.tokenizedCompilationUnit != compilationUnit) {
+      CharSequence source = getSourceCode();
+      if (source == null) {
+        return null;
+      }
+      sharedState.compilationUnitTokens = CompilationUnitTokens.create(source.toString(), context);
+      sharedState.tokenizedCompilationUnit = compilationUnit;
+    }
+    return sharedState.compilationUnitTokens;
+  }
+
+  /**
+   * Returns the declarations of, and references to, every symbol in the current compilation unit.
+   *
+   * <p>The index is built the first time it's requested for a compilation unit, and shared by every
+   * check that asks for it while that compilation unit is being scanned.
+   */
+  public SymbolUseIndex getSymbolUseIndex() {
+    CompilationUnitTree compilationUnit = getPath().getCompilationUnit();
+    if (sharedState.indexedCompilationUnit != compilationUnit) {
+      sharedState.symbolUseIndex = SymbolUseIndex.create(new TreePath(compilationUnit));
+      sharedState.indexedCompilationUnit = compilationUnit;
+    }
+    return sharedState.symbolUseIndex;
+  }
+
   /** Returns the end position of the node, or -1 if it is not available. */
   public int getEndPosition(Tree node) {
     JCCompilationUnit compilationUnit = (JCCompilationUnit) getPath().getCompilationUnit();
@@ -653,6 +729,11 @@ public class VisitorState {
     return sharedState.timings.span(suppressible);
   }
 
+  /** Returns a timing span for the given {@link Suppressible} matching {@code tree}. */
+  public AutoCloseable timingSpan(Suppressible suppressible, Tree tree) {
+    return sharedState.timings.span(suppressible, tree);
+  }
+
   private static class Cache<T> implements Supplier<T> {
     private final Supplier<T> impl;
     /* Uses T instead of Optional<T> because we don't want to cache null results
@@ -727,6 +808,15 @@ public class VisitorState {
     // based on number of files?
     private final Map<String, Optional<Type>> typeCache = new HashMap<>();
 
+    // The tokens of the compilation unit that was most recently tokenized, see
+    // getCompilationUnitTokens.
+    @Nullable private CompilationUnitTree tokenizedCompilationUnit;
+    @Nullable private CompilationUnitTokens compilationUnitTokens;
+
+    // The index of the compilation unit that was most recently indexed, see getSymbolUseIndex.
+    @Nullable private CompilationUnitTree indexedCompilationUnit;
+    @Nullable private SymbolUseIndex symbolUseIndex;
+
     SharedState(
         Context context,
         DescriptionListener descriptionListener,
@@ -30,6 +30,7 @@ import java.nio.file.Paths;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Implementation of a {@link Diff} that performs the modifications that are passed to its {@link
@@ -37,6 +38,9 @@ import java.util.Set;
  *
  * <p>If imports are changed, they are resorted as per Google Java style.
  *
+ * <p>Everything that's needed from the compilation unit is captured by {@link #onDescribed}, so
+ * once the descriptions have been reported the differences can be applied on any thread.
+ *
  * @author lowasser@google.com (Louis Wasserman)
  */
 public final class DescriptionBasedDiff implements DescriptionListener, Diff {
@@ -49,6 +53,7 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
   private final EndPosTable endPositions;
   private final Replacements replacements = new Replacements();
   private final ImportOrganizer importOrganizer;
+  @Nullable private ImportStatements importStatements;
 
   public static DescriptionBasedDiff create(
       JCCompilationUnit compilationUnit, ImportOrganizer importOrganizer) {
@@ -97,6 +102,9 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
   public void handleFix(Fix fix) {
     importsToAdd.addAll(fix.getImportsToAdd());
     importsToRemove.addAll(fix.getImportsToRemove());
+    if (importStatements == null && (!importsToAdd.isEmpty() || !importsToRemove.isEmpty())) {
+      importStatements = ImportStatements.create(compilationUnit, importOrganizer);
+    }
     for (Replacement replacement : fix.getReplacements(endPositions)) {
       try {
         replacements.add(replacement, Replacements.CoalescePolicy.EXISTING_FIRST);
@@ -110,8 +118,21 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
 
   @Override
   public void applyDifferences(SourceFile sourceFile) throws DiffNotApplicableException {
-    if (!importsToAdd.isEmpty() || !importsToRemove.isEmpty()) {
-      ImportStatements importStatements = ImportStatements.create(compilationUnit, importOrganizer);
+    addImportReplacement();
+    sourceFile.makeReplacements(replacements);
+  }
+
+  /**
+   * Returns the replacements that {@link #applyDifferences} makes, sorted in descending order by
+   * position, including the replacement of the import statements if they have changed.
+   */
+  public Set<Replacement> getReplacements() {
+    addImportReplacement();
+    return replacements.descending();
+  }
+
+  private void addImportReplacement() {
+    if (importStatements != null) {
       importStatements.addAll(importsToAdd);
       importStatements.removeAll(importsToRemove);
       if (importStatements.importsHaveChanged()) {
@@ -123,9 +144,5 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
             Replacements.CoalescePolicy.REPLACEMENT_FIRST);
       }
     }
-    for (Replacement replacement : replacements.descending()) {
-      sourceFile.replaceChars(
-          replacement.startPosition(), replacement.endPosition(), replacement.replaceWith());
-    }
   }
 }
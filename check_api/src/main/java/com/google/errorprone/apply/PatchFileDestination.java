@@ -17,6 +17,10 @@
 package com.google.errorprone.apply;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 import com.github.difflib.DiffUtils;
 import com.github.difflib.UnifiedDiffUtils;
@@ -24,17 +28,24 @@ import com.github.difflib.algorithm.DiffException;
 import com.github.difflib.patch.Patch;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.errorprone.fixes.Replacement;
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URI;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
- * A {@link FileDestination} that writes a unix-patch file to {@code rootPath} containing the
- * suggested changes.
+ * A {@link FileDestination} that writes a unix-patch file containing the suggested changes.
+ *
+ * <p>The diffs are collected until {@link #flush}, which writes them to the patch file in path
+ * order. Different files may be written from different threads, so the patch file doesn't depend on
+ * the order in which they're written.
  */
 public final class PatchFileDestination implements FileDestination {
 
@@ -42,14 +53,19 @@ public final class PatchFileDestination implements FileDestination {
   // a bit funky.
   private static final Splitter LINE_SPLITTER = Splitter.on('\n');
 
+  private static final int CONTEXT_LINES = 2;
+
   private final Path baseDir;
   private final Path rootPath;
-  // Path -> Unified Diff, sorted by path
-  private final Map<URI, String> diffByFile = new TreeMap<>();
+  private final Path patchFile;
+  // Path -> Unified Diff, sorted by path. Diffs for different files may be recorded concurrently.
+  private final Map<URI, String> diffByFile = new ConcurrentSkipListMap<>();
+  private boolean written = false;
 
-  public PatchFileDestination(Path baseDir, Path rootPath) {
+  public PatchFileDestination(Path baseDir, Path rootPath, Path patchFile) {
     this.baseDir = baseDir;
     this.rootPath = rootPath;
+    this.patchFile = patchFile;
   }
 
   @Override
@@ -68,16 +84,56 @@ public final class PatchFileDestination implements FileDestination {
       }
       String relativePath = baseDir.relativize(sourceFilePath).toString();
       List<String> unifiedDiff =
-          UnifiedDiffUtils.generateUnifiedDiff(relativePath, relativePath, originalLines, diff, 2);
+          UnifiedDiffUtils.generateUnifiedDiff(
+              relativePath, relativePath, originalLines, diff, CONTEXT_LINES);
       String diffString = Joiner.on("\n").join(unifiedDiff) + "\n";
       diffByFile.put(sourceFilePath.toUri(), diffString);
     }
   }
 
-  public String patchFile(URI uri) {
-    return diffByFile.remove(uri);
+  /**
+   * Records the diff for applying {@code replacements} to {@code original}.
+   *
+   * <p>Unlike {@link #writeFile}, this doesn't need to re-read the file or to compare its old and
+   * new contents, since the replacements already describe exactly which lines have changed.
+   *
+   * @param original the unmodified source file
+   * @param replacements the replacements to make, as returned by {@link
+   *     DescriptionBasedDiff#getReplacements}
+   */
+  public void writeFile(SourceFile original, Collection<Replacement> replacements) {
+    if (replacements.isEmpty()) {
+      return;
+    }
+    Path sourceFilePath = rootPath.resolve(original.getPath());
+    String relativePath = baseDir.relativize(sourceFilePath).toString();
+    String diff =
+        UnifiedDiff.generate(relativePath, original.getSourceText(), replacements, CONTEXT_LINES);
+    if (!diff.isEmpty()) {
+      diffByFile.put(sourceFilePath.toUri(), diff);
+    }
   }
 
+  /**
+   * Writes the collected diffs to the patch file. The first flush that has any diffs to write
+   * replaces the previous contents of the patch file, and later ones append to it.
+   */
   @Override
-  public void flush() throws IOException {}
+  public void flush() throws IOException {
+    if (diffByFile.isEmpty()) {
+      return;
+    }
+    Files.createDirectories(patchFile.getParent());
+    OpenOption[] options =
+        written
+            ? new OpenOption[] {CREATE, APPEND}
+            : new OpenOption[] {CREATE, TRUNCATE_EXISTING, WRITE};
+    written = true;
+    try (Writer writer = Files.newBufferedWriter(patchFile, UTF_8, options)) {
+      for (String diff : diffByFile.values()) {
+        writer.write(diff);
+      }
+    }
+    diffByFile.clear();
+  }
 }
@@ -18,18 +18,27 @@ package com.google.errorprone.apply;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.io.CharSource;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.fixes.Replacements;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.io.StringReader;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import javax.annotation.Nullable;
 import javax.tools.JavaFileObject;
 
 /**
  * Representation of a mutable Java source file.
  *
+ * <p>Edits made with {@link #replaceChars} in descending order of position, which is the order that
+ * {@link com.google.errorprone.fixes.Replacements#descending} returns them in, don't change the
+ * positions of the edits that follow them. Those edits are recorded as a list of pieces and applied
+ * together in a single pass over the file the next time its contents are read, so applying all of
+ * the replacements for a file takes time linear in the size of the file and the replacements.
+ *
  * <p>This class is not thread-safe.
  *
  * @author sjnickerson@google.com (Simon Nickerson)
@@ -37,8 +46,29 @@ import javax.tools.JavaFileObject;
  */
 public class SourceFile {
 
+  /** A pending replacement of the characters in {@code [start, end)} of {@link #source}. */
+  private static final class Edit {
+    final int start;
+    final int end;
+    final String replacement;
+
+    Edit(int start, int end, String replacement) {
+      this.start = start;
+      this.end = end;
+      this.replacement = replacement;
+    }
+  }
+
   private final String path;
-  private final StringBuilder sourceBuilder;
+  // The contents of the file, not including any pending edits.
+  private String source;
+  // Edits that haven't been applied to source yet, in descending order of position. None of them
+  // overlap, so their positions are all relative to source.
+  private final List<Edit> pendingEdits = new ArrayList<>();
+  // The length of the file once the pending edits have been applied.
+  private int length;
+  // The positions at which each line of source starts, computed on demand.
+  @Nullable private int[] lineStarts;
 
   public static SourceFile create(JavaFileObject fileObject) throws IOException {
     return new SourceFile(fileObject.toUri().getPath(), fileObject.getCharContent(false));
@@ -46,7 +76,7 @@ public class SourceFile {
 
   public SourceFile(String path, CharSequence source) {
     this.path = path;
-    sourceBuilder = new StringBuilder(source);
+    setSourceText(source);
   }
 
   /** Returns the path for this source file */
@@ -57,7 +87,7 @@ public class SourceFile {
   /** Returns a copy of code as a list of lines. */
   public List<String> getLines() {
     try {
-      return CharSource.wrap(sourceBuilder).readLines();
+      return CharSource.wrap(getSourceText()).readLines();
     } catch (IOException e) {
       throw new AssertionError("IOException not possible, as the string is in-memory", e);
     }
@@ -65,17 +95,20 @@ public class SourceFile {
 
   /** Returns a copy of the code as a string. */
   public String getSourceText() {
-    return sourceBuilder.toString();
+    applyPendingEdits();
+    return source;
   }
 
   public CharSequence getAsSequence() {
-    return CharBuffer.wrap(sourceBuilder).asReadOnlyBuffer();
+    return CharBuffer.wrap(getSourceText()).asReadOnlyBuffer();
   }
 
   /** Clears the current source test for this SourceFile and resets it to the passed-in value. */
   public void setSourceText(CharSequence source) {
-    sourceBuilder.setLength(0); // clear StringBuilder
-    sourceBuilder.append(source);
+    this.source = source.toString();
+    this.length = this.source.length();
+    this.pendingEdits.clear();
+    this.lineStarts = null;
   }
 
   /**
@@ -85,7 +118,7 @@ public class SourceFile {
    * and end parameters.
    */
   public String getFragmentByChars(int startPosition, int endPosition) {
-    return sourceBuilder.substring(startPosition, endPosition);
+    return getSourceText().substring(startPosition, endPosition);
   }
 
   /**
@@ -100,27 +133,68 @@ public class SourceFile {
   }
 
   private List<String> getLines(int startLine, int endLine) {
-    LineNumberReader reader = new LineNumberReader(new StringReader(sourceBuilder.toString()));
-    List<String> lines = new ArrayList<>(endLine - startLine + 1);
-    String line;
-    try {
-      while ((line = reader.readLine()) != null) {
-        if (reader.getLineNumber() >= startLine) {
-          lines.add(line);
+    applyPendingEdits();
+    int[] starts = lineStarts();
+    // The last entry is the end of the file, rather than the start of a line.
+    int lineCount = starts.length - 1;
+    // Line numbers are 1-based; ones before the start of the file are treated as the first line.
+    int first = Math.max(startLine, 1);
+    int last = Math.min(Math.max(endLine, 1), lineCount);
+    List<String> lines = new ArrayList<>(Math.max(0, last - first + 1));
+    for (int line = first; line <= last; line++) {
+      lines.add(source.substring(starts[line - 1], lineEnd(starts[line - 1], starts[line])));
+    }
+    return lines;
+  }
+
+  /**
+   * Returns the start positions of the lines of {@link #source}, followed by its length. Lines are
+   * terminated by {@code \n}, {@code \r} or {@code \r\n}, as for {@link
+   * java.io.BufferedReader#readLine}, and a terminator at the end of the file doesn't start a new
+   * line.
+   */
+  private int[] lineStarts() {
+    if (lineStarts == null) {
+      int[] starts = new int[16];
+      int count = 0;
+      int pos = 0;
+      while (pos < source.length()) {
+        if (count + 1 >= starts.length) {
+          starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        starts[count++] = pos;
+        while (pos < source.length() && !isLineTerminator(source.charAt(pos))) {
+          pos++;
         }
-        if (reader.getLineNumber() >= endLine) {
-          break;
+        if (pos < source.length()) {
+          pos += source.startsWith("\r\n", pos) ? 2 : 1;
         }
       }
-      return lines;
-    } catch (IOException e) {
-      throw new AssertionError("Wrapped StringReader should not produce I/O exceptions", e);
+      starts[count++] = source.length();
+      lineStarts = Arrays.copyOf(starts, count);
+    }
+    return lineStarts;
+  }
+
+  /** Returns the end of the line that starts at {@code start}, excluding its terminator. */
+  private int lineEnd(int start, int nextStart) {
+    int end = nextStart;
+    if (end > start && isLineTerminator(source.charAt(end - 1))) {
+      end--;
+      if (end > start && source.charAt(end) == '\n' && source.charAt(end - 1) == '\r') {
+        end--;
+      }
     }
+    return end;
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r';
   }
 
   /** Replace the source code with the new lines of code. */
   public void replaceLines(List<String> lines) {
-    sourceBuilder.replace(0, sourceBuilder.length(), Joiner.on("\n").join(lines) + "\n");
+    setSourceText(Joiner.on("\n").join(lines) + "\n");
   }
 
   /** Replace the source code between the start and end lines with some new lines of code. */
@@ -148,14 +222,48 @@ public class SourceFile {
    * and end parameters.
    */
   public void replaceChars(int startPosition, int endPosition, String replacement) {
-    try {
-      sourceBuilder.replace(startPosition, endPosition, replacement);
-    } catch (StringIndexOutOfBoundsException e) {
+    if (startPosition < 0 || startPosition > endPosition || startPosition > length) {
       throw new IndexOutOfBoundsException(
           String.format(
               "Replacement cannot be made. Source file %s has length %d, requested start "
                   + "position %d, requested end position %d, replacement %s",
-              path, sourceBuilder.length(), startPosition, endPosition, replacement));
+              path, length, startPosition, endPosition, replacement));
+    }
+    endPosition = Math.min(endPosition, length);
+    if (!pendingEdits.isEmpty() && endPosition > pendingEdits.get(pendingEdits.size() - 1).start) {
+      // This edit isn't before all of the pending ones, so their positions are no longer relative
+      // to the same text.
+      applyPendingEdits();
+    }
+    pendingEdits.add(new Edit(startPosition, endPosition, replacement));
+    length += replacement.length() - (endPosition - startPosition);
+  }
+
+  /**
+   * Makes all of the given replacements, which must be relative to the current contents of the
+   * file.
+   */
+  public void makeReplacements(Replacements replacements) {
+    for (Replacement replacement : replacements.descending()) {
+      replaceChars(
+          replacement.startPosition(), replacement.endPosition(), replacement.replaceWith());
+    }
+  }
+
+  /** Applies the pending edits to {@link #source} in a single pass. */
+  private void applyPendingEdits() {
+    if (pendingEdits.isEmpty()) {
+      return;
+    }
+    StringBuilder sb = new StringBuilder(length);
+    int pos = 0;
+    for (Edit edit : Lists.reverse(pendingEdits)) {
+      sb.append(source, pos, edit.start).append(edit.replacement);
+      pos = edit.end;
     }
+    sb.append(source, pos, source.length());
+    source = sb.toString();
+    pendingEdits.clear();
+    lineStarts = null;
   }
 }
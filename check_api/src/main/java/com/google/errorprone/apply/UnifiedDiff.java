@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.apply;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.errorprone.fixes.Replacement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds a unified diff directly from the {@link Replacement}s made to a source file.
+ *
+ * <p>The changed lines are known from the replacement ranges, so unlike a general purpose diff this
+ * never compares the unchanged parts of the file. The output has the same format as {@code
+ * com.github.difflib.UnifiedDiffUtils}, with lines split on {@code '\n'} only.
+ */
+final class UnifiedDiff {
+
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n');
+
+  /** A run of consecutive original lines that are replaced by {@code newLines}. */
+  private static final class Change {
+    final int oldStart;
+    final int oldCount;
+    final List<String> newLines;
+
+    Change(int oldStart, int oldCount, List<String> newLines) {
+      this.oldStart = oldStart;
+      this.oldCount = oldCount;
+      this.newLines = newLines;
+    }
+
+    int oldEnd() {
+      return oldStart + oldCount;
+    }
+  }
+
+  private final String source;
+  private final int[] lineStarts;
+
+  private UnifiedDiff(String source) {
+    this.source = source;
+    int[] starts = new int[16];
+    int lines = 1;
+    for (int i = source.indexOf('\n'); i != -1; i = source.indexOf('\n', i + 1)) {
+      if (lines == starts.length) {
+        starts = Arrays.copyOf(starts, lines * 2);
+      }
+      starts[lines++] = i + 1;
+    }
+    this.lineStarts = Arrays.copyOf(starts, lines);
+  }
+
+  /**
+   * Returns the unified diff for applying {@code replacements} to {@code source}, or the empty
+   * string if they don't change it.
+   *
+   * @param path the path to use in the {@code ---} and {@code +++} headers
+   * @param source the original contents of the file
+   * @param replacements non-overlapping replacements, sorted in descending order by position as
+   *     returned by {@link com.google.errorprone.fixes.Replacements#descending}
+   * @param contextLines the number of unchanged lines to show around each change
+   */
+  static String generate(
+      String path, String source, Collection<Replacement> replacements, int contextLines) {
+    UnifiedDiff diff = new UnifiedDiff(source);
+    return diff.format(path, diff.changes(replacements), contextLines);
+  }
+
+  private List<Change> changes(Collection<Replacement> descending) {
+    List<Replacement> ascending = Lists.reverse(new ArrayList<>(descending));
+    List<Change> changes = new ArrayList<>();
+    int i = 0;
+    while (i < ascending.size()) {
+      // Replacements that touch a common line have to be applied to that line together, and
+      // replacements on adjacent lines are grouped so that they're shown as a single change.
+      int firstLine = lineOf(ascending.get(i).startPosition());
+      int lastLine = lineOf(ascending.get(i).endPosition());
+      int j = i + 1;
+      while (j < ascending.size() && lineOf(ascending.get(j).startPosition()) <= lastLine + 1) {
+        lastLine = Math.max(lastLine, lineOf(ascending.get(j).endPosition()));
+        j++;
+      }
+      StringBuilder replaced = new StringBuilder();
+      int pos = lineStarts[firstLine];
+      for (Replacement replacement : ascending.subList(i, j)) {
+        replaced.append(source, pos, replacement.startPosition()).append(replacement.replaceWith());
+        pos = replacement.endPosition();
+      }
+      replaced.append(source, pos, lineEnd(lastLine));
+      addChange(changes, firstLine, lastLine + 1, LINE_SPLITTER.splitToList(replaced));
+      i = j;
+    }
+    return changes;
+  }
+
+  /**
+   * Records that the original lines {@code [oldStart, oldEnd)} become {@code newLines}, ignoring
+   * any leading and trailing lines that are unchanged.
+   */
+  private void addChange(List<Change> changes, int oldStart, int oldEnd, List<String> newLines) {
+    int newStart = 0;
+    int newEnd = newLines.size();
+    while (oldStart < oldEnd
+        && newStart < newEnd
+        && lineEquals(oldStart, newLines.get(newStart))) {
+      oldStart++;
+      newStart++;
+    }
+    while (oldStart < oldEnd
+        && newStart < newEnd
+        && lineEquals(oldEnd - 1, newLines.get(newEnd - 1))) {
+      oldEnd--;
+      newEnd--;
+    }
+    if (oldStart < oldEnd || newStart < newEnd) {
+      changes.add(new Change(oldStart, oldEnd - oldStart, newLines.subList(newStart, newEnd)));
+    }
+  }
+
+  private String format(String path, List<Change> changes, int contextLines) {
+    if (changes.isEmpty()) {
+      return "";
+    }
+    StringBuilder out = new StringBuilder();
+    out.append("--- ").append(path).append('\n');
+    out.append("+++ ").append(path).append('\n');
+    // The difference between the line numbers in the new and old files before the current hunk.
+    int offset = 0;
+    int first = 0;
+    while (first < changes.size()) {
+      int last = first;
+      while (last + 1 < changes.size()
+          && changes.get(last + 1).oldStart - changes.get(last).oldEnd() <= 2 * contextLines) {
+        last++;
+      }
+      int hunkStart = Math.max(0, changes.get(first).oldStart - contextLines);
+      int hunkEnd = Math.min(lineStarts.length, changes.get(last).oldEnd() + contextLines);
+      int delta = 0;
+      for (Change change : changes.subList(first, last + 1)) {
+        delta += change.newLines.size() - change.oldCount;
+      }
+      out.append("@@ -")
+          .append(hunkStart + 1)
+          .append(',')
+          .append(hunkEnd - hunkStart)
+          .append(" +")
+          .append(hunkStart + offset + 1)
+          .append(',')
+          .append(hunkEnd - hunkStart + delta)
+          .append(" @@\n");
+      int line = hunkStart;
+      for (Change change : changes.subList(first, last + 1)) {
+        for (; line < change.oldStart; line++) {
+          out.append(' ').append(source, lineStarts[line], lineEnd(line)).append('\n');
+        }
+        for (; line < change.oldEnd(); line++) {
+          out.append('-').append(source, lineStarts[line], lineEnd(line)).append('\n');
+        }
+        for (String newLine : change.newLines) {
+          out.append('+').append(newLine).append('\n');
+        }
+      }
+      for (; line < hunkEnd; line++) {
+        out.append(' ').append(source, lineStarts[line], lineEnd(line)).append('\n');
+      }
+      offset += delta;
+      first = last + 1;
+    }
+    return out.toString();
+  }
+
+  /** Returns the index of the line containing the character at {@code position}. */
+  private int lineOf(int position) {
+    int index = Arrays.binarySearch(lineStarts, position);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /** Returns the position of the end of {@code line}, excluding the line terminator. */
+  private int lineEnd(int line) {
+    return line + 1 < lineStarts.length ? lineStarts[line + 1] - 1 : source.length();
+  }
+
+  private boolean lineEquals(int line, String text) {
+    return lineEnd(line) - lineStarts[line] == text.length()
+        && source.regionMatches(lineStarts[line], text, 0, text.length());
+  }
+}
@@ -19,6 +19,8 @@ package com.google.errorprone.bugpatterns;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.BugCheckerInfo;
 import com.google.errorprone.BugPattern.SeverityLevel;
@@ -27,6 +29,7 @@ import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.fixes.Fix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Suppressible;
+import com.google.errorprone.matchers.method.MethodMatchers.MethodMatcher;
 import com.google.errorprone.suppliers.Supplier;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.AnnotatedTypeTree;
@@ -102,6 +105,13 @@ import java.util.function.BiPredicate;
  * implement one or more of the {@code *Matcher} interfaces in this class to declare which tree node
  * types to match against.
  *
+ * <p>Error Prone calls a check's matchers on javac's thread, for one tree at a time, so checks
+ * don't need to be thread-safe. A check instance may be reused for every compilation unit in a
+ * compilation and, when a {@link com.google.errorprone.scanner.ScannerCache} is in use, for many
+ * compilations. Anything a check caches about the code being compiled must therefore be scoped to
+ * the compilation, for example with {@link VisitorState#memoize}, instead of being kept in its
+ * fields.
+ *
  * @author Colin Decker
  * @author Eddie Aftandilian (eaftan@google.com)
  */
@@ -239,6 +249,14 @@ public abstract class BugChecker implements Suppressible, Serializable {
     return info.disableable();
   }
 
+  /**
+   * Returns the canonical names of the types that a compilation unit has to refer to for this check
+   * to report anything in it; see {@link com.google.errorprone.BugPattern#requiredTypes}.
+   */
+  public ImmutableSet<String> requiredTypes() {
+    return info.requiredTypes();
+  }
+
   @Override
   public Set<Class<? extends Annotation>> customSuppressionAnnotations() {
     return info.customSuppressionAnnotations();
@@ -402,6 +420,21 @@ public abstract class BugChecker implements Suppressible, Serializable {
 
   public interface MethodInvocationTreeMatcher extends Suppressible {
     Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state);
+
+    /**
+     * Returns matchers for every method invocation that {@link #matchMethodInvocation} can report
+     * a finding on, or an empty list if it needs to see every method invocation.
+     *
+     * <p>The scanner compiles the matchers declared by all enabled checks into a single graph,
+     * which is evaluated once per method invocation, and then only calls the checks with a matcher
+     * that matched. A check is still called for every method invocation if any of its matchers
+     * can't be compiled, see {@link MethodMatcher#asRule}, or if it has {@linkplain
+     * BugChecker#requiredTypes required types}, since the graph is built without instantiating
+     * those checks.
+     */
+    default ImmutableList<MethodMatcher> methodInvocationPrefilter() {
+      return ImmutableList.of();
+    }
   }
 
   public interface ModifiersTreeMatcher extends Suppressible {
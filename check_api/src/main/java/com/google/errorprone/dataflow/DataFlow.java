@@ -18,10 +18,13 @@ package com.google.errorprone.dataflow;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import com.google.errorprone.ErrorProneTimings;
+import com.google.errorprone.ErrorProneTimings.Span;
+import com.google.errorprone.StatisticsCollector;
+import com.google.errorprone.VisitorState;
 import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
@@ -31,9 +34,13 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
-import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 import com.sun.tools.javac.util.Context;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 import javax.annotation.processing.ProcessingEnvironment;
 import org.checkerframework.shaded.dataflow.analysis.AbstractValue;
@@ -62,71 +69,153 @@ public final class DataFlow {
   }
 
   /*
-   * We cache both the control flow graph and the analyses that are run on it.
-   * We tuned performance to the following assumptions (which are currently true for error-prone):
-   *
-   * <ul>
-   * <li> all dataflow analyses for a method are finished before another method is analyzed
-   * <li> multiple dataflow analyses for the same method are executed in arbitrary order
-   * </ul>
-   *
-   * TODO(b/158869538): Write a test that checks these assumptions
+   * We cache both the control flow graphs and the analyses that are run on them, for every method,
+   * lambda and initializer in the compilation unit that is currently being analyzed. Checks query
+   * dataflow in arbitrary order (e.g. alternating between a lambda and its enclosing method), so
+   * everything is kept until the scanner finishes the compilation unit, or until a query arrives
+   * for a different compilation unit, at which point the caches are cleared.
+   */
+  private static final class DataFlowCache {
+    private static final Context.Key<DataFlowCache> KEY = new Context.Key<>();
+
+    static DataFlowCache instance(Context context) {
+      DataFlowCache instance = context.get(KEY);
+      if (instance == null) {
+        instance = new DataFlowCache();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+
+    /** The counters for the whole compilation. */
+    private final StatisticsCollector statistics = StatisticsCollector.createCollector();
+
+    /** The counters that haven't been reported by {@link #finishCompilationUnit} yet. */
+    private final Multiset<String> unreported = HashMultiset.create();
+
+    private final Map<Tree, ControlFlowGraph> cfgs = new HashMap<>();
+    private final Map<AnalysisParams, Analysis<?, ?, ?>> analyses = new HashMap<>();
+    @Nullable private CompilationUnitTree compilationUnit;
+
+    /**
+     * The source files of the compilation units whose caches were cleared; building a CFG for one
+     * of them again is counted as a rebuild. The files are recorded rather than the units, so that
+     * the trees that were dropped from the cache aren't kept reachable.
+     */
+    private final Set<URI> evicted = new HashSet<>();
+
+    private void increment(String key) {
+      statistics.incrementCounter(key);
+      unreported.add(key);
+    }
+
+    synchronized ControlFlowGraph cfg(
+        TreePath methodPath, ProcessingEnvironment env, ErrorProneTimings timings) {
+      CompilationUnitTree root = methodPath.getCompilationUnit();
+      if (root != compilationUnit) {
+        if (compilationUnit != null) {
+          evicted.add(compilationUnit.getSourceFile().toUri());
+        }
+        clear();
+        compilationUnit = root;
+      }
+      ControlFlowGraph cfg = cfgs.get(methodPath.getLeaf());
+      if (cfg != null) {
+        increment("DataFlow-cfg-hit");
+        return cfg;
+      }
+      increment("DataFlow-cfg-miss");
+      if (evicted.contains(root.getSourceFile().toUri())) {
+        increment("DataFlow-cfg-rebuild");
+      }
+      try (Span unused = timings.phaseSpan("dataflow-cfg")) {
+        cfg = buildCfg(methodPath, env);
+      }
+      cfgs.put(methodPath.getLeaf(), cfg);
+      return cfg;
+    }
+
+    synchronized Analysis<?, ?, ?> analysis(AnalysisParams params, ErrorProneTimings timings) {
+      Analysis<?, ?, ?> analysis = analyses.get(params);
+      if (analysis != null) {
+        increment("DataFlow-analysis-hit");
+        return analysis;
+      }
+      increment("DataFlow-analysis-miss");
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      Analysis<?, ?, ?> newAnalysis = new ForwardAnalysisImpl(params.transferFunction());
+      try (Span unused = timings.phaseSpan("dataflow-analysis")) {
+        newAnalysis.performAnalysis(params.cfg());
+      }
+      analyses.put(params, newAnalysis);
+      return newAnalysis;
+    }
+
+    synchronized void finishCompilationUnit(VisitorState state) {
+      if (compilationUnit != null) {
+        evicted.add(compilationUnit.getSourceFile().toUri());
+      }
+      clear();
+      compilationUnit = null;
+      for (Multiset.Entry<String> entry : unreported.entrySet()) {
+        state.incrementCounter(entry.getElement(), entry.getCount());
+      }
+      unreported.clear();
+    }
+
+    private void clear() {
+      cfgs.clear();
+      analyses.clear();
+    }
+  }
+
+  private static ControlFlowGraph buildCfg(TreePath methodPath, ProcessingEnvironment env) {
+    final UnderlyingAST ast;
+    ClassTree classTree = null;
+    MethodTree methodTree = null;
+    for (Tree parent : methodPath) {
+      if (parent instanceof MethodTree) {
+        methodTree = (MethodTree) parent;
+      }
+      if (parent instanceof ClassTree) {
+        classTree = (ClassTree) parent;
+        break;
+      }
+    }
+    if (methodPath.getLeaf() instanceof LambdaExpressionTree) {
+      ast =
+          new UnderlyingAST.CFGLambda(
+              (LambdaExpressionTree) methodPath.getLeaf(), classTree, methodTree);
+    } else if (methodPath.getLeaf() instanceof MethodTree) {
+      methodTree = (MethodTree) methodPath.getLeaf();
+      ast = new UnderlyingAST.CFGMethod(methodTree, classTree);
+    } else {
+      // must be an initializer per findEnclosingMethodOrLambdaOrInitializer
+      ast = new UnderlyingAST.CFGStatement(methodPath.getLeaf(), classTree);
+    }
+    CompilationUnitTree root = methodPath.getCompilationUnit();
+    // TODO(b/158869538): replace with faster build(bodyPath, env, ast, false, false);
+    return CFGBuilder.build(root, ast, false, false, env);
+  }
+
+  /**
+   * Returns the hit, miss and rebuild counters of the control flow graph and analysis caches,
+   * accumulated since the start of the compilation that {@code context} belongs to.
+   */
+  public static ImmutableMultiset<String> cacheStatistics(Context context) {
+    DataFlowCache cache = DataFlowCache.instance(context);
+    synchronized (cache) {
+      return cache.statistics.counters();
+    }
+  }
+
+  /**
+   * Drops the control flow graphs and analyses cached for the compilation unit that was just
+   * scanned, and records the cache counters since the previous call in {@code state}'s statistics.
    */
-  private static final LoadingCache<AnalysisParams, Analysis<?, ?, ?>> analysisCache =
-      CacheBuilder.newBuilder()
-          .build(
-              new CacheLoader<AnalysisParams, Analysis<?, ?, ?>>() {
-                @Override
-                public Analysis<?, ?, ?> load(AnalysisParams key) {
-                  final ControlFlowGraph cfg = key.cfg();
-                  final ForwardTransferFunction<?, ?> transfer = key.transferFunction();
-
-                  @SuppressWarnings({"unchecked", "rawtypes"})
-                  final Analysis<?, ?, ?> analysis = new ForwardAnalysisImpl(transfer);
-                  analysis.performAnalysis(cfg);
-                  return analysis;
-                }
-              });
-
-  private static final LoadingCache<CfgParams, ControlFlowGraph> cfgCache =
-      CacheBuilder.newBuilder()
-          .maximumSize(1)
-          .build(
-              new CacheLoader<CfgParams, ControlFlowGraph>() {
-                @Override
-                public ControlFlowGraph load(CfgParams key) {
-                  final TreePath methodPath = key.methodPath();
-                  final UnderlyingAST ast;
-                  ClassTree classTree = null;
-                  MethodTree methodTree = null;
-                  for (Tree parent : methodPath) {
-                    if (parent instanceof MethodTree) {
-                      methodTree = (MethodTree) parent;
-                    }
-                    if (parent instanceof ClassTree) {
-                      classTree = (ClassTree) parent;
-                      break;
-                    }
-                  }
-                  if (methodPath.getLeaf() instanceof LambdaExpressionTree) {
-                    ast =
-                        new UnderlyingAST.CFGLambda(
-                            (LambdaExpressionTree) methodPath.getLeaf(), classTree, methodTree);
-                  } else if (methodPath.getLeaf() instanceof MethodTree) {
-                    methodTree = (MethodTree) methodPath.getLeaf();
-                    ast = new UnderlyingAST.CFGMethod(methodTree, classTree);
-                  } else {
-                    // must be an initializer per findEnclosingMethodOrLambdaOrInitializer
-                    ast = new UnderlyingAST.CFGStatement(methodPath.getLeaf(), classTree);
-                  }
-                  final ProcessingEnvironment env = key.environment();
-
-                  analysisCache.invalidateAll();
-                  CompilationUnitTree root = methodPath.getCompilationUnit();
-                  // TODO(b/158869538): replace with faster build(bodyPath, env, ast, false, false);
-                  return CFGBuilder.build(root, ast, false, false, env);
-                }
-              });
+  public static void finishCompilationUnit(VisitorState state) {
+    DataFlowCache.instance(state.context).finishCompilationUnit(state);
+  }
 
   // TODO(b/158869538): remove once we merge jdk8 specific's with core
   @Nullable
@@ -161,25 +250,23 @@ public final class DataFlow {
    * Run the {@code transfer} dataflow analysis over the method or lambda which is the leaf of the
    * {@code methodPath}.
    *
-   * <p>For caching, we make the following assumptions: - if two paths to methods are {@code equal},
-   * their control flow graph is the same. - if two transfer functions are {@code equal}, and are
-   * run over the same control flow graph, the analysis result is the same. - for all contexts, the
-   * analysis result is the same.
+   * <p>For caching, we make the following assumptions: - if two paths lead to the same method,
+   * lambda or initializer tree, their control flow graph is the same. - if two transfer functions
+   * are {@code equal}, and are run over the same control flow graph, the analysis result is the
+   * same. - for all contexts, the analysis result is the same.
    */
   private static <
           A extends AbstractValue<A>, S extends Store<S>, T extends ForwardTransferFunction<A, S>>
       Result<A, S, T> methodDataflow(TreePath methodPath, Context context, T transfer) {
     final ProcessingEnvironment env = JavacProcessingEnvironment.instance(context);
 
-    final ControlFlowGraph cfg;
-    try {
-      cfg = cfgCache.getUnchecked(CfgParams.create(methodPath, env));
-    } catch (UncheckedExecutionException e) {
-      throw e.getCause() instanceof CompletionFailure ? (CompletionFailure) e.getCause() : e;
-    }
+    final ErrorProneTimings timings = ErrorProneTimings.instance(context);
+
+    final DataFlowCache cache = DataFlowCache.instance(context);
+    final ControlFlowGraph cfg = cache.cfg(methodPath, env, timings);
     final AnalysisParams aparams = AnalysisParams.create(transfer, cfg, env);
     @SuppressWarnings("unchecked")
-    final Analysis<A, S, T> analysis = (Analysis<A, S, T>) analysisCache.getUnchecked(aparams);
+    final Analysis<A, S, T> analysis = (Analysis<A, S, T>) cache.analysis(aparams, timings);
 
     return new Result<A, S, T>() {
       @Override
@@ -236,24 +323,6 @@ public final class DataFlow {
     return methodDataflow(enclosingMethodPath, context, transfer).getAnalysis().getValue(expr);
   }
 
-  @AutoValue
-  abstract static class CfgParams {
-    abstract TreePath methodPath();
-
-    // Should not be used for hashCode or equals
-    private ProcessingEnvironment environment;
-
-    private static CfgParams create(TreePath methodPath, ProcessingEnvironment environment) {
-      CfgParams cp = new AutoValue_DataFlow_CfgParams(methodPath);
-      cp.environment = environment;
-      return cp;
-    }
-
-    ProcessingEnvironment environment() {
-      return environment;
-    }
-  }
-
   @AutoValue
   abstract static class AnalysisParams {
 
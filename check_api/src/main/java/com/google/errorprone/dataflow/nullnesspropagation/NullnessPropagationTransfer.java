@@ -284,12 +284,13 @@ class NullnessPropagationTransfer extends AbstractNullnessPropagationTransfer
         procedureTree = enclosingOfClass(pathToNode, VariableTree.class); // field init
       }
 
+      checkNotNull(
+          procedureTree, "Call `%s` is not contained in an lambda, initializer or method.", node);
       inferenceResults =
-          NullnessQualifierInference.getInferredNullability(
-              checkNotNull(
-                  procedureTree,
-                  "Call `%s` is not contained in an lambda, initializer or method.",
-                  node));
+          context != null
+              ? NullnessQualifierInference.getInferredNullability(
+                  procedureTree, pathToNode.getCompilationUnit(), context)
+              : NullnessQualifierInference.getInferredNullability(procedureTree);
     }
     return inferenceResults.getExprNullness(node.getTree());
   }
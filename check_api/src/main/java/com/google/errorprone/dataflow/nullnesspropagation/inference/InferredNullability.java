@@ -45,6 +45,11 @@ public class InferredNullability {
     this.constraintGraph = ImmutableGraph.copyOf(constraints);
   }
 
+  /** The qualifier constraints that inference was based on. */
+  Graph<InferenceVariable> constraintGraph() {
+    return constraintGraph;
+  }
+
   /**
    * Get inferred nullness qualifiers for method-generic type variables at a callsite. When
    * inference is not possible for a given type variable, that type variable is not included in the
@@ -19,20 +19,19 @@ package com.google.errorprone.dataflow.nullnesspropagation.inference;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.auto.value.AutoValue;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graph;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.errorprone.dataflow.nullnesspropagation.Nullness;
 import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnnotations;
 import com.sun.source.tree.ArrayAccessTree;
 import com.sun.source.tree.AssignmentTree;
 import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.LambdaExpressionTree;
@@ -47,7 +46,6 @@ import com.sun.source.tree.Tree.Kind;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
-import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.TypeVariableSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
@@ -60,9 +58,12 @@ import com.sun.tools.javac.tree.JCTree.JCFieldAccess;
 import com.sun.tools.javac.tree.JCTree.JCIdent;
 import com.sun.tools.javac.tree.JCTree.JCMethodInvocation;
 import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.util.Context;
 import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import javax.annotation.Nullable;
@@ -77,21 +78,32 @@ import javax.lang.model.type.TypeVariable;
  */
 public class NullnessQualifierInference extends TreeScanner<Void, Void> {
 
-  private static final LoadingCache<Tree, InferredNullability> inferenceCache =
-      CacheBuilder.newBuilder()
-          .maximumSize(1)
-          .build(
-              new CacheLoader<Tree, InferredNullability>() {
-                @Override
-                public InferredNullability load(Tree methodOrInitializer) {
-                  NullnessQualifierInference inferenceEngine =
-                      new NullnessQualifierInference(methodOrInitializer);
-                  inferenceEngine.scan(methodOrInitializer, null);
-                  return new InferredNullability(inferenceEngine.qualifierConstraints);
-                }
-              });
-
+  /**
+   * Returns the inferred nullness qualifiers for a method, lambda or initializer, running inference
+   * from scratch.
+   */
   public static InferredNullability getInferredNullability(Tree methodOrInitializerOrLambda) {
+    checkIsProcedure(methodOrInitializerOrLambda);
+    return infer(methodOrInitializerOrLambda, new HashMap<>());
+  }
+
+  /**
+   * Returns the inferred nullness qualifiers for a method, lambda or initializer in {@code
+   * compilationUnit}.
+   *
+   * <p>The results for every procedure in the compilation unit, including the lambdas nested in the
+   * requested one, are memoized in {@code context} until inference is requested for a different
+   * compilation unit.
+   */
+  public static InferredNullability getInferredNullability(
+      Tree methodOrInitializerOrLambda, CompilationUnitTree compilationUnit, Context context) {
+    checkIsProcedure(methodOrInitializerOrLambda);
+    return infer(
+        methodOrInitializerOrLambda,
+        CompilationUnitResults.instance(context).resultsFor(compilationUnit));
+  }
+
+  private static void checkIsProcedure(Tree methodOrInitializerOrLambda) {
     checkArgument(
         methodOrInitializerOrLambda instanceof MethodTree
             || methodOrInitializerOrLambda instanceof LambdaExpressionTree
@@ -99,10 +111,44 @@ public class NullnessQualifierInference extends TreeScanner<Void, Void> {
             || methodOrInitializerOrLambda instanceof VariableTree,
         "Tree `%s` is not a lambda, initializer, or method.",
         methodOrInitializerOrLambda);
-    try {
-      return inferenceCache.getUnchecked(methodOrInitializerOrLambda);
-    } catch (UncheckedExecutionException e) {
-      throw e.getCause() instanceof CompletionFailure ? (CompletionFailure) e.getCause() : e;
+  }
+
+  private static InferredNullability infer(
+      Tree methodOrInitializerOrLambda, Map<Tree, InferredNullability> results) {
+    InferredNullability result = results.get(methodOrInitializerOrLambda);
+    if (result == null) {
+      NullnessQualifierInference inferenceEngine =
+          new NullnessQualifierInference(methodOrInitializerOrLambda, results);
+      inferenceEngine.scan(methodOrInitializerOrLambda, null);
+      result = new InferredNullability(inferenceEngine.qualifierConstraints);
+      results.put(methodOrInitializerOrLambda, result);
+    }
+    return result;
+  }
+
+  /** The inference results for the procedures in the compilation unit being analyzed. */
+  private static final class CompilationUnitResults {
+    private static final Context.Key<CompilationUnitResults> KEY = new Context.Key<>();
+
+    static CompilationUnitResults instance(Context context) {
+      CompilationUnitResults instance = context.get(KEY);
+      if (instance == null) {
+        instance = new CompilationUnitResults();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+
+    @Nullable private CompilationUnitTree compilationUnit;
+    private final Map<Tree, InferredNullability> results = new HashMap<>();
+
+    Map<Tree, InferredNullability> resultsFor(CompilationUnitTree compilationUnit) {
+      if (this.compilationUnit != compilationUnit) {
+        // Release the results for the previous compilation unit.
+        results.clear();
+        this.compilationUnit = compilationUnit;
+      }
+      return results;
     }
   }
 
@@ -114,8 +160,13 @@ public class NullnessQualifierInference extends TreeScanner<Void, Void> {
 
   private final Tree currentMethodOrInitializerOrLambda;
 
-  private NullnessQualifierInference(Tree currentMethodOrInitializerOrLambda) {
+  /** The results for other procedures in the same compilation unit, including nested lambdas. */
+  private final Map<Tree, InferredNullability> results;
+
+  private NullnessQualifierInference(
+      Tree currentMethodOrInitializerOrLambda, Map<Tree, InferredNullability> results) {
     this.currentMethodOrInitializerOrLambda = currentMethodOrInitializerOrLambda;
+    this.results = results;
     this.qualifierConstraints = GraphBuilder.directed().build();
 
     // Initialize graph with standard nullness lattice; see ASCII art diagram in
@@ -126,6 +177,23 @@ public class NullnessQualifierInference extends TreeScanner<Void, Void> {
     qualifierConstraints.putEdge(ProperInferenceVar.NULL, ProperInferenceVar.NULLABLE);
   }
 
+  @Override
+  public Void visitLambdaExpression(LambdaExpressionTree node, Void unused) {
+    if (node == currentMethodOrInitializerOrLambda) {
+      return super.visitLambdaExpression(node, unused);
+    }
+    // A nested lambda is analyzed as a procedure of its own too, so generate its constraints once
+    // and add them to the enclosing procedure's.
+    Graph<InferenceVariable> lambdaConstraints = infer(node, results).constraintGraph();
+    for (InferenceVariable iv : lambdaConstraints.nodes()) {
+      qualifierConstraints.addNode(iv);
+    }
+    for (EndpointPair<InferenceVariable> edge : lambdaConstraints.edges()) {
+      qualifierConstraints.putEdge(edge.source(), edge.target());
+    }
+    return null;
+  }
+
   @Override
   public Void visitIdentifier(IdentifierTree node, Void unused) {
     Symbol sym = ((JCIdent) node).sym;
@@ -31,6 +31,7 @@ import static com.sun.source.tree.Tree.Kind.CONDITIONAL_EXPRESSION;
 import static com.sun.source.tree.Tree.Kind.NEW_ARRAY;
 import static com.sun.tools.javac.code.TypeTag.CLASS;
 import static com.sun.tools.javac.util.Position.NOPOS;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -47,7 +48,12 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.CharStreams;
+import com.google.errorprone.ErrorProneTimings;
+import com.google.errorprone.ErrorProneTimings.Span;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.apply.DescriptionBasedDiff;
 import com.google.errorprone.apply.ImportOrganizer;
@@ -115,6 +121,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -1222,6 +1229,7 @@ public class SuggestedFixes {
     Arguments arguments = Arguments.instance(javacTask.getContext());
     List<JavaFileObject> fileObjects = new ArrayList<>(arguments.getFileObjects());
     URI modifiedFileUri = modifiedFile.toUri();
+    CharSequence fixedContent = null;
     for (int i = 0; i < fileObjects.size(); i++) {
       final JavaFileObject oldFile = fileObjects.get(i);
       if (modifiedFileUri.equals(oldFile.toUri())) {
@@ -1238,6 +1246,7 @@ public class SuggestedFixes {
           return false;
         }
         diff.applyDifferences(fixSource);
+        fixedContent = fixSource.getAsSequence();
         fileObjects.set(
             i,
             new SimpleJavaFileObject(sourceURI(modifiedFile.toUri()), Kind.SOURCE) {
@@ -1249,6 +1258,96 @@ public class SuggestedFixes {
         break;
       }
     }
+
+    // The rest of the compilation doesn't change while it's being analyzed, so the outcome of the
+    // speculative compile only depends on the modified file's new contents and the options. Checks
+    // frequently propose the same fix more than once (e.g. from different matchers, or for each of
+    // several findings that share a fix), so memoize the outcome.
+    SpeculativeCompilationResults speculativeResults =
+        SpeculativeCompilationResults.instance(javacTask.getContext());
+    Map<HashCode, Boolean> results = speculativeResults.results;
+    HashCode key =
+        speculativeCompilationKey(
+            modifiedFileUri, fixedContent, extraOptions, onlyInSameCompilationUnit);
+    Boolean cached = results.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    boolean result;
+    speculativeResults.compilations++;
+    try (Span unused =
+        ErrorProneTimings.instance(state.context).phaseSpan("speculative-compilation")) {
+      result =
+          speculativelyCompile(
+              state,
+              javacTask,
+              arguments,
+              fileObjects,
+              modifiedFileUri,
+              extraOptions,
+              onlyInSameCompilationUnit,
+              maxErrors,
+              maxWarnings);
+    }
+    results.put(key, result);
+    return result;
+  }
+
+  private static HashCode speculativeCompilationKey(
+      URI modifiedFileUri,
+      @Nullable CharSequence fixedContent,
+      ImmutableList<String> extraOptions,
+      boolean onlyInSameCompilationUnit) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(modifiedFileUri.toString(), UTF_8).putByte((byte) 0);
+    for (String option : extraOptions) {
+      hasher.putString(option, UTF_8).putByte((byte) 0);
+    }
+    hasher.putBoolean(onlyInSameCompilationUnit);
+    if (fixedContent != null) {
+      hasher.putBoolean(true).putString(fixedContent, UTF_8);
+    } else {
+      hasher.putBoolean(false);
+    }
+    return hasher.hash();
+  }
+
+  /** The memoized results of {@link #compilesWithFix} for the current compilation. */
+  private static final class SpeculativeCompilationResults {
+    private static final Context.Key<SpeculativeCompilationResults> KEY = new Context.Key<>();
+
+    static SpeculativeCompilationResults instance(Context context) {
+      SpeculativeCompilationResults instance = context.get(KEY);
+      if (instance == null) {
+        instance = new SpeculativeCompilationResults();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+
+    private final Map<HashCode, Boolean> results = new HashMap<>();
+
+    /** The number of speculative compiles that weren't answered from {@link #results}. */
+    private int compilations;
+  }
+
+  /** Returns the number of speculative compiles that {@link #compilesWithFix} has run so far. */
+  @VisibleForTesting
+  static int speculativeCompilationCount(VisitorState state) {
+    BasicJavacTask javacTask = (BasicJavacTask) state.context.get(JavacTask.class);
+    return SpeculativeCompilationResults.instance(javacTask.getContext()).compilations;
+  }
+
+  private static boolean speculativelyCompile(
+      VisitorState state,
+      BasicJavacTask javacTask,
+      Arguments arguments,
+      List<JavaFileObject> fileObjects,
+      URI modifiedFileUri,
+      ImmutableList<String> extraOptions,
+      boolean onlyInSameCompilationUnit,
+      int maxErrors,
+      int maxWarnings) {
     DiagnosticCollector<JavaFileObject> diagnosticListener = new DiagnosticCollector<>();
     Context context = new Context();
     Options options = Options.instance(context);
@@ -23,6 +23,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Table;
@@ -40,6 +41,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiPredicate;
@@ -490,41 +492,200 @@ public class MethodInvocationMatcher {
     Table<Node, Optional<Token>, Node> nfa = HashBasedTable.create();
     ImmutableSet.Builder<Node> rootsBuilder = ImmutableSet.builder();
     for (Rule rule : rules) {
-      ImmutableMap<TokenType, ? extends Set<Token>> required = rule.required();
-      int numTokens = required.size();
-      if (numTokens == 0) {
+      if (rule.required().isEmpty()) {
         // Forget this whole graph business if one of the alternatives is "anything". This isn't
         // just an optimization: it simplifies building the graph if we know no rules are empty.
         return (tree, state) -> true;
       }
-      Node root = new Node();
-      rootsBuilder.add(root);
-      Node src = root;
-      int tokensHandled = 0;
-      for (TokenType type : TokenType.values()) {
-        Optional<Set<Token>> labels = Optional.ofNullable(required.get(type));
-        if (labels.isPresent()) {
-          tokensHandled++;
-        }
-        boolean lastToken = tokensHandled == numTokens;
-        Node dst = lastToken ? ACCEPT : new Node();
-        if (labels.isPresent()) {
-          for (Token label : labels.get()) {
-            nfa.put(src, Optional.of(label), dst);
-          }
+      rootsBuilder.add(addRule(nfa, rule, ACCEPT));
+    }
+    ImmutableSet<Node> roots = rootsBuilder.build();
+    Map<Set<Node>, NodeWithDefault> mappings = determinize(nfa, roots);
+
+    // At this point, mappings has all the information we need, but it's burdened with a bunch of
+    // now-unnecessary Set<Node> objects for its map keys. We want to replace those with something
+    // lightweight, and convert the indirect references through mappings to a direct pointer lookup.
+    return GraphMatcher.from(mappings, mappings.get(roots));
+  }
+
+  /**
+   * Matches method invocations against a set of rules, each of which is labeled with a key, and
+   * reports the keys of the rules that matched.
+   *
+   * @param <K> the type of the keys
+   */
+  public interface KeyedMatcher<K> {
+    /**
+     * Adds the key of every rule that {@code tree} satisfies to {@code result}. A key may be added
+     * more than once.
+     */
+    void addMatchingKeys(ExpressionTree tree, VisitorState state, Collection<? super K> result);
+  }
+
+  /**
+   * Constructs a {@link KeyedMatcher} for the given labeled rules, which evaluates all of the rules
+   * at once by walking a single graph, in the same way as the matcher returned by {@link
+   * #compile(Iterable)}.
+   *
+   * <p>Unlike {@link #compile(Iterable)}, the graph is not short-circuited at the first rule that
+   * matches, and if the receiver is a subtype of more than one of the supertypes named by the rules
+   * then each of them is followed.
+   */
+  public static <K> KeyedMatcher<K> compileKeyed(Multimap<K, Rule> rules) {
+    Table<Node, Optional<Token>, Node> nfa = HashBasedTable.create();
+    ImmutableSet.Builder<Node> rootsBuilder = ImmutableSet.builder();
+    ImmutableSet.Builder<K> matchesAnything = ImmutableSet.builder();
+    Map<Node, K> accepts = new HashMap<>();
+    for (K key : rules.keySet()) {
+      Node accept = new Node();
+      accepts.put(accept, key);
+      for (Rule rule : rules.get(key)) {
+        if (rule.required().isEmpty()) {
+          matchesAnything.add(key);
         } else {
-          nfa.put(src, Optional.empty(), dst);
+          rootsBuilder.add(addRule(nfa, rule, accept));
+        }
+      }
+    }
+    ImmutableSet<Node> roots = rootsBuilder.build();
+    ImmutableSet<K> always = matchesAnything.build();
+    if (roots.isEmpty()) {
+      return (tree, state, result) -> result.addAll(always);
+    }
+    Map<Set<Node>, NodeWithDefault> mappings = determinize(nfa, roots);
+    KeyedGraphMatcher.Step<K> root =
+        new KeyedGraphMatcher<>(mappings, accepts).step(mappings.get(roots));
+    return (tree, state, result) -> {
+      result.addAll(always);
+      Optional<Context> ctx = Context.create(tree);
+      if (ctx.isPresent()) {
+        root.collect(ctx.get(), state, result);
+      }
+    };
+  }
+
+  /** Converts a DFA with labeled accept states into a {@link KeyedMatcher}. */
+  private static final class KeyedGraphMatcher<K> {
+
+    /** The traversal from one node of the graph. */
+    interface Step<K> {
+      void collect(Context ctx, VisitorState state, Collection<? super K> result);
+    }
+
+    private final Map<Set<Node>, NodeWithDefault> mappings;
+    private final Map<Node, K> accepts;
+    // Nodes are reachable along many paths, so share the steps for them.
+    private final Map<NodeWithDefault, Step<K>> steps = new HashMap<>();
+
+    KeyedGraphMatcher(Map<Set<Node>, NodeWithDefault> mappings, Map<Node, K> accepts) {
+      this.mappings = mappings;
+      this.accepts = accepts;
+    }
+
+    Step<K> step(NodeWithDefault node) {
+      Step<K> step = steps.get(node);
+      if (step == null) {
+        step = createStep(node);
+        steps.put(node, step);
+      }
+      return step;
+    }
+
+    private Step<K> createStep(NodeWithDefault node) {
+      ImmutableList<K> accepted =
+          node.states.stream()
+              .map(accepts::get)
+              .filter(Objects::nonNull)
+              .distinct()
+              .collect(ImmutableList.toImmutableList());
+      SetMultimap<Token, Node> children = node.mapping;
+      Step<K> defaultStep = node.def == null ? null : step(mappings.get(node.def));
+      if (children.isEmpty()) {
+        if (defaultStep == null) {
+          return (ctx, state, result) -> result.addAll(accepted);
         }
+        return (ctx, state, result) -> {
+          result.addAll(accepted);
+          defaultStep.collect(ctx, state, result);
+        };
+      }
+      TokenType type = children.keySet().iterator().next().type();
+      Map<Object, Step<K>> lookup = new HashMap<>();
+      @SuppressWarnings("UnstableApiUsage")
+      Set<Map.Entry<Token, Set<Node>>> entries = Multimaps.asMap(children).entrySet();
+      for (Map.Entry<Token, Set<Node>> entry : entries) {
+        lookup.put(entry.getKey().comparisonKey(), step(mappings.get(entry.getValue())));
+      }
+      switch (type) {
+        case RECEIVER_SUPERTYPE:
+          return (ctx, state, result) -> {
+            result.addAll(accepted);
+            Type receiverType = (Type) TokenType.RECEIVER_SUPERTYPE.extract(ctx, state);
+            // Every supertype that matches has to be followed, since each of them may lead to
+            // different rules. Each of their destinations includes the default's.
+            boolean matched = false;
+            for (Map.Entry<Object, Step<K>> child : lookup.entrySet()) {
+              if (ASTHelpers.isSubtype(
+                  receiverType, state.getTypeFromString((String) child.getKey()), state)) {
+                child.getValue().collect(ctx, state, result);
+                matched = true;
+              }
+            }
+            if (!matched && defaultStep != null) {
+              defaultStep.collect(ctx, state, result);
+            }
+          };
+        default:
+          return (ctx, state, result) -> {
+            result.addAll(accepted);
+            Step<K> child = lookup.get(type.extract(ctx, state));
+            if (child != null) {
+              child.collect(ctx, state, result);
+            } else if (defaultStep != null) {
+              defaultStep.collect(ctx, state, result);
+            }
+          };
+      }
+    }
+  }
 
-        if (lastToken) {
-          break; // No transitions out of the accept state.
+  /**
+   * Adds a path for {@code rule}, which must not be empty, from a new root node to {@code accept}
+   * to the NFA, and returns the root.
+   */
+  private static Node addRule(Table<Node, Optional<Token>, Node> nfa, Rule rule, Node accept) {
+    ImmutableMap<TokenType, ? extends Set<Token>> required = rule.required();
+    int numTokens = required.size();
+    Node root = new Node();
+    Node src = root;
+    int tokensHandled = 0;
+    for (TokenType type : TokenType.values()) {
+      Optional<Set<Token>> labels = Optional.ofNullable(required.get(type));
+      if (labels.isPresent()) {
+        tokensHandled++;
+      }
+      boolean lastToken = tokensHandled == numTokens;
+      Node dst = lastToken ? accept : new Node();
+      if (labels.isPresent()) {
+        for (Token label : labels.get()) {
+          nfa.put(src, Optional.of(label), dst);
         }
+      } else {
+        nfa.put(src, Optional.empty(), dst);
+      }
 
-        src = dst;
+      if (lastToken) {
+        break; // No transitions out of the accept state.
       }
+
+      src = dst;
     }
-    ImmutableSet<Node> roots = rootsBuilder.build();
+    return root;
+  }
 
+  /** Converts the NFA with the given roots into an equivalent DFA. */
+  private static Map<Set<Node>, NodeWithDefault> determinize(
+      Table<Node, Optional<Token>, Node> nfa, Set<Node> roots) {
     // TODO(amalloy): When converting to a DFA, we could use the information that there is
     // exactly one accept state
     // (and no transitions out of that accept state) to help us prune unnecessary identical states
@@ -576,10 +737,7 @@ public class MethodInvocationMatcher {
       open.addAll(values);
     }
 
-    // At this point, mappings has all the information we need, but it's burdened with a bunch of
-    // now-unnecessary Set<Node> objects for its map keys. We want to replace those with something
-    // lightweight, and convert the indirect references through mappings to a direct pointer lookup.
-    return GraphMatcher.from(mappings, mappings.get(roots));
+    return mappings;
   }
 
   private MethodInvocationMatcher() {}
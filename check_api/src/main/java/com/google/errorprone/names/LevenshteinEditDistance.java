@@ -16,6 +16,8 @@
 
 package com.google.errorprone.names;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.base.Ascii;
 import com.google.common.primitives.Ints;
 
@@ -48,7 +50,8 @@ public class LevenshteinEditDistance {
 
   /**
    * Returns the edit distance between two strings. The algorithm used to calculate this distance
-   * has space requirements of len(source)*len(target).
+   * takes time proportional to len(source)*len(target), and doesn't allocate unless both strings
+   * are longer than 64 characters.
    *
    * @param source The source string.
    * @param target The target string
@@ -57,12 +60,33 @@ public class LevenshteinEditDistance {
    * @see #getEditDistance(String, String)
    */
   public static int getEditDistance(String source, String target, boolean caseSensitive) {
+    return getEditDistance(source, target, caseSensitive, Integer.MAX_VALUE - 1);
+  }
 
-    // Levenshtein distance algorithm
+  /**
+   * Returns the edit distance between two strings if it is at most {@code limit}, and {@code limit
+   * + 1} otherwise. This gives up as soon as it is clear that the distance exceeds the limit, so it
+   * is much cheaper than {@link #getEditDistance(String, String, boolean)} for finding strings that
+   * are similar to each other.
+   *
+   * @param source The source string.
+   * @param target The target string
+   * @param caseSensitive If true, case is used in comparisons and 'a' != 'A'.
+   * @param limit The largest distance that is of interest, which must not be negative.
+   * @return The edit distance between the source and target strings, or {@code limit + 1} if it is
+   *     larger than {@code limit}.
+   */
+  public static int getEditDistance(
+      String source, String target, boolean caseSensitive, int limit) {
+    checkArgument(limit >= 0 && limit < Integer.MAX_VALUE, "invalid limit: %s", limit);
 
     int sourceLength = isEmptyOrWhitespace(source) ? 0 : source.length();
     int targetLength = isEmptyOrWhitespace(target) ? 0 : target.length();
 
+    if (Math.abs(sourceLength - targetLength) > limit) {
+      return limit + 1;
+    }
+
     if (sourceLength == 0) {
       return targetLength;
     }
@@ -71,39 +95,112 @@ public class LevenshteinEditDistance {
       return sourceLength;
     }
 
-    if (!caseSensitive) {
-      source = Ascii.toLowerCase(source);
-      target = Ascii.toLowerCase(target);
-    }
+    // The distance is never more than the length of the longer string.
+    limit = Math.min(limit, Math.max(sourceLength, targetLength));
 
-    int[][] levMatrix = new int[sourceLength + 1][targetLength + 1];
+    // The distance is symmetric, so use the shorter string as the pattern for the bit-parallel
+    // algorithm, which handles patterns of up to 64 characters.
+    if (sourceLength > targetLength) {
+      String tmp = source;
+      source = target;
+      target = tmp;
+    }
+    return source.length() <= Long.SIZE
+        ? bitParallelDistance(source, target, caseSensitive, limit)
+        : bandedDistance(source, target, caseSensitive, limit);
+  }
 
-    for (int i = 0; i <= sourceLength; i++) {
-      levMatrix[i][0] = i;
+  /**
+   * Myers' bit-parallel algorithm, as formulated by Hyyr&ouml;: column {@code j} of the dynamic
+   * programming matrix is represented by bit vectors of the vertical differences between adjacent
+   * cells, with bit {@code i} for row {@code i + 1}, and is computed from the previous column in a
+   * constant number of operations.
+   */
+  private static int bitParallelDistance(
+      String pattern, String text, boolean caseSensitive, int limit) {
+    int patternLength = pattern.length();
+    int textLength = text.length();
+    long lastRow = 1L << (patternLength - 1);
+    // Vertical differences of +1 and -1; initially every row is one more than the previous.
+    long positive = -1L;
+    long negative = 0L;
+    int distance = patternLength;
+    for (int j = 0; j < textLength; j++) {
+      long equal = matchMask(pattern, text.charAt(j), caseSensitive);
+      long xv = equal | negative;
+      long xh = (((equal & positive) + positive) ^ positive) | equal;
+      long horizontalPositive = negative | ~(xh | positive);
+      long horizontalNegative = positive & xh;
+      if ((horizontalPositive & lastRow) != 0) {
+        distance++;
+      } else if ((horizontalNegative & lastRow) != 0) {
+        distance--;
+      }
+      // Each of the remaining characters of the text can reduce the distance by at most one.
+      if (distance - (textLength - j - 1) > limit) {
+        return limit + 1;
+      }
+      // Row 0 is the distance from the empty string, which increases by one in every column.
+      horizontalPositive = (horizontalPositive << 1) | 1;
+      horizontalNegative <<= 1;
+      positive = horizontalNegative | ~(xv | horizontalPositive);
+      negative = horizontalPositive & xv;
     }
+    return distance <= limit ? distance : limit + 1;
+  }
 
-    for (int i = 0; i <= targetLength; i++) {
-      levMatrix[0][i] = i;
+  /** Returns a mask with bit {@code i} set if {@code pattern.charAt(i)} matches {@code c}. */
+  private static long matchMask(String pattern, char c, boolean caseSensitive) {
+    long mask = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      if (charsEqual(pattern.charAt(i), c, caseSensitive)) {
+        mask |= 1L << i;
+      }
     }
+    return mask;
+  }
 
+  /**
+   * The standard dynamic programming algorithm, keeping only one row of the matrix and only the
+   * cells within {@code limit} of the diagonal, since any other cell is more than {@code limit}.
+   */
+  private static int bandedDistance(
+      String source, String target, boolean caseSensitive, int limit) {
+    int sourceLength = source.length();
+    int targetLength = target.length();
+    int outOfBand = limit + 1;
+    int[] row = new int[targetLength + 1];
+    for (int j = 0; j <= targetLength; j++) {
+      row[j] = Math.min(j, outOfBand);
+    }
     for (int i = 1; i <= sourceLength; i++) {
-
       char sourceI = source.charAt(i - 1);
-      for (int j = 1; j <= targetLength; j++) {
-        char targetJ = target.charAt(j - 1);
-
-        int cost = 0;
-        if (sourceI != targetJ) {
-          cost = 1;
-        }
-
-        levMatrix[i][j] =
-            Ints.min(
-                cost + levMatrix[i - 1][j - 1], levMatrix[i - 1][j] + 1, levMatrix[i][j - 1] + 1);
+      int first = Math.max(1, i - limit);
+      int last = (int) Math.min(targetLength, (long) i + limit);
+      // The value of row[first - 1] in the previous row.
+      int diagonal = row[first - 1];
+      row[first - 1] = first == 1 ? Math.min(i, outOfBand) : outOfBand;
+      int rowMinimum = row[first - 1];
+      for (int j = first; j <= last; j++) {
+        int above = row[j];
+        int cost = charsEqual(sourceI, target.charAt(j - 1), caseSensitive) ? 0 : 1;
+        int value = Ints.min(diagonal + cost, above + 1, row[j - 1] + 1, outOfBand);
+        row[j] = value;
+        diagonal = above;
+        rowMinimum = Math.min(rowMinimum, value);
+      }
+      if (last < targetLength) {
+        row[last + 1] = outOfBand;
+      }
+      if (rowMinimum > limit) {
+        return outOfBand;
       }
     }
+    return row[targetLength];
+  }
 
-    return levMatrix[sourceLength][targetLength];
+  private static boolean charsEqual(char a, char b, boolean caseSensitive) {
+    return a == b || (!caseSensitive && Ascii.toLowerCase(a) == Ascii.toLowerCase(b));
   }
 
   /**
@@ -133,6 +230,23 @@ public class LevenshteinEditDistance {
    * @return True if the string is empty or contains only whitespace, false otherwise
    */
   private static boolean isEmptyOrWhitespace(String source) {
-    return source == null || source.matches("\\s*");
+    if (source == null) {
+      return true;
+    }
+    for (int i = 0; i < source.length(); i++) {
+      // The characters matched by the regular expression \s.
+      switch (source.charAt(i)) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
   }
 }
@@ -16,43 +16,125 @@
 
 package com.google.errorprone.names;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-
 import com.google.common.collect.ImmutableList;
-import java.util.Arrays;
-import java.util.regex.Pattern;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /** Utility functions for dealing with Java naming conventions */
 public class NamingConventions {
 
-  private static final Pattern ONLY_UNDERSCORES = Pattern.compile("^_+$");
-
-  private static final String UNDERSCORE = "_";
-  private static final String CASE_TRANSITION = "(?<=[a-z0-9])(?=[A-Z])";
-  private static final String TRAILING_DIGITS = "(?<![0-9_])(?=[0-9]+$)";
-
-  private static final Pattern TERM_SPLITTER =
-      Pattern.compile(String.format("%s|%s|%s", UNDERSCORE, CASE_TRANSITION, TRAILING_DIGITS));
-
   /**
    * Split a Java name into terms based on either Camel Case or Underscores. We also split digits at
    * the end of the name into a separate term so as to treat PERSON1 and PERSON_1 as the same thing.
    *
+   * <p>More precisely, the name is split at every underscore (which is dropped), between a
+   * lowercase letter or digit and a following uppercase letter, and before a run of trailing digits
+   * unless it follows an underscore or is the whole name. A name that is made only of underscores
+   * is a single term.
+   *
    * @param identifierName to split
    * @return a list of the terms in the name, in order and converted to lowercase
    */
   public static ImmutableList<String> splitToLowercaseTerms(String identifierName) {
-    if (ONLY_UNDERSCORES.matcher(identifierName).matches()) {
-      // Degenerate case of names which contain only underscore
+    int length = identifierName.length();
+    int trailingDigits = length;
+    while (trailingDigits > 0 && isDigit(identifierName.charAt(trailingDigits - 1))) {
+      trailingDigits--;
+    }
+    ImmutableList.Builder<String> terms = ImmutableList.builder();
+    // Empty terms are kept, except at the end of the name.
+    int pendingEmptyTerms = 0;
+    boolean onlyUnderscores = true;
+    int termStart = 0;
+    for (int i = 0; i <= length; i++) {
+      int termEnd;
+      int nextTermStart;
+      if (i == length) {
+        termEnd = nextTermStart = length;
+      } else if (identifierName.charAt(i) == '_') {
+        termEnd = i;
+        nextTermStart = i + 1;
+      } else {
+        onlyUnderscores = false;
+        if (i > 0 && isTermBoundary(identifierName, i, trailingDigits)) {
+          termEnd = nextTermStart = i;
+        } else {
+          continue;
+        }
+      }
+      if (termEnd == termStart) {
+        pendingEmptyTerms++;
+      } else {
+        for (; pendingEmptyTerms > 0; pendingEmptyTerms--) {
+          terms.add("");
+        }
+        terms.add(identifierName.substring(termStart, termEnd).toLowerCase());
+      }
+      termStart = nextTermStart;
+    }
+    if (onlyUnderscores) {
+      // Degenerate case of names which contain only underscores, or nothing at all
       return ImmutableList.of(identifierName);
     }
-    return Arrays.stream(TERM_SPLITTER.split(identifierName))
-        .map(String::toLowerCase)
-        .collect(toImmutableList());
+    return terms.build();
+  }
+
+  /**
+   * Returns true if a new term starts at index {@code i} of {@code name}, which is neither the
+   * start of the name nor an underscore, and where {@code trailingDigits} is the index of the first
+   * of the digits at the end of the name.
+   */
+  private static boolean isTermBoundary(String name, int i, int trailingDigits) {
+    char previous = name.charAt(i - 1);
+    char current = name.charAt(i);
+    if (isUpperCase(current) && (isLowerCase(previous) || isDigit(previous))) {
+      return true;
+    }
+    return i == trailingDigits && !isDigit(previous) && previous != '_';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLowerCase(char c) {
+    return c >= 'a' && c <= 'z';
+  }
+
+  private static boolean isUpperCase(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  /**
+   * Like {@link #splitToLowercaseTerms(String)}, but remembers the terms of each name for the rest
+   * of the compilation, for checks that split the same names many times.
+   */
+  public static ImmutableList<String> splitToLowercaseTerms(
+      String identifierName, Context context) {
+    return TermsCache.instance(context)
+        .terms
+        .computeIfAbsent(identifierName, NamingConventions::splitToLowercaseTerms);
   }
 
   public static String convertToLowerUnderscore(String identifierName) {
     return splitToLowercaseTerms(identifierName).stream().collect(Collectors.joining("_"));
   }
+
+  /** The terms of the names that have been split in the current compilation. */
+  private static final class TermsCache {
+    private static final Context.Key<TermsCache> KEY = new Context.Key<>();
+
+    private final Map<String, ImmutableList<String>> terms = new HashMap<>();
+
+    static TermsCache instance(Context context) {
+      TermsCache instance = context.get(KEY);
+      if (instance == null) {
+        instance = new TermsCache();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+  }
 }
@@ -16,9 +16,17 @@
 
 package com.google.errorprone.scanner;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+import com.google.errorprone.BugCheckerInfo;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.ErrorProneError;
@@ -79,6 +87,10 @@ import com.google.errorprone.bugpatterns.BugChecker.WhileLoopTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.WildcardTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Suppressible;
+import com.google.errorprone.matchers.method.MethodInvocationMatcher;
+import com.google.errorprone.matchers.method.MethodInvocationMatcher.KeyedMatcher;
+import com.google.errorprone.matchers.method.MethodInvocationMatcher.Rule;
+import com.google.errorprone.matchers.method.MethodMatchers.MethodMatcher;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.AnnotatedTypeTree;
 import com.sun.source.tree.AnnotationTree;
@@ -137,11 +149,19 @@ import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.util.JCDiagnostic.DiagnosticPosition;
 import com.sun.tools.javac.util.Name;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
 
 /**
  * Scans the parsed AST, looking for violations of any of the enabled checks.
@@ -154,7 +174,15 @@ public class ErrorProneScanner extends Scanner {
       customSuppressionAnnotations;
 
   private final Map<String, SeverityLevel> severities;
-  private final ImmutableSet<BugChecker> bugCheckers;
+  private final ImmutableList<Check> checks;
+  // The checks that declare required types, which are dormant in compilation units that don't refer
+  // to any of them.
+  private final ImmutableList<Check> checksWithRequiredTypes;
+
+  // The prefilter for the method invocation matchers, which is compiled when the first method
+  // invocation is scanned so that the checks aren't instantiated before then. Checks that can be
+  // dormant aren't part of it.
+  @Nullable private MethodInvocationPrefilter methodInvocationPrefilter;
 
   /**
    * Create an error-prone scanner for the given checkers.
@@ -181,12 +209,44 @@ public class ErrorProneScanner extends Scanner {
    * @param severities The default check severities.
    */
   public ErrorProneScanner(Iterable<BugChecker> checkers, Map<String, SeverityLevel> severities) {
-    this.bugCheckers = ImmutableSet.copyOf(checkers);
+    this(
+        ImmutableSet.copyOf(checkers).stream().map(Check::new).collect(toImmutableList()),
+        severities);
+  }
+
+  /**
+   * Create an error-prone scanner that only instantiates each check once it finds a node that the
+   * check matches, in a compilation unit that refers to one of the check's required types.
+   *
+   * @param checks The checks that this scanner should use.
+   * @param instantiator Creates an instance of a check.
+   * @param severities The default check severities.
+   */
+  ErrorProneScanner(
+      Iterable<BugCheckerInfo> checks,
+      Function<BugCheckerInfo, BugChecker> instantiator,
+      Map<String, SeverityLevel> severities) {
+    this(
+        Streams.stream(checks)
+            .map(info -> new Check(info, () -> instantiator.apply(info)))
+            .collect(toImmutableList()),
+        severities);
+  }
+
+  private ErrorProneScanner(ImmutableList<Check> checks, Map<String, SeverityLevel> severities) {
+    this.checks = checks;
+    this.checksWithRequiredTypes =
+        checks.stream().filter(c -> !c.requiredTypes.isEmpty()).collect(toImmutableList());
     this.severities = severities;
     ImmutableSet.Builder<Class<? extends Annotation>> annotationClassesBuilder =
         ImmutableSet.builder();
-    for (BugChecker checker : this.bugCheckers) {
-      registerNodeTypes(checker, annotationClassesBuilder);
+    for (Check check : checks) {
+      annotationClassesBuilder.addAll(check.customSuppressionAnnotations);
+      for (MatcherList<?> matchers : allMatchers) {
+        if (matchers.type.isAssignableFrom(check.checkerClass)) {
+          matchers.checks.add(check);
+        }
+      }
     }
     ImmutableSet<Class<? extends Annotation>> annotationClasses = annotationClassesBuilder.build();
     this.customSuppressionAnnotations =
@@ -200,250 +260,336 @@ public class ErrorProneScanner extends Scanner {
             });
   }
 
-  private static Map<String, BugPattern.SeverityLevel> defaultSeverities(
-      Iterable<BugChecker> checkers) {
-    ImmutableMap.Builder<String, BugPattern.SeverityLevel> builder = ImmutableMap.builder();
-    for (BugChecker check : checkers) {
-      builder.put(check.canonicalName(), check.defaultSeverity());
+  /**
+   * An enabled check, which is instantiated the first time one of the nodes it matches is scanned
+   * in a compilation unit where it isn't dormant.
+   */
+  private static final class Check {
+    final Class<? extends BugChecker> checkerClass;
+    final String canonicalName;
+    final ImmutableSet<String> requiredTypes;
+    final Set<Class<? extends Annotation>> customSuppressionAnnotations;
+    private final Supplier<BugChecker> instance;
+
+    /**
+     * True if the compilation unit being scanned doesn't refer to any of the check's required
+     * types, so that the check can't report anything in it.
+     */
+    boolean dormant;
+
+    Check(BugChecker checker) {
+      this.checkerClass = checker.getClass();
+      this.canonicalName = checker.canonicalName();
+      this.requiredTypes = checker.requiredTypes();
+      this.customSuppressionAnnotations = checker.customSuppressionAnnotations();
+      this.instance = Suppliers.ofInstance(checker);
     }
-    return builder.build();
-  }
-
-  @Override
-  protected Set<? extends Name> getCustomSuppressionAnnotations(VisitorState state) {
-    return customSuppressionAnnotations.get(state);
-  }
 
-  private final List<AnnotationTreeMatcher> annotationMatchers = new ArrayList<>();
-  private final List<AnnotatedTypeTreeMatcher> annotatedTypeMatchers = new ArrayList<>();
-  private final List<ArrayAccessTreeMatcher> arrayAccessMatchers = new ArrayList<>();
-  private final List<ArrayTypeTreeMatcher> arrayTypeMatchers = new ArrayList<>();
-  private final List<AssertTreeMatcher> assertMatchers = new ArrayList<>();
-  private final List<AssignmentTreeMatcher> assignmentMatchers = new ArrayList<>();
-  private final List<BinaryTreeMatcher> binaryMatchers = new ArrayList<>();
-  private final List<BlockTreeMatcher> blockMatchers = new ArrayList<>();
-  private final List<BreakTreeMatcher> breakMatchers = new ArrayList<>();
-  private final List<CaseTreeMatcher> caseMatchers = new ArrayList<>();
-  private final List<CatchTreeMatcher> catchMatchers = new ArrayList<>();
-  private final List<ClassTreeMatcher> classMatchers = new ArrayList<>();
-  private final List<CompilationUnitTreeMatcher> compilationUnitMatchers = new ArrayList<>();
-  private final List<CompoundAssignmentTreeMatcher> compoundAssignmentMatchers = new ArrayList<>();
-  private final List<ConditionalExpressionTreeMatcher> conditionalExpressionMatchers =
-      new ArrayList<>();
-  private final List<ContinueTreeMatcher> continueMatchers = new ArrayList<>();
-  private final List<DoWhileLoopTreeMatcher> doWhileLoopMatchers = new ArrayList<>();
-  private final List<EmptyStatementTreeMatcher> emptyStatementMatchers = new ArrayList<>();
-  private final List<EnhancedForLoopTreeMatcher> enhancedForLoopMatchers = new ArrayList<>();
-  private final List<ExpressionStatementTreeMatcher> expressionStatementMatchers =
-      new ArrayList<>();
-  private final List<ForLoopTreeMatcher> forLoopMatchers = new ArrayList<>();
-  private final List<IdentifierTreeMatcher> identifierMatchers = new ArrayList<>();
-  private final List<IfTreeMatcher> ifMatchers = new ArrayList<>();
-  private final List<ImportTreeMatcher> importMatchers = new ArrayList<>();
-  private final List<InstanceOfTreeMatcher> instanceOfMatchers = new ArrayList<>();
-  private final List<IntersectionTypeTreeMatcher> intersectionTypeMatchers = new ArrayList<>();
-  private final List<LabeledStatementTreeMatcher> labeledStatementMatchers = new ArrayList<>();
-  private final List<LambdaExpressionTreeMatcher> lambdaExpressionMatchers = new ArrayList<>();
-  private final List<LiteralTreeMatcher> literalMatchers = new ArrayList<>();
-  private final List<MemberReferenceTreeMatcher> memberReferenceMatchers = new ArrayList<>();
-  private final List<MemberSelectTreeMatcher> memberSelectMatchers = new ArrayList<>();
-  private final List<MethodTreeMatcher> methodMatchers = new ArrayList<>();
-  private final List<MethodInvocationTreeMatcher> methodInvocationMatchers = new ArrayList<>();
-  private final List<ModifiersTreeMatcher> modifiersMatchers = new ArrayList<>();
-  private final List<NewArrayTreeMatcher> newArrayMatchers = new ArrayList<>();
-  private final List<NewClassTreeMatcher> newClassMatchers = new ArrayList<>();
-  private final List<ParameterizedTypeTreeMatcher> parameterizedTypeMatchers = new ArrayList<>();
-  private final List<ParenthesizedTreeMatcher> parenthesizedMatchers = new ArrayList<>();
-  private final List<PrimitiveTypeTreeMatcher> primitiveTypeMatchers = new ArrayList<>();
-  private final List<ReturnTreeMatcher> returnMatchers = new ArrayList<>();
-  private final List<SwitchTreeMatcher> switchMatchers = new ArrayList<>();
-  private final List<SynchronizedTreeMatcher> synchronizedMatchers = new ArrayList<>();
-  private final List<ThrowTreeMatcher> throwMatchers = new ArrayList<>();
-  private final List<TryTreeMatcher> tryMatchers = new ArrayList<>();
-  private final List<TypeCastTreeMatcher> typeCastMatchers = new ArrayList<>();
-  private final List<TypeParameterTreeMatcher> typeParameterMatchers = new ArrayList<>();
-  private final List<UnaryTreeMatcher> unaryMatchers = new ArrayList<>();
-  private final List<UnionTypeTreeMatcher> unionTypeMatchers = new ArrayList<>();
-  private final List<VariableTreeMatcher> variableMatchers = new ArrayList<>();
-  private final List<WhileLoopTreeMatcher> whileLoopMatchers = new ArrayList<>();
-  private final List<WildcardTreeMatcher> wildcardMatchers = new ArrayList<>();
-
-  private void registerNodeTypes(
-      BugChecker checker,
-      ImmutableSet.Builder<Class<? extends Annotation>> customSuppressionAnnotationClasses) {
-    customSuppressionAnnotationClasses.addAll(checker.customSuppressionAnnotations());
-
-    if (checker instanceof AnnotationTreeMatcher) {
-      annotationMatchers.add((AnnotationTreeMatcher) checker);
-    }
-    if (checker instanceof AnnotatedTypeTreeMatcher) {
-      annotatedTypeMatchers.add((AnnotatedTypeTreeMatcher) checker);
-    }
-    if (checker instanceof ArrayAccessTreeMatcher) {
-      arrayAccessMatchers.add((ArrayAccessTreeMatcher) checker);
-    }
-    if (checker instanceof ArrayTypeTreeMatcher) {
-      arrayTypeMatchers.add((ArrayTypeTreeMatcher) checker);
-    }
-    if (checker instanceof AssertTreeMatcher) {
-      assertMatchers.add((AssertTreeMatcher) checker);
-    }
-    if (checker instanceof AssignmentTreeMatcher) {
-      assignmentMatchers.add((AssignmentTreeMatcher) checker);
-    }
-    if (checker instanceof BinaryTreeMatcher) {
-      binaryMatchers.add((BinaryTreeMatcher) checker);
-    }
-    if (checker instanceof BlockTreeMatcher) {
-      blockMatchers.add((BlockTreeMatcher) checker);
-    }
-    if (checker instanceof BreakTreeMatcher) {
-      breakMatchers.add((BreakTreeMatcher) checker);
+    Check(BugCheckerInfo info, Supplier<BugChecker> instantiator) {
+      this.checkerClass = info.checkerClass();
+      this.canonicalName = info.canonicalName();
+      this.requiredTypes = info.requiredTypes();
+      this.customSuppressionAnnotations = info.customSuppressionAnnotations();
+      this.instance = Suppliers.memoize(instantiator);
     }
-    if (checker instanceof CaseTreeMatcher) {
-      caseMatchers.add((CaseTreeMatcher) checker);
-    }
-    if (checker instanceof CatchTreeMatcher) {
-      catchMatchers.add((CatchTreeMatcher) checker);
-    }
-    if (checker instanceof ClassTreeMatcher) {
-      classMatchers.add((ClassTreeMatcher) checker);
-    }
-    if (checker instanceof CompilationUnitTreeMatcher) {
-      compilationUnitMatchers.add((CompilationUnitTreeMatcher) checker);
-    }
-    if (checker instanceof CompoundAssignmentTreeMatcher) {
-      compoundAssignmentMatchers.add((CompoundAssignmentTreeMatcher) checker);
-    }
-    if (checker instanceof ConditionalExpressionTreeMatcher) {
-      conditionalExpressionMatchers.add((ConditionalExpressionTreeMatcher) checker);
-    }
-    if (checker instanceof ContinueTreeMatcher) {
-      continueMatchers.add((ContinueTreeMatcher) checker);
-    }
-    if (checker instanceof DoWhileLoopTreeMatcher) {
-      doWhileLoopMatchers.add((DoWhileLoopTreeMatcher) checker);
-    }
-    if (checker instanceof EmptyStatementTreeMatcher) {
-      emptyStatementMatchers.add((EmptyStatementTreeMatcher) checker);
-    }
-    if (checker instanceof EnhancedForLoopTreeMatcher) {
-      enhancedForLoopMatchers.add((EnhancedForLoopTreeMatcher) checker);
-    }
-    if (checker instanceof ExpressionStatementTreeMatcher) {
-      expressionStatementMatchers.add((ExpressionStatementTreeMatcher) checker);
-    }
-    if (checker instanceof ForLoopTreeMatcher) {
-      forLoopMatchers.add((ForLoopTreeMatcher) checker);
-    }
-    if (checker instanceof IdentifierTreeMatcher) {
-      identifierMatchers.add((IdentifierTreeMatcher) checker);
-    }
-    if (checker instanceof IfTreeMatcher) {
-      ifMatchers.add((IfTreeMatcher) checker);
-    }
-    if (checker instanceof ImportTreeMatcher) {
-      importMatchers.add((ImportTreeMatcher) checker);
-    }
-    if (checker instanceof InstanceOfTreeMatcher) {
-      instanceOfMatchers.add((InstanceOfTreeMatcher) checker);
-    }
-    if (checker instanceof IntersectionTypeTreeMatcher) {
-      intersectionTypeMatchers.add((IntersectionTypeTreeMatcher) checker);
-    }
-    if (checker instanceof LabeledStatementTreeMatcher) {
-      labeledStatementMatchers.add((LabeledStatementTreeMatcher) checker);
-    }
-    if (checker instanceof LambdaExpressionTreeMatcher) {
-      lambdaExpressionMatchers.add((LambdaExpressionTreeMatcher) checker);
-    }
-    if (checker instanceof LiteralTreeMatcher) {
-      literalMatchers.add((LiteralTreeMatcher) checker);
-    }
-    if (checker instanceof MemberReferenceTreeMatcher) {
-      memberReferenceMatchers.add((MemberReferenceTreeMatcher) checker);
-    }
-    if (checker instanceof MemberSelectTreeMatcher) {
-      memberSelectMatchers.add((MemberSelectTreeMatcher) checker);
-    }
-    if (checker instanceof MethodTreeMatcher) {
-      methodMatchers.add((MethodTreeMatcher) checker);
-    }
-    if (checker instanceof MethodInvocationTreeMatcher) {
-      methodInvocationMatchers.add((MethodInvocationTreeMatcher) checker);
-    }
-    if (checker instanceof ModifiersTreeMatcher) {
-      modifiersMatchers.add((ModifiersTreeMatcher) checker);
-    }
-    if (checker instanceof NewArrayTreeMatcher) {
-      newArrayMatchers.add((NewArrayTreeMatcher) checker);
-    }
-    if (checker instanceof NewClassTreeMatcher) {
-      newClassMatchers.add((NewClassTreeMatcher) checker);
-    }
-    if (checker instanceof ParameterizedTypeTreeMatcher) {
-      parameterizedTypeMatchers.add((ParameterizedTypeTreeMatcher) checker);
-    }
-    if (checker instanceof ParenthesizedTreeMatcher) {
-      parenthesizedMatchers.add((ParenthesizedTreeMatcher) checker);
-    }
-    if (checker instanceof PrimitiveTypeTreeMatcher) {
-      primitiveTypeMatchers.add((PrimitiveTypeTreeMatcher) checker);
-    }
-    if (checker instanceof ReturnTreeMatcher) {
-      returnMatchers.add((ReturnTreeMatcher) checker);
+
+    /**
+     * Returns the instance of the check, creating it the first time it's needed.
+     *
+     * @throws LinkageError if the check can't be created, e.g. because its flags are invalid; it
+     *     names the check, and its cause is the exception thrown by the check's constructor
+     */
+    BugChecker instance() {
+      try {
+        return instance.get();
+      } catch (RuntimeException | LinkageError e) {
+        throw new LinkageError(
+            String.format("Could not instantiate BugChecker %s", canonicalName),
+            constructorFailure(e));
+      }
     }
-    if (checker instanceof SwitchTreeMatcher) {
-      switchMatchers.add((SwitchTreeMatcher) checker);
+
+    /** Unwraps the exceptions that reflective instantiation wraps the constructor's failure in. */
+    private static Throwable constructorFailure(Throwable t) {
+      while ((t instanceof LinkageError || t instanceof InvocationTargetException)
+          && t.getCause() != null) {
+        t = t.getCause();
+      }
+      return t;
     }
-    if (checker instanceof SynchronizedTreeMatcher) {
-      synchronizedMatchers.add((SynchronizedTreeMatcher) checker);
+  }
+
+  /** The checks that implement one of the matcher interfaces, in the order they were given. */
+  private static final class MatcherList<M extends Suppressible> {
+    final Class<M> type;
+    final List<Check> checks = new ArrayList<>();
+
+    MatcherList(Class<M> type) {
+      this.type = type;
     }
-    if (checker instanceof ThrowTreeMatcher) {
-      throwMatchers.add((ThrowTreeMatcher) checker);
+  }
+
+  /**
+   * The method invocation matchers that declared a prefilter, and the graph that evaluates all of
+   * their prefilters at once; see MethodInvocationTreeMatcher#methodInvocationPrefilter.
+   *
+   * <p>The graph is keyed on the index of each check in the list of all method invocation matchers,
+   * and the matchers to call for each set of indices it reports are computed once and reused.
+   *
+   * <p>Checks with required types are left out of the graph, and called for every method invocation
+   * in the compilation units where they aren't dormant: reading their prefilters would mean
+   * instantiating them, including in compilation units where they'll never be called.
+   */
+  private static final class MethodInvocationPrefilter {
+    final MatcherList<MethodInvocationTreeMatcher> all;
+    // The indices in all.checks of the checks that declared a prefilter.
+    final BitSet prefiltered = new BitSet();
+    @Nullable final KeyedMatcher<Integer> matcher;
+    // The matchers to call for each set of matched indices, starting with the empty set, for which
+    // only the matchers without a prefilter are called.
+    final Map<BitSet, MatcherList<MethodInvocationTreeMatcher>> byMatched = new HashMap<>();
+    // The indices reported for the invocation being visited; cleared before each use.
+    final IndexSet matched = new IndexSet();
+
+    MethodInvocationPrefilter(MatcherList<MethodInvocationTreeMatcher> matchers) {
+      this.all = matchers;
+      ImmutableListMultimap.Builder<Integer, Rule> rulesBuilder = ImmutableListMultimap.builder();
+      for (int i = 0; i < matchers.checks.size(); i++) {
+        Check check = matchers.checks.get(i);
+        if (!check.requiredTypes.isEmpty()) {
+          continue;
+        }
+        ImmutableList<Rule> rules = prefilterRules(matchers.type.cast(check.instance()));
+        if (!rules.isEmpty()) {
+          rulesBuilder.putAll(i, rules);
+          prefiltered.set(i);
+        }
+      }
+      ImmutableListMultimap<Integer, Rule> rules = rulesBuilder.build();
+      this.matcher = rules.isEmpty() ? null : MethodInvocationMatcher.compileKeyed(rules);
     }
-    if (checker instanceof TryTreeMatcher) {
-      tryMatchers.add((TryTreeMatcher) checker);
+
+    /**
+     * Returns the matchers without a prefilter and those at the {@code matched} indices, in the
+     * order they were registered.
+     */
+    MatcherList<MethodInvocationTreeMatcher> matchersFor(BitSet matched) {
+      MatcherList<MethodInvocationTreeMatcher> result = byMatched.get(matched);
+      if (result == null) {
+        result = new MatcherList<>(all.type);
+        for (int i = 0; i < all.checks.size(); i++) {
+          if (!prefiltered.get(i) || matched.get(i)) {
+            result.checks.add(all.checks.get(i));
+          }
+        }
+        byMatched.put((BitSet) matched.clone(), result);
+      }
+      return result;
     }
-    if (checker instanceof TypeCastTreeMatcher) {
-      typeCastMatchers.add((TypeCastTreeMatcher) checker);
+  }
+
+  /** A set of small non-negative integers, backed by a {@link BitSet}. */
+  private static final class IndexSet extends AbstractCollection<Integer> {
+    final BitSet bits = new BitSet();
+
+    @Override
+    public boolean add(Integer index) {
+      bits.set(index);
+      return true;
     }
-    if (checker instanceof TypeParameterTreeMatcher) {
-      typeParameterMatchers.add((TypeParameterTreeMatcher) checker);
+
+    @Override
+    public void clear() {
+      bits.clear();
     }
-    if (checker instanceof UnaryTreeMatcher) {
-      unaryMatchers.add((UnaryTreeMatcher) checker);
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return bits.stream().iterator();
     }
-    if (checker instanceof UnionTypeTreeMatcher) {
-      unionTypeMatchers.add((UnionTypeTreeMatcher) checker);
+
+    @Override
+    public int size() {
+      return bits.cardinality();
     }
-    if (checker instanceof VariableTreeMatcher) {
-      variableMatchers.add((VariableTreeMatcher) checker);
+  }
+
+  /**
+   * Returns the rules for the matcher's prefilter, or an empty list if it doesn't declare one or if
+   * any of its matchers can't be expressed as a rule.
+   */
+  private static ImmutableList<Rule> prefilterRules(MethodInvocationTreeMatcher matcher) {
+    ImmutableList.Builder<Rule> rules = ImmutableList.builder();
+    for (MethodMatcher methodMatcher : matcher.methodInvocationPrefilter()) {
+      Optional<Rule> rule = methodMatcher.asRule();
+      if (!rule.isPresent()) {
+        return ImmutableList.of();
+      }
+      rules.add(rule.get());
     }
-    if (checker instanceof WhileLoopTreeMatcher) {
-      whileLoopMatchers.add((WhileLoopTreeMatcher) checker);
+    return rules.build();
+  }
+
+  private static Map<String, BugPattern.SeverityLevel> defaultSeverities(
+      Iterable<BugChecker> checkers) {
+    ImmutableMap.Builder<String, BugPattern.SeverityLevel> builder = ImmutableMap.builder();
+    for (BugChecker check : checkers) {
+      builder.put(check.canonicalName(), check.defaultSeverity());
     }
-    if (checker instanceof WildcardTreeMatcher) {
-      wildcardMatchers.add((WildcardTreeMatcher) checker);
+    return builder.build();
+  }
+
+  @Override
+  protected Set<? extends Name> getCustomSuppressionAnnotations(VisitorState state) {
+    return customSuppressionAnnotations.get(state);
+  }
+
+  /**
+   * Scans the tree at {@code path}, after deciding which checks are dormant in its compilation
+   * unit.
+   */
+  @Override
+  public Void scan(TreePath path, VisitorState state) {
+    if (!checksWithRequiredTypes.isEmpty()) {
+      Set<Name> referencedTypes = ReferencedTypes.referencedTypes(path.getCompilationUnit(), state);
+      for (Check check : checksWithRequiredTypes) {
+        check.dormant =
+            referencedTypes != null
+                && check.requiredTypes.stream()
+                    .noneMatch(t -> referencedTypes.contains(state.getName(t)));
+      }
     }
+    return super.scan(path, state);
+  }
+
+  // Every list of matchers, which the constructor adds the checks to; must be declared before the
+  // lists themselves.
+  private final List<MatcherList<?>> allMatchers = new ArrayList<>();
+
+  private <M extends Suppressible> MatcherList<M> matchers(Class<M> type) {
+    MatcherList<M> matchers = new MatcherList<>(type);
+    allMatchers.add(matchers);
+    return matchers;
   }
 
+  private final MatcherList<AnnotationTreeMatcher> annotationMatchers =
+      matchers(AnnotationTreeMatcher.class);
+  private final MatcherList<AnnotatedTypeTreeMatcher> annotatedTypeMatchers =
+      matchers(AnnotatedTypeTreeMatcher.class);
+  private final MatcherList<ArrayAccessTreeMatcher> arrayAccessMatchers =
+      matchers(ArrayAccessTreeMatcher.class);
+  private final MatcherList<ArrayTypeTreeMatcher> arrayTypeMatchers =
+      matchers(ArrayTypeTreeMatcher.class);
+  private final MatcherList<AssertTreeMatcher> assertMatchers = matchers(AssertTreeMatcher.class);
+  private final MatcherList<AssignmentTreeMatcher> assignmentMatchers =
+      matchers(AssignmentTreeMatcher.class);
+  private final MatcherList<BinaryTreeMatcher> binaryMatchers = matchers(BinaryTreeMatcher.class);
+  private final MatcherList<BlockTreeMatcher> blockMatchers = matchers(BlockTreeMatcher.class);
+  private final MatcherList<BreakTreeMatcher> breakMatchers = matchers(BreakTreeMatcher.class);
+  private final MatcherList<CaseTreeMatcher> caseMatchers = matchers(CaseTreeMatcher.class);
+  private final MatcherList<CatchTreeMatcher> catchMatchers = matchers(CatchTreeMatcher.class);
+  private final MatcherList<ClassTreeMatcher> classMatchers = matchers(ClassTreeMatcher.class);
+  private final MatcherList<CompilationUnitTreeMatcher> compilationUnitMatchers =
+      matchers(CompilationUnitTreeMatcher.class);
+  private final MatcherList<CompoundAssignmentTreeMatcher> compoundAssignmentMatchers =
+      matchers(CompoundAssignmentTreeMatcher.class);
+  private final MatcherList<ConditionalExpressionTreeMatcher> conditionalExpressionMatchers =
+      matchers(ConditionalExpressionTreeMatcher.class);
+  private final MatcherList<ContinueTreeMatcher> continueMatchers =
+      matchers(ContinueTreeMatcher.class);
+  private final MatcherList<DoWhileLoopTreeMatcher> doWhileLoopMatchers =
+      matchers(DoWhileLoopTreeMatcher.class);
+  private final MatcherList<EmptyStatementTreeMatcher> emptyStatementMatchers =
+      matchers(EmptyStatementTreeMatcher.class);
+  private final MatcherList<EnhancedForLoopTreeMatcher> enhancedForLoopMatchers =
+      matchers(EnhancedForLoopTreeMatcher.class);
+  private final MatcherList<ExpressionStatementTreeMatcher> expressionStatementMatchers =
+      matchers(ExpressionStatementTreeMatcher.class);
+  private final MatcherList<ForLoopTreeMatcher> forLoopMatchers =
+      matchers(ForLoopTreeMatcher.class);
+  private final MatcherList<IdentifierTreeMatcher> identifierMatchers =
+      matchers(IdentifierTreeMatcher.class);
+  private final MatcherList<IfTreeMatcher> ifMatchers = matchers(IfTreeMatcher.class);
+  private final MatcherList<ImportTreeMatcher> importMatchers = matchers(ImportTreeMatcher.class);
+  private final MatcherList<InstanceOfTreeMatcher> instanceOfMatchers =
+      matchers(InstanceOfTreeMatcher.class);
+  private final MatcherList<IntersectionTypeTreeMatcher> intersectionTypeMatchers =
+      matchers(IntersectionTypeTreeMatcher.class);
+  private final MatcherList<LabeledStatementTreeMatcher> labeledStatementMatchers =
+      matchers(LabeledStatementTreeMatcher.class);
+  private final MatcherList<LambdaExpressionTreeMatcher> lambdaExpressionMatchers =
+      matchers(LambdaExpressionTreeMatcher.class);
+  private final MatcherList<LiteralTreeMatcher> literalMatchers =
+      matchers(LiteralTreeMatcher.class);
+  private final MatcherList<MemberReferenceTreeMatcher> memberReferenceMatchers =
+      matchers(MemberReferenceTreeMatcher.class);
+  private final MatcherList<MemberSelectTreeMatcher> memberSelectMatchers =
+      matchers(MemberSelectTreeMatcher.class);
+  private final MatcherList<MethodTreeMatcher> methodMatchers = matchers(MethodTreeMatcher.class);
+  private final MatcherList<MethodInvocationTreeMatcher> methodInvocationMatchers =
+      matchers(MethodInvocationTreeMatcher.class);
+  private final MatcherList<ModifiersTreeMatcher> modifiersMatchers =
+      matchers(ModifiersTreeMatcher.class);
+  private final MatcherList<NewArrayTreeMatcher> newArrayMatchers =
+      matchers(NewArrayTreeMatcher.class);
+  private final MatcherList<NewClassTreeMatcher> newClassMatchers =
+      matchers(NewClassTreeMatcher.class);
+  private final MatcherList<ParameterizedTypeTreeMatcher> parameterizedTypeMatchers =
+      matchers(ParameterizedTypeTreeMatcher.class);
+  private final MatcherList<ParenthesizedTreeMatcher> parenthesizedMatchers =
+      matchers(ParenthesizedTreeMatcher.class);
+  private final MatcherList<PrimitiveTypeTreeMatcher> primitiveTypeMatchers =
+      matchers(PrimitiveTypeTreeMatcher.class);
+  private final MatcherList<ReturnTreeMatcher> returnMatchers = matchers(ReturnTreeMatcher.class);
+  private final MatcherList<SwitchTreeMatcher> switchMatchers = matchers(SwitchTreeMatcher.class);
+  private final MatcherList<SynchronizedTreeMatcher> synchronizedMatchers =
+      matchers(SynchronizedTreeMatcher.class);
+  private final MatcherList<ThrowTreeMatcher> throwMatchers = matchers(ThrowTreeMatcher.class);
+  private final MatcherList<TryTreeMatcher> tryMatchers = matchers(TryTreeMatcher.class);
+  private final MatcherList<TypeCastTreeMatcher> typeCastMatchers =
+      matchers(TypeCastTreeMatcher.class);
+  private final MatcherList<TypeParameterTreeMatcher> typeParameterMatchers =
+      matchers(TypeParameterTreeMatcher.class);
+  private final MatcherList<UnaryTreeMatcher> unaryMatchers = matchers(UnaryTreeMatcher.class);
+  private final MatcherList<UnionTypeTreeMatcher> unionTypeMatchers =
+      matchers(UnionTypeTreeMatcher.class);
+  private final MatcherList<VariableTreeMatcher> variableMatchers =
+      matchers(VariableTreeMatcher.class);
+  private final MatcherList<WhileLoopTreeMatcher> whileLoopMatchers =
+      matchers(WhileLoopTreeMatcher.class);
+  private final MatcherList<WildcardTreeMatcher> wildcardMatchers =
+      matchers(WildcardTreeMatcher.class);
+
   @FunctionalInterface
   private interface TreeProcessor<M extends Suppressible, T extends Tree> {
     Description process(M matcher, T tree, VisitorState state);
   }
 
   private <M extends Suppressible, T extends Tree> VisitorState processMatchers(
-      Iterable<M> matchers, T tree, TreeProcessor<M, T> processingFunction, VisitorState oldState) {
+      MatcherList<M> matchers,
+      T tree,
+      TreeProcessor<M, T> processingFunction,
+      VisitorState oldState) {
+    if (matchers.checks.isEmpty()) {
+      // No enabled check is interested in this kind of node, so don't bother creating a new
+      // VisitorState; the children will create their own with the correct path.
+      return oldState;
+    }
     ErrorProneOptions errorProneOptions = oldState.errorProneOptions();
     // A VisitorState with our new path, but without mentioning the suppression of any matcher.
     VisitorState newState = oldState.withPath(getCurrentPath());
-    for (M matcher : matchers) {
+    for (Check check : matchers.checks) {
+      if (check.dormant) {
+        continue;
+      }
+      // Instantiating the check doesn't depend on the tree, so a failure to do so isn't reported
+      // against it by handleError.
+      M matcher = matchers.type.cast(check.instance());
       SuppressedState suppressed = isSuppressed(matcher, errorProneOptions, newState);
       // If the ErrorProneOptions say to visit suppressed code, we still visit it
       if (suppressed == SuppressedState.UNSUPPRESSED
           || errorProneOptions.isIgnoreSuppressionAnnotations()) {
-        try (AutoCloseable unused = oldState.timingSpan(matcher)) {
+        try (AutoCloseable unused = oldState.timingSpan(matcher, tree)) {
           // We create a new VisitorState with the suppression info specific to this matcher.
           VisitorState stateWithSuppressionInformation = newState.withSuppression(suppressed);
           reportMatch(
@@ -745,13 +891,40 @@ public class ErrorProneScanner extends Scanner {
   public Void visitMethodInvocation(MethodInvocationTree tree, VisitorState visitorState) {
     VisitorState state =
         processMatchers(
-            methodInvocationMatchers,
+            methodInvocationMatchersFor(tree, visitorState),
             tree,
             MethodInvocationTreeMatcher::matchMethodInvocation,
             visitorState);
     return super.visitMethodInvocation(tree, state);
   }
 
+  /**
+   * Returns the method invocation matchers to call for {@code tree}: those without a prefilter, and
+   * those whose prefilter matches {@code tree}, in the order they were registered.
+   */
+  private MatcherList<MethodInvocationTreeMatcher> methodInvocationMatchersFor(
+      MethodInvocationTree tree, VisitorState state) {
+    if (methodInvocationMatchers.checks.isEmpty()) {
+      return methodInvocationMatchers;
+    }
+    if (methodInvocationPrefilter == null) {
+      methodInvocationPrefilter = new MethodInvocationPrefilter(methodInvocationMatchers);
+    }
+    MethodInvocationPrefilter prefilter = methodInvocationPrefilter;
+    if (prefilter.matcher == null) {
+      return methodInvocationMatchers;
+    }
+    IndexSet matched = prefilter.matched;
+    matched.clear();
+    try {
+      prefilter.matcher.addMatchingKeys(tree, state, matched);
+    } catch (CompletionFailure e) {
+      // Let every check see the invocation, and deal with the missing symbols itself.
+      return methodInvocationMatchers;
+    }
+    return prefilter.matchersFor(matched.bits);
+  }
+
   @Override
   public Void visitModifiers(ModifiersTree tree, VisitorState visitorState) {
     VisitorState state =
@@ -927,7 +1100,16 @@ public class ErrorProneScanner extends Scanner {
     return severities;
   }
 
+  /**
+   * Returns the checks that this scanner uses.
+   *
+   * <p>The scanner only instantiates a check once it has something to match, so this forces every
+   * check that hasn't been instantiated yet to be, including dormant ones; it's meant for callers
+   * that need the instances themselves, not for the scanner's own use.
+   *
+   * @throws LinkageError if one of the checks can't be instantiated
+   */
   public ImmutableSet<BugChecker> getBugCheckers() {
-    return this.bugCheckers;
+    return checks.stream().map(Check::instance).collect(toImmutableSet());
   }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.scanner;
+
+import com.google.errorprone.VisitorState;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.CompletionFailure;
+import com.sun.tools.javac.code.Symbol.PackageSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.ArrayType;
+import com.sun.tools.javac.code.Type.WildcardType;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCFieldAccess;
+import com.sun.tools.javac.tree.JCTree.JCIdent;
+import com.sun.tools.javac.tree.JCTree.JCMemberReference;
+import com.sun.tools.javac.tree.JCTree.JCNewClass;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Name;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the types that a compilation unit refers to, so that checks whose required types it doesn't
+ * refer to can be skipped.
+ */
+final class ReferencedTypes extends TreeScanner {
+
+  /**
+   * Returns the qualified names of the classes that {@code tree} refers to, and of all of their
+   * supertypes and enclosing classes, or {@code null} if they can't all be found.
+   *
+   * <p>A class is referred to if the compilation unit mentions it or one of its members, or if it
+   * is the type, or one of the type arguments, of any of the unit's expressions and declarations.
+   */
+  @Nullable
+  static Set<Name> referencedTypes(CompilationUnitTree tree, VisitorState state) {
+    ReferencedTypes scanner = new ReferencedTypes();
+    Types types = state.getTypes();
+    Set<Name> names = new HashSet<>();
+    try {
+      scanner.scan((JCTree) tree);
+      for (ClassSymbol sym : scanner.classes) {
+        for (Type type : types.closure(sym.type)) {
+          names.add(type.tsym.getQualifiedName());
+        }
+      }
+    } catch (CompletionFailure e) {
+      // Something is missing from the classpath, so don't assume anything about what the unit
+      // refers to.
+      return null;
+    }
+    return names;
+  }
+
+  private final Set<ClassSymbol> classes = new HashSet<>();
+
+  private ReferencedTypes() {}
+
+  @Override
+  public void scan(JCTree tree) {
+    if (tree != null) {
+      addType(tree.type);
+      super.scan(tree);
+    }
+  }
+
+  @Override
+  public void visitIdent(JCIdent tree) {
+    addSymbol(tree.sym);
+    super.visitIdent(tree);
+  }
+
+  @Override
+  public void visitSelect(JCFieldAccess tree) {
+    addSymbol(tree.sym);
+    super.visitSelect(tree);
+  }
+
+  @Override
+  public void visitReference(JCMemberReference tree) {
+    addSymbol(tree.sym);
+    super.visitReference(tree);
+  }
+
+  @Override
+  public void visitNewClass(JCNewClass tree) {
+    addSymbol(tree.constructor);
+    super.visitNewClass(tree);
+  }
+
+  /** Adds the class that declares {@code sym}, or {@code sym} itself if it is a class. */
+  private void addSymbol(@Nullable Symbol sym) {
+    for (Symbol s = sym; s != null && !(s instanceof PackageSymbol); s = s.owner) {
+      if (s instanceof ClassSymbol && !classes.add((ClassSymbol) s)) {
+        // The enclosing classes have already been added.
+        return;
+      }
+    }
+  }
+
+  private void addType(@Nullable Type type) {
+    if (type == null) {
+      return;
+    }
+    switch (type.getTag()) {
+      case CLASS:
+        addSymbol(type.tsym);
+        for (Type argument : type.getTypeArguments()) {
+          addType(argument);
+        }
+        break;
+      case ARRAY:
+        addType(((ArrayType) type).elemtype);
+        break;
+      case WILDCARD:
+        addType(((WildcardType) type).type);
+        break;
+      default:
+        break;
+    }
+  }
+}
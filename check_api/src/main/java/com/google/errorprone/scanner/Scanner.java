@@ -106,6 +106,10 @@ public class Scanner extends TreePathScanner<Void, VisitorState> {
    */
   protected SuppressedState isSuppressed(
       Suppressible suppressible, ErrorProneOptions errorProneOptions, VisitorState state) {
+    if (currentSuppressions.isEmpty()) {
+      // The common case: nothing on the current path can suppress any check.
+      return SuppressedState.UNSUPPRESSED;
+    }
 
     boolean suppressedInGeneratedCode =
         errorProneOptions.disableWarningsInGeneratedCode()
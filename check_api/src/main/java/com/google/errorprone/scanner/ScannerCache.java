@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.scanner;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.BugCheckerInfo;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.sun.tools.javac.util.Context;
+
+/**
+ * Reuses the {@link Scanner}s, and so the {@link BugChecker} instances, that were created for
+ * earlier compilations with the same configuration.
+ *
+ * <p>Checks are already expected to be usable for any number of compilation units, and to only
+ * cache compilation-specific state through {@link com.google.errorprone.VisitorState#memoize}, so a
+ * long-lived process can share them between compilations. This avoids re-instantiating every check,
+ * and re-building whatever tables and compiled matchers they create when they're instantiated, for
+ * each compilation.
+ *
+ * <p>A cache is made available to a compilation by putting it in the compilation's {@link Context}.
+ */
+public final class ScannerCache {
+
+  /** Configurations with plugins loaded from other class loaders aren't retained indefinitely. */
+  private static final int MAXIMUM_SIZE = 16;
+
+  private final Cache<Key, Scanner> scanners =
+      CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+  /**
+   * Returns a scanner for {@code scannerSupplier}, reusing a cached scanner if the {@code context}
+   * has a {@link ScannerCache}.
+   */
+  public static Scanner scanner(ScannerSupplier scannerSupplier, Context context) {
+    ScannerCache cache = context.get(ScannerCache.class);
+    return cache == null ? scannerSupplier.get() : cache.get(scannerSupplier);
+  }
+
+  /** Returns a scanner for {@code scannerSupplier}, creating one if there isn't one cached. */
+  public Scanner get(ScannerSupplier scannerSupplier) {
+    if (scannerSupplier instanceof InstanceReturningScannerSupplierImpl) {
+      // there's nothing to instantiate, or to key the scanner on
+      return scannerSupplier.get();
+    }
+    Key key = Key.create(scannerSupplier);
+    Scanner scanner = scanners.getIfPresent(key);
+    if (scanner == null) {
+      scanner = scannerSupplier.get();
+      scanners.put(key, scanner);
+    }
+    return scanner;
+  }
+
+  /** Discards all of the cached scanners. */
+  public void clear() {
+    scanners.invalidateAll();
+  }
+
+  /** The configuration that determines what a {@link ScannerSupplier} creates. */
+  @AutoValue
+  abstract static class Key {
+    abstract ImmutableSet<Class<? extends BugChecker>> enabledChecks();
+
+    abstract ImmutableMap<String, SeverityLevel> severities();
+
+    abstract ImmutableMap<String, String> flags();
+
+    static Key create(ScannerSupplier scannerSupplier) {
+      return new AutoValue_ScannerCache_Key(
+          scannerSupplier.getEnabledChecks().stream()
+              .map(BugCheckerInfo::checkerClass)
+              .collect(toImmutableSet()),
+          scannerSupplier.severities(),
+          scannerSupplier.getFlags().getFlagsMap());
+    }
+  }
+}
@@ -244,13 +244,12 @@ public abstract class ScannerSupplier implements Supplier<Scanner> {
         .forEach(
             (k, v) -> {
               BugCheckerInfo existing = combinedAllChecks.putIfAbsent(k, v);
-              if (existing != null
-                  && !existing.checkerClass().getName().contentEquals(v.checkerClass().getName())) {
+              if (existing != null && !existing.checkerClassName().equals(v.checkerClassName())) {
                 throw new IllegalArgumentException(
                     String.format(
                         "Cannot combine scanner suppliers with different implementations of"
                             + " '%s': %s, %s",
-                        k, v.checkerClass().getName(), existing.checkerClass().getName()));
+                        k, v.checkerClassName(), existing.checkerClassName()));
               }
             });
     HashMap<String, SeverityLevel> combinedSeverities = new LinkedHashMap<>(this.severities());
@@ -61,6 +61,10 @@ class ScannerSupplierImpl extends ScannerSupplier implements Serializable {
   }
 
   private BugChecker instantiateChecker(BugCheckerInfo checker) {
+    if (checker.factory() != null) {
+      return (BugChecker) checker.factory().create(getFlags());
+    }
+
     // Invoke BugChecker(ErrorProneFlags) constructor, if it exists.
     @SuppressWarnings("unchecked")
     /* getConstructors() actually returns Constructor<BugChecker>[], though the return type is
@@ -96,11 +100,7 @@ class ScannerSupplierImpl extends ScannerSupplier implements Serializable {
 
   @Override
   public ErrorProneScanner get() {
-    return new ErrorProneScanner(
-        getEnabledChecks().stream()
-            .map(this::instantiateChecker)
-            .collect(ImmutableSet.toImmutableSet()),
-        severities);
+    return new ErrorProneScanner(getEnabledChecks(), this::instantiateChecker, severities);
   }
 
   @Override
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.util.ErrorProneTokens.CommentWithTextAndPosition;
+import com.sun.tools.javac.parser.Tokens.Comment;
+import com.sun.tools.javac.parser.Tokens.Comment.CommentStyle;
+import com.sun.tools.javac.parser.Tokens.Token;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.ListBuffer;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * The tokens of an entire compilation unit, lexed once and indexed by source position.
+ *
+ * <p>{@link #getTokens(int, int, int)} answers the same queries as lexing the source between two
+ * positions with {@link ErrorProneTokens#getTokens(String, int, Context)}, by binary searching the
+ * tokens of the whole file instead of re-lexing.
+ */
+public final class CompilationUnitTokens {
+
+  private final String source;
+  private final ImmutableList<ErrorProneToken> tokens;
+  private final int[] starts;
+  private final int[] ends;
+
+  private CompilationUnitTokens(String source, ImmutableList<ErrorProneToken> tokens) {
+    this.source = source;
+    this.tokens = tokens;
+    this.starts = new int[tokens.size()];
+    this.ends = new int[tokens.size()];
+    for (int i = 0; i < tokens.size(); i++) {
+      starts[i] = tokens.get(i).pos();
+      ends[i] = tokens.get(i).endPos();
+    }
+  }
+
+  /** Lexes the whole of {@code source}. */
+  public static CompilationUnitTokens create(String source, Context context) {
+    return new CompilationUnitTokens(source, ErrorProneTokens.getTokens(source, context));
+  }
+
+  /** Returns all of the tokens in the compilation unit, including the final EOF token. */
+  public ImmutableList<ErrorProneToken> getTokens() {
+    return tokens;
+  }
+
+  /**
+   * Returns the tokens for the source between {@code start} and {@code end}, with positions
+   * reported relative to {@code offset}, or {@code null} if the range doesn't begin and end on
+   * token or comment boundaries (in which case re-lexing the range gives different tokens).
+   *
+   * <p>As with lexing the range directly, the result ends with an EOF token, which carries any
+   * comments between the last token in the range and {@code end}.
+   */
+  @Nullable
+  public ImmutableList<ErrorProneToken> getTokens(int start, int end, int offset) {
+    int lo = firstTokenStartingAtOrAfter(start);
+    // the file's EOF token is never part of the range, a new one is added below
+    int hi = Math.min(firstTokenStartingAtOrAfter(end), tokens.size() - 1);
+    if (lo > 0 && ends[lo - 1] > start) {
+      // the range starts inside a token
+      return null;
+    }
+    if (hi > lo && ends[hi - 1] > end) {
+      // the range ends inside a token
+      return null;
+    }
+    // offset is the position in the file that should be reported as position 0, and the tokens
+    // are stored with positions relative to the start of the file
+    int delta = -offset;
+    ImmutableList.Builder<ErrorProneToken> result =
+        ImmutableList.builderWithExpectedSize(hi - lo + 1);
+    for (int i = lo; i < hi; i++) {
+      ErrorProneToken token = tokens.get(i);
+      com.sun.tools.javac.util.List<Comment> comments = token.token().comments;
+      if (i == lo && comments != null) {
+        // drop any comments preceding the start of the range
+        comments = commentsBetween(comments, start, end);
+        if (comments == null) {
+          return null;
+        }
+      }
+      if (delta == 0 && comments == token.token().comments) {
+        result.add(token);
+      } else {
+        result.add(new ErrorProneToken(token.token(), delta, comments));
+      }
+    }
+    // Any comments following the last token in the range are attached to the next token in the
+    // file, but they're attached to the EOF token when the range is lexed on its own.
+    ErrorProneToken next = tokens.get(hi);
+    com.sun.tools.javac.util.List<Comment> trailingComments =
+        next.token().comments == null
+            ? com.sun.tools.javac.util.List.nil()
+            : commentsBetween(next.token().comments, start, end);
+    if (trailingComments == null) {
+      return null;
+    }
+    // Reuse the file's EOF token, shifted to the position javac reports for the end of the range:
+    // the reader ignores a single trailing whitespace character.
+    Token eof = getLast().token();
+    int eofPos = end > start && Character.isWhitespace(source.charAt(end - 1)) ? end - 1 : end;
+    int eofShift = eofPos - eof.pos;
+    result.add(
+        new ErrorProneToken(
+            eof, eofShift + delta, eofComments(trailingComments, eofPos, eofShift)));
+    return result.build();
+  }
+
+  /**
+   * Adjusts the comments attached to an EOF token at {@code eofPos}, which is {@code shift}
+   * characters after the file's EOF token.
+   *
+   * <p>javac drops line comments that run into the end of the input, and the comments are shifted
+   * back so that they end up with the same offset as the other tokens.
+   */
+  private static com.sun.tools.javac.util.List<Comment> eofComments(
+      com.sun.tools.javac.util.List<Comment> comments, int eofPos, int shift) {
+    ListBuffer<Comment> result = new ListBuffer<>();
+    boolean changed = shift != 0;
+    for (Comment comment : comments) {
+      CommentWithTextAndPosition c = (CommentWithTextAndPosition) comment;
+      if (c.getStyle() == CommentStyle.LINE && c.getEndPos() >= eofPos) {
+        changed = true;
+        continue;
+      }
+      result.append(shift == 0 ? comment : new OffsetComment(comment, -shift));
+    }
+    return changed ? result.toList() : comments;
+  }
+
+  private ErrorProneToken getLast() {
+    return tokens.get(tokens.size() - 1);
+  }
+
+  /**
+   * Returns the comments (in javac's reverse declaration order) that lie within {@code [start,
+   * end)}, or {@code null} if a comment straddles either boundary.
+   */
+  @Nullable
+  private static com.sun.tools.javac.util.List<Comment> commentsBetween(
+      com.sun.tools.javac.util.List<Comment> comments, int start, int end) {
+    boolean allInRange = true;
+    for (Comment comment : comments) {
+      CommentWithTextAndPosition c = (CommentWithTextAndPosition) comment;
+      if ((c.getPos() < start && c.getEndPos() > start)
+          || (c.getPos() < end && c.getEndPos() > end)) {
+        return null;
+      }
+      allInRange &= c.getPos() >= start && c.getEndPos() <= end;
+    }
+    if (allInRange) {
+      return comments;
+    }
+    ListBuffer<Comment> inRange = new ListBuffer<>();
+    for (Comment comment : comments) {
+      CommentWithTextAndPosition c = (CommentWithTextAndPosition) comment;
+      if (c.getPos() >= start && c.getEndPos() <= end) {
+        inRange.append(comment);
+      }
+    }
+    return inRange.toList();
+  }
+
+  /** Returns the index of the first token starting at or after {@code pos}. */
+  private int firstTokenStartingAtOrAfter(int pos) {
+    int index = Arrays.binarySearch(starts, pos);
+    if (index < 0) {
+      return -index - 1;
+    }
+    // the EOF token can have the same start position as the last token if that token is empty,
+    // so make sure to find the first token with this position
+    while (index > 0 && starts[index - 1] == pos) {
+      index--;
+    }
+    return index;
+  }
+}
@@ -30,10 +30,24 @@ import java.util.List;
 public class ErrorProneToken {
   private final int offset;
   private final Token token;
+  private final com.sun.tools.javac.util.List<Comment> comments;
 
   ErrorProneToken(Token token, int offset) {
+    this(token, offset, token.comments);
+  }
+
+  /**
+   * Creates a token that reports {@code comments} (in javac's reverse declaration order) instead of
+   * the comments attached to {@code token}.
+   */
+  ErrorProneToken(Token token, int offset, com.sun.tools.javac.util.List<Comment> comments) {
     this.token = token;
     this.offset = offset;
+    this.comments = comments;
+  }
+
+  Token token() {
+    return token;
   }
 
   public TokenKind kind() {
@@ -51,14 +65,14 @@ public class ErrorProneToken {
   public List<Comment> comments() {
     // javac stores the comments in reverse declaration order because appending to linked
     // lists is expensive
-    if (token.comments == null) {
+    if (comments == null) {
       return Collections.emptyList();
     }
     if (offset == 0) {
-      return Lists.reverse(token.comments);
+      return Lists.reverse(comments);
     }
     return Lists.reverse(
-        token.comments.stream().map(c -> new OffsetComment(c, offset)).collect(toList()));
+        comments.stream().map(c -> new OffsetComment(c, offset)).collect(toList()));
   }
 
   public Name name() {
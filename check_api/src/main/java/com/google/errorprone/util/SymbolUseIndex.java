@@ -0,0 +1,282 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.errorprone.util.ASTHelpers.getSymbol;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The declarations of, and references to, every symbol in a compilation unit, collected in a single
+ * traversal.
+ *
+ * <p>Checks that need to see every use of a symbol before they can decide anything, like checks for
+ * unused declarations, would otherwise each have to scan the whole compilation unit themselves. The
+ * index for the current compilation unit is available from {@link
+ * com.google.errorprone.VisitorState#getSymbolUseIndex}.
+ *
+ * <p>The index covers the whole compilation unit, including code that is suppressed; checks that
+ * skip suppressed code need to check the paths of the declarations and uses they're interested in.
+ */
+public final class SymbolUseIndex {
+
+  /** The kind of initializer a write to a variable occurs in. */
+  public enum InitializationContext {
+    /** A static initializer. */
+    STATIC,
+    /** A constructor or an instance initializer. */
+    INSTANCE,
+    /** Anywhere else, including methods and the initializers of variable declarations. */
+    NONE
+  }
+
+  /**
+   * A reference to a symbol: an identifier, member select, member reference or constructor
+   * invocation.
+   */
+  public static final class Use {
+    private final TreePath path;
+    private final boolean read;
+    private final boolean write;
+
+    private Use(TreePath path, boolean read, boolean write) {
+      this.path = path;
+      this.read = read;
+      this.write = write;
+    }
+
+    /** Returns the path to the referencing tree. */
+    public TreePath path() {
+      return path;
+    }
+
+    /** Returns the referencing tree. */
+    public Tree tree() {
+      return path.getLeaf();
+    }
+
+    /**
+     * Returns true if the symbol's value is read, which is the case for every use except for being
+     * the target of a simple assignment.
+     */
+    public boolean isRead() {
+      return read;
+    }
+
+    /**
+     * Returns true if the use is the target of an assignment, a compound assignment, or an
+     * increment or decrement.
+     */
+    public boolean isWrite() {
+      return write;
+    }
+
+    /** Returns true if the use is a method reference, such as {@code Foo::bar}. */
+    public boolean isMethodReference() {
+      return path.getLeaf().getKind() == Tree.Kind.MEMBER_REFERENCE;
+    }
+
+    /**
+     * Returns the kind of initializer that the use occurs in, which is determined by the innermost
+     * enclosing class member or variable declaration.
+     */
+    public InitializationContext initializationContext() {
+      for (TreePath p = path.getParentPath(); p != null; p = p.getParentPath()) {
+        Tree leaf = p.getLeaf();
+        switch (leaf.getKind()) {
+          case CLASS:
+          case ENUM:
+          case INTERFACE:
+          case ANNOTATION_TYPE:
+          case VARIABLE:
+            return InitializationContext.NONE;
+          case METHOD:
+            MethodSymbol sym = getSymbol((MethodTree) leaf);
+            return sym != null && sym.isConstructor()
+                ? InitializationContext.INSTANCE
+                : InitializationContext.NONE;
+          case BLOCK:
+            if (p.getParentPath().getLeaf() instanceof ClassTree) {
+              return ((BlockTree) leaf).isStatic()
+                  ? InitializationContext.STATIC
+                  : InitializationContext.INSTANCE;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+      return InitializationContext.NONE;
+    }
+  }
+
+  private final ImmutableMap<Symbol, TreePath> declarations;
+  private final ImmutableListMultimap<Symbol, Use> uses;
+
+  private SymbolUseIndex(
+      ImmutableMap<Symbol, TreePath> declarations, ImmutableListMultimap<Symbol, Use> uses) {
+    this.declarations = declarations;
+    this.uses = uses;
+  }
+
+  /** Indexes the compilation unit (or other tree) at {@code path}. */
+  public static SymbolUseIndex create(TreePath path) {
+    Map<Symbol, TreePath> declarations = new LinkedHashMap<>();
+    ImmutableListMultimap.Builder<Symbol, Use> uses = ImmutableListMultimap.builder();
+    new TreePathScanner<Void, Void>() {
+      @Override
+      public Void visitClass(ClassTree tree, Void unused) {
+        recordDeclaration(getSymbol(tree));
+        return super.visitClass(tree, null);
+      }
+
+      @Override
+      public Void visitMethod(MethodTree tree, Void unused) {
+        recordDeclaration(getSymbol(tree));
+        return super.visitMethod(tree, null);
+      }
+
+      @Override
+      public Void visitVariable(VariableTree tree, Void unused) {
+        recordDeclaration(getSymbol(tree));
+        return super.visitVariable(tree, null);
+      }
+
+      @Override
+      public Void visitIdentifier(IdentifierTree tree, Void unused) {
+        recordUse(getSymbol(tree));
+        return super.visitIdentifier(tree, null);
+      }
+
+      @Override
+      public Void visitMemberSelect(MemberSelectTree tree, Void unused) {
+        recordUse(getSymbol(tree));
+        return super.visitMemberSelect(tree, null);
+      }
+
+      @Override
+      public Void visitMemberReference(MemberReferenceTree tree, Void unused) {
+        recordUse(getSymbol(tree));
+        return super.visitMemberReference(tree, null);
+      }
+
+      @Override
+      public Void visitNewClass(NewClassTree tree, Void unused) {
+        recordUse(getSymbol(tree));
+        return super.visitNewClass(tree, null);
+      }
+
+      private void recordDeclaration(@Nullable Symbol sym) {
+        if (sym != null) {
+          declarations.putIfAbsent(sym, getCurrentPath());
+        }
+      }
+
+      private void recordUse(@Nullable Symbol sym) {
+        if (sym == null) {
+          return;
+        }
+        Tree leaf = getCurrentPath().getLeaf();
+        Tree parent = getCurrentPath().getParentPath().getLeaf();
+        boolean read = true;
+        boolean write = false;
+        switch (parent.getKind()) {
+          case ASSIGNMENT:
+            if (((AssignmentTree) parent).getVariable() == leaf) {
+              read = false;
+              write = true;
+            }
+            break;
+          case PREFIX_INCREMENT:
+          case PREFIX_DECREMENT:
+          case POSTFIX_INCREMENT:
+          case POSTFIX_DECREMENT:
+            write = ((UnaryTree) parent).getExpression() == leaf;
+            break;
+          default:
+            write =
+                parent instanceof CompoundAssignmentTree
+                    && ((CompoundAssignmentTree) parent).getVariable() == leaf;
+            break;
+        }
+        uses.put(sym, new Use(getCurrentPath(), read, write));
+      }
+    }.scan(path, null);
+    return new SymbolUseIndex(ImmutableMap.copyOf(declarations), uses.build());
+  }
+
+  /**
+   * Returns the paths to the declarations of classes, methods and variables in the compilation
+   * unit, in source order.
+   */
+  public ImmutableMap<Symbol, TreePath> getDeclarations() {
+    return declarations;
+  }
+
+  /** Returns the path to the declaration of {@code sym}, or {@code null} if it isn't declared. */
+  @Nullable
+  public TreePath getDeclaration(Symbol sym) {
+    return declarations.get(sym);
+  }
+
+  /** Returns the uses of {@code sym} in the compilation unit, in source order. */
+  public ImmutableList<Use> getUses(Symbol sym) {
+    return uses.get(sym);
+  }
+
+  /** Returns true if {@code sym} is used anywhere in the compilation unit. */
+  public boolean isUsed(Symbol sym) {
+    return uses.containsKey(sym);
+  }
+
+  /** Returns the uses of {@code sym} that read its value. */
+  public ImmutableList<Use> getReads(Symbol sym) {
+    return getUses(sym).stream().filter(Use::isRead).collect(toImmutableList());
+  }
+
+  /** Returns the uses of {@code sym} that assign to it. */
+  public ImmutableList<Use> getWrites(Symbol sym) {
+    return getUses(sym).stream().filter(Use::isWrite).collect(toImmutableList());
+  }
+
+  /** Returns every symbol that is used in the compilation unit, with its uses. */
+  public ImmutableListMultimap<Symbol, Use> getAllUses() {
+    return uses;
+  }
+}
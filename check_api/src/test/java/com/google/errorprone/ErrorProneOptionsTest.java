@@ -190,6 +190,28 @@ public class ErrorProneOptionsTest {
     assertThat(excludedPattern.matcher("foo/other_output/subdir/Gen.cpp").matches()).isFalse();
   }
 
+  @Test
+  public void recognizesIncrementalCache() {
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(new String[] {"-XepIncrementalCache:build/ep-cache"});
+    assertThat(options.getIncrementalCacheDirectory().toString()).isEqualTo("build/ep-cache");
+    assertThat(ErrorProneOptions.empty().getIncrementalCacheDirectory() == null).isTrue();
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepIncrementalCache:"}));
+  }
+
+  @Test
+  public void recognizesProfile() {
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(new String[] {"-XepProfile:build/ep-profile.json"});
+    assertThat(options.getProfileOutput().toString()).isEqualTo("build/ep-profile.json");
+    assertThat(ErrorProneOptions.empty().getProfileOutput() == null).isTrue();
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepProfile:"}));
+  }
+
   @Test
   public void recognizesPatch() {
     ErrorProneOptions options =
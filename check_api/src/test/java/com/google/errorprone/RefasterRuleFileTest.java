@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableClassToInstanceMap;
+import com.google.common.collect.ImmutableList;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RefasterRuleFile}. */
+@RunWith(JUnit4.class)
+public class RefasterRuleFileTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void roundTrip() throws IOException {
+    Path path = tempFolder.newFile("rules.analyzer").toPath();
+    RefasterRuleFile.write(
+        CompositeCodeTransformer.compose(new NamedTransformer("a"), new NamedTransformer("b")),
+        path);
+
+    CodeTransformer loaded = RefasterRuleFile.load(path);
+    assertThat(loaded).isInstanceOf(CompositeCodeTransformer.class);
+    List<CodeTransformer> transformers = ((CompositeCodeTransformer) loaded).transformers();
+    assertThat(transformers).hasSize(2);
+    assertThat(transformers.get(0).toString()).isEqualTo("a");
+    assertThat(transformers.get(1).toString()).isEqualTo("b");
+  }
+
+  @Test
+  public void singleTransformer() throws IOException {
+    Path path = tempFolder.newFile("rule.analyzer").toPath();
+    RefasterRuleFile.write(new NamedTransformer("a"), path);
+    assertThat(RefasterRuleFile.load(path).toString()).isEqualTo("a");
+  }
+
+  @Test
+  public void sharesEqualStrings() throws IOException {
+    Path path = tempFolder.newFile("rules.analyzer").toPath();
+    // distinct, but equal, instances
+    String first = new String("name".toCharArray());
+    String second = new String("name".toCharArray());
+    RefasterRuleFile.write(
+        CompositeCodeTransformer.compose(new NamedTransformer(first), new NamedTransformer(second)),
+        path);
+
+    List<CodeTransformer> transformers =
+        ((CompositeCodeTransformer) RefasterRuleFile.load(path)).transformers();
+    assertThat(transformers.get(0).toString()).isSameInstanceAs(transformers.get(1).toString());
+  }
+
+  @Test
+  public void legacyFormat() throws IOException {
+    Path legacy = tempFolder.newFile("legacy.analyzer").toPath();
+    try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(legacy))) {
+      out.writeObject(
+          CompositeCodeTransformer.compose(new NamedTransformer("a"), new NamedTransformer("b")));
+    }
+    CodeTransformer loaded = RefasterRuleFile.load(legacy);
+    assertThat(((CompositeCodeTransformer) loaded).transformers())
+        .containsExactly(new NamedTransformer("a"), new NamedTransformer("b"))
+        .inOrder();
+
+    Path converted = tempFolder.newFile("converted.analyzer").toPath();
+    RefasterRuleFile.convert(legacy, converted);
+    assertThat(Files.readAllBytes(converted)).isNotEqualTo(Files.readAllBytes(legacy));
+    List<CodeTransformer> transformers =
+        ((CompositeCodeTransformer) RefasterRuleFile.load(converted)).transformers();
+    assertThat(transformers.get(0).toString()).isEqualTo("a");
+    assertThat(transformers.get(1).toString()).isEqualTo("b");
+  }
+
+  @Test
+  public void assembler() throws IOException {
+    Path path = tempFolder.newFile("rules.analyzer").toPath();
+    RefasterRuleFile.write(
+        new JoinedTransformer(
+            ImmutableList.of(new NamedTransformer("a"), new NamedTransformer("b"))),
+        path);
+
+    assertThat(RefasterRuleFile.load(path).toString()).isEqualTo("a+b");
+    assertThat(RefasterRuleFile.loadAll(path))
+        .containsExactly(new NamedTransformer("a"), new NamedTransformer("b"))
+        .inOrder();
+  }
+
+  @Test
+  public void rejectsOtherFiles() throws IOException {
+    Path path = tempFolder.newFile("rules.analyzer").toPath();
+    Files.write(path, "not a rule file".getBytes(UTF_8));
+    assertThrows(IOException.class, () -> RefasterRuleFile.load(path));
+  }
+
+  /** A transformer that is written as its parts, and loaded as a single transformer. */
+  private static final class JoinedTransformer
+      implements RefasterRuleFile.ChunkedCodeTransformer {
+    private final ImmutableList<CodeTransformer> parts;
+
+    JoinedTransformer(ImmutableList<CodeTransformer> parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    public void apply(TreePath path, Context context, DescriptionListener listener) {}
+
+    @Override
+    public ImmutableClassToInstanceMap<Annotation> annotations() {
+      return ImmutableClassToInstanceMap.of();
+    }
+
+    @Override
+    public ImmutableList<CodeTransformer> chunks() {
+      return parts;
+    }
+
+    @Override
+    public RefasterRuleFile.Assembler assembler() {
+      return chunks ->
+          new NamedTransformer(
+              chunks.stream().map(c -> c.get().toString()).collect(Collectors.joining("+")));
+    }
+  }
+
+  private static final class NamedTransformer implements CodeTransformer, Serializable {
+    private final String name;
+
+    NamedTransformer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void apply(TreePath path, Context context, DescriptionListener listener) {}
+
+    @Override
+    public ImmutableClassToInstanceMap<Annotation> annotations() {
+      return ImmutableClassToInstanceMap.of();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof NamedTransformer && ((NamedTransformer) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -18,6 +18,8 @@ package com.google.errorprone.apply;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.fixes.Replacements;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.Before;
@@ -113,4 +115,42 @@ public class SourceFileTest {
                 + "// enim ad minim veniam, quis nostrud exercitation ullamco\n");
     assertThat(sourceFile.getFragmentByLines(1, 8)).isEqualTo(SOURCE_TEXT);
   }
+
+  @Test
+  public void replaceChars_descending() {
+    int laborum = SOURCE_TEXT.indexOf("laborum");
+    sourceFile.replaceChars(laborum, laborum + "laborum".length(), "X");
+    sourceFile.replaceChars(3, 3, "A ");
+    sourceFile.replaceChars(3, 3, "B ");
+    sourceFile.replaceChars(0, 2, "/*");
+    assertThat(sourceFile.getLines().get(0))
+        .isEqualTo("/* B A Lorem ipsum dolor sit amet, consectetur adipisicing elit, sed do");
+    assertThat(sourceFile.getFragmentByLines(8, 8)).isEqualTo("// est X.\n");
+  }
+
+  @Test
+  public void replaceChars_outOfOrder() {
+    sourceFile.replaceChars(3, 8, "Sasquatch");
+    sourceFile.replaceChars(9, 14, "");
+    assertThat(sourceFile.getLines().get(0))
+        .isEqualTo("// Sasquapsum dolor sit amet, consectetur adipisicing elit, sed do");
+  }
+
+  @Test
+  public void makeReplacements() {
+    Replacements replacements =
+        new Replacements()
+            .add(Replacement.create(3, 8, "Sasquatch"))
+            .add(Replacement.create(SOURCE_TEXT.length(), SOURCE_TEXT.length(), "// end\n"));
+    sourceFile.makeReplacements(replacements);
+    assertThat(sourceFile.getSourceText())
+        .isEqualTo(SOURCE_TEXT.replace("Lorem", "Sasquatch") + "// end\n");
+    assertThat(sourceFile.getLines()).hasSize(9);
+  }
+
+  @Test
+  public void getFragmentByLines_lineTerminators() {
+    sourceFile.setSourceText("a\r\nb\rc\n\nd");
+    assertThat(sourceFile.getFragmentByLines(1, 5)).isEqualTo("a\nb\nc\n\nd\n");
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.apply;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.UnifiedDiffUtils;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.fixes.Replacements;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link UnifiedDiff}Test */
+@RunWith(JUnit4.class)
+public class UnifiedDiffTest {
+
+  private static final String SOURCE =
+      Joiner.on('\n')
+          .join(
+              "package foo;",
+              "",
+              "class Test {",
+              "  void f() {",
+              "    int x = 1;",
+              "    int y = 2;",
+              "  }",
+              "",
+              "  void g() {",
+              "    int z = 3;",
+              "  }",
+              "",
+              "  void h() {}",
+              "}",
+              "");
+
+  @Test
+  public void singleLine() throws Exception {
+    assertMatchesDiffUtils(replace("int x = 1", "long x = 1"));
+  }
+
+  @Test
+  public void sameLine() throws Exception {
+    assertMatchesDiffUtils(replace("int x", "long x"), replace("= 1", "= 1L"));
+  }
+
+  @Test
+  public void adjacentLines() throws Exception {
+    assertMatchesDiffUtils(replace("int x", "long x"), replace("int y", "long y"));
+  }
+
+  @Test
+  public void separateHunks() throws Exception {
+    assertMatchesDiffUtils(
+        replace("package foo;", "package bar;"), replace("h() {}", "h() {\n  }"));
+  }
+
+  @Test
+  public void mergedHunks() throws Exception {
+    assertMatchesDiffUtils(replace("int y = 2;", "int y = 3;"), replace("int z = 3;", "int z;"));
+  }
+
+  @Test
+  public void insertLines() throws Exception {
+    int pos = SOURCE.indexOf("  void g()");
+    assertMatchesDiffUtils(Replacement.create(pos, pos, "  void e() {}\n"));
+  }
+
+  @Test
+  public void deleteLines() throws Exception {
+    assertMatchesDiffUtils(replace("    int y = 2;\n", ""));
+  }
+
+  @Test
+  public void multiLineReplacementWithUnchangedLines() throws Exception {
+    assertMatchesDiffUtils(replace("int x = 1;\n    int y = 2;", "int x = 2;\n    int y = 2;"));
+  }
+
+  @Test
+  public void noChange() {
+    Replacements replacements = new Replacements().add(replace("int x", "int x"));
+    assertThat(UnifiedDiff.generate("Test.java", SOURCE, replacements.descending(), 2)).isEmpty();
+  }
+
+  private static Replacement replace(String target, String replaceWith) {
+    int pos = SOURCE.indexOf(target);
+    return Replacement.create(pos, pos + target.length(), replaceWith);
+  }
+
+  private static void assertMatchesDiffUtils(Replacement... replacements) throws Exception {
+    Replacements collection = new Replacements();
+    SourceFile updated = new SourceFile("Test.java", SOURCE);
+    for (Replacement replacement : replacements) {
+      collection.add(replacement);
+    }
+    for (Replacement replacement : collection.descending()) {
+      updated.replaceChars(
+          replacement.startPosition(), replacement.endPosition(), replacement.replaceWith());
+    }
+    Splitter lineSplitter = Splitter.on('\n');
+    List<String> originalLines = lineSplitter.splitToList(SOURCE);
+    List<String> expected =
+        UnifiedDiffUtils.generateUnifiedDiff(
+            "Test.java",
+            "Test.java",
+            originalLines,
+            DiffUtils.diff(originalLines, lineSplitter.splitToList(updated.getSourceText())),
+            2);
+    assertThat(UnifiedDiff.generate("Test.java", SOURCE, collection.descending(), 2))
+        .isEqualTo(Joiner.on('\n').join(expected) + "\n");
+  }
+}
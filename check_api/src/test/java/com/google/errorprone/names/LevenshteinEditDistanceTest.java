@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.names;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for LevenshteinEditDistance */
+@RunWith(JUnit4.class)
+public class LevenshteinEditDistanceTest {
+
+  @Test
+  public void getEditDistance_returnsZero_withIdenticalNames() {
+    assertThat(LevenshteinEditDistance.getEditDistance("foo", "foo")).isEqualTo(0);
+  }
+
+  @Test
+  public void getEditDistance_countsEdits() {
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("sitting", "kitten")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("flaw", "lawn")).isEqualTo(2);
+  }
+
+  @Test
+  public void getEditDistance_treatsWhitespaceAsEmpty() {
+    assertThat(LevenshteinEditDistance.getEditDistance(" \t", "foo")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("foo", null)).isEqualTo(3);
+  }
+
+  @Test
+  public void getEditDistance_ignoresCase_whenCaseInsensitive() {
+    assertThat(LevenshteinEditDistance.getEditDistance("fooBar", "FOOBAR", false)).isEqualTo(0);
+    assertThat(LevenshteinEditDistance.getEditDistance("fooBar", "FOOBAR", true)).isEqualTo(5);
+  }
+
+  @Test
+  public void getEditDistance_withLongStrings() {
+    String source = Strings.repeat("abcdefghij", 10);
+    String target = "x" + source.substring(1, 50) + source.substring(51) + "yz";
+
+    assertThat(LevenshteinEditDistance.getEditDistance(source, target)).isEqualTo(4);
+    assertThat(LevenshteinEditDistance.getEditDistance(source, target, true, 3)).isEqualTo(4);
+  }
+
+  @Test
+  public void getEditDistance_withLimit_returnsDistanceWithinLimit() {
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting", true, 3)).isEqualTo(3);
+  }
+
+  @Test
+  public void getEditDistance_withLimit_returnsLimitPlusOneBeyondLimit() {
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting", true, 2)).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting", true, 0)).isEqualTo(1);
+    assertThat(LevenshteinEditDistance.getEditDistance("a", "abcdef", true, 2)).isEqualTo(3);
+  }
+}
@@ -19,6 +19,7 @@ package com.google.errorprone.names;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.sun.tools.javac.util.Context;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -90,6 +91,44 @@ public class NamingConventionsTest {
     assertThat(terms).containsExactly("test", "1");
   }
 
+  @Test
+  public void splitToLowercaseTerms_keepsEmptyTerms_exceptAtEnd() {
+    String identifierName = "_leading__double_";
+
+    ImmutableList<String> terms = NamingConventions.splitToLowercaseTerms(identifierName);
+
+    assertThat(terms).containsExactly("", "leading", "", "double").inOrder();
+  }
+
+  @Test
+  public void splitToLowercaseTerms_separatesTerms_afterDigits() {
+    String identifierName = "base64Encoded";
+
+    ImmutableList<String> terms = NamingConventions.splitToLowercaseTerms(identifierName);
+
+    assertThat(terms).containsExactly("base64", "encoded").inOrder();
+  }
+
+  @Test
+  public void splitToLowercaseTerms_findsSingleTerm_withOnlyDigits() {
+    String identifierName = "123";
+
+    ImmutableList<String> terms = NamingConventions.splitToLowercaseTerms(identifierName);
+
+    assertThat(terms).containsExactly("123");
+  }
+
+  @Test
+  public void splitToLowercaseTerms_withContext_memoizesTerms() {
+    Context context = new Context();
+
+    ImmutableList<String> terms = NamingConventions.splitToLowercaseTerms("camelCase", context);
+
+    assertThat(terms).containsExactly("camel", "case").inOrder();
+    assertThat(NamingConventions.splitToLowercaseTerms("camelCase", context))
+        .isSameInstanceAs(terms);
+  }
+
   @Test
   public void convertToLowerUnderscore_givesSingleUnderscore_fromSingleUnderscore() {
     String identifierName = "_";
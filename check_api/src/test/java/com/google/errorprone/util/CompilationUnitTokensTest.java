@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.sun.tools.javac.parser.Tokens.Comment;
+import com.sun.tools.javac.util.Context;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CompilationUnitTokens}. */
+@RunWith(JUnit4.class)
+public class CompilationUnitTokensTest {
+
+  private static final String SOURCE =
+      Joiner.on('\n')
+          .join(
+              "/** Javadoc. */",
+              "class Test { // trailing",
+              "  int f(int a, /* b= */ int b) {",
+              "    return a >> b; /* one */ /* two */",
+              "  }",
+              "  // last",
+              "}",
+              "");
+
+  private final Context context = new Context();
+
+  @Test
+  public void matchesRelexing() {
+    CompilationUnitTokens tokens = CompilationUnitTokens.create(SOURCE, context);
+    int matched = 0;
+    for (int start = 0; start <= SOURCE.length(); start++) {
+      for (int end = start; end <= SOURCE.length(); end++) {
+        for (int offset : new int[] {0, start}) {
+          List<ErrorProneToken> cached = tokens.getTokens(start, end, offset);
+          if (cached == null) {
+            continue;
+          }
+          matched++;
+          List<ErrorProneToken> relexed =
+              ErrorProneTokens.getTokens(SOURCE.substring(start, end), start - offset, context);
+          assertWithMessage("[%s, %s) offset %s", start, end, offset)
+              .that(describe(cached))
+              .isEqualTo(describe(relexed));
+        }
+      }
+    }
+    assertThat(matched).isGreaterThan(0);
+  }
+
+  @Test
+  public void tokenBoundaries() {
+    CompilationUnitTokens tokens = CompilationUnitTokens.create(SOURCE, context);
+    ImmutableList<ErrorProneToken> all = tokens.getTokens();
+    for (ErrorProneToken first : all) {
+      for (ErrorProneToken last : all) {
+        if (first.pos() <= last.pos()) {
+          assertThat(tokens.getTokens(first.pos(), last.endPos(), 0)).isNotNull();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void straddlingRange() {
+    CompilationUnitTokens tokens = CompilationUnitTokens.create(SOURCE, context);
+    int classKeyword = SOURCE.indexOf("class");
+    assertThat(tokens.getTokens(classKeyword + 1, SOURCE.length(), 0)).isNull();
+    int comment = SOURCE.indexOf("/* b= */");
+    assertThat(tokens.getTokens(comment + 1, SOURCE.length(), 0)).isNull();
+  }
+
+  private static ImmutableList<String> describe(List<ErrorProneToken> tokens) {
+    ImmutableList.Builder<String> result = ImmutableList.builder();
+    for (ErrorProneToken token : tokens) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(token.kind()).append('@').append(token.pos()).append('-').append(token.endPos());
+      for (Comment comment : token.comments()) {
+        sb.append(' ').append(comment.getText()).append('@').append(comment.getSourcePos(0));
+      }
+      result.add(sb.toString());
+    }
+    return result.build();
+  }
+}
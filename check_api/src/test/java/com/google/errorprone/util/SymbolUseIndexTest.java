@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.util.SymbolUseIndex.InitializationContext;
+import com.google.errorprone.util.SymbolUseIndex.Use;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.api.JavacTool;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.tree.JCTree;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SymbolUseIndex}. */
+@RunWith(JUnit4.class)
+public class SymbolUseIndexTest {
+
+  private static final String SOURCE =
+      Joiner.on('\n')
+          .join(
+              "import java.util.function.Supplier;",
+              "class Test {",
+              "  static int counter;",
+              "  int field;",
+              "  static {",
+              "    counter = 0;",
+              "  }",
+              "  {",
+              "    field = 1;",
+              "  }",
+              "  Test() {",
+              "    field = 2;",
+              "  }",
+              "  Test(int x) {",
+              "    this();",
+              "  }",
+              "  void write() {",
+              "    field = 3;",
+              "  }",
+              "  int read() {",
+              "    return field;",
+              "  }",
+              "  void compound() {",
+              "    field += 4;",
+              "    counter++;",
+              "  }",
+              "  Supplier<Integer> reference() {",
+              "    return this::read;",
+              "  }",
+              "  Test create() {",
+              "    return new Test(5);",
+              "  }",
+              "  Supplier<Integer> lambda = () -> field;",
+              "}",
+              "");
+
+  private CompilationUnitTree unit;
+  private SymbolUseIndex index;
+
+  @Before
+  public void setUp() throws IOException {
+    JavaFileObject source =
+        new SimpleJavaFileObject(URI.create("file:///Test.java"), JavaFileObject.Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return SOURCE;
+          }
+        };
+    JavacTask task =
+        JavacTool.create()
+            .getTask(
+                null, null, null, ImmutableList.of("-proc:none"), null, ImmutableList.of(source));
+    unit = getOnlyElement(task.parse());
+    task.analyze();
+    index = SymbolUseIndex.create(new TreePath(unit));
+  }
+
+  /** Returns the only symbol with the given name that is declared in the compilation unit. */
+  private Symbol declared(String name) {
+    return getOnlyElement(
+        index.getDeclarations().keySet().stream()
+            .filter(sym -> sym.getSimpleName().contentEquals(name))
+            .collect(toImmutableList()));
+  }
+
+  private MethodSymbol constructor(int parameters) {
+    return (MethodSymbol)
+        getOnlyElement(
+            index.getDeclarations().keySet().stream()
+                .filter(
+                    sym ->
+                        sym instanceof MethodSymbol
+                            && ((MethodSymbol) sym).isConstructor()
+                            && ((MethodSymbol) sym).getParameters().size() == parameters)
+                .collect(toImmutableList()));
+  }
+
+  /** Returns the line numbers of {@code uses}. */
+  private ImmutableList<Long> lines(List<Use> uses) {
+    return uses.stream()
+        .map(use -> unit.getLineMap().getLineNumber(((JCTree) use.tree()).getStartPosition()))
+        .collect(toImmutableList());
+  }
+
+  @Test
+  public void declarationsInSourceOrder() {
+    assertThat(
+            index.getDeclarations().keySet().stream()
+                .map(sym -> sym.getSimpleName().toString())
+                .collect(toImmutableList()))
+        .containsAtLeast("Test", "counter", "field", "x", "write", "read", "lambda")
+        .inOrder();
+    assertThat(index.getDeclaration(declared("field")).getLeaf().getKind())
+        .isEqualTo(Tree.Kind.VARIABLE);
+  }
+
+  @Test
+  public void readsAndWrites() {
+    Symbol field = declared("field");
+    assertThat(lines(index.getUses(field))).containsExactly(9L, 12L, 18L, 21L, 24L, 33L).inOrder();
+    // simple assignments only write the field
+    assertThat(lines(index.getWrites(field))).containsExactly(9L, 12L, 18L, 24L).inOrder();
+    assertThat(lines(index.getReads(field))).containsExactly(21L, 24L, 33L).inOrder();
+  }
+
+  @Test
+  public void compoundAssignments() {
+    Use compound = index.getUses(declared("field")).get(4);
+    assertThat(compound.isRead()).isTrue();
+    assertThat(compound.isWrite()).isTrue();
+
+    Use increment = index.getUses(declared("counter")).get(1);
+    assertThat(increment.isRead()).isTrue();
+    assertThat(increment.isWrite()).isTrue();
+  }
+
+  @Test
+  public void methodReferences() {
+    Use reference = getOnlyElement(index.getUses(declared("read")));
+    assertThat(reference.isMethodReference()).isTrue();
+    assertThat(reference.isRead()).isTrue();
+    assertThat(reference.isWrite()).isFalse();
+    assertThat(lines(ImmutableList.of(reference))).containsExactly(28L);
+  }
+
+  @Test
+  public void constructorInvocations() {
+    Use newClass = getOnlyElement(index.getUses(constructor(1)));
+    assertThat(newClass.tree().getKind()).isEqualTo(Tree.Kind.NEW_CLASS);
+    assertThat(lines(ImmutableList.of(newClass))).containsExactly(31L);
+
+    // this() in the other constructor
+    Use delegation = getOnlyElement(index.getUses(constructor(0)));
+    assertThat(lines(ImmutableList.of(delegation))).containsExactly(15L);
+
+    assertThat(index.isUsed(declared("create"))).isFalse();
+  }
+
+  @Test
+  public void initializationContext() {
+    assertThat(
+            index.getWrites(declared("field")).stream()
+                .map(Use::initializationContext)
+                .collect(toImmutableList()))
+        .containsExactly(
+            InitializationContext.INSTANCE, // instance initializer
+            InitializationContext.INSTANCE, // constructor
+            InitializationContext.NONE, // method
+            InitializationContext.NONE) // method
+        .inOrder();
+    assertThat(index.getUses(declared("counter")).get(0).initializationContext())
+        .isEqualTo(InitializationContext.STATIC);
+    // a use in a lambda in a field initializer
+    assertThat(index.getUses(declared("field")).get(5).initializationContext())
+        .isEqualTo(InitializationContext.NONE);
+  }
+}
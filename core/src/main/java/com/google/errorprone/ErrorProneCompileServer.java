@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.errorprone.scanner.BuiltInCheckerSuppliers;
+import com.google.errorprone.scanner.ScannerCache;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.tools.javac.main.Main.Result;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * A long-lived process that runs Error Prone compilations on request.
+ *
+ * <p>The checks that each compilation instantiates, and the tables and compiled matchers they
+ * build, are reused by later compilations with the same checks, severities and flags, and the
+ * JIT-compiled code is warm after the first few compilations. Each compilation still gets its own
+ * javac context, and Error Prone's per-compilation state is kept in a {@link SubContext} of it, so
+ * nothing else is shared between compilations.
+ *
+ * <p>Requests are read from standard input, or from connections to a port on the loopback interface
+ * if the server is started with {@code --port=<port>}. A request is the compilation's command-line
+ * arguments, one per line, followed by an empty line; the {@code .java} arguments are the files to
+ * compile. The response is the compiler's output, followed by a line containing {@value
+ * #EXIT_CODE_PREFIX} and javac's exit code. Requests are handled one at a time.
+ */
+public final class ErrorProneCompileServer {
+
+  static final String EXIT_CODE_PREFIX = "error-prone-exit-code: ";
+
+  private final BaseErrorProneJavaCompiler compiler;
+
+  public ErrorProneCompileServer() {
+    this(BuiltInCheckerSuppliers.defaultChecks());
+  }
+
+  public ErrorProneCompileServer(ScannerSupplier scannerSupplier) {
+    this.compiler = new BaseErrorProneJavaCompiler(scannerSupplier, new ScannerCache());
+  }
+
+  public static void main(String[] args) throws IOException {
+    Integer port = null;
+    for (String arg : args) {
+      if (arg.startsWith("--port=")) {
+        port = Integer.parseInt(arg.substring("--port=".length()));
+      } else {
+        System.err.println("Usage: ErrorProneCompileServer [--port=<port>]");
+        System.exit(Result.CMDERR.exitCode);
+      }
+    }
+    ErrorProneCompileServer server = new ErrorProneCompileServer();
+    if (port == null) {
+      server.serve(
+          new InputStreamReader(System.in, UTF_8), new OutputStreamWriter(System.out, UTF_8));
+      return;
+    }
+    try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+      System.out.println("Listening on port " + serverSocket.getLocalPort());
+      while (true) {
+        try (Socket socket = serverSocket.accept()) {
+          server.serve(
+              new InputStreamReader(socket.getInputStream(), UTF_8),
+              new OutputStreamWriter(socket.getOutputStream(), UTF_8));
+        } catch (IOException e) {
+          // a client went away; keep serving the others
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  /**
+   * Handles each of the requests read from {@code in}, until it is exhausted; a request at the end
+   * of the input doesn't need to be followed by an empty line.
+   */
+  public void serve(Reader in, Writer out) throws IOException {
+    BufferedReader reader = new BufferedReader(in);
+    PrintWriter writer = new PrintWriter(out);
+    List<String> request = new ArrayList<>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (!line.isEmpty()) {
+        request.add(line);
+      } else if (!request.isEmpty()) {
+        respond(request, writer);
+        request.clear();
+      }
+    }
+    if (!request.isEmpty()) {
+      respond(request, writer);
+    }
+  }
+
+  private void respond(List<String> request, PrintWriter writer) {
+    StringWriter output = new StringWriter();
+    int exitCode = compile(request, new PrintWriter(output));
+    writer.print(output);
+    writer.println(EXIT_CODE_PREFIX + exitCode);
+    writer.flush();
+  }
+
+  /**
+   * Runs a compilation with the given command-line arguments, and returns javac's exit code.
+   * Diagnostics are written to {@code out}.
+   */
+  public int compile(List<String> args, PrintWriter out) {
+    List<String> options = new ArrayList<>();
+    List<String> files = new ArrayList<>();
+    for (String arg : args) {
+      if (!arg.startsWith("-") && arg.endsWith(".java")) {
+        files.add(arg);
+      } else {
+        options.add(arg);
+      }
+    }
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, UTF_8)) {
+      Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjectsFromStrings(files);
+      CompilationTask task = compiler.getTask(out, fileManager, null, options, null, sources);
+      return task.call() ? Result.OK.exitCode : Result.ERROR.exitCode;
+    } catch (InvalidCommandLineOptionException | IllegalArgumentException e) {
+      out.println("error: " + e.getMessage());
+      return Result.CMDERR.exitCode;
+    } catch (IOException e) {
+      out.println("error: " + e.getMessage());
+      return Result.SYSERR.exitCode;
+    } catch (RuntimeException e) {
+      e.printStackTrace(out);
+      return Result.ABNORMAL.exitCode;
+    } finally {
+      out.flush();
+    }
+  }
+}
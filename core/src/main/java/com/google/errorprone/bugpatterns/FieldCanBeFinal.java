@@ -25,26 +25,24 @@ import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFixes;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.SymbolUseIndex;
+import com.google.errorprone.util.SymbolUseIndex.InitializationContext;
+import com.google.errorprone.util.SymbolUseIndex.Use;
 import com.sun.source.tree.AnnotationTree;
-import com.sun.source.tree.AssignmentTree;
-import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.MemberSelectTree;
-import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
-import com.sun.source.tree.UnaryTree;
 import com.sun.source.tree.VariableTree;
-import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Flags;
 import com.sun.tools.javac.code.Symbol;
-import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.lang.model.element.ElementKind;
@@ -95,24 +93,6 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
   private static final ImmutableSet<String> IMPLICIT_VAR_ANNOTATION_SIMPLE_NAMES =
       ImmutableSet.of("NonFinalForTesting", "NotFinalForTesting");
 
-  /** Unary operator kinds that implicitly assign to their operand. */
-  private static final EnumSet<Kind> UNARY_ASSIGNMENT =
-      EnumSet.of(
-          Kind.PREFIX_DECREMENT,
-          Kind.POSTFIX_DECREMENT,
-          Kind.PREFIX_INCREMENT,
-          Kind.POSTFIX_INCREMENT);
-
-  /** The initalization context where an assignment occurred. */
-  private enum InitializationContext {
-    /** A class (static) initializer. */
-    STATIC,
-    /** An instance initializer. */
-    INSTANCE,
-    /** Neither a static or instance initializer. */
-    NONE
-  }
-
   /** A record of all assignments to variables in the current compilation unit. */
   private static class VariableAssignmentRecords {
 
@@ -123,14 +103,6 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
       return assignments.values();
     }
 
-    /** Records an assignment to a variable. */
-    private void recordAssignment(Tree tree, InitializationContext init) {
-      Symbol sym = ASTHelpers.getSymbol(tree);
-      if (sym != null && sym.getKind() == ElementKind.FIELD) {
-        recordAssignment((VarSymbol) sym, init);
-      }
-    }
-
     /** Records an assignment to a variable. */
     private void recordAssignment(VarSymbol sym, InitializationContext init) {
       getDeclaration(sym).recordAssignment(init);
@@ -207,8 +179,27 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
 
   @Override
   public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
+    SymbolUseIndex index = state.getSymbolUseIndex();
     VariableAssignmentRecords writes = new VariableAssignmentRecords();
-    new FinalScanner(writes, state).scan(state.getPath(), InitializationContext.NONE);
+    Map<ClassTree, Boolean> skippedClasses = new HashMap<>();
+    for (Map.Entry<Symbol, TreePath> entry : index.getDeclarations().entrySet()) {
+      TreePath path = entry.getValue();
+      if (!(path.getLeaf() instanceof VariableTree)
+          || entry.getKey().getKind() != ElementKind.FIELD) {
+        continue;
+      }
+      VariableTree declaration = (VariableTree) path.getLeaf();
+      if (isSuppressed(declaration) || isInSkippedClass(path, skippedClasses, state)) {
+        continue;
+      }
+      VarSymbol sym = (VarSymbol) entry.getKey();
+      writes.recordDeclaration(sym, declaration);
+      for (Use use : index.getWrites(sym)) {
+        if (!isInSkippedClass(use.path(), skippedClasses, state)) {
+          writes.recordAssignment(sym, initializationContext(use));
+        }
+      }
+    }
     outer:
     for (VariableAssignments var : writes.getAssignments()) {
       if (!var.isEffectivelyFinal()) {
@@ -239,101 +230,66 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
     return Description.NO_MATCH;
   }
 
-  /** Record assignments to possibly-final variables in a compilation unit. */
-  private class FinalScanner extends TreePathScanner<Void, InitializationContext> {
-
-    private final VariableAssignmentRecords writes;
-    private final VisitorState compilationState;
-
-    private FinalScanner(VariableAssignmentRecords writes, VisitorState compilationState) {
-      this.writes = writes;
-      this.compilationState = compilationState;
+  /** Returns the initialization context to record for an assignment to a field. */
+  private static InitializationContext initializationContext(Use use) {
+    if (use.isRead()) {
+      // compound assignments, increments and decrements don't initialize the field
+      return InitializationContext.NONE;
     }
-
-    @Override
-    public Void visitVariable(VariableTree node, InitializationContext init) {
-      VarSymbol sym = ASTHelpers.getSymbol(node);
-      if (sym != null && sym.getKind() == ElementKind.FIELD && !isSuppressed(node)) {
-        writes.recordDeclaration(sym, node);
-      }
-      return super.visitVariable(node, InitializationContext.NONE);
-    }
-
-    @Override
-    public Void visitBlock(BlockTree node, InitializationContext init) {
-      if (getCurrentPath().getParentPath().getLeaf().getKind() == Kind.CLASS) {
-        init = node.isStatic() ? InitializationContext.STATIC : InitializationContext.INSTANCE;
-      }
-      return super.visitBlock(node, init);
+    InitializationContext init = use.initializationContext();
+    if (init == InitializationContext.INSTANCE && !isThisAccess(use.tree())) {
+      // don't record assignments in initializers that aren't to members of the object
+      // being initialized
+      return InitializationContext.NONE;
     }
+    return init;
+  }
 
-    @Override
-    public Void visitMethod(MethodTree node, InitializationContext init) {
-      MethodSymbol sym = ASTHelpers.getSymbol(node);
-      if (sym != null && sym.isConstructor()) {
-        init = InitializationContext.INSTANCE;
-      }
-      return super.visitMethod(node, init);
+  private static boolean isThisAccess(Tree tree) {
+    if (tree.getKind() == Kind.IDENTIFIER) {
+      return true;
     }
-
-    @Override
-    public Void visitAssignment(AssignmentTree node, InitializationContext init) {
-      if (init == InitializationContext.INSTANCE && !isThisAccess(node.getVariable())) {
-        // don't record assignments in initializers that aren't to members of the object
-        // being initialized
-        init = InitializationContext.NONE;
-      }
-      writes.recordAssignment(node.getVariable(), init);
-      return super.visitAssignment(node, init);
+    if (tree.getKind() != Kind.MEMBER_SELECT) {
+      return false;
     }
-
-    private boolean isThisAccess(Tree tree) {
-      if (tree.getKind() == Kind.IDENTIFIER) {
-        return true;
-      }
-      if (tree.getKind() != Kind.MEMBER_SELECT) {
-        return false;
-      }
-      ExpressionTree selected = ((MemberSelectTree) tree).getExpression();
-      if (!(selected instanceof IdentifierTree)) {
-        return false;
-      }
-      IdentifierTree ident = (IdentifierTree) selected;
-      return ident.getName().contentEquals("this");
+    ExpressionTree selected = ((MemberSelectTree) tree).getExpression();
+    if (!(selected instanceof IdentifierTree)) {
+      return false;
     }
+    IdentifierTree ident = (IdentifierTree) selected;
+    return ident.getName().contentEquals("this");
+  }
 
-    @Override
-    public Void visitClass(ClassTree node, InitializationContext init) {
-      VisitorState state = compilationState.withPath(getCurrentPath());
-
-      if (isSuppressed(node)) {
-        return null;
+  /**
+   * Returns true if {@code path} is within a class that is suppressed, or whose fields are all
+   * implicitly non-constant. Declarations of and assignments to fields in those classes are
+   * ignored.
+   */
+  private boolean isInSkippedClass(
+      TreePath path, Map<ClassTree, Boolean> skippedClasses, VisitorState state) {
+    for (TreePath p = path.getParentPath(); p != null; p = p.getParentPath()) {
+      if (!(p.getLeaf() instanceof ClassTree)) {
+        continue;
       }
-
-      for (String annotation : IMPLICIT_VAR_CLASS_ANNOTATIONS) {
-        if (ASTHelpers.hasAnnotation(getSymbol(node), annotation, state)) {
-          return null;
-        }
+      ClassTree classTree = (ClassTree) p.getLeaf();
+      TreePath classPath = p;
+      if (skippedClasses.computeIfAbsent(
+          classTree, c -> isSkippedClass(c, state.withPath(classPath)))) {
+        return true;
       }
-
-      // reset the initialization context when entering a new declaration
-      return super.visitClass(node, InitializationContext.NONE);
     }
+    return false;
+  }
 
-    @Override
-    public Void visitCompoundAssignment(CompoundAssignmentTree node, InitializationContext init) {
-      init = InitializationContext.NONE;
-      writes.recordAssignment(node.getVariable(), init);
-      return super.visitCompoundAssignment(node, init);
+  private boolean isSkippedClass(ClassTree classTree, VisitorState state) {
+    if (isSuppressed(classTree)) {
+      return true;
     }
-
-    @Override
-    public Void visitUnary(UnaryTree node, InitializationContext init) {
-      if (UNARY_ASSIGNMENT.contains(node.getKind())) {
-        init = InitializationContext.NONE;
-        writes.recordAssignment(node.getExpression(), init);
+    for (String annotation : IMPLICIT_VAR_CLASS_ANNOTATIONS) {
+      if (ASTHelpers.hasAnnotation(getSymbol(classTree), annotation, state)) {
+        return true;
       }
-      return super.visitUnary(node, init);
     }
+    return false;
   }
 }
@@ -19,13 +19,13 @@ package com.google.errorprone.bugpatterns;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
 
+import com.google.common.collect.ImmutableList;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
-import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.matchers.method.MethodMatchers.MethodMatcher;
 import com.google.errorprone.util.ASTHelpers;
-import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 import java.lang.annotation.Annotation;
 
@@ -37,12 +37,17 @@ import java.lang.annotation.Annotation;
 public class GetClassOnAnnotation extends BugChecker
     implements BugChecker.MethodInvocationTreeMatcher {
 
-  private static final Matcher<ExpressionTree> ANNOTATION_CLASS =
+  private static final MethodMatcher ANNOTATION_CLASS =
       instanceMethod()
           .onDescendantOf(Annotation.class.getName())
           .named("getClass")
           .withParameters();
 
+  @Override
+  public ImmutableList<MethodMatcher> methodInvocationPrefilter() {
+    return ImmutableList.of(ANNOTATION_CLASS);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (ANNOTATION_CLASS.matches(tree, state)) {
@@ -21,12 +21,14 @@ import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.matchers.method.MethodMatchers.constructor;
 import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
 
+import com.google.common.collect.ImmutableList;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.NewClassTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.matchers.method.MethodMatchers.MethodMatcher;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
@@ -46,7 +48,7 @@ public class IdentityHashMapBoxing extends BugChecker
 
   private static final Matcher<ExpressionTree> NEW_IDENTITY_HASH_MAP =
       constructor().forClass("java.util.IdentityHashMap");
-  private static final Matcher<ExpressionTree> MAPS_NEW_IDENTITY_HASH_MAP =
+  private static final MethodMatcher MAPS_NEW_IDENTITY_HASH_MAP =
       staticMethod().onClass("com.google.common.collect.Maps").named("newIdentityHashMap");
 
   @Override
@@ -57,6 +59,11 @@ public class IdentityHashMapBoxing extends BugChecker
     return checkTypes(tree, state);
   }
 
+  @Override
+  public ImmutableList<MethodMatcher> methodInvocationPrefilter() {
+    return ImmutableList.of(MAPS_NEW_IDENTITY_HASH_MAP);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!MAPS_NEW_IDENTITY_HASH_MAP.matches(tree, state)) {
@@ -23,6 +23,7 @@ import static com.google.errorprone.matchers.Matchers.argument;
 import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
 import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
@@ -32,8 +33,13 @@ import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nullable;
 
 /** @author mdempsky@google.com (Matthew Dempsky) */
 @BugPattern(
@@ -50,22 +56,61 @@ public class InvalidPatternSyntax extends BugChecker implements MethodInvocation
         @Override
         public boolean matches(ExpressionTree tree, VisitorState state) {
           String value = ASTHelpers.constValue(tree, String.class);
-          return value != null && !isValidSyntax(value);
+          // "." is actually valid, but useless.
+          return value != null
+              && (".".equals(value) || SyntaxErrors.instance(state.context).get(value) != null);
         }
+      };
+
+  /**
+   * The syntax errors in the regular expressions that have been checked in the current compilation,
+   * since the same regular expressions tend to be used many times.
+   */
+  @VisibleForTesting
+  static final class SyntaxErrors {
+    private static final Context.Key<SyntaxErrors> KEY = new Context.Key<>();
+
+    /** Characters that a regular expression must contain to possibly be invalid. */
+    private static final String METACHARACTERS = "\\[](){}*+?^$|";
+
+    private final Map<String, Optional<String>> errors = new HashMap<>();
+
+    static SyntaxErrors instance(Context context) {
+      SyntaxErrors instance = context.get(KEY);
+      if (instance == null) {
+        instance = new SyntaxErrors();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+
+    /** Returns the description of the syntax error in {@code regex}, or null if it is valid. */
+    @Nullable
+    String get(String regex) {
+      if (!containsMetacharacters(regex)) {
+        return null;
+      }
+      return errors.computeIfAbsent(regex, SyntaxErrors::compile).orElse(null);
+    }
 
-        private boolean isValidSyntax(String regex) {
-          // Actually valid, but useless.
-          if (".".equals(regex)) {
-            return false;
-          }
-          try {
-            Pattern.compile(regex);
-            return true;
-          } catch (PatternSyntaxException e) {
-            return false;
-          }
+    private static boolean containsMetacharacters(String regex) {
+      for (int i = 0; i < regex.length(); i++) {
+        if (METACHARACTERS.indexOf(regex.charAt(i)) != -1) {
+          return true;
         }
-      };
+      }
+      return false;
+    }
+
+    private static Optional<String> compile(String regex) {
+      try {
+        Pattern.compile(regex);
+        return Optional.empty();
+      } catch (PatternSyntaxException e) {
+        return Optional.of(e.getMessage());
+      }
+    }
+  }
 
   /*
    * Match invocations to regex-accepting methods with bad string literals.
@@ -104,17 +149,13 @@ public class InvalidPatternSyntax extends BugChecker implements MethodInvocation
     Description.Builder descriptionBuilder = buildDescription(methodInvocationTree);
     ExpressionTree arg = methodInvocationTree.getArguments().get(0);
     String value = ASTHelpers.constValue(arg, String.class);
-    String reasonInvalid = "";
+    String reasonInvalid;
 
     if (".".equals(value)) {
       descriptionBuilder.addFix(SuggestedFix.replace(arg, "\"\\\\.\""));
       reasonInvalid = "\".\" is a valid but useless regex";
     } else {
-      try {
-        Pattern.compile(value);
-      } catch (PatternSyntaxException e) {
-        reasonInvalid = e.getMessage();
-      }
+      reasonInvalid = SyntaxErrors.instance(state.context).get(value);
     }
 
     descriptionBuilder.setMessage(MESSAGE_BASE + reasonInvalid);
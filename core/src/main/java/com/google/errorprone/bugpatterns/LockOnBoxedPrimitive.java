@@ -30,7 +30,6 @@ import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.SynchronizedTreeMatcher;
 import com.google.errorprone.matchers.Description;
@@ -45,6 +44,7 @@ import com.sun.source.tree.SynchronizedTree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
 import java.util.Optional;
 
 /** Detects locks on boxed primitives. */
@@ -60,7 +60,7 @@ import java.util.Optional;
             + " piece of code.",
     severity = SeverityLevel.WARNING)
 public class LockOnBoxedPrimitive extends BugChecker
-    implements CompilationUnitTreeMatcher, SynchronizedTreeMatcher, MethodInvocationTreeMatcher {
+    implements SynchronizedTreeMatcher, MethodInvocationTreeMatcher {
 
   private static final Matcher<AssignmentTree> PRIMITIVE_TO_OBJECT_ASSIGNMENT =
       assignment(anything(), isPrimitiveOrBoxedPrimitiveType());
@@ -81,15 +81,6 @@ public class LockOnBoxedPrimitive extends BugChecker
 
   private static final Matcher<ExpressionTree> BOXED_PRIMITIVE = isBoxedPrimitiveType();
 
-  private ImmutableSet<Symbol> knownBoxedVariables;
-
-  @Override
-  public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
-    // Update the known boxed variables for this compilation unit.
-    knownBoxedVariables = getKnownEncapsulatedBoxedObjects(tree, state);
-    return Description.NO_MATCH;
-  }
-
   @Override
   public Description matchSynchronized(SynchronizedTree tree, VisitorState state) {
     if (isDefinitelyBoxedPrimitive(tree.getExpression(), state)) {
@@ -114,14 +105,23 @@ public class LockOnBoxedPrimitive extends BugChecker
    * case when the type is a boxed primitive, or the expression refers to a final variable that was
    * initialized with a boxed primitive.
    */
-  private boolean isDefinitelyBoxedPrimitive(ExpressionTree tree, VisitorState state) {
+  private static boolean isDefinitelyBoxedPrimitive(ExpressionTree tree, VisitorState state) {
     ExpressionTree stripped = ASTHelpers.stripParentheses(tree);
 
-    return BOXED_PRIMITIVE.matches(stripped, state) || isKnownBoxedSymbol(stripped);
+    return BOXED_PRIMITIVE.matches(stripped, state) || isKnownBoxedSymbol(stripped, state);
   }
 
-  private boolean isKnownBoxedSymbol(ExpressionTree tree) {
-    return knownBoxedVariables.contains(ASTHelpers.getSymbol(tree));
+  /**
+   * Returns true if the expression tree refers to a variable that is known to hold a boxed
+   * primitive. The compilation unit is searched each time, rather than once when it is first
+   * visited, so that the check doesn't keep anything from one compilation unit to the next; locking
+   * on a variable is rare enough for that not to matter.
+   */
+  private static boolean isKnownBoxedSymbol(ExpressionTree tree, VisitorState state) {
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol instanceof VarSymbol
+        && getKnownEncapsulatedBoxedObjects(state.getPath().getCompilationUnit(), state)
+            .contains(symbol);
   }
 
   /**
@@ -23,6 +23,7 @@ import static com.google.errorprone.matchers.Matchers.argument;
 import static com.google.errorprone.matchers.Matchers.isSameType;
 import static com.google.errorprone.matchers.Matchers.staticMethod;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
@@ -30,8 +31,8 @@ import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.matchers.method.MethodMatchers.MethodMatcher;
 import com.google.errorprone.util.ASTHelpers;
-import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 
 /**
@@ -48,7 +49,7 @@ import com.sun.source.tree.MethodInvocationTree;
             + " be represented with float.",
     severity = ERROR)
 public final class MathRoundIntLong extends BugChecker implements MethodInvocationTreeMatcher {
-  private static final Matcher<ExpressionTree> MATH_ROUND_CALLS =
+  private static final MethodMatcher MATH_ROUND_CALLS =
       staticMethod().onClass("java.lang.Math").named("round");
 
   private static final Matcher<MethodInvocationTree> ROUND_CALLS_WITH_INT_ARG =
@@ -61,6 +62,11 @@ public final class MathRoundIntLong extends BugChecker implements MethodInvocati
   private static final Matcher<MethodInvocationTree> ROUND_CALLS_WITH_INT_OR_LONG_ARG =
       anyOf(ROUND_CALLS_WITH_INT_ARG, ROUND_CALLS_WITH_LONG_ARG);
 
+  @Override
+  public ImmutableList<MethodMatcher> methodInvocationPrefilter() {
+    return ImmutableList.of(MATH_ROUND_CALLS);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     return ROUND_CALLS_WITH_INT_OR_LONG_ARG.matches(tree, state)
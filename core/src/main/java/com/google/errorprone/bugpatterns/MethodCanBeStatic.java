@@ -32,16 +32,15 @@ import com.google.errorprone.bugpatterns.CanBeStaticAnalyzer.CanBeStaticResult;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.SymbolUseIndex;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MemberReferenceTree;
 import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePathScanner;
-import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -200,25 +199,23 @@ public class MethodCanBeStatic extends BugChecker implements CompilationUnitTree
    */
   private SuggestedFix fixQualifiers(VisitorState state, MethodSymbol sym, SuggestedFix f) {
     SuggestedFix.Builder builder = SuggestedFix.builder().merge(f);
-    new TreeScanner<Void, Void>() {
-      @Override
-      public Void visitMemberSelect(MemberSelectTree tree, Void unused) {
-        fixQualifier(tree, tree.getExpression());
-        return super.visitMemberSelect(tree, unused);
-      }
-
-      @Override
-      public Void visitMemberReference(MemberReferenceTree tree, Void unused) {
-        fixQualifier(tree, tree.getQualifierExpression());
-        return super.visitMemberReference(tree, unused);
+    for (SymbolUseIndex.Use use : state.getSymbolUseIndex().getUses(sym)) {
+      Tree tree = use.tree();
+      switch (tree.getKind()) {
+        case MEMBER_SELECT:
+          builder.replace(
+              ((MemberSelectTree) tree).getExpression(),
+              sym.owner.enclClass().getSimpleName().toString());
+          break;
+        case MEMBER_REFERENCE:
+          builder.replace(
+              ((MemberReferenceTree) tree).getQualifierExpression(),
+              sym.owner.enclClass().getSimpleName().toString());
+          break;
+        default:
+          break;
       }
-
-      private void fixQualifier(Tree tree, ExpressionTree qualifierExpression) {
-        if (sym.equals(ASTHelpers.getSymbol(tree))) {
-          builder.replace(qualifierExpression, sym.owner.enclClass().getSimpleName().toString());
-        }
-      }
-    }.scan(state.getPath().getCompilationUnit(), null);
+    }
     return builder.build();
   }
 
@@ -37,7 +37,8 @@ import java.util.List;
 @BugPattern(
     name = "MockitoUsage",
     summary = "Missing method call for verify(mock) here",
-    severity = ERROR)
+    severity = ERROR,
+    requiredTypes = "org.mockito.Mockito")
 public class MockitoUsage extends BugChecker implements MethodInvocationTreeMatcher {
 
   private static final String MESSAGE_FORMAT = "Missing method call for %s here";
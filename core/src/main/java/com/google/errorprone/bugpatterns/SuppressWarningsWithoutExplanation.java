@@ -37,7 +37,6 @@ import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.util.ASTHelpers;
 import com.google.errorprone.util.ErrorProneToken;
-import com.google.errorprone.util.ErrorProneTokens;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.LineMap;
@@ -114,9 +113,8 @@ public final class SuppressWarningsWithoutExplanation extends BugChecker
 
   private static ImmutableRangeSet<Long> linesWithComments(VisitorState state) {
     RangeSet<Long> lines = TreeRangeSet.create();
-    ErrorProneTokens tokens = new ErrorProneTokens(state.getSourceCode().toString(), state.context);
-    LineMap lineMap = tokens.getLineMap();
-    for (ErrorProneToken token : tokens.getTokens()) {
+    LineMap lineMap = state.getPath().getCompilationUnit().getLineMap();
+    for (ErrorProneToken token : state.getTokensForCompilationUnit()) {
       for (Comment comment : token.comments()) {
         lines.add(
             Range.closed(
@@ -42,7 +42,8 @@ import java.util.regex.Pattern;
     name = "TruthConstantAsserts",
     summary = "Truth Library assert is called on a constant.",
     severity = WARNING,
-    tags = StandardTags.FRAGILE_CODE)
+    tags = StandardTags.FRAGILE_CODE,
+    requiredTypes = "com.google.common.truth.Subject")
 public class TruthConstantAsserts extends BugChecker implements MethodInvocationTreeMatcher {
 
   private static final Matcher<ExpressionTree> ASSERT_THAT =
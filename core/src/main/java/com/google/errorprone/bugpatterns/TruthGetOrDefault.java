@@ -40,7 +40,8 @@ import java.util.Objects;
 @BugPattern(
     name = "TruthGetOrDefault",
     summary = "Asserting on getOrDefault is unclear; prefer containsEntry or doesNotContainKey",
-    severity = WARNING)
+    severity = WARNING,
+    requiredTypes = "com.google.common.truth.Subject")
 public final class TruthGetOrDefault extends BugChecker implements MethodInvocationTreeMatcher {
 
   private static final Matcher<ExpressionTree> ASSERT_THAT =
@@ -45,7 +45,8 @@ import java.util.regex.Pattern;
     summary =
         "isEqualTo should not be used to test an object for equality with itself; the"
             + " assertion will never fail.",
-    severity = ERROR)
+    severity = ERROR,
+    requiredTypes = "com.google.common.truth.Subject")
 public class TruthSelfEquals extends BugChecker implements MethodInvocationTreeMatcher {
 
   /**
@@ -31,18 +31,15 @@ import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFixes;
 import com.google.errorprone.matchers.Description;
+import com.google.errorprone.util.SymbolUseIndex;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.IdentifierTree;
-import com.sun.source.tree.MemberReferenceTree;
-import com.sun.source.tree.MemberSelectTree;
-import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.source.util.TreePath;
-import com.sun.source.util.TreePathScanner;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
@@ -52,7 +49,7 @@ import com.sun.tools.javac.tree.JCTree.JCAnnotation;
 import com.sun.tools.javac.tree.JCTree.JCAssign;
 import com.sun.tools.javac.tree.JCTree.JCExpression;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -91,149 +88,44 @@ public final class UnusedMethod extends BugChecker implements CompilationUnitTre
 
   @Override
   public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
-    // Map of symbols to method declarations. Initially this is a map of all of the methods. As we
-    // go we remove those variables which are used.
-    Map<Symbol, TreePath> unusedMethods = new HashMap<>();
-
     // We will skip reporting on the whole compilation if there are any native methods found.
-    // Use a TreeScanner to find all local variables and fields.
     if (hasNativeMethods(tree)) {
       return Description.NO_MATCH;
     }
-    AtomicBoolean ignoreUnusedMethods = new AtomicBoolean(false);
-
-    class MethodFinder extends TreePathScanner<Void, Void> {
-      @Override
-      public Void visitClass(ClassTree tree, Void unused) {
-        if (isSuppressed(tree) || exemptedBySuperType(getType(tree), state)) {
-          return null;
-        }
-        return super.visitClass(tree, null);
-      }
-
-      private boolean exemptedBySuperType(Type type, VisitorState state) {
-        return EXEMPTING_SUPER_TYPES.stream()
-            .anyMatch(t -> isSubtype(type, typeFromString(t).get(state), state));
-      }
-
-      @Override
-      public Void visitMethod(MethodTree tree, Void unused) {
-        if (hasJUnitParamsParametersForMethodAnnotation(tree.getModifiers().getAnnotations())) {
-          // Since this method uses @Parameters, there will be another method that appears to
-          // be unused. Don't warn about unusedMethods at all in this case.
-          ignoreUnusedMethods.set(true);
-        }
-
-        if (isSuppressed(tree)) {
-          // @SuppressWarnings("unused") applies to the entire AST, not just the symbol it's bound
-          // to.  Skip the whole method.
-          return null;
-        }
-
-        if (isMethodSymbolEligibleForChecking(tree)) {
-          unusedMethods.put(getSymbol(tree), getCurrentPath());
-        }
-        return super.visitMethod(tree, unused);
-      }
-
-      private boolean hasJUnitParamsParametersForMethodAnnotation(
-          Collection<? extends AnnotationTree> annotations) {
-        for (AnnotationTree tree : annotations) {
-          JCAnnotation annotation = (JCAnnotation) tree;
-          if (annotation.getAnnotationType().type != null
-              && annotation
-                  .getAnnotationType()
-                  .type
-                  .toString()
-                  .equals(JUNIT_PARAMS_ANNOTATION_TYPE)) {
-            if (annotation.getArguments().isEmpty()) {
-              // @Parameters, which uses implicit provider methods
-              return true;
-            }
-            for (JCExpression arg : annotation.getArguments()) {
-              if (arg.getKind() != Kind.ASSIGNMENT) {
-                // Implicit value annotation, e.g. @Parameters({"1"}); no exemption required.
-                return false;
-              }
-              JCExpression var = ((JCAssign) arg).getVariable();
-              if (var.getKind() == Kind.IDENTIFIER) {
-                // Anything that is not @Parameters(value = ...), e.g.
-                // @Parameters(source = ...) or @Parameters(method = ...)
-                if (!((IdentifierTree) var).getName().contentEquals(JUNIT_PARAMS_VALUE)) {
-                  return true;
-                }
-              }
-            }
-          }
-        }
-        return false;
-      }
-
-      private boolean isMethodSymbolEligibleForChecking(MethodTree tree) {
-        if (exemptedByName(tree.getName())) {
-          return false;
-        }
-        // Assume the method is called if annotated with a called-reflectively annotation.
-        if (exemptedByAnnotation(tree.getModifiers().getAnnotations(), state)) {
-          return false;
-        }
-        // Skip constructors and special methods.
-        MethodSymbol methodSymbol = getSymbol(tree);
-        if (methodSymbol == null
-            || methodSymbol.getKind() == ElementKind.CONSTRUCTOR
-            || SERIALIZATION_METHODS.matches(tree, state)) {
-          return false;
-        }
-
-        // Ignore this method if the last parameter is a GWT JavaScriptObject.
-        if (!tree.getParameters().isEmpty()) {
-          Type lastParamType = getType(getLast(tree.getParameters()));
-          if (lastParamType != null && lastParamType.toString().equals(GWT_JAVASCRIPT_OBJECT)) {
-            return false;
-          }
-        }
 
-        return tree.getModifiers().getFlags().contains(Modifier.PRIVATE);
+    // Map of symbols to method declarations. Initially this is a map of all of the private
+    // methods. Those which are used are removed below.
+    Map<Symbol, TreePath> unusedMethods = new LinkedHashMap<>();
+    SymbolUseIndex index = state.getSymbolUseIndex();
+    boolean ignoreUnusedMethods = false;
+    for (Map.Entry<Symbol, TreePath> entry : index.getDeclarations().entrySet()) {
+      TreePath path = entry.getValue();
+      if (!(path.getLeaf() instanceof MethodTree) || isInSkippedCode(path.getParentPath(), state)) {
+        continue;
       }
-    }
-    new MethodFinder().scan(state.getPath(), null);
-
-    class FilterUsedMethods extends TreePathScanner<Void, Void> {
-      @Override
-      public Void visitMemberSelect(MemberSelectTree memberSelectTree, Void unused) {
-        Symbol symbol = getSymbol(memberSelectTree);
-        unusedMethods.remove(symbol);
-        return super.visitMemberSelect(memberSelectTree, null);
+      MethodTree methodTree = (MethodTree) path.getLeaf();
+      if (hasJUnitParamsParametersForMethodAnnotation(
+          methodTree.getModifiers().getAnnotations())) {
+        // Since this method uses @Parameters, there will be another method that appears to
+        // be unused. Don't warn about unusedMethods at all in this case.
+        ignoreUnusedMethods = true;
       }
-
-      @Override
-      public Void visitMemberReference(MemberReferenceTree tree, Void unused) {
-        super.visitMemberReference(tree, null);
-        MethodSymbol symbol = getSymbol(tree);
-        unusedMethods.remove(symbol);
-        if (symbol != null) {
-          symbol.getParameters().forEach(unusedMethods::remove);
-        }
-        return null;
+      if (isSuppressed(methodTree)) {
+        continue;
       }
-
-      @Override
-      public Void visitMethodInvocation(MethodInvocationTree tree, Void unused) {
-        Symbol methodSymbol = getSymbol(tree);
-        if (methodSymbol != null) {
-          unusedMethods.remove(methodSymbol);
-        }
-        super.visitMethodInvocation(tree, null);
-        return null;
+      if (isMethodSymbolEligibleForChecking(methodTree, state)) {
+        unusedMethods.put(entry.getKey(), path);
       }
     }
 
-    new FilterUsedMethods().scan(state.getPath(), null);
-
-    if (ignoreUnusedMethods.get()) {
+    if (ignoreUnusedMethods) {
       return Description.NO_MATCH;
     }
 
+    // Any reference to a method, whether it's invoked or referenced through a method reference, is
+    // a use.
+    unusedMethods.keySet().removeIf(index::isUsed);
+
     for (TreePath unusedPath : unusedMethods.values()) {
       Tree unusedTree = unusedPath.getLeaf();
       String message =
@@ -247,6 +139,86 @@ public final class UnusedMethod extends BugChecker implements CompilationUnitTre
     return Description.NO_MATCH;
   }
 
+  /**
+   * Returns true if {@code path} is within a suppressed or exempt class, or a suppressed method.
+   * {@code @SuppressWarnings("unused")} on a method applies to the entire method, not just the
+   * symbol it's bound to.
+   */
+  private boolean isInSkippedCode(TreePath path, VisitorState state) {
+    for (TreePath p = path; p != null; p = p.getParentPath()) {
+      Tree leaf = p.getLeaf();
+      if (leaf instanceof ClassTree) {
+        if (isSuppressed(leaf) || exemptedBySuperType(getType(leaf), state)) {
+          return true;
+        }
+      } else if (leaf instanceof MethodTree && isSuppressed(leaf)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean exemptedBySuperType(Type type, VisitorState state) {
+    return EXEMPTING_SUPER_TYPES.stream()
+        .anyMatch(t -> isSubtype(type, typeFromString(t).get(state), state));
+  }
+
+  private static boolean hasJUnitParamsParametersForMethodAnnotation(
+      Collection<? extends AnnotationTree> annotations) {
+    for (AnnotationTree tree : annotations) {
+      JCAnnotation annotation = (JCAnnotation) tree;
+      if (annotation.getAnnotationType().type != null
+          && annotation.getAnnotationType().type.toString().equals(JUNIT_PARAMS_ANNOTATION_TYPE)) {
+        if (annotation.getArguments().isEmpty()) {
+          // @Parameters, which uses implicit provider methods
+          return true;
+        }
+        for (JCExpression arg : annotation.getArguments()) {
+          if (arg.getKind() != Kind.ASSIGNMENT) {
+            // Implicit value annotation, e.g. @Parameters({"1"}); no exemption required.
+            return false;
+          }
+          JCExpression var = ((JCAssign) arg).getVariable();
+          if (var.getKind() == Kind.IDENTIFIER) {
+            // Anything that is not @Parameters(value = ...), e.g.
+            // @Parameters(source = ...) or @Parameters(method = ...)
+            if (!((IdentifierTree) var).getName().contentEquals(JUNIT_PARAMS_VALUE)) {
+              return true;
+            }
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isMethodSymbolEligibleForChecking(MethodTree tree, VisitorState state) {
+    if (exemptedByName(tree.getName())) {
+      return false;
+    }
+    // Assume the method is called if annotated with a called-reflectively annotation.
+    if (exemptedByAnnotation(tree.getModifiers().getAnnotations(), state)) {
+      return false;
+    }
+    // Skip constructors and special methods.
+    MethodSymbol methodSymbol = getSymbol(tree);
+    if (methodSymbol == null
+        || methodSymbol.getKind() == ElementKind.CONSTRUCTOR
+        || SERIALIZATION_METHODS.matches(tree, state)) {
+      return false;
+    }
+
+    // Ignore this method if the last parameter is a GWT JavaScriptObject.
+    if (!tree.getParameters().isEmpty()) {
+      Type lastParamType = getType(getLast(tree.getParameters()));
+      if (lastParamType != null && lastParamType.toString().equals(GWT_JAVASCRIPT_OBJECT)) {
+        return false;
+      }
+    }
+
+    return tree.getModifiers().getFlags().contains(Modifier.PRIVATE);
+  }
+
   static boolean hasNativeMethods(CompilationUnitTree tree) {
     AtomicBoolean hasAnyNativeMethods = new AtomicBoolean(false);
     new TreeScanner<Void, Void>() {
@@ -41,8 +41,6 @@ import javax.lang.model.element.ElementKind;
     severity = ERROR)
 public class WrongParameterPackage extends BugChecker implements MethodTreeMatcher {
 
-  private MethodSymbol supermethod;
-
   @Override
   public Description matchMethod(MethodTree tree, VisitorState state) {
     MethodSymbol method = ASTHelpers.getSymbol(tree);
@@ -77,8 +75,7 @@ public class WrongParameterPackage extends BugChecker implements MethodTreeMatch
           Type supermethodParamType = supermethod.params().get(x).type;
           if (methodParamType.tsym.name.contentEquals(supermethodParamType.tsym.name)
               && !state.getTypes().isSameType(methodParamType, supermethodParamType)) {
-            this.supermethod = supermethod;
-            return describe(tree, state);
+            return describe(tree, supermethod, state);
           }
         }
       }
@@ -86,15 +83,11 @@ public class WrongParameterPackage extends BugChecker implements MethodTreeMatch
     return Description.NO_MATCH;
   }
 
-  public Description describe(MethodTree tree, VisitorState state) {
+  private Description describe(MethodTree tree, MethodSymbol supermethod, VisitorState state) {
     SuggestedFix.Builder builder = null;
 
     MethodSymbol method = ASTHelpers.getSymbol(tree);
 
-    if (supermethod == null) {
-      throw new IllegalStateException("Matching supermethod was not found");
-    }
-
     for (int x = 0; x < method.params().size(); x++) {
       Type methodParamType = method.params().get(x).type;
       Type supermethodParamType = supermethod.params().get(x).type;
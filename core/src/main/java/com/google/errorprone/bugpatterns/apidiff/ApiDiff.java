@@ -17,10 +17,14 @@
 package com.google.errorprone.bugpatterns.apidiff;
 
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimap;
 import com.google.errorprone.bugpatterns.apidiff.ApiDiffProto.Diff;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /** The difference between two APIs. */
@@ -58,11 +62,29 @@ public abstract class ApiDiff {
     return unsupportedClasses().contains(className);
   }
 
-  /** Returns true if the member with the given declaring class is unsupported. */
-  boolean isMemberUnsupported(String className, ClassMemberKey memberKey) {
-    return unsupportedMembersByClass().containsEntry(className, memberKey)
-        || unsupportedMembersByClass()
-            .containsEntry(className, ClassMemberKey.create(memberKey.identifier(), ""));
+  /**
+   * Returns the descriptors of the unsupported members of the class with the given binary name,
+   * keyed by the members' simple names. An empty descriptor stands for every member with that
+   * name.
+   */
+  ImmutableSetMultimap<String, String> unsupportedMembers(String className) {
+    return unsupportedMemberIndex().getOrDefault(className, ImmutableSetMultimap.of());
+  }
+
+  /** {@link #unsupportedMembersByClass}, indexed by class and then by simple name. */
+  @Memoized
+  ImmutableMap<String, ImmutableSetMultimap<String, String>> unsupportedMemberIndex() {
+    Map<String, ImmutableSetMultimap.Builder<String, String>> builders = new LinkedHashMap<>();
+    unsupportedMembersByClass()
+        .forEach(
+            (className, member) ->
+                builders
+                    .computeIfAbsent(className, c -> ImmutableSetMultimap.builder())
+                    .put(member.identifier(), member.descriptor()));
+    ImmutableMap.Builder<String, ImmutableSetMultimap<String, String>> index =
+        ImmutableMap.builder();
+    builders.forEach((className, members) -> index.put(className, members.build()));
+    return index.build();
   }
 
   public static ApiDiff fromMembers(
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.apidiff;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.errorprone.util.Signatures;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Name;
+import com.sun.tools.javac.util.Names;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * What each {@link ApiDiff} says about the classes that a compilation refers to, looked up by
+ * symbol for the rest of the compilation.
+ *
+ * <p>Only the first lookup of a class computes its descriptor. Most classes have no unsupported
+ * members, and for those a member lookup doesn't compute a descriptor either.
+ */
+final class ApiDiffIndex {
+
+  private static final Context.Key<ApiDiffIndex> KEY = new Context.Key<>();
+
+  static ApiDiffIndex instance(Context context) {
+    ApiDiffIndex instance = context.get(KEY);
+    if (instance == null) {
+      instance = new ApiDiffIndex(context);
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /** What an {@link ApiDiff} says about a single class. */
+  final class ClassInfo {
+    private final boolean unsupported;
+    private final ImmutableSetMultimap<Name, String> unsupportedMembers;
+
+    private ClassInfo(boolean unsupported, ImmutableSetMultimap<Name, String> unsupportedMembers) {
+      this.unsupported = unsupported;
+      this.unsupportedMembers = unsupportedMembers;
+    }
+
+    /** Returns true if the class is unsupported. */
+    boolean isUnsupported() {
+      return unsupported;
+    }
+
+    /** Returns true if {@code member}, which must be a member of this class, is unsupported. */
+    boolean isMemberUnsupported(Symbol member) {
+      ImmutableSet<String> descriptors = unsupportedMembers.get(member.getSimpleName());
+      return !descriptors.isEmpty()
+          && (descriptors.contains("")
+              || descriptors.contains(Signatures.descriptor(member.type, types)));
+    }
+  }
+
+  private final Types types;
+  private final Names names;
+  private final ClassInfo supported = new ClassInfo(false, ImmutableSetMultimap.of());
+  // ApiDiffs are compared by identity, since their equals and hashCode look at the entire diff.
+  private final Map<ApiDiff, Map<ClassSymbol, ClassInfo>> classInfos = new IdentityHashMap<>();
+
+  private ApiDiffIndex(Context context) {
+    this.types = Types.instance(context);
+    this.names = Names.instance(context);
+  }
+
+  /** Returns what {@code apiDiff} says about the class {@code sym}. */
+  ClassInfo classInfo(ApiDiff apiDiff, ClassSymbol sym) {
+    Map<ClassSymbol, ClassInfo> forDiff = classInfos.computeIfAbsent(apiDiff, d -> new HashMap<>());
+    ClassInfo classInfo = forDiff.get(sym);
+    if (classInfo == null) {
+      classInfo = computeClassInfo(apiDiff, sym);
+      forDiff.put(sym, classInfo);
+    }
+    return classInfo;
+  }
+
+  private ClassInfo computeClassInfo(ApiDiff apiDiff, ClassSymbol sym) {
+    String className = Signatures.classDescriptor(sym.type, types);
+    boolean unsupported = apiDiff.isClassUnsupported(className);
+    ImmutableSetMultimap<String, String> members = apiDiff.unsupportedMembers(className);
+    if (!unsupported && members.isEmpty()) {
+      return supported;
+    }
+    ImmutableSetMultimap.Builder<Name, String> unsupportedMembers = ImmutableSetMultimap.builder();
+    members.forEach(
+        (identifier, descriptor) ->
+            unsupportedMembers.put(names.fromString(identifier), descriptor));
+    return new ClassInfo(unsupported, unsupportedMembers.build());
+  }
+}
@@ -25,7 +25,6 @@ import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.NewClassTreeMatcher;
 import com.google.errorprone.matchers.Description;
-import com.google.errorprone.names.NamingConventions;
 import com.google.errorprone.names.NeedlemanWunschEditDistance;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.MethodInvocationTree;
@@ -144,13 +143,9 @@ public class ArgumentSelectionDefectChecker extends BugChecker
         }
 
         if (!pair.formal().isUnknownName() && !pair.actual().isUnknownName()) {
-          String normalizedSource =
-              NamingConventions.convertToLowerUnderscore(pair.formal().name());
-          String normalizedTarget =
-              NamingConventions.convertToLowerUnderscore(pair.actual().name());
           return NeedlemanWunschEditDistance.getNormalizedEditDistance(
-              /*source=*/ normalizedSource,
-              /*target=*/ normalizedTarget,
+              /*source=*/ pair.formal().lowerUnderscoreName(),
+              /*target=*/ pair.actual().lowerUnderscoreName(),
               /*caseSensitive=*/ false,
               /*changeCost=*/ 8,
               /*openGapCost=*/ 8,
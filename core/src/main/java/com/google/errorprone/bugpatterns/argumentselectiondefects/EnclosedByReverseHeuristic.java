@@ -78,7 +78,7 @@ class EnclosedByReverseHeuristic implements Heuristic {
     for (Tree tree : state.getPath()) {
       Optional<String> name = getName(tree);
       if (name.isPresent()) {
-        for (String term : NamingConventions.splitToLowercaseTerms(name.get())) {
+        for (String term : NamingConventions.splitToLowercaseTerms(name.get(), state.context)) {
           if (reverseWordsTerms.contains(term)) {
             return term;
           }
@@ -19,6 +19,7 @@ package com.google.errorprone.bugpatterns.argumentselectiondefects;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -74,6 +75,16 @@ abstract class Parameter {
 
   abstract boolean constant();
 
+  /**
+   * The name in lower underscore case, which is what the names of formal and actual parameters are
+   * compared in. Each parameter is compared with every parameter on the other side of the call, so
+   * this is only computed once.
+   */
+  @Memoized
+  String lowerUnderscoreName() {
+    return NamingConventions.convertToLowerUnderscore(name());
+  }
+
   static ImmutableList<Parameter> createListFromVarSymbols(List<VarSymbol> varSymbols) {
     return Streams.mapWithIndex(
             varSymbols.stream(),
@@ -16,8 +16,8 @@
 
 package com.google.errorprone.bugpatterns.formatstring;
 
-
 import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.VisitorState;
@@ -28,6 +28,7 @@ import com.sun.source.tree.Tree;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Type;
 import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.util.Context;
 import edu.umd.cs.findbugs.formatStringChecker.ExtraFormatArgumentsException;
 import edu.umd.cs.findbugs.formatStringChecker.Formatter;
 import java.math.BigDecimal;
@@ -45,13 +46,17 @@ import java.util.Deque;
 import java.util.DuplicateFormatFlagsException;
 import java.util.FormatFlagsConversionMismatchException;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.IllegalFormatCodePointException;
 import java.util.IllegalFormatConversionException;
 import java.util.IllegalFormatFlagsException;
 import java.util.IllegalFormatPrecisionException;
 import java.util.IllegalFormatWidthException;
+import java.util.List;
+import java.util.Map;
 import java.util.MissingFormatArgumentException;
 import java.util.MissingFormatWidthException;
+import java.util.Optional;
 import java.util.UnknownFormatConversionException;
 import java.util.UnknownFormatFlagsException;
 import java.util.stream.Stream;
@@ -131,13 +136,65 @@ public class FormatStringValidation {
                 })
             .toArray();
 
+    ValidationCache cache = ValidationCache.instance(state.context);
     return formatStrings
-        .map(formatString -> validate(formatString, instances))
+        .map(formatString -> cache.validate(formatString, instances))
         .filter(x -> x != null)
         .findFirst()
         .orElse(null);
   }
 
+  /**
+   * The results of validating each format string with each combination of arguments, for the rest
+   * of the compilation. The same format strings (e.g. for logging) tend to be used with the same
+   * kinds of arguments many times.
+   */
+  private static final class ValidationCache {
+    private static final Context.Key<ValidationCache> KEY = new Context.Key<>();
+
+    private final Map<List<Object>, Optional<ValidationResult>> results = new HashMap<>();
+
+    static ValidationCache instance(Context context) {
+      ValidationCache instance = context.get(KEY);
+      if (instance == null) {
+        instance = new ValidationCache();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+
+    @Nullable
+    ValidationResult validate(String formatString, Object[] arguments) {
+      Object[] key = new Object[arguments.length + 1];
+      key[0] = formatString;
+      for (int i = 0; i < arguments.length; i++) {
+        key[i + 1] = argumentKey(arguments[i]);
+      }
+      return results
+          .computeIfAbsent(
+              Arrays.asList(key),
+              k -> Optional.ofNullable(FormatStringValidation.validate(formatString, arguments)))
+          .orElse(null);
+    }
+
+    /**
+     * Returns the part of an argument that the result of validation depends on: the value of
+     * constants and of the boxed primitives and strings that stand in for values of those types,
+     * and the class of the instances that stand in for values of other types.
+     */
+    @Nullable
+    private static Object argumentKey(@Nullable Object argument) {
+      if (argument == null
+          || argument instanceof Number
+          || argument instanceof String
+          || argument instanceof Boolean
+          || argument instanceof Character) {
+        return argument;
+      }
+      return argument.getClass();
+    }
+  }
+
   /**
    * Return an instance of the given type if it receives special handling by {@code String.format}.
    * For example, an intance of {@link Integer} will be returned for an input of type {@code int} or
@@ -219,7 +276,11 @@ public class FormatStringValidation {
     return s != null && types.isSubtype(t, s);
   }
 
+  @Nullable
   private static ValidationResult validate(String formatString, Object[] arguments) {
+    if (isSimpleAndValid(formatString, arguments)) {
+      return null;
+    }
     try {
       String unused = String.format(formatString, arguments);
     } catch (DuplicateFormatFlagsException e) {
@@ -273,6 +334,130 @@ public class FormatStringValidation {
     return null;
   }
 
+  /**
+   * Returns true if {@code formatString} only uses common, simple format specifiers, which consume
+   * exactly the given arguments and accept their types. This doesn't throw, and it is conservative:
+   * false doesn't mean that the format string is invalid, only that it needs to be checked by
+   * actually formatting it.
+   *
+   * <p>The supported specifiers have no explicit argument index, at most one of the flags {@code
+   * '-'}, {@code '0'} and {@code ','}, and one of the conversions {@code %s %S %b %B %d %x %X %o %f
+   * %e %E %g %G %c %C}, or are {@code %%} or {@code %n} on their own.
+   */
+  @VisibleForTesting
+  static boolean isSimpleAndValid(String formatString, Object[] arguments) {
+    int length = formatString.length();
+    int argument = 0;
+    for (int i = formatString.indexOf('%'); i != -1; i = formatString.indexOf('%', i)) {
+      i++;
+      char flag = 0;
+      if (i < length && "-0,".indexOf(formatString.charAt(i)) != -1) {
+        flag = formatString.charAt(i++);
+      }
+      int widthStart = i;
+      while (i < length && isDigit(formatString.charAt(i))) {
+        i++;
+      }
+      int widthDigits = i - widthStart;
+      // A width can't start with 0, which would be another flag.
+      if (widthDigits > 6 || (widthDigits > 0 && formatString.charAt(widthStart) == '0')) {
+        return false;
+      }
+      boolean hasPrecision = false;
+      if (i < length && formatString.charAt(i) == '.') {
+        int precisionStart = ++i;
+        while (i < length && isDigit(formatString.charAt(i))) {
+          i++;
+        }
+        if (i == precisionStart || i - precisionStart > 6) {
+          return false;
+        }
+        hasPrecision = true;
+      }
+      if (i == length) {
+        return false;
+      }
+      char conversion = formatString.charAt(i++);
+      if (conversion == '%' || conversion == 'n') {
+        if (flag != 0 || widthDigits > 0 || hasPrecision) {
+          return false;
+        }
+        continue;
+      }
+      // The '-' and '0' flags only make sense with a width to pad to.
+      if ((flag == '-' || flag == '0') && widthDigits == 0) {
+        return false;
+      }
+      if (argument == arguments.length) {
+        return false;
+      }
+      Object value = arguments[argument++];
+      switch (conversion) {
+        case 's':
+        case 'S':
+        case 'b':
+        case 'B':
+          if (flag == '0' || flag == ',') {
+            return false;
+          }
+          break;
+        case 'd':
+          if (hasPrecision || !isIntegral(value)) {
+            return false;
+          }
+          break;
+        case 'x':
+        case 'X':
+        case 'o':
+          if (hasPrecision || flag == ',' || !isIntegral(value)) {
+            return false;
+          }
+          break;
+        case 'f':
+        case 'e':
+        case 'E':
+        case 'g':
+        case 'G':
+          if ((flag == ',' && conversion != 'f') || !isFloatingPoint(value)) {
+            return false;
+          }
+          break;
+        case 'c':
+        case 'C':
+          if (hasPrecision || flag == '0' || flag == ',') {
+            return false;
+          }
+          if (value != null && !(value instanceof Character)) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+    return argument == arguments.length;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isIntegral(@Nullable Object value) {
+    return value == null
+        || value instanceof Integer
+        || value instanceof Long
+        || value instanceof Short
+        || value instanceof Byte
+        || value instanceof BigInteger;
+  }
+
+  private static boolean isFloatingPoint(@Nullable Object value) {
+    return value == null
+        || value instanceof Double
+        || value instanceof Float
+        || value instanceof BigDecimal;
+  }
+
   private static String unknownFormatConversion(String conversion) {
     if (conversion.equals("l")) {
       return "%l is not a valid format specifier; use %d for all integral types and %f for all "
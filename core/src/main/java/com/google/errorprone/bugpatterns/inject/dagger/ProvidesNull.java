@@ -42,7 +42,8 @@ import com.sun.tools.javac.code.Symbol.MethodSymbol;
 @BugPattern(
     name = "DaggerProvidesNull",
     summary = "Dagger @Provides methods may not return null unless annotated with @Nullable",
-    severity = ERROR)
+    severity = ERROR,
+    requiredTypes = "dagger.Provides")
 public class ProvidesNull extends BugChecker implements ReturnTreeMatcher {
 
   /**
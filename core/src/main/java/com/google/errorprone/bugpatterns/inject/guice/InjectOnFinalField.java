@@ -37,7 +37,8 @@ import com.sun.source.tree.VariableTree;
     summary =
         "Although Guice allows injecting final fields, doing so is disallowed because the injected "
             + "value may not be visible to other threads.",
-    severity = ERROR)
+    severity = ERROR,
+    requiredTypes = "com.google.inject.Inject")
 public class InjectOnFinalField extends BugChecker implements VariableTreeMatcher {
 
   private static final Matcher<VariableTree> FINAL_FIELD_WITH_GUICE_INJECT =
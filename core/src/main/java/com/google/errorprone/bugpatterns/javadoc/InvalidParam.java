@@ -164,12 +164,19 @@ public final class InvalidParam extends BugChecker implements ClassTreeMatcher,
         return super.visitLiteral(node, null);
       }
       String bestMatch = null;
-      int minDistance = Integer.MAX_VALUE;
+      // Anything further away than this can't be reported, so there's no need to know how far.
+      int limit = (int) Math.ceil(body.length() * LIKELY_PARAMETER_THRESHOLD);
+      int minDistance = limit + 1;
       for (String parameter : parameters) {
-        int distance = getEditDistance(body, parameter);
+        int distance =
+            getEditDistance(
+                body, parameter, /* caseSensitive= */ true, Math.min(limit, minDistance - 1));
         if (distance < minDistance) {
           bestMatch = parameter;
           minDistance = distance;
+          if (minDistance == 0) {
+            break;
+          }
         }
       }
       if (bestMatch != null
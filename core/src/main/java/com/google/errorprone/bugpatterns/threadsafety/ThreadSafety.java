@@ -81,6 +81,7 @@ public final class ThreadSafety {
 
   /** Stores recursive invocations of {@link #isTypeParameterThreadSafe} */
   private final Set<TypeVariableSymbol> recursiveThreadSafeTypeParameter = new HashSet<>();
+  private final ThreadSafetyCache.Verdicts verdicts;
 
   public static Builder builder() {
     return new Builder();
@@ -307,6 +308,17 @@ public final class ThreadSafety {
     this.containerOfAnnotation = containerOfAnnotation;
     this.suppressAnnotation = suppressAnnotation;
     this.typeParameterAnnotation = typeParameterAnnotation;
+    this.verdicts =
+        ThreadSafetyCache.instance(state.context)
+            .verdicts(
+                ThreadSafetyCache.Configuration.create(
+                    purpose,
+                    this.knownTypes,
+                    this.markerAnnotations,
+                    this.acceptedAnnotations,
+                    containerOfAnnotation,
+                    suppressAnnotation,
+                    typeParameterAnnotation));
   }
 
   /** Information about known types and whether they're known to be safe or unsafe. */
@@ -493,8 +505,22 @@ public final class ThreadSafety {
    */
   public Violation isThreadSafeType(
       boolean allowContainerTypeParameters, Set<String> containerTypeParameters, Type type) {
-    return type.accept(
-        new ThreadSafeTypeVisitor(allowContainerTypeParameters, containerTypeParameters), null);
+    // The verdict for a type that doesn't mention any type variables doesn't depend on the type
+    // parameters in scope, so it can be shared.
+    Object key = ThreadSafetyCache.closedTypeKey(type);
+    if (key == null) {
+      return type.accept(
+          new ThreadSafeTypeVisitor(allowContainerTypeParameters, containerTypeParameters), null);
+    }
+    Violation violation = verdicts.closedTypes.get(key);
+    if (violation == null) {
+      violation =
+          type.accept(
+              new ThreadSafeTypeVisitor(allowContainerTypeParameters, containerTypeParameters),
+              null);
+      verdicts.closedTypes.put(key, violation);
+    }
+    return violation;
   }
 
   private class ThreadSafeTypeVisitor extends Types.SimpleVisitor<Violation, Void> {
@@ -649,6 +675,15 @@ public final class ThreadSafety {
    * an accepted annotation on the symbol, or from the list of well-known types.
    */
   public AnnotationInfo getMarkerOrAcceptedAnnotation(Symbol sym, VisitorState state) {
+    Optional<AnnotationInfo> result = verdicts.markerOrAcceptedAnnotations.get(sym);
+    if (result == null) {
+      result = Optional.ofNullable(computeMarkerOrAcceptedAnnotation(sym, state));
+      verdicts.markerOrAcceptedAnnotations.put(sym, result);
+    }
+    return result.orElse(null);
+  }
+
+  private AnnotationInfo computeMarkerOrAcceptedAnnotation(Symbol sym, VisitorState state) {
     String nameStr = sym.flatName().toString();
     AnnotationInfo known = knownTypes.getKnownSafeClasses().get(nameStr);
     if (known != null) {
@@ -794,7 +829,15 @@ public final class ThreadSafety {
    * containerOf spec's from super-classes.
    */
   public AnnotationInfo getInheritedAnnotation(Symbol sym, VisitorState state) {
-    return getAnnotation(sym, markerAnnotations, state);
+    if (sym == null) {
+      return null;
+    }
+    Optional<AnnotationInfo> result = verdicts.inheritedAnnotations.get(sym);
+    if (result == null) {
+      result = Optional.ofNullable(getAnnotation(sym, markerAnnotations, state));
+      verdicts.inheritedAnnotations.put(sym, result);
+    }
+    return result.orElse(null);
   }
 
   private static ImmutableList<String> containerOf(VisitorState state, Compound attr) {
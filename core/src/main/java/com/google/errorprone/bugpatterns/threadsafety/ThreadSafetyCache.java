@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.bugpatterns.threadsafety.ThreadSafety.KnownTypes;
+import com.google.errorprone.bugpatterns.threadsafety.ThreadSafety.Purpose;
+import com.google.errorprone.bugpatterns.threadsafety.ThreadSafety.Violation;
+import com.sun.tools.javac.code.BoundKind;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.WildcardType;
+import com.sun.tools.javac.util.Context;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * Memoizes the answers to {@link ThreadSafety} queries for the rest of a compilation, so that
+ * commonly used types aren't re-analyzed at every field, type argument and subclass that mentions
+ * them.
+ *
+ * <p>Only queries whose answers depend on nothing but the configuration of the {@link
+ * ThreadSafety} instance and the symbols or types involved are cached. In particular, verdicts
+ * about types that mention type variables depend on the type parameters in scope, and aren't
+ * cached.
+ */
+final class ThreadSafetyCache {
+
+  private static final Context.Key<ThreadSafetyCache> KEY = new Context.Key<>();
+
+  static ThreadSafetyCache instance(Context context) {
+    ThreadSafetyCache instance = context.get(KEY);
+    if (instance == null) {
+      instance = new ThreadSafetyCache();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Everything that the answers to {@link ThreadSafety} queries depend on, besides the query. A
+   * change to the known types (e.g. from different {@code -XepOpt:Immutable:KnownImmutable} flags)
+   * or annotations gets a separate set of cached verdicts.
+   */
+  @AutoValue
+  abstract static class Configuration {
+    abstract Purpose purpose();
+
+    abstract KnownTypes knownTypes();
+
+    abstract ImmutableSet<String> markerAnnotations();
+
+    abstract ImmutableSet<String> acceptedAnnotations();
+
+    @Nullable
+    abstract Class<? extends Annotation> containerOfAnnotation();
+
+    @Nullable
+    abstract Class<? extends Annotation> suppressAnnotation();
+
+    @Nullable
+    abstract Class<? extends Annotation> typeParameterAnnotation();
+
+    static Configuration create(
+        Purpose purpose,
+        KnownTypes knownTypes,
+        ImmutableSet<String> markerAnnotations,
+        ImmutableSet<String> acceptedAnnotations,
+        @Nullable Class<? extends Annotation> containerOfAnnotation,
+        @Nullable Class<? extends Annotation> suppressAnnotation,
+        @Nullable Class<? extends Annotation> typeParameterAnnotation) {
+      return new AutoValue_ThreadSafetyCache_Configuration(
+          purpose,
+          knownTypes,
+          markerAnnotations,
+          acceptedAnnotations,
+          containerOfAnnotation,
+          suppressAnnotation,
+          typeParameterAnnotation);
+    }
+  }
+
+  /** The cached answers for one {@link Configuration}. */
+  static final class Verdicts {
+    final Map<Symbol, Optional<AnnotationInfo>> markerOrAcceptedAnnotations = new HashMap<>();
+    final Map<Symbol, Optional<AnnotationInfo>> inheritedAnnotations = new HashMap<>();
+    final Map<Object, Violation> closedTypes = new HashMap<>();
+  }
+
+  private final Map<Configuration, Verdicts> verdicts = new HashMap<>();
+
+  private ThreadSafetyCache() {}
+
+  Verdicts verdicts(Configuration configuration) {
+    return verdicts.computeIfAbsent(configuration, c -> new Verdicts());
+  }
+
+  /**
+   * Returns a key that identifies {@code type} by its class symbol and type arguments, or {@code
+   * null} if the type mentions type variables or type annotations, or is anything other than a
+   * class type instantiated with class types and {@code ? extends} wildcards.
+   */
+  @Nullable
+  static Object closedTypeKey(Type type) {
+    if (type.isAnnotated()) {
+      return null;
+    }
+    switch (type.getTag()) {
+      case CLASS:
+        if (type.getTypeArguments().isEmpty()) {
+          return type.tsym;
+        }
+        ImmutableList.Builder<Object> key = ImmutableList.builder();
+        key.add(type.tsym);
+        for (Type argument : type.getTypeArguments()) {
+          Object argumentKey = closedTypeKey(argument);
+          if (argumentKey == null) {
+            return null;
+          }
+          key.add(argumentKey);
+        }
+        return key.build();
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        // The upper bound of other wildcards comes from the declaration of the type parameter.
+        if (wildcard.kind != BoundKind.EXTENDS) {
+          return null;
+        }
+        Object boundKey = closedTypeKey(wildcard.type);
+        return boundKey == null ? null : ImmutableList.of(BoundKind.EXTENDS, boundKey);
+      default:
+        return null;
+    }
+  }
+}
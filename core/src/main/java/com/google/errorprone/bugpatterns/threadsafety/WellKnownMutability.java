@@ -35,6 +35,7 @@ import java.lang.reflect.TypeVariable;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /** A collection of types with known mutability. */
@@ -47,9 +48,16 @@ public final class WellKnownMutability implements ThreadSafety.KnownTypes {
   /** Types that are known to be mutable. */
   private final ImmutableSet<String> knownUnsafeClasses;
 
+  /** The additional known immutable and mutable types, which identify this configuration. */
+  private final ImmutableList<String> extraKnownImmutable;
+
+  private final ImmutableList<String> extraKnownUnsafe;
+
   private WellKnownMutability(List<String> knownImmutable, List<String> knownUnsafe) {
     knownImmutableClasses = buildImmutableClasses(knownImmutable);
     knownUnsafeClasses = buildUnsafeClasses(knownUnsafe);
+    extraKnownImmutable = ImmutableList.copyOf(knownImmutable);
+    extraKnownUnsafe = ImmutableList.copyOf(knownUnsafe);
   }
 
   public static WellKnownMutability fromFlags(ErrorProneFlags flags) {
@@ -72,6 +80,25 @@ public final class WellKnownMutability implements ThreadSafety.KnownTypes {
     return knownUnsafeClasses;
   }
 
+  /**
+   * Instances created from the same flags are equal, so that checks configured the same way can
+   * share {@link ThreadSafety}'s cached verdicts.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof WellKnownMutability)) {
+      return false;
+    }
+    WellKnownMutability that = (WellKnownMutability) obj;
+    return extraKnownImmutable.equals(that.extraKnownImmutable)
+        && extraKnownUnsafe.equals(that.extraKnownUnsafe);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(extraKnownImmutable, extraKnownUnsafe);
+  }
+
   static class Builder {
     final ImmutableMap.Builder<String, AnnotationInfo> mapBuilder = ImmutableMap.builder();
 
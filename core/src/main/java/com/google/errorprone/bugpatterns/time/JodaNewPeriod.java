@@ -46,7 +46,8 @@ import java.util.List;
     summary =
         "This may have surprising semantics, e.g. new Period(LocalDate.parse(\"1970-01-01\"), "
             + "LocalDate.parse(\"1970-02-02\")).getDays() == 1, not 32.",
-    severity = WARNING)
+    severity = WARNING,
+    requiredTypes = "org.joda.time.Period")
 public final class JodaNewPeriod extends BugChecker implements MethodInvocationTreeMatcher {
 
   private static final String READABLE_PARTIAL = "org.joda.time.ReadablePartial";
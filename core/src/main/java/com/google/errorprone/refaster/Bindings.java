@@ -21,17 +21,21 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.Maps;
 import com.google.common.reflect.TypeToken;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.pcollections.Empty;
+import org.pcollections.PMap;
 
 /**
  * A type-safe map from objects of type {@code Bindings.Key<V>}, which consist of a {@code String}
  * key and a {@code Bindings.Key} subclass, to values of type {@code V}.
  *
+ * <p>The bindings are held in a persistent map, so that copying a {@code Bindings} (as every fork
+ * of a {@link Unifier} does) takes constant time, and the copies share their structure. Copies and
+ * {@linkplain #unmodifiable unmodifiable} views are snapshots: they don't reflect later changes to
+ * the {@code Bindings} they were made from.
+ *
  * @author Louis Wasserman
  */
 public class Bindings extends ForwardingMap<Bindings.Key<?>, Object> {
@@ -76,7 +80,8 @@ public class Bindings extends ForwardingMap<Bindings.Key<?>, Object> {
     }
   }
 
-  private final Map<Key<?>, Object> contents;
+  private PMap<Key<?>, Object> contents;
+  private final boolean modifiable;
 
   public static Bindings create() {
     return new Bindings();
@@ -100,15 +105,16 @@ public class Bindings extends ForwardingMap<Bindings.Key<?>, Object> {
   }
 
   private Bindings() {
-    this(new HashMap<>());
+    this(Empty.map(), /* modifiable= */ true);
   }
 
   Bindings(Bindings bindings) {
-    this(Maps.newHashMap(bindings.contents));
+    this(bindings.contents, /* modifiable= */ true);
   }
 
-  private Bindings(Map<Key<?>, Object> contents) {
+  private Bindings(PMap<Key<?>, Object> contents, boolean modifiable) {
     this.contents = contents;
+    this.modifiable = modifiable;
   }
 
   @Override
@@ -125,14 +131,21 @@ public class Bindings extends ForwardingMap<Bindings.Key<?>, Object> {
   @SuppressWarnings("unchecked")
   public <V> V putBinding(Key<V> key, V value) {
     checkNotNull(value);
-    return (V) super.put(key, value);
+    return (V) putUnchecked(checkNotNull(key), value);
   }
 
   @Override
   public Object put(Key<?> key, Object value) {
     checkNotNull(key, "key");
     checkNotNull(value, "value");
-    return super.put(key, key.getValueType().getRawType().cast(value));
+    return putUnchecked(key, key.getValueType().getRawType().cast(value));
+  }
+
+  private Object putUnchecked(Key<?> key, Object value) {
+    checkModifiable();
+    Object previous = contents.get(key);
+    contents = contents.plus(key, value);
+    return previous;
   }
 
   @Override
@@ -140,7 +153,27 @@ public class Bindings extends ForwardingMap<Bindings.Key<?>, Object> {
     standardPutAll(map);
   }
 
+  @Override
+  public Object remove(Object key) {
+    checkModifiable();
+    Object previous = contents.get(key);
+    contents = contents.minus(key);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    checkModifiable();
+    contents = Empty.map();
+  }
+
+  private void checkModifiable() {
+    if (!modifiable) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   public Bindings unmodifiable() {
-    return new Bindings(Collections.unmodifiableMap(contents));
+    return new Bindings(contents, /* modifiable= */ false);
   }
 }
@@ -38,6 +38,7 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.util.Collection;
 import java.util.List;
+import javax.annotation.Nullable;
 import javax.tools.JavaFileManager;
 
 /**
@@ -104,6 +105,9 @@ public abstract class RefasterRule<M extends TemplateMatch, T extends Template<M
 
   RefasterRule() {}
 
+  /** An index of this rule's before-templates, built when the rule is first applied. */
+  @Nullable private transient volatile TemplateIndex index;
+
   abstract String qualifiedTemplateClass();
 
   abstract ImmutableList<UTypeVar> typeVariables();
@@ -117,9 +121,12 @@ public abstract class RefasterRule<M extends TemplateMatch, T extends Template<M
 
   @Override
   public void apply(TreePath path, Context context, DescriptionListener listener) {
-    RefasterScanner.create(this, listener)
-        .scan(
-            path.getLeaf(), prepareContext(context, (JCCompilationUnit) path.getCompilationUnit()));
+    TemplateIndex index = this.index;
+    if (index == null) {
+      index = TemplateIndex.create(ImmutableList.of(this));
+      this.index = index;
+    }
+    RefasterScanner.scan(index, path, context, listener);
   }
 
   boolean rejectMatchesWithComments() {
@@ -128,7 +135,7 @@ public abstract class RefasterRule<M extends TemplateMatch, T extends Template<M
 
   static final Context.Key<ImmutableList<UTypeVar>> RULE_TYPE_VARS = new Context.Key<>();
 
-  private Context prepareContext(Context baseContext, JCCompilationUnit compilationUnit) {
+  Context prepareContext(Context baseContext, JCCompilationUnit compilationUnit) {
     Context context = new SubContext(baseContext);
     if (context.get(JavaFileManager.class) == null) {
       JavacFileManager.preRegister(context);
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.refaster;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableClassToInstanceMap;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.CompositeCodeTransformer;
+import com.google.errorprone.DescriptionListener;
+import com.google.errorprone.RefasterRuleFile;
+import com.google.errorprone.refaster.TemplateIndex.RuleKeys;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.util.Context;
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A list of Refaster rules that are applied together, in a single scan of each compilation unit.
+ *
+ * <p>The rules' before-templates are indexed by the trees they could match, so the cost of applying
+ * a set of rules grows with the number of rules that could match each tree, rather than with the
+ * total number of rules.
+ *
+ * <p>When a rule set is written to a {@code .analyzer} file, each rule is written separately, along
+ * with the keys of the index. When the file is loaded, the index is rebuilt from the keys, and each
+ * rule is only deserialized once a tree that it could match is found.
+ */
+public final class RefasterRuleSet
+    implements RefasterRuleFile.ChunkedCodeTransformer, Serializable {
+
+  /**
+   * Combines {@code transformers} into a single transformer, which applies all of the Refaster
+   * rules among them in one scan. Any other transformers are applied after the rules.
+   */
+  public static CodeTransformer compose(Iterable<? extends CodeTransformer> transformers) {
+    List<Supplier<? extends RefasterRule<?, ?>>> rules = new ArrayList<>();
+    List<RuleKeys> keys = new ArrayList<>();
+    List<CodeTransformer> others = new ArrayList<>();
+    addAll(transformers, rules, keys, others);
+    if (rules.isEmpty()) {
+      return CompositeCodeTransformer.compose(others);
+    }
+    RefasterRuleSet ruleSet =
+        new RefasterRuleSet(ImmutableList.copyOf(rules), ImmutableList.copyOf(keys));
+    if (others.isEmpty()) {
+      return ruleSet;
+    }
+    others.add(0, ruleSet);
+    return CompositeCodeTransformer.compose(others);
+  }
+
+  private static void addAll(
+      Iterable<? extends CodeTransformer> transformers,
+      List<Supplier<? extends RefasterRule<?, ?>>> rules,
+      List<RuleKeys> keys,
+      List<CodeTransformer> others) {
+    for (CodeTransformer transformer : transformers) {
+      if (transformer instanceof RefasterRule) {
+        RefasterRule<?, ?> rule = (RefasterRule<?, ?>) transformer;
+        rules.add(Suppliers.ofInstance(rule));
+        keys.add(RuleKeys.of(rule));
+      } else if (transformer instanceof RefasterRuleSet) {
+        rules.addAll(((RefasterRuleSet) transformer).rules);
+        keys.addAll(((RefasterRuleSet) transformer).keys);
+      } else if (transformer instanceof CompositeCodeTransformer) {
+        addAll(((CompositeCodeTransformer) transformer).transformers(), rules, keys, others);
+      } else {
+        others.add(transformer);
+      }
+    }
+  }
+
+  private final ImmutableList<Supplier<? extends RefasterRule<?, ?>>> rules;
+  private final ImmutableList<RuleKeys> keys;
+
+  @Nullable private transient volatile TemplateIndex index;
+
+  private RefasterRuleSet(
+      ImmutableList<Supplier<? extends RefasterRule<?, ?>>> rules, ImmutableList<RuleKeys> keys) {
+    this.rules = rules;
+    this.keys = keys;
+  }
+
+  /** Returns the rules, loading any that haven't been loaded yet. */
+  ImmutableList<RefasterRule<?, ?>> rules() {
+    return rules.stream().map(Supplier::get).collect(toImmutableList());
+  }
+
+  @Override
+  public void apply(TreePath path, Context context, DescriptionListener listener) {
+    TemplateIndex index = this.index;
+    if (index == null) {
+      index = TemplateIndex.create(keys, rules);
+      this.index = index;
+    }
+    RefasterScanner.scan(index, path, context, listener);
+  }
+
+  @Override
+  public ImmutableClassToInstanceMap<Annotation> annotations() {
+    return ImmutableClassToInstanceMap.of();
+  }
+
+  @Override
+  public ImmutableList<CodeTransformer> chunks() {
+    return ImmutableList.copyOf(rules());
+  }
+
+  @Override
+  public RefasterRuleFile.Assembler assembler() {
+    return new IndexAssembler(keys);
+  }
+
+  /** Rebuilds a rule set from its rules, which are only deserialized once they're needed. */
+  private static final class IndexAssembler implements RefasterRuleFile.Assembler {
+    private final ImmutableList<RuleKeys> keys;
+
+    IndexAssembler(ImmutableList<RuleKeys> keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public CodeTransformer assemble(ImmutableList<Supplier<CodeTransformer>> chunks) {
+      ImmutableList<Supplier<? extends RefasterRule<?, ?>>> rules =
+          chunks.stream()
+              .<Supplier<? extends RefasterRule<?, ?>>>map(
+                  chunk -> Suppliers.compose(t -> (RefasterRule<?, ?>) t, chunk))
+              .collect(toImmutableList());
+      return new RefasterRuleSet(rules, keys);
+    }
+  }
+
+  /** Serializes the rules themselves, rather than the suppliers that load them. */
+  private Object writeReplace() {
+    return new SerializedForm(rules());
+  }
+
+  private static final class SerializedForm implements Serializable {
+    private final ImmutableList<RefasterRule<?, ?>> rules;
+
+    SerializedForm(ImmutableList<RefasterRule<?, ?>> rules) {
+      this.rules = rules;
+    }
+
+    private Object readResolve() {
+      return compose(rules);
+    }
+  }
+}
@@ -16,7 +16,7 @@
 
 package com.google.errorprone.refaster;
 
-import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.DescriptionListener;
 import com.google.errorprone.fixes.SuggestedFix;
@@ -30,6 +30,7 @@ import com.sun.source.tree.SynchronizedTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.WhileLoopTree;
 import com.sun.source.util.SimpleTreeVisitor;
+import com.sun.source.util.TreePath;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.parser.JavaTokenizer;
@@ -43,37 +44,96 @@ import com.sun.tools.javac.tree.TreeMaker;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.ListBuffer;
 import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * Scanner that outputs suggested fixes generated by a {@code RefasterMatcher}.
  *
+ * <p>A single scan looks for matches of all of the rules in a {@link TemplateIndex}, and only
+ * attempts to match the before-templates the index returns for each tree. The descriptions for each
+ * rule are reported in the same order as if the rules had been applied one after another.
+ *
  * @author lowasser@google.com (Louis Wasserman)
  */
-@AutoValue
-abstract class RefasterScanner<M extends TemplateMatch, T extends Template<M>>
-    extends TreeScanner<Void, Context> {
-  static <M extends TemplateMatch, T extends Template<M>> RefasterScanner<M, T> create(
-      RefasterRule<M, T> rule, DescriptionListener listener) {
-    return new AutoValue_RefasterScanner<>(rule, listener);
-  }
+final class RefasterScanner extends TreeScanner<Void, Context> {
+
+  private final TemplateIndex index;
+  private final JCCompilationUnit compilationUnit;
+  private final Context baseContext;
+  private final DescriptionListener listener;
+
+  /** The context for each rule, created when one of its templates is first matched. */
+  private final Context[] ruleContexts;
 
-  abstract RefasterRule<M, T> rule();
+  /** The descriptions for each rule, if there is more than one. */
+  @Nullable private final List<List<Description>> descriptions;
 
-  abstract DescriptionListener listener();
+  /**
+   * For each rule, the number of classes being scanned which define that rule; rules don't match in
+   * their own templates.
+   */
+  private final int[] definingClasses;
+
+  private RefasterScanner(
+      TemplateIndex index,
+      JCCompilationUnit compilationUnit,
+      Context baseContext,
+      DescriptionListener listener) {
+    this.index = index;
+    this.compilationUnit = compilationUnit;
+    this.baseContext = baseContext;
+    this.listener = listener;
+    int ruleCount = index.ruleCount();
+    this.ruleContexts = new Context[ruleCount];
+    this.definingClasses = new int[ruleCount];
+    if (ruleCount > 1) {
+      descriptions = new ArrayList<>(ruleCount);
+      for (int i = 0; i < ruleCount; i++) {
+        descriptions.add(new ArrayList<>());
+      }
+    } else {
+      descriptions = null;
+    }
+  }
+
+  /** Reports the matches of all of the rules in {@code index} in {@code path}. */
+  static void scan(
+      TemplateIndex index, TreePath path, Context context, DescriptionListener listener) {
+    JCCompilationUnit compilationUnit = (JCCompilationUnit) path.getCompilationUnit();
+    RefasterScanner scanner = new RefasterScanner(index, compilationUnit, context, listener);
+    scanner.scan(path.getLeaf(), context);
+    if (scanner.descriptions != null) {
+      for (List<Description> ruleDescriptions : scanner.descriptions) {
+        ruleDescriptions.forEach(listener::onDescribed);
+      }
+    }
+  }
 
   @Override
   public Void visitClass(ClassTree node, Context context) {
     Symbol sym = ASTHelpers.getSymbol(node);
-    if (sym == null || !sym.getQualifiedName().contentEquals(rule().qualifiedTemplateClass())) {
-      ListBuffer<JCStatement> statements = new ListBuffer<>();
-      for (Tree tree : node.getMembers()) {
-        if (tree instanceof JCStatement) {
-          statements.append((JCStatement) tree);
-        } else {
-          tree.accept(this, context);
-        }
+    ImmutableList<Integer> definedRules =
+        sym == null ? ImmutableList.of() : index.rulesDefinedBy(sym.getQualifiedName().toString());
+    if (definedRules.size() == definingClasses.length) {
+      // none of the rules can match anywhere in this class
+      return null;
+    }
+    for (int rule : definedRules) {
+      definingClasses[rule]++;
+    }
+    ListBuffer<JCStatement> statements = new ListBuffer<>();
+    for (Tree tree : node.getMembers()) {
+      if (tree instanceof JCStatement) {
+        statements.append((JCStatement) tree);
+      } else {
+        tree.accept(this, context);
       }
-      scan(TreeMaker.instance(context).Block(0, statements.toList()), context);
+    }
+    scan(TreeMaker.instance(context).Block(0, statements.toList()), context);
+    for (int rule : definedRules) {
+      definingClasses[rule]--;
     }
     return null;
   }
@@ -83,42 +143,53 @@ abstract class RefasterScanner<M extends TemplateMatch, T extends Template<M>>
     if (tree == null) {
       return null;
     }
-    JCCompilationUnit compilationUnit = context.get(JCCompilationUnit.class);
-    for (T beforeTemplate : rule().beforeTemplates()) {
-      matchLoop:
-      for (M match : beforeTemplate.match((JCTree) tree, context)) {
-        if (rule().rejectMatchesWithComments()) {
-          String matchContents = match.getRange(compilationUnit);
-          JavaTokenizer tokenizer =
-              new JavaTokenizer(
-                  ScannerFactory.instance(context), CharBuffer.wrap(matchContents)) {};
-          for (Token token = tokenizer.readToken();
-              token.kind != TokenKind.EOF;
-              token = tokenizer.readToken()) {
-            if (token.comments != null && !token.comments.isEmpty()) {
-              continue matchLoop;
-            }
+    for (TemplateIndex.Candidate candidate : index.candidates(tree)) {
+      if (definingClasses[candidate.ruleIndex] == 0) {
+        match(index.rule(candidate.ruleIndex), candidate, (JCTree) tree);
+      }
+    }
+    return super.scan(tree, context);
+  }
+
+  private <M extends TemplateMatch, T extends Template<M>> void match(
+      RefasterRule<M, T> rule, TemplateIndex.Candidate candidate, JCTree tree) {
+    Context context = ruleContexts[candidate.ruleIndex];
+    if (context == null) {
+      context = rule.prepareContext(baseContext, compilationUnit);
+      ruleContexts[candidate.ruleIndex] = context;
+    }
+    T beforeTemplate = rule.beforeTemplates().get(candidate.templateIndex);
+    matchLoop:
+    for (M match : beforeTemplate.match(tree, context)) {
+      if (rule.rejectMatchesWithComments()) {
+        String matchContents = match.getRange(compilationUnit);
+        JavaTokenizer tokenizer =
+            new JavaTokenizer(ScannerFactory.instance(context), CharBuffer.wrap(matchContents)) {};
+        for (Token token = tokenizer.readToken();
+            token.kind != TokenKind.EOF;
+            token = tokenizer.readToken()) {
+          if (token.comments != null && !token.comments.isEmpty()) {
+            continue matchLoop;
           }
         }
-        Description.Builder builder =
-            Description.builder(
-                match.getLocation(),
-                rule().qualifiedTemplateClass(),
-                "",
-                SeverityLevel.WARNING,
-                "");
-
-        if (rule().afterTemplates().isEmpty()) {
-          builder.addFix(SuggestedFix.prefixWith(match.getLocation(), "/* match found */ "));
-        } else {
-          for (T afterTemplate : rule().afterTemplates()) {
-            builder.addFix(afterTemplate.replace(match));
-          }
+      }
+      Description.Builder builder =
+          Description.builder(
+              match.getLocation(), rule.qualifiedTemplateClass(), "", SeverityLevel.WARNING, "");
+
+      if (rule.afterTemplates().isEmpty()) {
+        builder.addFix(SuggestedFix.prefixWith(match.getLocation(), "/* match found */ "));
+      } else {
+        for (T afterTemplate : rule.afterTemplates()) {
+          builder.addFix(afterTemplate.replace(match));
         }
-        listener().onDescribed(builder.build());
+      }
+      if (descriptions != null) {
+        descriptions.get(candidate.ruleIndex).add(builder.build());
+      } else {
+        listener.onDescribed(builder.build());
       }
     }
-    return super.scan(tree, context);
   }
 
   private static final SimpleTreeVisitor<Tree, Void> SKIP_PARENS =
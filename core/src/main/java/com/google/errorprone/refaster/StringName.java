@@ -17,6 +17,8 @@
 package com.google.errorprone.refaster;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import javax.annotation.Nullable;
 import javax.lang.model.element.Name;
 
@@ -32,6 +34,13 @@ public abstract class StringName
     return new AutoValue_StringName(contents.toString());
   }
 
+  private static final Interner<StringName> INTERNER = Interners.newWeakInterner();
+
+  /** Deserialized templates share equal names, since the same names recur throughout rules. */
+  final Object readResolve() {
+    return INTERNER.intern(this);
+  }
+
   abstract String contents();
 
   @Override
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.refaster;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.Tree.Kind;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * An index of the before-templates of a list of Refaster rules, by the trees they could match.
+ *
+ * <p>A template can only match a tree if the root of the template unifies with the root of the
+ * tree, and most {@link UTree}s only unify with trees of a few kinds. Method invocations are also
+ * indexed by the name of the invoked method. This lets the {@link RefasterScanner} find the few
+ * templates that could match a tree without attempting to unify every template with every tree.
+ *
+ * <p>The candidates for a tree are always returned in the order of their rules, and then in the
+ * order of the before-templates within each rule.
+ *
+ * <p>The index is built from the {@link RuleKeys} of each rule, which can be stored alongside the
+ * rules, so the rules themselves are only needed once one of their templates is a candidate.
+ */
+final class TemplateIndex {
+
+  /** The keys under which the before-templates of a rule are indexed. */
+  @AutoValue
+  abstract static class RuleKeys implements Serializable {
+    abstract String templateClass();
+
+    /** The kinds of tree that each before-template could match. */
+    abstract ImmutableList<ImmutableSet<Kind>> targetKinds();
+
+    /**
+     * The name of the method that each before-template invokes, or the empty string if it isn't a
+     * method invocation or could match invocations of any method.
+     */
+    abstract ImmutableList<String> invokedMethodNames();
+
+    static RuleKeys of(RefasterRule<?, ?> rule) {
+      ImmutableList.Builder<ImmutableSet<Kind>> targetKinds = ImmutableList.builder();
+      ImmutableList.Builder<String> invokedMethodNames = ImmutableList.builder();
+      for (Template<?> template : rule.beforeTemplates()) {
+        targetKinds.add(Sets.immutableEnumSet(targetKinds(template)));
+        String name = invokedMethodName(template);
+        invokedMethodNames.add(name == null ? "" : name);
+      }
+      return new AutoValue_TemplateIndex_RuleKeys(
+          rule.qualifiedTemplateClass(), targetKinds.build(), invokedMethodNames.build());
+    }
+  }
+
+  /** A before-template, and the rule it belongs to. */
+  static final class Candidate {
+    final int ruleIndex;
+    final int templateIndex;
+
+    Candidate(int ruleIndex, int templateIndex) {
+      this.ruleIndex = ruleIndex;
+      this.templateIndex = templateIndex;
+    }
+  }
+
+  private final ImmutableList<Supplier<? extends RefasterRule<?, ?>>> rules;
+  private final ImmutableMap<Kind, ImmutableList<Candidate>> byKind;
+  private final ImmutableMap<String, ImmutableList<Candidate>> invocationsByName;
+  /** Candidates for invocations of methods that no template names explicitly. */
+  private final ImmutableList<Candidate> otherInvocations;
+
+  private final ImmutableListMultimap<String, Integer> rulesByTemplateClass;
+
+  private TemplateIndex(
+      ImmutableList<Supplier<? extends RefasterRule<?, ?>>> rules,
+      ImmutableMap<Kind, ImmutableList<Candidate>> byKind,
+      ImmutableMap<String, ImmutableList<Candidate>> invocationsByName,
+      ImmutableList<Candidate> otherInvocations,
+      ImmutableListMultimap<String, Integer> rulesByTemplateClass) {
+    this.rules = rules;
+    this.byKind = byKind;
+    this.invocationsByName = invocationsByName;
+    this.otherInvocations = otherInvocations;
+    this.rulesByTemplateClass = rulesByTemplateClass;
+  }
+
+  static TemplateIndex create(List<? extends RefasterRule<?, ?>> rules) {
+    ImmutableList.Builder<RuleKeys> keys = ImmutableList.builder();
+    ImmutableList.Builder<Supplier<? extends RefasterRule<?, ?>>> suppliers =
+        ImmutableList.builder();
+    for (RefasterRule<?, ?> rule : rules) {
+      keys.add(RuleKeys.of(rule));
+      suppliers.add(Suppliers.ofInstance(rule));
+    }
+    return create(keys.build(), suppliers.build());
+  }
+
+  /**
+   * Returns an index of the rules with the given {@code keys}; each of the {@code rules} is only
+   * called once one of its templates is a candidate for a tree.
+   */
+  static TemplateIndex create(
+      List<RuleKeys> keys, ImmutableList<Supplier<? extends RefasterRule<?, ?>>> rules) {
+    checkArgument(keys.size() == rules.size(), "%s keys for %s rules", keys.size(), rules.size());
+    Map<Kind, ImmutableList.Builder<Candidate>> byKind = new EnumMap<>(Kind.class);
+    // the candidates for method invocations, and the names of the methods they invoke
+    List<Candidate> invocations = new ArrayList<>();
+    List<String> invocationNames = new ArrayList<>();
+    ImmutableListMultimap.Builder<String, Integer> rulesByTemplateClass =
+        ImmutableListMultimap.builder();
+    for (int r = 0; r < keys.size(); r++) {
+      RuleKeys rule = keys.get(r);
+      rulesByTemplateClass.put(rule.templateClass(), r);
+      for (int t = 0; t < rule.targetKinds().size(); t++) {
+        Candidate candidate = new Candidate(r, t);
+        for (Kind kind : rule.targetKinds().get(t)) {
+          if (kind == Kind.METHOD_INVOCATION) {
+            String name = rule.invokedMethodNames().get(t);
+            invocations.add(candidate);
+            invocationNames.add(name.isEmpty() ? null : name);
+          } else {
+            byKind.computeIfAbsent(kind, k -> ImmutableList.builder()).add(candidate);
+          }
+        }
+      }
+    }
+    Set<String> names = new LinkedHashSet<>(invocationNames);
+    names.remove(null);
+    ImmutableMap.Builder<String, ImmutableList<Candidate>> invocationsByName =
+        ImmutableMap.builder();
+    for (String name : names) {
+      invocationsByName.put(name, invocationsNamed(invocations, invocationNames, name));
+    }
+    return new TemplateIndex(
+        rules,
+        Maps.immutableEnumMap(Maps.transformValues(byKind, ImmutableList.Builder::build)),
+        invocationsByName.build(),
+        invocationsNamed(invocations, invocationNames, null),
+        rulesByTemplateClass.build());
+  }
+
+  /**
+   * Returns the candidates for invocations of {@code name}, or for invocations of methods that no
+   * template names explicitly if {@code name} is null.
+   */
+  private static ImmutableList<Candidate> invocationsNamed(
+      List<Candidate> invocations, List<String> invocationNames, @Nullable String name) {
+    ImmutableList.Builder<Candidate> result = ImmutableList.builder();
+    for (int i = 0; i < invocations.size(); i++) {
+      String invocationName = invocationNames.get(i);
+      if (invocationName == null || invocationName.equals(name)) {
+        result.add(invocations.get(i));
+      }
+    }
+    return result.build();
+  }
+
+  int ruleCount() {
+    return rules.size();
+  }
+
+  /** Returns the rule with the given index, loading it if necessary. */
+  RefasterRule<?, ?> rule(int ruleIndex) {
+    return rules.get(ruleIndex).get();
+  }
+
+  /** Returns the indices of the rules defined by the class with the given name. */
+  ImmutableList<Integer> rulesDefinedBy(String qualifiedClassName) {
+    return rulesByTemplateClass.get(qualifiedClassName);
+  }
+
+  /** Returns the templates that could match {@code tree}. */
+  ImmutableList<Candidate> candidates(Tree tree) {
+    if (tree.getKind() == Kind.METHOD_INVOCATION) {
+      String name = invokedMethodName(((MethodInvocationTree) tree).getMethodSelect());
+      ImmutableList<Candidate> candidates = name == null ? null : invocationsByName.get(name);
+      return candidates != null ? candidates : otherInvocations;
+    }
+    ImmutableList<Candidate> candidates = byKind.get(tree.getKind());
+    return candidates != null ? candidates : ImmutableList.of();
+  }
+
+  @Nullable
+  private static String invokedMethodName(Tree methodSelect) {
+    switch (methodSelect.getKind()) {
+      case IDENTIFIER:
+        return ((IdentifierTree) methodSelect).getName().toString();
+      case MEMBER_SELECT:
+        return ((MemberSelectTree) methodSelect).getIdentifier().toString();
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns the name of the method a method invocation template invokes, or {@code null} if it
+   * could match invocations of any method.
+   */
+  @Nullable
+  private static String invokedMethodName(Template<?> template) {
+    if (!(template instanceof ExpressionTemplate)) {
+      return null;
+    }
+    UExpression expression = ((ExpressionTemplate) template).expression();
+    if (!(expression instanceof UMethodInvocation)) {
+      return null;
+    }
+    UExpression methodSelect = ((UMethodInvocation) expression).getMethodSelect();
+    if (methodSelect instanceof UMemberSelect) {
+      // matches the name of the select or identifier
+      return ((UMemberSelect) methodSelect).getIdentifier().toString();
+    }
+    if (methodSelect instanceof UStaticIdent) {
+      // matches the name of the method symbol, which is the same for any method other than a
+      // constructor, and constructors are never invoked through a static import
+      return ((UStaticIdent) methodSelect).getName().toString();
+    }
+    return null;
+  }
+
+  /** Returns the kinds of tree the root of {@code template} could match. */
+  private static Set<Kind> targetKinds(Template<?> template) {
+    if (template instanceof BlockTemplate) {
+      return EnumSet.of(Kind.BLOCK);
+    }
+    if (template instanceof ExpressionTemplate) {
+      return targetKinds(((ExpressionTemplate) template).expression());
+    }
+    return EnumSet.allOf(Kind.class);
+  }
+
+  private static Set<Kind> targetKinds(UTree<?> tree) {
+    return TARGET_KINDS.get(tree.getClass());
+  }
+
+  private static final ClassValue<ImmutableSet<Kind>> TARGET_KINDS =
+      new ClassValue<ImmutableSet<Kind>>() {
+        @Override
+        protected ImmutableSet<Kind> computeValue(Class<?> treeClass) {
+          return Sets.immutableEnumSet(targetKinds(treeClass));
+        }
+      };
+
+  /**
+   * Returns the kinds of tree that instances of {@code treeClass} could unify with. A {@link UTree}
+   * is a visitor over the target tree that fails to unify by default, so it can only unify with
+   * trees that have a visit method it overrides, unless it overrides the default action.
+   */
+  @VisibleForTesting
+  static Set<Kind> targetKinds(Class<?> treeClass) {
+    Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+    for (Class<?> clazz = treeClass; clazz != UTree.class; clazz = clazz.getSuperclass()) {
+      for (Method method : clazz.getDeclaredMethods()) {
+        if (method.getName().equals("defaultAction")) {
+          return EnumSet.allOf(Kind.class);
+        }
+        if (!method.getName().startsWith("visit") || method.getParameterCount() != 2) {
+          continue;
+        }
+        Class<?> targetInterface = method.getParameterTypes()[0];
+        if (targetInterface == Tree.class) {
+          // visitOther
+          return EnumSet.allOf(Kind.class);
+        }
+        for (Kind kind : Kind.values()) {
+          if (kind.asInterface() == targetInterface) {
+            kinds.add(kind);
+          }
+        }
+      }
+    }
+    return kinds;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static com.google.errorprone.matchers.Description.NO_MATCH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.testing.GcFinalization;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
+import com.google.errorprone.bugpatterns.ChainingConstructorIgnoresParameter;
+import com.google.errorprone.bugpatterns.DeadException;
+import com.google.errorprone.bugpatterns.LockOnBoxedPrimitive;
+import com.google.errorprone.bugpatterns.WrongParameterPackage;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.scanner.Scanner;
+import com.google.errorprone.scanner.ScannerCache;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ErrorProneCompileServer}. */
+@RunWith(JUnit4.class)
+public class ErrorProneCompileServerTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void servesRequests() throws IOException {
+    Path source = tempFolder.newFolder("src").toPath().resolve("Test.java");
+    Files.write(
+        source,
+        Joiner.on('\n')
+            .join("class Test {", "  void f() {", "    new RuntimeException();", "  }", "}")
+            .getBytes(UTF_8));
+    String out = tempFolder.newFolder("out").toString();
+
+    ErrorProneCompileServer server =
+        new ErrorProneCompileServer(ScannerSupplier.fromBugCheckerClasses(DeadException.class));
+    StringWriter output = new StringWriter();
+    server.serve(
+        new StringReader(
+            Joiner.on('\n')
+                .join(
+                    "-d",
+                    out,
+                    source.toString(),
+                    "",
+                    "-d",
+                    out,
+                    "-Xep:DeadException:OFF",
+                    source.toString(),
+                    "",
+                    "-XepNoSuchFlag",
+                    "")),
+        output);
+
+    String[] responses = output.toString().split(ErrorProneCompileServer.EXIT_CODE_PREFIX);
+    assertThat(responses).hasLength(4);
+    assertThat(responses[0]).contains("[DeadException]");
+    assertThat(responses[1]).startsWith("1");
+    assertThat(responses[1]).doesNotContain("[DeadException]");
+    assertThat(responses[2]).startsWith("0");
+    assertThat(responses[2]).contains("-XepNoSuchFlag");
+    assertThat(responses[3]).startsWith("2");
+  }
+
+  @Test
+  public void scannerCache() {
+    ScannerCache cache = new ScannerCache();
+    Scanner scanner = cache.get(ScannerSupplier.fromBugCheckerClasses(DeadException.class));
+    assertThat(cache.get(ScannerSupplier.fromBugCheckerClasses(DeadException.class)))
+        .isSameInstanceAs(scanner);
+
+    ErrorProneOptions options = ErrorProneOptions.processArgs(new String[] {"-XepOpt:Foo=Bar"});
+    assertThat(
+            cache.get(
+                ScannerSupplier.fromBugCheckerClasses(DeadException.class).applyOverrides(options)))
+        .isNotSameInstanceAs(scanner);
+    assertThat(
+            cache.get(
+                ScannerSupplier.fromBugCheckerClasses(DeadException.class)
+                    .applyOverrides(
+                        ErrorProneOptions.processArgs(new String[] {"-Xep:DeadException:WARN"}))))
+        .isNotSameInstanceAs(scanner);
+  }
+
+  /** Records the context of the most recent compilation, without keeping it alive. */
+  @BugPattern(
+      name = "RecordsContext",
+      summary = "Records the context of each compilation",
+      severity = WARNING)
+  public static class RecordsContext extends BugChecker implements CompilationUnitTreeMatcher {
+    static WeakReference<Context> lastContext;
+
+    @Override
+    public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
+      lastContext = new WeakReference<>(state.context);
+      return NO_MATCH;
+    }
+  }
+
+  @Test
+  public void cachedScannersDoNotRetainPreviousCompilations() throws IOException {
+    Path source = tempFolder.newFolder("src").toPath().resolve("Test.java");
+    Files.write(
+        source,
+        Joiner.on('\n')
+            .join(
+                "class Test {",
+                "  private final Integer lock = 1;",
+                "  Test(String target, boolean confirm) {}",
+                "  Test(boolean confirm) {",
+                "    this(\"test\", false);",
+                "  }",
+                "  void f() {",
+                "    synchronized (lock) {}",
+                "  }",
+                "}")
+            .getBytes(UTF_8));
+    ImmutableList<String> args =
+        ImmutableList.of("-d", tempFolder.newFolder("out").toString(), source.toString());
+
+    ErrorProneCompileServer server =
+        new ErrorProneCompileServer(
+            ScannerSupplier.fromBugCheckerClasses(
+                RecordsContext.class,
+                ChainingConstructorIgnoresParameter.class,
+                LockOnBoxedPrimitive.class,
+                WrongParameterPackage.class));
+    StringWriter output = new StringWriter();
+    server.compile(args, new PrintWriter(output, true));
+    assertThat(output.toString()).contains("[ChainingConstructorIgnoresParameter]");
+    assertThat(output.toString()).contains("[LockOnBoxedPrimitive]");
+    WeakReference<Context> firstContext = RecordsContext.lastContext;
+
+    server.compile(args, new PrintWriter(new StringWriter(), true));
+    assertThat(RecordsContext.lastContext).isNotSameInstanceAs(firstContext);
+
+    GcFinalization.awaitClear(firstContext);
+  }
+}
@@ -210,6 +210,49 @@ public class ErrorProneCompilerIntegrationTest {
         .isTrue();
   }
 
+  @BugPattern(name = "FailsToInstantiate", summary = "", severity = ERROR)
+  public static class FailsToInstantiate extends BugChecker implements ReturnTreeMatcher {
+    public FailsToInstantiate() {
+      throw new IllegalArgumentException("invalid flags");
+    }
+
+    @Override
+    public Description matchReturn(ReturnTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+
+  @Test
+  public void instantiationFailuresNameTheCheck() {
+    compiler =
+        compilerBuilder
+            .report(ScannerSupplier.fromBugCheckerClasses(FailsToInstantiate.class))
+            .build();
+    Result exitCode =
+        compiler.compile(
+            Arrays.asList(
+                compiler
+                    .fileManager()
+                    .forSourceLines(
+                        "test/Test.java",
+                        "package test;",
+                        "class Test {",
+                        "  void f() {",
+                        "    return;",
+                        "  }",
+                        "}")));
+    assertWithMessage(outputStream.toString()).that(exitCode).isEqualTo(Result.ERROR);
+    // The failure isn't blamed on the code being compiled, and the constructor's exception is
+    // reported directly.
+    Diagnostic<? extends JavaFileObject> diag =
+        Iterables.getOnlyElement(diagnosticHelper.getDiagnostics());
+    assertThat(diag.getMessage(ENGLISH))
+        .contains("java.lang.LinkageError: Could not instantiate BugChecker FailsToInstantiate");
+    assertThat(diag.getMessage(ENGLISH))
+        .contains("Caused by: java.lang.IllegalArgumentException: invalid flags");
+    assertThat(diag.getMessage(ENGLISH)).doesNotContain("InvocationTargetException");
+  }
+
   /** Regression test for Issue 188, error-prone doesn't work with annotation processors. */
   @Test
   public void annotationProcessingWorks() {
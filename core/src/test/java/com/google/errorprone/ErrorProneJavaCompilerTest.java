@@ -16,8 +16,10 @@
 
 package com.google.errorprone;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.DiagnosticTestHelper.diagnosticMessage;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.containsString;
@@ -43,16 +45,20 @@ import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.MethodTree;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.lang.model.SourceVersion;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticListener;
@@ -416,6 +422,75 @@ public class ErrorProneJavaCompilerTest {
     assertThat(result.succeeded).isFalse();
   }
 
+  @BugPattern(
+      name = "CountingClassChecker",
+      summary = "Reports every class, and counts how many classes it has been asked to match",
+      explanation = "",
+      severity = WARNING)
+  public static class CountingClassChecker extends BugChecker implements ClassTreeMatcher {
+    static final AtomicInteger matched = new AtomicInteger();
+
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      matched.incrementAndGet();
+      return describeMatch(tree, SuggestedFix.prefixWith(tree, "/* counted */ "));
+    }
+  }
+
+  @Test
+  public void testWithIncrementalCache() throws IOException {
+    List<String> args =
+        Arrays.asList("-XepIncrementalCache:" + tempDir.newFolder("cache").getAbsolutePath());
+    List<String> files = Arrays.asList("bugpatterns/testdata/SelfAssignmentPositiveCases1.java");
+    List<Class<? extends BugChecker>> checkers =
+        Arrays.<Class<? extends BugChecker>>asList(CountingClassChecker.class);
+
+    CountingClassChecker.matched.set(0);
+    CompilationResult first = doCompile(files, args, checkers);
+    int scanned = CountingClassChecker.matched.get();
+    assertThat(scanned).isGreaterThan(0);
+
+    CompilationResult second = doCompile(files, args, checkers);
+    // the findings are replayed from the cache instead of scanning again
+    assertThat(CountingClassChecker.matched.get()).isEqualTo(scanned);
+    assertThat(messages(second)).isEqualTo(messages(first));
+    assertThat(messages(second)).isNotEmpty();
+
+    // changing the configuration invalidates the findings
+    List<String> withFlag = new ArrayList<>(args);
+    withFlag.add("-XepOpt:CountingClassChecker:Unused=true");
+    doCompile(files, withFlag, checkers);
+    assertThat(CountingClassChecker.matched.get()).isEqualTo(2 * scanned);
+  }
+
+  @Test
+  public void testWithProfile() throws IOException {
+    File profile = new File(tempDir.newFolder("profile"), "ep-profile.json");
+    CompilationResult result =
+        doCompile(
+            Arrays.asList("bugpatterns/testdata/SelfAssignmentPositiveCases1.java"),
+            Arrays.asList("-XepProfile:" + profile.getAbsolutePath()),
+            Arrays.<Class<? extends BugChecker>>asList(CountingClassChecker.class));
+    assertThat(result.succeeded).isTrue();
+
+    String report = new String(Files.readAllBytes(profile.toPath()), UTF_8);
+    assertThat(report).contains("\"name\": \"CountingClassChecker\"");
+    assertThat(report).contains("\"CLASS\": {\"invocations\": ");
+    assertThat(report).contains("SelfAssignmentPositiveCases1.java");
+
+    File trace = new File(profile.getParentFile(), "ep-profile.trace.json");
+    String traceEvents = new String(Files.readAllBytes(trace.toPath()), UTF_8);
+    assertThat(traceEvents).contains("\"cat\": \"compilation-unit\"");
+    assertThat(traceEvents).contains("\"CountingClassChecker\": ");
+  }
+
+  private static ImmutableList<String> messages(CompilationResult result) {
+    return result.diagnosticHelper.getDiagnostics().stream()
+        .map(
+            d -> d.getLineNumber() + ":" + d.getColumnNumber() + " " + d.getMessage(Locale.ENGLISH))
+        .collect(toImmutableList());
+  }
+
   private static class CompilationResult {
     public final boolean succeeded;
     public final DiagnosticTestHelper diagnosticHelper;
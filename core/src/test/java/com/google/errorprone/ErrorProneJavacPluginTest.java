@@ -39,6 +39,8 @@ import com.google.errorprone.fixes.SuggestedFixes;
 import com.google.errorprone.matchers.Description;
 import com.sun.source.tree.ReturnTree;
 import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
 import com.sun.tools.javac.api.JavacTool;
 import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.util.Context;
@@ -47,10 +49,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.stream.Stream;
@@ -217,6 +221,158 @@ public class ErrorProneJavacPluginTest {
         .containsExactly("A.java", "B.java");
   }
 
+  @Test
+  public void applyFixesInParallel() throws IOException {
+    // TODO(b/63064865): Test is broken on Windows.  Disable for now.
+    Assume.assumeFalse(StandardSystemProperty.OS_NAME.value().startsWith("Windows"));
+
+    Path tmp = temporaryFolder.newFolder().toPath();
+    // More files than the workers and their queue can hold, so that some are applied on javac's
+    // thread and the rest finish out of order.
+    ImmutableList<Path> files = writeRunnables(tmp, 200);
+    JavacFileManager fileManager = new JavacFileManager(new Context(), false, UTF_8);
+    DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+    StringWriter sw = new StringWriter();
+    JavacTask task =
+        JavacTool.create()
+            .getTask(
+                new PrintWriter(sw, true),
+                fileManager,
+                diagnosticCollector,
+                ImmutableList.of(
+                    "-Xplugin:ErrorProne"
+                        + " -XepPatchChecks:MissingOverride -XepPatchLocation:IN_PLACE",
+                    "-XDcompilePolicy=byfile"),
+                ImmutableList.of(),
+                fileManager.getJavaFileObjects(files.toArray(new Path[0])));
+    assertWithMessage(Joiner.on('\n').join(diagnosticCollector.getDiagnostics()))
+        .that(task.call())
+        .isTrue();
+    for (Path file : files) {
+      assertThat(Files.readAllLines(file, UTF_8)).contains("  @Override public void run() {}");
+    }
+    // Each file is reported once, in the order in which it was generated.
+    assertThat(
+            Splitter.on('\n').omitEmptyStrings().splitToList(sw.toString()).stream()
+                .map(l -> l.replaceAll(".* applied to (\\S*),.*", "$1"))
+                .collect(toImmutableList()))
+        .containsExactlyElementsIn(
+            files.stream().map(f -> f.toUri().toString()).collect(toImmutableList()))
+        .inOrder();
+  }
+
+  @Test
+  public void applyToPatchFileInParallel() throws IOException {
+    // TODO(b/63064865): Test is broken on Windows.  Disable for now.
+    Assume.assumeFalse(StandardSystemProperty.OS_NAME.value().startsWith("Windows"));
+
+    Path tmp = temporaryFolder.newFolder().toPath();
+    Path patchDir = temporaryFolder.newFolder().toPath();
+    ImmutableList<Path> files = writeRunnables(tmp, 200);
+    JavacFileManager fileManager = new JavacFileManager(new Context(), false, UTF_8);
+    DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+    JavacTask task =
+        JavacTool.create()
+            .getTask(
+                new PrintWriter(new StringWriter(), true),
+                fileManager,
+                diagnosticCollector,
+                ImmutableList.of(
+                    "-Xplugin:ErrorProne"
+                        + " -XepPatchChecks:MissingOverride -XepPatchLocation:"
+                        + patchDir,
+                    "-XDcompilePolicy=byfile"),
+                ImmutableList.of(),
+                // generate the files in the opposite order to their paths
+                fileManager.getJavaFileObjects(files.reverse().toArray(new Path[0])));
+    assertWithMessage(Joiner.on('\n').join(diagnosticCollector.getDiagnostics()))
+        .that(task.call())
+        .isTrue();
+    // The patch is sorted by path, whichever order the files were generated and applied in.
+    assertThat(
+            Files.readAllLines(patchDir.resolve("error-prone.patch"), UTF_8).stream()
+                .filter(l -> l.startsWith("--- "))
+                .map(l -> Paths.get(l.substring("--- ".length())).getFileName().toString())
+                .collect(toImmutableList()))
+        .containsExactlyElementsIn(
+            files.stream().map(f -> f.getFileName().toString()).collect(toImmutableList()))
+        .inOrder();
+  }
+
+  @Test
+  public void applyFixesReportsFailures() throws IOException {
+    // TODO(b/63064865): Test is broken on Windows.  Disable for now.
+    Assume.assumeFalse(StandardSystemProperty.OS_NAME.value().startsWith("Windows"));
+
+    Path tmp = temporaryFolder.newFolder().toPath();
+    ImmutableList<Path> files = writeRunnables(tmp, 3);
+    Path missing = files.get(1);
+    JavacFileManager fileManager = new JavacFileManager(new Context(), false, UTF_8);
+    DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+    StringWriter sw = new StringWriter();
+    JavacTask task =
+        JavacTool.create()
+            .getTask(
+                new PrintWriter(sw, true),
+                fileManager,
+                diagnosticCollector,
+                ImmutableList.of(
+                    "-Xplugin:ErrorProne"
+                        + " -XepPatchChecks:MissingOverride -XepPatchLocation:IN_PLACE",
+                    "-XDcompilePolicy=byfile"),
+                ImmutableList.of(),
+                fileManager.getJavaFileObjects(files.toArray(new Path[0])));
+    // Delete one of the files after it has been analyzed, so that its fixes can't be applied.
+    task.addTaskListener(
+        new TaskListener() {
+          @Override
+          public void started(TaskEvent event) {
+            if (event.getKind() == TaskEvent.Kind.GENERATE
+                && event.getSourceFile().toUri().equals(missing.toUri())) {
+              try {
+                Files.delete(missing);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            }
+          }
+        });
+    assertWithMessage(Joiner.on('\n').join(diagnosticCollector.getDiagnostics()))
+        .that(task.call())
+        .isTrue();
+    // The other files are still fixed, and the failure is reported for the file it happened in.
+    for (Path file : ImmutableList.of(files.get(0), files.get(2))) {
+      assertThat(Files.readAllLines(file, UTF_8)).contains("  @Override public void run() {}");
+    }
+    List<String> lines = Splitter.on('\n').omitEmptyStrings().splitToList(sw.toString());
+    assertThat(lines).hasSize(3);
+    assertThat(lines.get(0)).contains("successfully applied to " + files.get(0).toUri());
+    assertThat(lines.get(1))
+        .startsWith(
+            "Failed to apply refactoring changes to "
+                + missing.toUri()
+                + ": java.nio.file.NoSuchFileException");
+    assertThat(lines.get(2)).contains("successfully applied to " + files.get(2).toUri());
+  }
+
+  /** Writes {@code count} classes that are each missing an {@code @Override}, sorted by path. */
+  private static ImmutableList<Path> writeRunnables(Path dir, int count) throws IOException {
+    ImmutableList.Builder<Path> files = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      String name = String.format("C%03d", i);
+      Path file = dir.resolve(name + ".java");
+      Files.write(
+          file,
+          ImmutableList.of(
+              "class " + name + " implements Runnable {", //
+              "  public void run() {}",
+              "}"),
+          UTF_8);
+      files.add(file);
+    }
+    return files.build();
+  }
+
   @Test
   public void noPolicyGiven() throws IOException {
     FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.errorprone.bugpatterns.DeadException;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.google.testing.compile.JavaFileObjects;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.api.JavacTool;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link IncrementalAnalysisCache}. */
+@RunWith(JUnit4.class)
+public class IncrementalAnalysisCacheTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final JavaFileObject ANNOTATION =
+      JavaFileObjects.forSourceLines(
+          "dep.Ann",
+          "package dep;",
+          "import java.lang.annotation.ElementType;",
+          "import java.lang.annotation.Target;",
+          "@Target({ElementType.PACKAGE, ElementType.PARAMETER, ElementType.TYPE})",
+          "public @interface Ann {}");
+
+  private static final JavaFileObject TEST =
+      JavaFileObjects.forSourceLines(
+          "Test",
+          "import dep.Dep;",
+          "import dep.Holder;",
+          "class Test {",
+          "  Holder holder;",
+          "  void f(Dep dep) {",
+          "    dep.g(null);",
+          "  }",
+          "}");
+
+  private static final JavaFileObject DEP =
+      JavaFileObjects.forSourceLines(
+          "dep.Dep", "package dep;", "public class Dep {", "  public void g(Object o) {}", "}");
+
+  private static final JavaFileObject HOLDER =
+      JavaFileObjects.forSourceLines(
+          "dep.Holder",
+          "package dep;",
+          "public class Holder {",
+          "  private Inner inner;",
+          "  static class Inner {",
+          "    Object value;",
+          "  }",
+          "}");
+
+  private static final JavaFileObject PACKAGE_INFO =
+      JavaFileObjects.forSourceLines("dep.package-info", "package dep;");
+
+  /**
+   * Compiles {@code TEST} together with {@code ANNOTATION} and {@code dependencies}, and returns
+   * the cache key for {@code TEST}.
+   */
+  private HashCode key(JavaFileObject... dependencies) throws IOException {
+    IncrementalAnalysisCache cache =
+        IncrementalAnalysisCache.create(
+            temporaryFolder.getRoot().toPath(),
+            ScannerSupplier.fromBugCheckerClasses(DeadException.class),
+            ErrorProneOptions.empty());
+    List<JavaFileObject> sources = new ArrayList<>();
+    sources.add(TEST);
+    sources.add(ANNOTATION);
+    sources.addAll(ImmutableList.copyOf(dependencies));
+    BasicJavacTask task =
+        (BasicJavacTask)
+            JavacTool.create()
+                .getTask(null, null, null, ImmutableList.of("-proc:none"), null, sources);
+    JCCompilationUnit test = null;
+    for (CompilationUnitTree unit : task.parse()) {
+      if (unit.getSourceFile() == TEST) {
+        test = (JCCompilationUnit) unit;
+      }
+    }
+    task.analyze();
+    return cache.key(test, task.getContext());
+  }
+
+  @Test
+  public void unchangedDependencies() throws IOException {
+    assertThat(key(DEP, HOLDER, PACKAGE_INFO)).isEqualTo(key(DEP, HOLDER, PACKAGE_INFO));
+  }
+
+  @Test
+  public void parameterAnnotation() throws IOException {
+    JavaFileObject annotatedDep =
+        JavaFileObjects.forSourceLines(
+            "dep.Dep",
+            "package dep;",
+            "public class Dep {",
+            "  public void g(@Ann Object o) {}",
+            "}");
+    assertThat(key(annotatedDep, HOLDER, PACKAGE_INFO))
+        .isNotEqualTo(key(DEP, HOLDER, PACKAGE_INFO));
+  }
+
+  @Test
+  public void packageAnnotation() throws IOException {
+    JavaFileObject annotatedPackage =
+        JavaFileObjects.forSourceLines("dep.package-info", "@Ann", "package dep;");
+    assertThat(key(DEP, HOLDER, annotatedPackage)).isNotEqualTo(key(DEP, HOLDER, PACKAGE_INFO));
+  }
+
+  @Test
+  public void fieldOfFieldType() throws IOException {
+    JavaFileObject changedHolder =
+        JavaFileObjects.forSourceLines(
+            "dep.Holder",
+            "package dep;",
+            "public class Holder {",
+            "  private Inner inner;",
+            "  static class Inner {",
+            "    final Object value = null;",
+            "  }",
+            "}");
+    assertThat(key(DEP, changedHolder, PACKAGE_INFO))
+        .isNotEqualTo(key(DEP, HOLDER, PACKAGE_INFO));
+  }
+}
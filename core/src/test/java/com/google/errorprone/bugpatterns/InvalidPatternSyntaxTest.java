@@ -16,7 +16,12 @@
 
 package com.google.errorprone.bugpatterns;
 
+import static com.google.common.truth.Truth.assertWithMessage;
+
 import com.google.errorprone.CompilationTestHelper;
+import com.sun.tools.javac.util.Context;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -37,4 +42,45 @@ public class InvalidPatternSyntaxTest {
   public void testNegativeCase() {
     compilationHelper.addSourceFile("InvalidPatternSyntaxNegativeCases.java").doTest();
   }
+
+  @Test
+  public void syntaxErrorsMatchPatternCompile() {
+    InvalidPatternSyntax.SyntaxErrors syntaxErrors =
+        InvalidPatternSyntax.SyntaxErrors.instance(new Context());
+    StringBuilder alphabet = new StringBuilder();
+    for (char c = 0; c < 256; c++) {
+      alphabet.append(c);
+    }
+    alphabet.append("\u2028\uD800\uDC00\uFFFF");
+    for (int i = 0; i < alphabet.length(); i++) {
+      checkSyntaxError(syntaxErrors, String.valueOf(alphabet.charAt(i)));
+      for (int j = 0; j < alphabet.length(); j++) {
+        checkSyntaxError(syntaxErrors, "" + alphabet.charAt(i) + alphabet.charAt(j));
+      }
+    }
+    // The characters that regular expression syntax gives a meaning to, in longer combinations.
+    String special = "\\[](){}*+?^$|.,-&:=!<>#pQEk0aZ ";
+    for (int i = 0; i < special.length(); i++) {
+      for (int j = 0; j < special.length(); j++) {
+        for (int k = 0; k < special.length(); k++) {
+          checkSyntaxError(
+              syntaxErrors, "" + special.charAt(i) + special.charAt(j) + special.charAt(k));
+        }
+      }
+    }
+  }
+
+  private static void checkSyntaxError(
+      InvalidPatternSyntax.SyntaxErrors syntaxErrors, String regex) {
+    String expected;
+    try {
+      Pattern.compile(regex);
+      expected = null;
+    } catch (PatternSyntaxException e) {
+      expected = e.getMessage();
+    }
+    assertWithMessage(regex).that(syntaxErrors.get(regex)).isEqualTo(expected);
+    // and again, from the cache
+    assertWithMessage(regex).that(syntaxErrors.get(regex)).isEqualTo(expected);
+  }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.apidiff;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.errorprone.bugpatterns.apidiff.ApiDiff.ClassMemberKey;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link ApiDiff}Test */
+@RunWith(JUnit4.class)
+public class ApiDiffTest {
+
+  private static final ApiDiff DIFF =
+      ApiDiff.fromMembers(
+          ImmutableSet.of("lib/A"),
+          ImmutableSetMultimap.of(
+              "lib/B", ClassMemberKey.create("f", "()V"),
+              "lib/B", ClassMemberKey.create("f", "(I)V"),
+              "lib/B", ClassMemberKey.create("g", ""),
+              "lib/C", ClassMemberKey.create("h", "()I")));
+
+  @Test
+  public void unsupportedMembers() {
+    assertThat(DIFF.unsupportedMembers("lib/B"))
+        .containsExactly("f", "()V", "f", "(I)V", "g", "");
+    assertThat(DIFF.unsupportedMembers("lib/C")).containsExactly("h", "()I");
+  }
+
+  @Test
+  public void unsupportedMembers_noMembers() {
+    assertThat(DIFF.unsupportedMembers("lib/A")).isEmpty();
+    assertThat(DIFF.unsupportedMembers("lib/D")).isEmpty();
+  }
+
+  @Test
+  public void unsupportedMembers_fromProto() {
+    ApiDiff roundTripped = ApiDiff.fromProto(DIFF.toProto());
+    assertThat(roundTripped.unsupportedMembers("lib/B"))
+        .isEqualTo(DIFF.unsupportedMembers("lib/B"));
+    assertThat(roundTripped.isClassUnsupported("lib/A")).isTrue();
+  }
+}
@@ -327,4 +327,40 @@ public class FormatStringTest {
             "}")
         .doTest();
   }
+
+  @Test
+  public void cachedAcrossArgumentKinds() {
+    compilationHelper
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void f(int i, long l, String s, Object o) {",
+            "    String.format(\"%d\", i);",
+            "    // BUG: Diagnostic contains: 'java.lang.String' cannot be formatted using '%d'",
+            "    String.format(\"%d\", s);",
+            "    String.format(\"%d\", l);",
+            "    // BUG: Diagnostic contains: 'java.lang.Object' cannot be formatted using '%d'",
+            "    String.format(\"%d\", o);",
+            "    String.format(\"%d\", i);",
+            "    // BUG: Diagnostic contains: 'java.lang.String' cannot be formatted using '%d'",
+            "    String.format(\"%d\", s);",
+            "    String.format(\"%c\", i);",
+            "    // BUG: Diagnostic contains: invalid Unicode code point: 110000",
+            "    String.format(\"%c\", 0x110000);",
+            "    String.format(\"%c\", 0x10FFFF);",
+            "  }",
+            "}")
+        .addSourceLines(
+            "Test2.java",
+            "class Test2 {",
+            "  void f(int i, String s) {",
+            "    // BUG: Diagnostic contains: 'java.lang.String' cannot be formatted using '%d'",
+            "    String.format(\"%d\", s);",
+            "    String.format(\"%d\", i);",
+            "    // BUG: Diagnostic contains: invalid Unicode code point: 110000",
+            "    String.format(\"%c\", 0x110000);",
+            "  }",
+            "}")
+        .doTest();
+  }
 }
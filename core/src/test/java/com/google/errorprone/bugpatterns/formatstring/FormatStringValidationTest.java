@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.errorprone.bugpatterns.formatstring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import edu.umd.cs.findbugs.formatStringChecker.ExtraFormatArgumentsException;
+import edu.umd.cs.findbugs.formatStringChecker.Formatter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link FormatStringValidation}Test */
+@RunWith(JUnit4.class)
+public class FormatStringValidationTest {
+
+  private static final ImmutableList<String> FLAGS =
+      ImmutableList.of("", "-", "0", ",", "+", " ", "#", "(", "-0", "--");
+
+  private static final ImmutableList<String> WIDTHS =
+      ImmutableList.of("", "1", "10", "01", "123456", "1234567");
+
+  private static final ImmutableList<String> PRECISIONS =
+      ImmutableList.of("", ".", ".0", ".2", ".123456", ".1234567");
+
+  private static final ImmutableList<String> CONVERSIONS =
+      ImmutableList.of(
+          "s", "S", "b", "B", "d", "x", "X", "o", "f", "e", "E", "g", "G", "c", "C", "h", "a", "%",
+          "n", "l", "tY", "q");
+
+  // The instances that FormatStringValidation substitutes for arguments, and some constants.
+  private static final ImmutableList<Object> ARGUMENTS =
+      ImmutableList.of(
+          "string",
+          false,
+          (byte) 1,
+          (short) 2,
+          3,
+          4L,
+          'c',
+          5.0f,
+          6.0d,
+          BigInteger.valueOf(43L),
+          BigDecimal.valueOf(42.0d),
+          new Object(),
+          new Object[0],
+          0x110000,
+          -1);
+
+  @Test
+  public void simpleFormatStringsAreValid() {
+    int simple = 0;
+    for (String flag : FLAGS) {
+      for (String width : WIDTHS) {
+        for (String precision : PRECISIONS) {
+          for (String conversion : CONVERSIONS) {
+            String formatString = "x%" + flag + width + precision + conversion + "y";
+            checkConsistent(formatString);
+            for (Object argument : ARGUMENTS) {
+              if (checkConsistent(formatString, argument)) {
+                simple++;
+              }
+            }
+            checkConsistent(formatString, (Object) null);
+            checkConsistent(formatString, "string", "string");
+          }
+        }
+      }
+    }
+    // Make sure that the shortcut is actually taken.
+    assertThat(simple).isGreaterThan(1000);
+  }
+
+  @Test
+  public void argumentCount() {
+    for (String formatString :
+        ImmutableList.of("", "%%", "%n", "%s", "%s %d", "%s%%%n%s", "%s %s %s")) {
+      for (int count = 0; count < 4; count++) {
+        Object[] arguments = new Object[count];
+        Arrays.fill(arguments, 1);
+        checkConsistent(formatString, arguments);
+      }
+    }
+  }
+
+  @Test
+  public void commonFormatStringsAreSimple() {
+    assertThat(FormatStringValidation.isSimpleAndValid("%s: %d%%%n", new Object[] {"a", 1}))
+        .isTrue();
+    assertThat(FormatStringValidation.isSimpleAndValid("%-10s|%5d", new Object[] {"a", 1L}))
+        .isTrue();
+    assertThat(FormatStringValidation.isSimpleAndValid("%,.2f", new Object[] {1.0})).isTrue();
+    assertThat(FormatStringValidation.isSimpleAndValid("%08X", new Object[] {1})).isTrue();
+    assertThat(FormatStringValidation.isSimpleAndValid("%c", new Object[] {'c'})).isTrue();
+  }
+
+  /**
+   * Checks that if {@code formatString} is accepted as simple, formatting it with {@code
+   * arguments} doesn't throw and uses all of them.
+   */
+  private static boolean checkConsistent(String formatString, Object... arguments) {
+    if (!FormatStringValidation.isSimpleAndValid(formatString, arguments)) {
+      return false;
+    }
+    String message = formatString + " " + Arrays.deepToString(arguments);
+    try {
+      String unused = String.format(formatString, arguments);
+    } catch (IllegalFormatException e) {
+      throw new AssertionError(message, e);
+    }
+    String[] argDescriptors = new String[arguments.length];
+    Arrays.fill(argDescriptors, "Ljava/lang/Object;");
+    try {
+      Formatter.check(formatString, argDescriptors);
+    } catch (ExtraFormatArgumentsException e) {
+      throw new AssertionError(message, e);
+    } catch (Exception ignored) {
+      // Formatter.check is only used for the argument count.
+    }
+    return true;
+  }
+}
@@ -1846,4 +1846,45 @@ public class ImmutableCheckerTest {
             "}")
         .doTest();
   }
+
+  @Test
+  public void sameTypeInSeveralCompilationUnits() {
+    compilationHelper
+        .addSourceLines(
+            "A.java",
+            "import com.google.errorprone.annotations.Immutable;",
+            "import com.google.common.collect.ImmutableList;",
+            "import java.util.List;",
+            "@Immutable class A {",
+            "  final ImmutableList<String> xs = null;",
+            "  // BUG: Diagnostic contains: 'List' is mutable",
+            "  final List<String> ys = null;",
+            "}")
+        .addSourceLines(
+            "B.java",
+            "import com.google.errorprone.annotations.Immutable;",
+            "import com.google.common.collect.ImmutableList;",
+            "import java.util.List;",
+            "@Immutable class B {",
+            "  final ImmutableList<String> xs = null;",
+            "  // BUG: Diagnostic contains: 'List' is mutable",
+            "  final List<String> ys = null;",
+            "}")
+        .addSourceLines(
+            "C.java",
+            "import com.google.errorprone.annotations.Immutable;",
+            "import com.google.common.collect.ImmutableList;",
+            "@Immutable(containerOf = \"T\") class C<T> {",
+            "  final ImmutableList<T> xs = null;",
+            "}")
+        .addSourceLines(
+            "D.java",
+            "import com.google.errorprone.annotations.Immutable;",
+            "import com.google.common.collect.ImmutableList;",
+            "@Immutable class D<T> {",
+            "  // BUG: Diagnostic contains: 'T' is a mutable type variable",
+            "  final ImmutableList<T> xs = null;",
+            "}")
+        .doTest();
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.dataflow;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+import static com.google.errorprone.matchers.Description.NO_MATCH;
+import static com.google.errorprone.matchers.Matchers.staticMethod;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.util.TreePath;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for the caching in {@link DataFlow}. */
+@RunWith(JUnit4.class)
+public class DataFlowTest {
+
+  private static final Matcher<ExpressionTree> TRIGGER =
+      staticMethod().anyClass().named("trigger");
+
+  private static void runDataflow(TreePath exprPath, VisitorState state) {
+    NullnessAnalysis.instance(state.context).getNullness(exprPath, state.context);
+  }
+
+  /** Formats the counters as "cfg hits/misses/rebuilds, analysis hits/misses". */
+  private static String cacheStatistics(VisitorState state) {
+    ImmutableMultiset<String> counters = DataFlow.cacheStatistics(state.context);
+    return String.format(
+        "cfg %d/%d/%d, analysis %d/%d",
+        counters.count("DataFlow-cfg-hit"),
+        counters.count("DataFlow-cfg-miss"),
+        counters.count("DataFlow-cfg-rebuild"),
+        counters.count("DataFlow-analysis-hit"),
+        counters.count("DataFlow-analysis-miss"));
+  }
+
+  /** Runs dataflow on the argument of each call to {@code trigger}, and reports the counters. */
+  @BugPattern(name = "DataFlowCacheChecker", summary = "", severity = ERROR)
+  public static class DataFlowCacheChecker extends BugChecker
+      implements MethodInvocationTreeMatcher {
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (!TRIGGER.matches(tree, state)) {
+        return NO_MATCH;
+      }
+      runDataflow(new TreePath(state.getPath(), tree.getArguments().get(0)), state);
+      return buildDescription(tree).setMessage(cacheStatistics(state)).build();
+    }
+  }
+
+  @Test
+  public void sameMethodIsCached() {
+    CompilationTestHelper.newInstance(DataFlowCacheChecker.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  static void trigger(Object o) {}",
+            "  void f(Object a) {",
+            "    // BUG: Diagnostic contains: cfg 0/1/0, analysis 0/1",
+            "    trigger(a);",
+            "    // BUG: Diagnostic contains: cfg 1/1/0, analysis 1/1",
+            "    trigger(a);",
+            "  }",
+            "  void g(Object a) {",
+            "    // BUG: Diagnostic contains: cfg 1/2/0, analysis 1/2",
+            "    trigger(a);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /**
+   * Like {@link DataFlowCacheChecker}, but also re-runs dataflow on the first call it saw if that
+   * was in a different compilation unit.
+   */
+  @BugPattern(name = "CrossUnitDataFlowChecker", summary = "", severity = ERROR)
+  public static class CrossUnitDataFlowChecker extends BugChecker
+      implements MethodInvocationTreeMatcher {
+    @Nullable private TreePath first;
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (!TRIGGER.matches(tree, state)) {
+        return NO_MATCH;
+      }
+      TreePath argument = new TreePath(state.getPath(), tree.getArguments().get(0));
+      if (first == null) {
+        first = argument;
+      } else if (first.getCompilationUnit() != argument.getCompilationUnit()) {
+        runDataflow(first, state);
+      }
+      runDataflow(argument, state);
+      return buildDescription(tree).setMessage(cacheStatistics(state)).build();
+    }
+  }
+
+  @Test
+  public void finishedCompilationUnitIsEvicted() {
+    CompilationTestHelper.newInstance(CrossUnitDataFlowChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  static void trigger(Object o) {}",
+            "  void f(Object a) {",
+            "    // BUG: Diagnostic contains: cfg 0/1/0, analysis 0/1",
+            "    trigger(a);",
+            "  }",
+            "}")
+        .addSourceLines(
+            "B.java",
+            "class B {",
+            "  void g(Object b) {",
+            "    // BUG: Diagnostic contains: cfg 0/3/1, analysis 0/3",
+            "    A.trigger(b);",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
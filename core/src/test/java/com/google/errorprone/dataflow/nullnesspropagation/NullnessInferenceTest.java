@@ -462,6 +462,38 @@ public class NullnessInferenceTest {
         .doTest();
   }
 
+  @Test
+  public void testLambdaInMethod() {
+    compilationHelper
+        .addSourceLines(
+            "LambdaInMethodTest.java",
+            "package com.google.errorprone.dataflow.nullnesspropagation;",
+            "import static com.google.errorprone.dataflow.nullnesspropagation."
+                + "NullnessInferenceTest.inspectInferredExpression;",
+            "import java.util.function.Supplier;",
+            "import org.checkerframework.checker.nullness.qual.Nullable;",
+            "import org.checkerframework.checker.nullness.qual.NonNull;",
+            "public class LambdaInMethodTest {",
+            "  void test(MyInnerClass<? extends @Nullable Object> nullable,"
+                + "MyInnerClass<? extends @NonNull Object> nonnull) {",
+            "    Supplier<Object> s = () -> {",
+            "      Supplier<Object> t = () -> {",
+            "        // BUG: Diagnostic contains: Optional[Non-null]",
+            "        return inspectInferredExpression(nonnull.get());",
+            "      };",
+            "      // BUG: Diagnostic contains: Optional[Nullable]",
+            "      return inspectInferredExpression(nullable.get());",
+            "    };",
+            "    // BUG: Diagnostic contains: Optional[Non-null]",
+            "    inspectInferredExpression(nonnull.get());",
+            "  }",
+            "  interface MyInnerClass<T> {",
+            "    T get();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
   @Test
   public void testBoundedAtGenericTypeDef() {
     compilationHelper
@@ -602,7 +634,9 @@ public class NullnessInferenceTest {
         TreePath root = state.getPath();
         InferredNullability inferenceRes =
             NullnessQualifierInference.getInferredNullability(
-                ASTHelpers.findEnclosingNode(root, MethodTree.class));
+                ASTHelpers.findEnclosingNode(root, MethodTree.class),
+                root.getCompilationUnit(),
+                state.context);
         assert methodInvocation.getArguments().get(0).getKind() == Kind.METHOD_INVOCATION;
         MethodInvocationTree callsiteToInspect =
             (MethodInvocationTree) methodInvocation.getArguments().get(0);
@@ -614,7 +648,9 @@ public class NullnessInferenceTest {
         TreePath root = state.getPath();
         InferredNullability inferenceRes =
             NullnessQualifierInference.getInferredNullability(
-                ASTHelpers.findEnclosingNode(root, MethodTree.class));
+                ASTHelpers.findEnclosingNode(root, MethodTree.class),
+                root.getCompilationUnit(),
+                state.context);
         ExpressionTree exprToInspect = methodInvocation.getArguments().get(0);
         return describeMatch(
             exprToInspect,
@@ -1216,6 +1216,44 @@ public class SuggestedFixesTest {
         .doTest();
   }
 
+  /**
+   * A test bugchecker that tries the same fix twice and then a different one, and reports how many
+   * speculative compiles that took.
+   */
+  @BugPattern(name = "RepeatedCompilesWithFixChecker", summary = "", severity = ERROR)
+  public static class RepeatedCompilesWithFixChecker extends BugChecker
+      implements ClassTreeMatcher {
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      int before = SuggestedFixes.speculativeCompilationCount(state);
+      Fix fix = SuggestedFix.prefixWith(tree, "final ");
+      boolean first = SuggestedFixes.compilesWithFix(fix, state);
+      boolean repeated =
+          SuggestedFixes.compilesWithFix(SuggestedFix.prefixWith(tree, "final "), state);
+      boolean different =
+          SuggestedFixes.compilesWithFix(SuggestedFix.prefixWith(tree, "abstract "), state);
+      return buildDescription(tree)
+          .setMessage(
+              String.format(
+                  "results: %s %s %s, compilations: %d",
+                  first,
+                  repeated,
+                  different,
+                  SuggestedFixes.speculativeCompilationCount(state) - before))
+          .build();
+    }
+  }
+
+  @Test
+  public void compilesWithFix_repeatedFixIsNotRecompiled() {
+    CompilationTestHelper.newInstance(RepeatedCompilesWithFixChecker.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "// BUG: Diagnostic contains: results: true true true, compilations: 2",
+            "class Test {}")
+        .doTest();
+  }
+
   @Test
   public void compilesWithFix_releaseFlag() {
     assumeTrue(RuntimeVersion.isAtLeast9());
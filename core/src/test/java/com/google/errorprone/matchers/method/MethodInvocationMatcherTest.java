@@ -23,6 +23,8 @@ import static com.google.errorprone.matchers.Matchers.instanceMethod;
 import static com.google.errorprone.matchers.Matchers.staticMethod;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimaps;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.CompilationTestHelper;
 import com.google.errorprone.VisitorState;
@@ -35,6 +37,8 @@ import com.google.errorprone.scanner.ScannerSupplier;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -92,6 +96,96 @@ public class MethodInvocationMatcherTest {
         .doTest();
   }
 
+  @BugPattern(
+      name = "KeyedMatcherChecker",
+      summary = "Checker that reports the keys of the rules that match each method invocation",
+      severity = ERROR)
+  static class KeyedMatcherChecker extends BugChecker implements MethodInvocationTreeMatcher {
+    private final MethodInvocationMatcher.KeyedMatcher<String> matcher;
+
+    KeyedMatcherChecker(MethodInvocationMatcher.KeyedMatcher<String> matcher) {
+      this.matcher = matcher;
+    }
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      Set<String> keys = new TreeSet<>();
+      matcher.addMatchingKeys(tree, state, keys);
+      return keys.isEmpty()
+          ? Description.NO_MATCH
+          : buildDescription(tree).setMessage("keys: " + keys).build();
+    }
+  }
+
+  @Test
+  public void keyedMatchers() {
+    ImmutableListMultimap<String, MethodMatchers.MethodMatcher> matchers =
+        ImmutableListMultimap.of(
+            "toString", instanceMethod().anyClass().named("toString"),
+            "number", instanceMethod().onDescendantOf("java.lang.Number"),
+            "comparable", instanceMethod().onDescendantOf("java.lang.Comparable"),
+            "valueOf", staticMethod().anyClass().named("valueOf").withParameters("int"));
+    MethodInvocationMatcher.KeyedMatcher<String> matcher =
+        MethodInvocationMatcher.compileKeyed(
+            Multimaps.transformValues(
+                matchers, m -> m.asRule().orElseThrow(RuntimeException::new)));
+
+    CompilationTestHelper.newInstance(
+            ScannerSupplier.fromScanner(new ErrorProneScanner(new KeyedMatcherChecker(matcher))),
+            getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void f() {",
+            "    // BUG: Diagnostic contains: keys: [comparable, toString]",
+            "    \"5\".toString();",
+            "    Integer i = 5;",
+            "    // BUG: Diagnostic contains: keys: [comparable, number, toString]",
+            "    i.toString();",
+            "    // BUG: Diagnostic contains: keys: [valueOf]",
+            "    String.valueOf(5);",
+            "    System.out.println();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @BugPattern(
+      name = "PrefilteredChecker",
+      summary = "Checker that flags every method invocation it's called for",
+      severity = ERROR)
+  static class PrefilteredChecker extends BugChecker implements MethodInvocationTreeMatcher {
+    @Override
+    public ImmutableList<MethodMatchers.MethodMatcher> methodInvocationPrefilter() {
+      return ImmutableList.of(
+          instanceMethod().anyClass().named("toString"),
+          instanceMethod().onDescendantOf("java.lang.Number"));
+    }
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+
+  @Test
+  public void prefilter() {
+    CompilationTestHelper.newInstance(PrefilteredChecker.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void f() {",
+            "    // BUG: Diagnostic contains:",
+            "    \"5\".toString();",
+            "    // BUG: Diagnostic contains:",
+            "    int result = new Integer(5).compareTo(6);",
+            "    String.valueOf(5);",
+            "    System.out.println();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
   private static ScannerSupplier methodTreeScanner(Matcher<ExpressionTree> m) {
     return ScannerSupplier.fromScanner(new ErrorProneScanner(new MethodInvocationChecker(m)));
   }
@@ -16,6 +16,9 @@
 
 package com.google.errorprone.refaster;
 
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
 import com.google.common.testing.EqualsTester;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -45,6 +48,27 @@ public class BindingsTest {
     Bindings.create().put(new Key("foo"), 3);
   }
 
+  @Test
+  public void testCopyIsIndependent() {
+    Bindings original = Bindings.create(new Key("foo"), "a");
+    Bindings copy = Bindings.create(original);
+    copy.putBinding(new Key("bar"), "b");
+    copy.remove(new Key("foo"));
+    original.putBinding(new Key("baz"), "c");
+    assertThat(original).containsExactly(new Key("foo"), "a", new Key("baz"), "c");
+    assertThat(copy).containsExactly(new Key("bar"), "b");
+  }
+
+  @Test
+  public void testUnmodifiable() {
+    Bindings bindings = Bindings.create(new Key("foo"), "a");
+    Bindings unmodifiable = bindings.unmodifiable();
+    assertThrows(
+        UnsupportedOperationException.class, () -> unmodifiable.putBinding(new Key("bar"), "b"));
+    assertThrows(UnsupportedOperationException.class, () -> unmodifiable.remove(new Key("foo")));
+    assertThat(unmodifiable).containsExactly(new Key("foo"), "a");
+  }
+
   @Test
   public void testKeyClassesDistinct() {
     new EqualsTester()
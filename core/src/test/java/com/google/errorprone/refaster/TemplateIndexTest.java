@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.refaster;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ClassInfo;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.Tree.Kind;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.EnumSet;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TemplateIndex}. */
+@RunWith(JUnit4.class)
+public class TemplateIndexTest {
+
+  /** Every subclass of {@link UTree}, including nested and generated classes. */
+  private static ImmutableList<Class<?>> uTrees;
+
+  @BeforeClass
+  public static void findUTrees() throws IOException {
+    ImmutableList.Builder<Class<?>> result = ImmutableList.builder();
+    for (ClassInfo info :
+        ClassPath.from(UTree.class.getClassLoader())
+            .getTopLevelClasses(UTree.class.getPackage().getName())) {
+      addUTrees(info.load(), result);
+    }
+    uTrees = result.build();
+  }
+
+  private static void addUTrees(Class<?> clazz, ImmutableList.Builder<Class<?>> result) {
+    if (clazz != UTree.class && UTree.class.isAssignableFrom(clazz)) {
+      result.add(clazz);
+    }
+    for (Class<?> nested : clazz.getDeclaredClasses()) {
+      addUTrees(nested, result);
+    }
+  }
+
+  @Test
+  public void findsUTrees() {
+    assertThat(uTrees).containsAtLeast(UBinary.class, UMethodInvocation.class, UBlock.class);
+  }
+
+  /**
+   * The index assumes that a {@link UTree} can only unify with trees whose visit methods it
+   * overrides; a tree that unified some other way would silently never match.
+   */
+  @Test
+  public void everyUTreeUnifiesThroughItsVisitMethods() {
+    for (Class<?> uTree : uTrees) {
+      for (Method method : uTree.getDeclaredMethods()) {
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length != 2 || parameters[1] != Unifier.class) {
+          continue;
+        }
+        assertWithMessage("%s overrides unify(Tree, Unifier)", uTree.getName())
+            .that(method.getName().equals("unify") && parameters[0] == Tree.class)
+            .isFalse();
+        if (method.getName().startsWith("visit")) {
+          assertWithMessage("%s visits a tree that isn't one of the kinds", method)
+              .that(isTreeInterface(parameters[0]))
+              .isTrue();
+        }
+      }
+      if (UExpression.class.isAssignableFrom(uTree) && !Modifier.isAbstract(uTree.getModifiers())) {
+        assertWithMessage("%s unifies with no kind of tree", uTree.getName())
+            .that(TemplateIndex.targetKinds(uTree))
+            .isNotEmpty();
+      }
+    }
+  }
+
+  private static boolean isTreeInterface(Class<?> clazz) {
+    if (clazz == Tree.class) {
+      return true;
+    }
+    for (Kind kind : Kind.values()) {
+      if (kind.asInterface() == clazz) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void targetKinds() {
+    assertThat(TemplateIndex.targetKinds(UBinary.class)).containsAtLeast(Kind.PLUS, Kind.AND);
+    assertThat(TemplateIndex.targetKinds(UBinary.class)).doesNotContain(Kind.IDENTIFIER);
+    assertThat(TemplateIndex.targetKinds(UMethodInvocation.class))
+        .containsExactly(Kind.METHOD_INVOCATION);
+    // placeholders match any expression
+    assertThat(TemplateIndex.targetKinds(UPlaceholderExpression.class))
+        .isEqualTo(EnumSet.allOf(Kind.class));
+  }
+}
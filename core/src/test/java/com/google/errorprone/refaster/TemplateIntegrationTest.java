@@ -26,15 +26,23 @@ import static org.junit.Assume.assumeFalse;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.CompositeCodeTransformer;
+import com.google.errorprone.RefasterRuleFile;
 import com.google.testing.compile.JavaFileObjects;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import javax.tools.JavaFileObject;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -45,6 +53,8 @@ import org.junit.runners.JUnit4;
  */
 @RunWith(JUnit4.class)
 public class TemplateIntegrationTest extends CompilerBasedTest {
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
   private CodeTransformer extractRefasterRule(JavaFileObject object) {
     compile(object);
     ClassTree classTree =
@@ -91,6 +101,80 @@ public class TemplateIntegrationTest extends CompilerBasedTest {
     expectTransforms(transformer, input, output);
   }
 
+  @Test
+  public void compiledRuleFile() throws IOException {
+    String testName = "MultipleReferencesToIdentifierTemplate";
+    CodeTransformer transformer =
+        extractRefasterRule(
+            JavaFileObjects.forResource(String.format("%s/%s.java", TEMPLATE_DIR, testName)));
+    Path path = tempFolder.newFile(testName + ".analyzer").toPath();
+    RefasterRuleFile.write(transformer, path);
+
+    JavaFileObject input =
+        JavaFileObjects.forResource(String.format("%s/%sExample.java", INPUT_DIR, testName));
+    JavaFileObject output =
+        JavaFileObjects.forResource(String.format("%s/%sExample.java", OUTPUT_DIR, testName));
+    expectTransforms(RefasterRuleFile.load(path), input, output);
+  }
+
+  @Test
+  public void ruleSet() throws IOException {
+    ImmutableList<String> testNames =
+        ImmutableList.of(
+            "BinaryTemplate",
+            "MethodInvocationTemplate",
+            "StaticFieldTemplate",
+            "IfTemplate",
+            "AnyOfTemplate");
+    List<CodeTransformer> rules = new ArrayList<>();
+    for (String testName : testNames) {
+      rules.add(
+          extractRefasterRule(
+              JavaFileObjects.forResource(String.format("%s/%s.java", TEMPLATE_DIR, testName))));
+    }
+    CodeTransformer separately = CompositeCodeTransformer.compose(rules);
+    CodeTransformer together = RefasterRuleSet.compose(rules);
+    assertThat(together).isInstanceOf(RefasterRuleSet.class);
+    for (String testName : testNames) {
+      JavaFileObject input =
+          JavaFileObjects.forResource(String.format("%s/%sExample.java", INPUT_DIR, testName));
+      assertThat(transform(together, input)).isEqualTo(transform(separately, input));
+    }
+  }
+
+  @Test
+  public void ruleSetFile() throws IOException {
+    ImmutableList<String> testNames =
+        ImmutableList.of("BinaryTemplate", "MethodInvocationTemplate", "IfTemplate");
+    List<CodeTransformer> rules = new ArrayList<>();
+    for (String testName : testNames) {
+      rules.add(
+          extractRefasterRule(
+              JavaFileObjects.forResource(String.format("%s/%s.java", TEMPLATE_DIR, testName))));
+    }
+    Path path = tempFolder.newFile("rules.analyzer").toPath();
+    RefasterRuleFile.write(RefasterRuleSet.compose(rules), path);
+
+    // each rule is stored separately, and the set is put back together when it is loaded
+    assertThat(RefasterRuleFile.loadAll(path)).hasSize(testNames.size());
+    CodeTransformer loaded = RefasterRuleFile.load(path);
+    assertThat(loaded).isInstanceOf(RefasterRuleSet.class);
+    CodeTransformer separately = CompositeCodeTransformer.compose(rules);
+    for (String testName : testNames) {
+      JavaFileObject input =
+          JavaFileObjects.forResource(String.format("%s/%sExample.java", INPUT_DIR, testName));
+      assertThat(transform(loaded, input)).isEqualTo(transform(separately, input));
+    }
+  }
+
+  private static String transform(CodeTransformer transformer, JavaFileObject input)
+      throws IOException {
+    return CodeTransformerTestHelper.create(transformer)
+        .transform(input)
+        .getCharContent(false)
+        .toString();
+  }
+
   @Test
   public void binary() throws IOException {
     runTest("BinaryTemplate");
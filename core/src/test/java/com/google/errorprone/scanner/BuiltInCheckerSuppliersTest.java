@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.scanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.errorprone.BugCheckerInfo;
+import com.google.errorprone.ErrorProneFlags;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link BuiltInCheckerSuppliers}Test */
+@RunWith(JUnit4.class)
+public class BuiltInCheckerSuppliersTest {
+
+  @Test
+  public void registryMatchesBugPatterns() {
+    for (BugCheckerInfo check : BuiltInCheckerSuppliers.allChecks().getAllChecks().values()) {
+      BugCheckerInfo expected = BugCheckerInfo.create(check.checkerClass());
+      String name = check.canonicalName();
+      assertWithMessage(name).that(check.canonicalName()).isEqualTo(expected.canonicalName());
+      assertWithMessage(name).that(check.allNames()).isEqualTo(expected.allNames());
+      assertWithMessage(name).that(check.message()).isEqualTo(expected.message());
+      assertWithMessage(name).that(check.defaultSeverity()).isEqualTo(expected.defaultSeverity());
+      assertWithMessage(name).that(check.linkUrl()).isEqualTo(expected.linkUrl());
+      assertWithMessage(name)
+          .that(check.supportsSuppressWarnings())
+          .isEqualTo(expected.supportsSuppressWarnings());
+      assertWithMessage(name)
+          .that(check.customSuppressionAnnotations())
+          .isEqualTo(expected.customSuppressionAnnotations());
+      assertWithMessage(name).that(check.getTags()).isEqualTo(expected.getTags());
+      assertWithMessage(name).that(check.requiredTypes()).isEqualTo(expected.requiredTypes());
+      assertWithMessage(name).that(check.disableable()).isEqualTo(expected.disableable());
+      assertWithMessage(name).that(check).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void registryInstantiatesChecks() {
+    for (BugCheckerInfo check : BuiltInCheckerSuppliers.allChecks().getAllChecks().values()) {
+      assertThat(check.factory().create(ErrorProneFlags.empty()))
+          .isInstanceOf(check.checkerClass());
+    }
+  }
+}
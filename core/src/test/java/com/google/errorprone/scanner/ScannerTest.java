@@ -16,6 +16,7 @@
 
 package com.google.errorprone.scanner;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.util.ASTHelpers.getSymbol;
@@ -25,10 +26,19 @@ import com.google.errorprone.BugPattern;
 import com.google.errorprone.CompilationTestHelper;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.ClassTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.IdentifierTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.WhileLoopTreeMatcher;
 import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.method.MethodMatchers;
+import com.google.errorprone.matchers.method.MethodMatchers.MethodMatcher;
 import com.google.errorprone.util.RuntimeVersion;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.WhileLoopTree;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -99,6 +109,107 @@ public class ScannerTest {
         .doTest();
   }
 
+  @Test
+  public void requiredTypeAbsent() {
+    CompilationTestHelper.newInstance(RequiresType.class, getClass())
+        .addSourceLines("Test.java", "class Test {", "  Object o;", "}")
+        .doTest();
+  }
+
+  @Test
+  public void requiredTypeImported() {
+    CompilationTestHelper.newInstance(RequiresType.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "import com.google.errorprone.scanner.ScannerTest.RequiredType;",
+            "// BUG: Diagnostic contains: RequiresType",
+            "class Test {}")
+        .doTest();
+  }
+
+  @Test
+  public void requiredTypeOfExpression() {
+    CompilationTestHelper.newInstance(RequiresType.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "// BUG: Diagnostic contains: RequiresType",
+            "class Test {",
+            "  Object o = com.google.errorprone.scanner.ScannerTest.requiredType();",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void requiredTypeSubtype() {
+    CompilationTestHelper.newInstance(RequiresType.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "import com.google.errorprone.scanner.ScannerTest.RequiredSubtype;",
+            "// BUG: Diagnostic contains: RequiresType",
+            "class Test implements RequiredSubtype {}")
+        .doTest();
+  }
+
+  @Test
+  public void checkNotInstantiatedWithoutMatchingNodes() {
+    CountsInstances.instances.set(0);
+    CompilationTestHelper.newInstance(CountsInstances.class, getClass())
+        .addSourceLines("Test.java", "class Test {", "  void f() {}", "}")
+        .doTest();
+    assertThat(CountsInstances.instances.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void checkInstantiatedOnce() {
+    CountsInstances.instances.set(0);
+    CompilationTestHelper.newInstance(CountsInstances.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void f(boolean b) {",
+            "    // BUG: Diagnostic contains: CountsInstances",
+            "    while (b) {}",
+            "    // BUG: Diagnostic contains: CountsInstances",
+            "    while (b) {}",
+            "  }",
+            "}")
+        .doTest();
+    assertThat(CountsInstances.instances.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void dormantMethodInvocationCheckNotInstantiated() {
+    InvocationRequiresType.instances.set(0);
+    CompilationTestHelper.newInstance(InvocationRequiresType.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void f() {",
+            "    String.valueOf(1);",
+            "  }",
+            "}")
+        .doTest();
+    assertThat(InvocationRequiresType.instances.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void methodInvocationCheckWithRequiredType() {
+    InvocationRequiresType.instances.set(0);
+    CompilationTestHelper.newInstance(InvocationRequiresType.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "import static com.google.errorprone.scanner.ScannerTest.requiredType;",
+            "class Test {",
+            "  void f() {",
+            "    // BUG: Diagnostic contains: InvocationRequiresType",
+            "    String.valueOf(requiredType());",
+            "    requiredType();",
+            "  }",
+            "}")
+        .doTest();
+    assertThat(InvocationRequiresType.instances.get()).isEqualTo(1);
+  }
+
   @OkToUseFoo // Foo can use itself. But this shouldn't suppress errors on *usages* of Foo.
   public static final class Foo<T> {}
 
@@ -117,4 +228,70 @@ public class ScannerTest {
           : NO_MATCH;
     }
   }
+
+  public interface RequiredType {}
+
+  public interface RequiredSubtype extends RequiredType {}
+
+  public static RequiredType requiredType() {
+    return null;
+  }
+
+  @BugPattern(
+      name = "RequiresType",
+      summary = "Reports every class in compilation units that refer to RequiredType.",
+      severity = ERROR,
+      requiredTypes = "com.google.errorprone.scanner.ScannerTest.RequiredType")
+  public static class RequiresType extends BugChecker implements ClassTreeMatcher {
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+
+  @BugPattern(
+      name = "CountsInstances",
+      summary = "Reports every while loop, and counts how many times it is instantiated.",
+      severity = ERROR)
+  public static class CountsInstances extends BugChecker implements WhileLoopTreeMatcher {
+    static final AtomicInteger instances = new AtomicInteger();
+
+    public CountsInstances() {
+      instances.incrementAndGet();
+    }
+
+    @Override
+    public Description matchWhileLoop(WhileLoopTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+
+  @BugPattern(
+      name = "InvocationRequiresType",
+      summary =
+          "Reports calls to String.valueOf in compilation units that refer to RequiredType, and"
+              + " counts how many times it is instantiated.",
+      severity = ERROR,
+      requiredTypes = "com.google.errorprone.scanner.ScannerTest.RequiredType")
+  public static class InvocationRequiresType extends BugChecker
+      implements MethodInvocationTreeMatcher {
+    static final AtomicInteger instances = new AtomicInteger();
+
+    private static final MethodMatcher VALUE_OF =
+        MethodMatchers.staticMethod().onClass("java.lang.String").named("valueOf");
+
+    public InvocationRequiresType() {
+      instances.incrementAndGet();
+    }
+
+    @Override
+    public ImmutableList<MethodMatcher> methodInvocationPrefilter() {
+      return ImmutableList.of(VALUE_OF);
+    }
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      return VALUE_OF.matches(tree, state) ? describeMatch(tree) : NO_MATCH;
+    }
+  }
 }
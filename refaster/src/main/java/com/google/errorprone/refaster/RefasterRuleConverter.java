@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.refaster;
+
+import com.google.errorprone.RefasterRuleFile;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+
+/**
+ * Converts {@code .analyzer} files written by older versions of the {@link RefasterRuleCompiler} to
+ * the current format, in which all of the rules are applied together in a single indexed scan.
+ *
+ * <p>Usage: {@code RefasterRuleConverter <input.analyzer> <output.analyzer>}
+ */
+public final class RefasterRuleConverter {
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: RefasterRuleConverter <input.analyzer> <output.analyzer>");
+      System.exit(1);
+    }
+    RefasterRuleFile.write(
+        RefasterRuleSet.compose(
+            RefasterRuleFile.loadAll(FileSystems.getDefault().getPath(args[0]))),
+        FileSystems.getDefault().getPath(args[1]));
+  }
+
+  private RefasterRuleConverter() {}
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2020 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.joining;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor which generates a registry of all classes that have a {@code BugPattern}
+ * annotation, so that their metadata is available without loading the classes, and they can be
+ * instantiated without reflection.
+ *
+ * <p>The registry is only generated if its fully qualified class name is passed with {@code
+ * -Aerrorprone.bugCheckerRegistry=<name>}. The generated class has a single method, {@code
+ * checks()}, which returns a {@code BugCheckerInfo} for each check, keyed by canonical name.
+ */
+@AutoService(Processor.class)
+@SupportedAnnotationTypes("com.google.errorprone.BugPattern")
+@SupportedOptions(BugCheckerRegistryProcessor.REGISTRY_OPTION)
+public class BugCheckerRegistryProcessor extends AbstractProcessor {
+
+  static final String REGISTRY_OPTION = "errorprone.bugCheckerRegistry";
+
+  private static final String BUG_CHECKER = "com.google.errorprone.bugpatterns.BugChecker";
+  private static final String ERROR_PRONE_FLAGS = "com.google.errorprone.ErrorProneFlags";
+
+  /** The number of checks registered by each generated method, to stay below the size limit. */
+  private static final int CHECKS_PER_METHOD = 100;
+
+  /** A check to include in the registry. */
+  private static final class Check {
+    final TypeElement type;
+    final BugPattern pattern;
+    final boolean takesFlags;
+    final ImmutableList<String> suppressionAnnotations;
+
+    Check(
+        TypeElement type,
+        BugPattern pattern,
+        boolean takesFlags,
+        ImmutableList<String> suppressionAnnotations) {
+      this.type = type;
+      this.pattern = pattern;
+      this.takesFlags = takesFlags;
+      this.suppressionAnnotations = suppressionAnnotations;
+    }
+  }
+
+  private boolean generated = false;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latest();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    String registry = processingEnv.getOptions().get(REGISTRY_OPTION);
+    if (registry == null || generated) {
+      return false;
+    }
+    List<Check> checks = new ArrayList<>();
+    for (Element element : roundEnv.getElementsAnnotatedWith(BugPattern.class)) {
+      Check check = check(element);
+      if (check != null) {
+        checks.add(check);
+      }
+    }
+    if (!checks.isEmpty()) {
+      checks.sort(comparing(c -> c.pattern.name()));
+      try {
+        generate(registry, checks);
+      } catch (IOException e) {
+        processingEnv
+            .getMessager()
+            .printMessage(Diagnostic.Kind.ERROR, "Could not write " + registry + ": " + e);
+      }
+      generated = true;
+    }
+    // Other processors, like the documentation generator, may also be interested in @BugPattern.
+    return false;
+  }
+
+  /**
+   * Returns the check declared by {@code element}, or {@code null} after reporting an error if it
+   * can't be included in the registry.
+   */
+  private Check check(Element element) {
+    BugPattern pattern = element.getAnnotation(BugPattern.class);
+    try {
+      BugPatternValidator.validate(pattern);
+    } catch (ValidationException e) {
+      return error(element, e.getMessage());
+    }
+    TypeElement bugChecker = processingEnv.getElementUtils().getTypeElement(BUG_CHECKER);
+    if (element.getKind() != ElementKind.CLASS
+        || element.getModifiers().contains(Modifier.ABSTRACT)
+        || bugChecker == null
+        || !processingEnv
+            .getTypeUtils()
+            .isSubtype(
+                processingEnv.getTypeUtils().erasure(element.asType()),
+                processingEnv.getTypeUtils().erasure(bugChecker.asType()))) {
+      return error(element, "@BugPattern must annotate a concrete subclass of BugChecker");
+    }
+    TypeElement type = (TypeElement) element;
+    if (!isAccessible(type)) {
+      return error(type, "BugCheckers must be public, and static if they are nested");
+    }
+    boolean hasDefaultConstructor = false;
+    boolean hasFlagsConstructor = false;
+    TypeElement flags = processingEnv.getElementUtils().getTypeElement(ERROR_PRONE_FLAGS);
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (!constructor.getModifiers().contains(Modifier.PUBLIC)) {
+        continue;
+      }
+      if (constructor.getParameters().isEmpty()) {
+        hasDefaultConstructor = true;
+      } else if (flags != null
+          && constructor.getParameters().size() == 1
+          && processingEnv
+              .getTypeUtils()
+              .isSameType(constructor.getParameters().get(0).asType(), flags.asType())) {
+        hasFlagsConstructor = true;
+      }
+    }
+    if (!hasDefaultConstructor && !hasFlagsConstructor) {
+      return error(
+          type, "BugCheckers must have a public no-arg or BugChecker(ErrorProneFlags) constructor");
+    }
+    return new Check(type, pattern, hasFlagsConstructor, suppressionAnnotations(type));
+  }
+
+  private static boolean isAccessible(TypeElement type) {
+    if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+      return false;
+    }
+    switch (type.getNestingKind()) {
+      case TOP_LEVEL:
+        return true;
+      case MEMBER:
+        return type.getModifiers().contains(Modifier.STATIC)
+            && isAccessible((TypeElement) type.getEnclosingElement());
+      default:
+        return false;
+    }
+  }
+
+  /** Returns the canonical names of the {@code suppressionAnnotations} of the check. */
+  private ImmutableList<String> suppressionAnnotations(TypeElement type) {
+    for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+      TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+      if (!annotation.getQualifiedName().contentEquals(BugPattern.class.getCanonicalName())) {
+        continue;
+      }
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+          processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+        if (!entry.getKey().getSimpleName().contentEquals("suppressionAnnotations")) {
+          continue;
+        }
+        @SuppressWarnings("unchecked") // Always List<? extends AnnotationValue> for arrays.
+        List<? extends AnnotationValue> values =
+            (List<? extends AnnotationValue>) entry.getValue().getValue();
+        return values.stream()
+            .map(v -> (TypeMirror) v.getValue())
+            .map(t -> ((TypeElement) processingEnv.getTypeUtils().asElement(t)))
+            .map(t -> t.getQualifiedName().toString())
+            .collect(toImmutableList());
+      }
+    }
+    throw new AssertionError("No @BugPattern on " + type);
+  }
+
+  private Check error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    return null;
+  }
+
+  private void generate(String registry, List<Check> checks) throws IOException {
+    int lastDot = registry.lastIndexOf('.');
+    String packageName = lastDot == -1 ? "" : registry.substring(0, lastDot);
+    String simpleName = registry.substring(lastDot + 1);
+    Element[] originatingElements = checks.stream().map(c -> c.type).toArray(Element[]::new);
+    JavaFileObject file = processingEnv.getFiler().createSourceFile(registry, originatingElements);
+    try (PrintWriter out = new PrintWriter(file.openWriter())) {
+      if (!packageName.isEmpty()) {
+        out.printf("package %s;%n%n", packageName);
+      }
+      out.println("import com.google.common.collect.ImmutableMap;");
+      out.println("import com.google.common.collect.ImmutableSet;");
+      out.println("import com.google.errorprone.BugCheckerInfo;");
+      out.println("import com.google.errorprone.BugPattern.LinkType;");
+      out.println("import com.google.errorprone.BugPattern.SeverityLevel;");
+      out.println("import com.google.errorprone.ErrorProneFlags;");
+      out.println();
+      out.printf("/** Generated by %s. */%n", getClass().getName());
+      out.printf("public final class %s {%n", simpleName);
+      out.println();
+      out.println("  private static final ImmutableMap<String, BugCheckerInfo> CHECKS;");
+      out.println();
+      out.println("  static {");
+      out.println("    ImmutableMap.Builder<String, BugCheckerInfo> checks =");
+      out.printf("        ImmutableMap.builderWithExpectedSize(%d);%n", checks.size());
+      List<List<Check>> partitions = Lists.partition(checks, CHECKS_PER_METHOD);
+      for (int i = 0; i < partitions.size(); i++) {
+        out.printf("    register%d(checks);%n", i);
+      }
+      out.println("    CHECKS = checks.build();");
+      out.println("  }");
+      out.println();
+      out.println("  /** Returns the checks in the registry, keyed by canonical name. */");
+      out.println("  public static ImmutableMap<String, BugCheckerInfo> checks() {");
+      out.println("    return CHECKS;");
+      out.println("  }");
+      for (int i = 0; i < partitions.size(); i++) {
+        out.println();
+        out.printf(
+            "  private static void register%d(ImmutableMap.Builder<String, BugCheckerInfo> checks)"
+                + " {%n",
+            i);
+        for (int j = 0; j < partitions.get(i).size(); j++) {
+          writeCheck(out, partitions.get(i).get(j), i * CHECKS_PER_METHOD + j);
+        }
+        out.println("  }");
+      }
+      out.println();
+      out.println("  /**");
+      out.println("   * Returns a new instance of the check with the given index. The result is");
+      out.println("   * an Object so that this class can be verified without loading the checks.");
+      out.println("   */");
+      out.println("  private static Object instantiate(int index, ErrorProneFlags flags) {");
+      out.println("    switch (index) {");
+      for (int i = 0; i < checks.size(); i++) {
+        Check check = checks.get(i);
+        out.printf(
+            "      case %d:%n        return new %s(%s);%n",
+            i, check.type.getQualifiedName(), check.takesFlags ? "flags" : "");
+      }
+      out.println("      default:");
+      out.println("        throw new AssertionError(index);");
+      out.println("    }");
+      out.println("  }");
+      out.println();
+      out.println("  private static final class Factory implements BugCheckerInfo.Factory {");
+      out.println("    private final int index;");
+      out.println();
+      out.println("    Factory(int index) {");
+      out.println("      this.index = index;");
+      out.println("    }");
+      out.println();
+      out.println("    @Override");
+      out.println("    public Object create(ErrorProneFlags flags) {");
+      out.println("      return instantiate(index, flags);");
+      out.println("    }");
+      out.println("  }");
+      out.println();
+      out.printf("  private %s() {}%n", simpleName);
+      out.println("}");
+    }
+  }
+
+  private void writeCheck(PrintWriter out, Check check, int index) {
+    BugPattern pattern = check.pattern;
+    out.printf("    checks.put(%n");
+    out.printf("        %s,%n", literal(pattern.name()));
+    out.printf("        BugCheckerInfo.create(%n");
+    out.printf(
+        "            %s,%n",
+        literal(processingEnv.getElementUtils().getBinaryName(check.type).toString()));
+    out.printf("            new Factory(%d),%n", index);
+    out.printf("            %s,%n", literal(pattern.name()));
+    out.printf("            %s,%n", setOf(Stream.of(pattern.altNames()).map(s -> literal(s))));
+    out.printf("            %s,%n", literal(pattern.summary()));
+    out.printf("            SeverityLevel.%s,%n", pattern.severity().name());
+    out.printf("            LinkType.%s,%n", pattern.linkType().name());
+    out.printf("            %s,%n", literal(pattern.link()));
+    out.printf(
+        "            %s,%n", setOf(check.suppressionAnnotations.stream().map(a -> a + ".class")));
+    out.printf("            %s,%n", setOf(Stream.of(pattern.tags()).map(s -> literal(s))));
+    out.printf("            %s,%n", pattern.disableable());
+    out.printf(
+        "            %s));%n", setOf(Stream.of(pattern.requiredTypes()).map(s -> literal(s))));
+  }
+
+  private static String setOf(Stream<String> elements) {
+    return elements.collect(joining(", ", "ImmutableSet.of(", ")"));
+  }
+
+  /** Returns a Java string literal for {@code value}, with only printable ASCII characters. */
+  private static String literal(String value) {
+    StringBuilder result = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          result.append("\\\"");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        default:
+          if (c < 0x20 || c > 0x7e) {
+            result.append(String.format("\\u%04x", (int) c));
+          } else {
+            result.append(c);
+          }
+      }
+    }
+    return result.append('"').toString();
+  }
+}
@@ -51,11 +51,14 @@ import com.sun.tools.javac.util.Context;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaFileObject;
@@ -138,6 +141,9 @@ public class BugCheckerRefactoringTestHelper {
   private final Map<JavaFileObject, JavaFileObject> sources = new HashMap<>();
   private final BugChecker refactoringBugChecker;
   private final ErrorProneInMemoryFileManager fileManager;
+  private final Class<?> clazz;
+  // The directory that the sources of a test case in a Batch are kept in, or null
+  @Nullable private final String sourceDirectory;
 
   private FixChooser fixChooser = FixChoosers.FIRST;
   private List<String> options = ImmutableList.of();
@@ -147,8 +153,22 @@ public class BugCheckerRefactoringTestHelper {
   private boolean run = false;
 
   private BugCheckerRefactoringTestHelper(BugChecker refactoringBugChecker, Class<?> clazz) {
+    this(
+        refactoringBugChecker,
+        new ErrorProneInMemoryFileManager(clazz),
+        clazz,
+        /* sourceDirectory= */ null);
+  }
+
+  private BugCheckerRefactoringTestHelper(
+      BugChecker refactoringBugChecker,
+      ErrorProneInMemoryFileManager fileManager,
+      Class<?> clazz,
+      @Nullable String sourceDirectory) {
     this.refactoringBugChecker = refactoringBugChecker;
-    this.fileManager = new ErrorProneInMemoryFileManager(clazz);
+    this.fileManager = fileManager;
+    this.clazz = clazz;
+    this.sourceDirectory = sourceDirectory;
   }
 
   public static BugCheckerRefactoringTestHelper newInstance(
@@ -158,21 +178,31 @@ public class BugCheckerRefactoringTestHelper {
 
   public static BugCheckerRefactoringTestHelper newInstance(
       Class<? extends BugChecker> checkerClass, Class<?> clazz) {
-    BugChecker checker;
+    return newInstance(instantiate(checkerClass), clazz);
+  }
+
+  /**
+   * Returns a new {@link Batch} of test cases for {@code checkerClass}, whose inputs are compiled
+   * together.
+   */
+  public static Batch newBatch(Class<? extends BugChecker> checkerClass, Class<?> clazz) {
+    return new Batch(instantiate(checkerClass), clazz);
+  }
+
+  private static BugChecker instantiate(Class<? extends BugChecker> checkerClass) {
     try {
-      checker = checkerClass.getDeclaredConstructor().newInstance();
+      return checkerClass.getDeclaredConstructor().newInstance();
     } catch (ReflectiveOperationException e) {
       throw new LinkageError(e.getMessage(), e);
     }
-    return newInstance(checker, clazz);
   }
 
   public BugCheckerRefactoringTestHelper.ExpectOutput addInput(String inputFilename) {
-    return new ExpectOutput(fileManager.forResource(inputFilename));
+    return new ExpectOutput(forResource(inputFilename));
   }
 
   public BugCheckerRefactoringTestHelper.ExpectOutput addInputLines(String path, String... input) {
-    String inputPath = getPath("in/", path);
+    String inputPath = inSourceDirectory(getPath("in/", path));
     assertThat(fileManager.exists(inputPath)).isFalse();
     return new ExpectOutput(fileManager.forSourceLines(inputPath, input));
   }
@@ -219,15 +249,18 @@ public class BugCheckerRefactoringTestHelper {
   }
 
   public void doTest(TestMode testMode) {
+    checkState(sourceDirectory == null, "Test cases in a batch are run by Batch.doTest");
+    markRun();
+    try {
+      runTest(testMode);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void markRun() {
     checkState(!run, "doTest should only be called once");
     this.run = true;
-    for (Map.Entry<JavaFileObject, JavaFileObject> entry : sources.entrySet()) {
-      try {
-        runTestOnPair(entry.getKey(), entry.getValue(), testMode);
-      } catch (IOException e) {
-        throw new UncheckedIOException(e);
-      }
-    }
   }
 
   private BugCheckerRefactoringTestHelper addInputAndOutput(
@@ -236,23 +269,53 @@ public class BugCheckerRefactoringTestHelper {
     return this;
   }
 
-  private void runTestOnPair(JavaFileObject input, JavaFileObject output, TestMode testMode)
-      throws IOException {
+  /**
+   * Compiles all of the inputs together, and checks the result of applying the fixes to each of
+   * them.
+   */
+  private void runTest(TestMode testMode) throws IOException {
     Context context = new Context();
-    JCCompilationUnit tree = doCompile(input, sources.keySet(), context);
-    JavaFileObject transformed = applyDiff(input, context, tree);
-    testMode.verifyMatch(transformed, output);
+    Map<JavaFileObject, JCCompilationUnit> trees = doCompile(sources.keySet(), context);
+    verifyOutputs(trees, context, testMode);
     if (!allowBreakingChanges) {
-      doCompile(output, sources.values(), new Context());
+      doCompile(sources.values(), new Context());
     }
   }
 
+  private void verifyOutputs(
+      Map<JavaFileObject, JCCompilationUnit> trees, Context context, TestMode testMode)
+      throws IOException {
+    for (Map.Entry<JavaFileObject, JavaFileObject> entry : sources.entrySet()) {
+      JavaFileObject transformed = applyDiff(entry.getKey(), context, trees.get(entry.getKey()));
+      testMode.verifyMatch(transformed, entry.getValue());
+    }
+  }
+
+  /**
+   * Compiles {@code files}, failing the test if there are any errors, and returns the compilation
+   * unit of each file.
+   */
   @CanIgnoreReturnValue
-  private JCCompilationUnit doCompile(
-      final JavaFileObject input, Iterable<JavaFileObject> files, Context context)
+  private Map<JavaFileObject, JCCompilationUnit> doCompile(
+      Iterable<JavaFileObject> files, Context context) throws IOException {
+    DiagnosticCollector<JavaFileObject> diagnosticsCollector = new DiagnosticCollector<>();
+    Map<JavaFileObject, JCCompilationUnit> trees =
+        compile(fileManager, options, files, context, diagnosticsCollector);
+    Iterable<Diagnostic<? extends JavaFileObject>> errorDiagnostics = errors(diagnosticsCollector);
+    if (!Iterables.isEmpty(errorDiagnostics)) {
+      fail("compilation failed unexpectedly: " + errorDiagnostics);
+    }
+    return trees;
+  }
+
+  private static Map<JavaFileObject, JCCompilationUnit> compile(
+      ErrorProneInMemoryFileManager fileManager,
+      List<String> options,
+      Iterable<JavaFileObject> files,
+      Context context,
+      DiagnosticCollector<JavaFileObject> diagnosticsCollector)
       throws IOException {
     JavacTool tool = JavacTool.create();
-    DiagnosticCollector<JavaFileObject> diagnosticsCollector = new DiagnosticCollector<>();
     ErrorProneOptions errorProneOptions;
     try {
       errorProneOptions = ErrorProneOptions.processArgs(options);
@@ -273,18 +336,17 @@ public class BugCheckerRefactoringTestHelper {
                 context);
     Iterable<? extends CompilationUnitTree> trees = task.parse();
     task.analyze();
-    JCCompilationUnit tree =
-        Iterables.getOnlyElement(
-            Iterables.filter(
-                Iterables.filter(trees, JCCompilationUnit.class),
-                compilationUnit -> compilationUnit.getSourceFile() == input));
-    Iterable<Diagnostic<? extends JavaFileObject>> errorDiagnostics =
-        Iterables.filter(
-            diagnosticsCollector.getDiagnostics(), d -> d.getKind() == Diagnostic.Kind.ERROR);
-    if (!Iterables.isEmpty(errorDiagnostics)) {
-      fail("compilation failed unexpectedly: " + errorDiagnostics);
+    Map<JavaFileObject, JCCompilationUnit> result = new HashMap<>();
+    for (JCCompilationUnit tree : Iterables.filter(trees, JCCompilationUnit.class)) {
+      result.put(tree.getSourceFile(), tree);
     }
-    return tree;
+    return result;
+  }
+
+  private static Iterable<Diagnostic<? extends JavaFileObject>> errors(
+      DiagnosticCollector<JavaFileObject> diagnosticsCollector) {
+    return Iterables.filter(
+        diagnosticsCollector.getDiagnostics(), d -> d.getKind() == Diagnostic.Kind.ERROR);
   }
 
   private JavaFileObject applyDiff(
@@ -336,7 +398,7 @@ public class BugCheckerRefactoringTestHelper {
     }
 
     public BugCheckerRefactoringTestHelper addOutputLines(String path, String... output) {
-      String outputPath = getPath("out/", path);
+      String outputPath = inSourceDirectory(getPath("out/", path));
       if (fileManager.exists(outputPath)) {
         throw new UncheckedIOException(new FileAlreadyExistsException(outputPath));
       }
@@ -344,7 +406,7 @@ public class BugCheckerRefactoringTestHelper {
     }
 
     public BugCheckerRefactoringTestHelper addOutput(String outputFilename) {
-      return addInputAndOutput(input, fileManager.forResource(outputFilename));
+      return addInputAndOutput(input, forResource(outputFilename));
     }
 
     public BugCheckerRefactoringTestHelper expectUnchanged() {
@@ -352,10 +414,134 @@ public class BugCheckerRefactoringTestHelper {
     }
   }
 
+  private JavaFileObject forResource(String fileName) {
+    return sourceDirectory != null
+        ? fileManager.forResource(sourceDirectory, clazz, fileName)
+        : fileManager.forResource(fileName);
+  }
+
+  private String inSourceDirectory(String path) {
+    if (sourceDirectory == null) {
+      return path;
+    }
+    return sourceDirectory + (path.startsWith("/") ? path : "/" + path);
+  }
+
   private String getPath(String prefix, String path) {
     // return prefix + path;
     int insertAt = path.lastIndexOf('/');
     insertAt = insertAt == -1 ? 0 : insertAt + 1;
     return new StringBuilder(path).insert(insertAt, prefix + "/").toString();
   }
+
+  /**
+   * A set of independent test cases for the same check whose inputs are compiled in as few javac
+   * invocations as possible, so that the cost of setting up the compiler and completing the symbols
+   * of the JDK and the classpath is shared between them.
+   *
+   * <p>Each test case is a {@link BugCheckerRefactoringTestHelper} returned by {@link
+   * #addTestCase}, and is set up just like a standalone test. The fixes are applied to each input
+   * and checked against its expected output separately. Test cases that set the same arguments are
+   * compiled together. If a batched compilation fails, for example because two test cases declare
+   * the same class, each test case is compiled on its own instead.
+   */
+  public static final class Batch {
+    private final BugChecker refactoringBugChecker;
+    private final ErrorProneInMemoryFileManager fileManager;
+    private final Class<?> clazz;
+    private final List<BugCheckerRefactoringTestHelper> testCases = new ArrayList<>();
+    private boolean run = false;
+
+    private Batch(BugChecker refactoringBugChecker, Class<?> clazz) {
+      this.refactoringBugChecker = refactoringBugChecker;
+      this.fileManager = new ErrorProneInMemoryFileManager(clazz);
+      this.clazz = clazz;
+    }
+
+    /**
+     * Adds a test case to the batch. Its sources are kept in a separate directory from those of
+     * the other test cases, so they may use the same file names.
+     */
+    public BugCheckerRefactoringTestHelper addTestCase() {
+      checkState(!run, "Test cases can't be added after doTest has been called");
+      BugCheckerRefactoringTestHelper testCase =
+          new BugCheckerRefactoringTestHelper(
+              refactoringBugChecker, fileManager, clazz, "/case" + testCases.size());
+      testCases.add(testCase);
+      return testCase;
+    }
+
+    public void doTest() {
+      doTest(TestMode.AST_MATCH);
+    }
+
+    public void doTest(TestMode testMode) {
+      checkState(!testCases.isEmpty(), "No test cases to run");
+      checkState(!run, "doTest should only be called once");
+      this.run = true;
+      Map<List<String>, List<BugCheckerRefactoringTestHelper>> groups = new LinkedHashMap<>();
+      for (BugCheckerRefactoringTestHelper testCase : testCases) {
+        testCase.markRun();
+        groups.computeIfAbsent(testCase.options, k -> new ArrayList<>()).add(testCase);
+      }
+      try {
+        for (List<BugCheckerRefactoringTestHelper> group : groups.values()) {
+          if (group.size() == 1 || !runTogether(group, testMode)) {
+            for (BugCheckerRefactoringTestHelper testCase : group) {
+              testCase.runTest(testMode);
+            }
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * Runs the test cases in {@code group}, which all have the same arguments, with a single
+     * compilation of their inputs and of their outputs. Returns false without checking anything if
+     * the inputs don't compile together.
+     */
+    private boolean runTogether(List<BugCheckerRefactoringTestHelper> group, TestMode testMode)
+        throws IOException {
+      List<String> options = group.get(0).options;
+      Context context = new Context();
+      DiagnosticCollector<JavaFileObject> diagnosticsCollector = new DiagnosticCollector<>();
+      Map<JavaFileObject, JCCompilationUnit> trees =
+          compile(
+              fileManager,
+              options,
+              group.stream().flatMap(t -> t.sources.keySet().stream()).collect(toImmutableList()),
+              context,
+              diagnosticsCollector);
+      if (!Iterables.isEmpty(errors(diagnosticsCollector))) {
+        return false;
+      }
+      for (BugCheckerRefactoringTestHelper testCase : group) {
+        testCase.verifyOutputs(trees, context, testMode);
+      }
+
+      ImmutableList<BugCheckerRefactoringTestHelper> compilingOutputs =
+          group.stream().filter(t -> !t.allowBreakingChanges).collect(toImmutableList());
+      if (compilingOutputs.isEmpty()) {
+        return true;
+      }
+      diagnosticsCollector = new DiagnosticCollector<>();
+      compile(
+          fileManager,
+          options,
+          compilingOutputs.stream()
+              .flatMap(t -> t.sources.values().stream())
+              .collect(toImmutableList()),
+          new Context(),
+          diagnosticsCollector);
+      if (!Iterables.isEmpty(errors(diagnosticsCollector))) {
+        // Find out which test case's outputs don't compile.
+        for (BugCheckerRefactoringTestHelper testCase : compilingOutputs) {
+          testCase.doCompile(testCase.sources.values(), new Context());
+        }
+      }
+      return true;
+    }
+  }
 }
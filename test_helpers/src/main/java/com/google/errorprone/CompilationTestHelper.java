@@ -41,18 +41,24 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import javax.annotation.Nullable;
 import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaCompiler.CompilationTask;
 import javax.tools.JavaFileObject;
@@ -61,6 +67,9 @@ import javax.tools.StandardLocation;
 /** Helps test Error Prone bug checkers and compilations. */
 @CheckReturnValue
 public class CompilationTestHelper {
+  // Don't limit errors/warnings for tests to the default of 100
+  private static final int MAX_DIAGNOSTICS = 500;
+
   private static final ImmutableList<String> DEFAULT_ARGS =
       ImmutableList.of(
           "-encoding",
@@ -69,17 +78,19 @@ public class CompilationTestHelper {
           "-XDdev",
           "-parameters",
           "-XDcompilePolicy=simple",
-          // Don't limit errors/warnings for tests to the default of 100
           "-Xmaxerrs",
-          "500",
+          String.valueOf(MAX_DIAGNOSTICS),
           "-Xmaxwarns",
-          "500");
+          String.valueOf(MAX_DIAGNOSTICS));
 
   private final DiagnosticTestHelper diagnosticHelper;
   private final BaseErrorProneJavaCompiler compiler;
   private final ByteArrayOutputStream outputStream;
   private final ErrorProneInMemoryFileManager fileManager;
   private final List<JavaFileObject> sources = new ArrayList<>();
+  private final Class<?> clazz;
+  // The directory that the sources of a test case in a Batch are kept in, or null
+  @Nullable private final String sourceDirectory;
   private ImmutableList<String> extraArgs = ImmutableList.of();
   @Nullable private ImmutableList<Class<?>> overrideClasspath;
   private boolean expectNoDiagnostics = false;
@@ -91,15 +102,36 @@ public class CompilationTestHelper {
   private boolean run = false;
 
   private CompilationTestHelper(ScannerSupplier scannerSupplier, String checkName, Class<?> clazz) {
-    this.fileManager = new ErrorProneInMemoryFileManager(clazz);
+    this(
+        newFileManager(clazz),
+        new BaseErrorProneJavaCompiler(JavacTool.create(), scannerSupplier),
+        checkName,
+        clazz,
+        /* sourceDirectory= */ null);
+  }
+
+  private CompilationTestHelper(
+      ErrorProneInMemoryFileManager fileManager,
+      BaseErrorProneJavaCompiler compiler,
+      String checkName,
+      Class<?> clazz,
+      @Nullable String sourceDirectory) {
+    this.fileManager = fileManager;
+    this.diagnosticHelper = new DiagnosticTestHelper(checkName);
+    this.outputStream = new ByteArrayOutputStream();
+    this.compiler = compiler;
+    this.clazz = clazz;
+    this.sourceDirectory = sourceDirectory;
+  }
+
+  private static ErrorProneInMemoryFileManager newFileManager(Class<?> clazz) {
+    ErrorProneInMemoryFileManager fileManager = new ErrorProneInMemoryFileManager(clazz);
     try {
       fileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.emptyList());
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
-    this.diagnosticHelper = new DiagnosticTestHelper(checkName);
-    this.outputStream = new ByteArrayOutputStream();
-    this.compiler = new BaseErrorProneJavaCompiler(JavacTool.create(), scannerSupplier);
+    return fileManager;
   }
 
   /**
@@ -125,6 +157,19 @@ public class CompilationTestHelper {
     return new CompilationTestHelper(scannerSupplier, checkName, clazz);
   }
 
+  /**
+   * Returns a new {@link Batch} of test cases for {@code checker}, which are compiled together.
+   *
+   * @param checker the {@link BugChecker} to test
+   * @param clazz the class to use to locate file resources
+   */
+  public static Batch newBatch(Class<? extends BugChecker> checker, Class<?> clazz) {
+    return new Batch(
+        ScannerSupplier.fromBugCheckerClasses(checker),
+        checker.getAnnotation(BugPattern.class).name(),
+        clazz);
+  }
+
   /**
    * Pass -proc:none unless annotation processing is explicitly enabled, to avoid picking up
    * annotation processors via service loading.
@@ -188,6 +233,9 @@ public class CompilationTestHelper {
   // TODO(eaftan): We could eliminate this path parameter and just infer the path from the
   // package and class name
   public CompilationTestHelper addSourceLines(String path, String... lines) {
+    if (sourceDirectory != null) {
+      path = sourceDirectory + (path.startsWith("/") ? path : "/" + path);
+    }
     this.sources.add(fileManager.forSourceLines(path, lines));
     return this;
   }
@@ -200,7 +248,10 @@ public class CompilationTestHelper {
    * @param path the path to the source file
    */
   public CompilationTestHelper addSourceFile(String path) {
-    this.sources.add(fileManager.forResource(path));
+    this.sources.add(
+        sourceDirectory != null
+            ? fileManager.forResource(sourceDirectory, clazz, path)
+            : fileManager.forResource(path));
     return this;
   }
 
@@ -300,10 +351,19 @@ public class CompilationTestHelper {
 
   /** Performs a compilation and checks that the diagnostics and result match the expectations. */
   public void doTest() {
+    checkState(sourceDirectory == null, "Test cases in a batch are run by Batch.doTest");
+    markRun();
+    verify(compile());
+  }
+
+  private void markRun() {
     checkState(!sources.isEmpty(), "No source files to compile");
     checkState(!run, "doTest should only be called once");
     this.run = true;
-    Result result = compile();
+  }
+
+  /** Checks that the diagnostics and the result of the compilation match the expectations. */
+  private void verify(Result result) {
     for (Diagnostic<? extends JavaFileObject> diagnostic : diagnosticHelper.getDiagnostics()) {
       if (diagnostic.getCode().contains("error.prone.crash")) {
         fail(diagnostic.getMessage(Locale.ENGLISH));
@@ -376,9 +436,23 @@ public class CompilationTestHelper {
   }
 
   private void checkWellFormed(Iterable<JavaFileObject> sources, List<String> args) {
+    OutputStream outputStream = new ByteArrayOutputStream();
+    boolean result = compilesWithJavac(fileManager, sources, args, outputStream);
+    assertWithMessage(
+            String.format(
+                "Test program failed to compile with non Error Prone error: %s", outputStream))
+        .that(result)
+        .isTrue();
+  }
+
+  /** Returns true if {@code sources} compile without errors with plain javac. */
+  private static boolean compilesWithJavac(
+      ErrorProneInMemoryFileManager fileManager,
+      Iterable<JavaFileObject> sources,
+      List<String> args,
+      OutputStream outputStream) {
     fileManager.createAndInstallTempFolderForOutput();
     JavaCompiler compiler = JavacTool.create();
-    OutputStream outputStream = new ByteArrayOutputStream();
     List<String> remainingArgs = null;
     try {
       remainingArgs = Arrays.asList(ErrorProneOptions.processArgs(args).getRemainingArgs());
@@ -395,11 +469,138 @@ public class CompilationTestHelper {
             remainingArgs,
             null,
             sources);
-    boolean result = task.call();
-    assertWithMessage(
-            String.format(
-                "Test program failed to compile with non Error Prone error: %s", outputStream))
-        .that(result)
-        .isTrue();
+    return task.call();
+  }
+
+  /**
+   * A set of independent test cases for the same check that are compiled in as few javac
+   * invocations as possible, so that the cost of setting up the compiler and completing the
+   * symbols of the JDK and the classpath is shared between them.
+   *
+   * <p>Each test case is a {@link CompilationTestHelper} returned by {@link #addTestCase}, and is
+   * set up just like a standalone test. The diagnostics are assigned to test cases by their source
+   * file, so every test case still sees only the diagnostics for its own sources. Test cases that
+   * set the same arguments are compiled together; test cases that set a classpath or ignore javac
+   * errors are compiled on their own. If the diagnostics of a batched compilation can't be
+   * attributed to individual test cases, for example because two test cases declare the same class
+   * or a diagnostic isn't associated with a source file, each test case is compiled on its own
+   * instead.
+   */
+  public static final class Batch {
+    private final ErrorProneInMemoryFileManager fileManager;
+    private final BaseErrorProneJavaCompiler compiler;
+    private final String checkName;
+    private final Class<?> clazz;
+    private final List<CompilationTestHelper> testCases = new ArrayList<>();
+    private boolean run = false;
+
+    private Batch(ScannerSupplier scannerSupplier, String checkName, Class<?> clazz) {
+      this.fileManager = newFileManager(clazz);
+      this.compiler = new BaseErrorProneJavaCompiler(JavacTool.create(), scannerSupplier);
+      this.checkName = checkName;
+      this.clazz = clazz;
+    }
+
+    /**
+     * Adds a test case to the batch. Its sources are kept in a separate directory from those of
+     * the other test cases, so they may use the same file names.
+     */
+    public CompilationTestHelper addTestCase() {
+      checkState(!run, "Test cases can't be added after doTest has been called");
+      CompilationTestHelper testCase =
+          new CompilationTestHelper(
+              fileManager, compiler, checkName, clazz, "/case" + testCases.size());
+      testCases.add(testCase);
+      return testCase;
+    }
+
+    /**
+     * Performs the compilations and checks that the diagnostics and result of each test case
+     * match its expectations.
+     */
+    public void doTest() {
+      checkState(!testCases.isEmpty(), "No test cases to run");
+      checkState(!run, "doTest should only be called once");
+      this.run = true;
+      Map<ImmutableList<String>, List<CompilationTestHelper>> groups = new LinkedHashMap<>();
+      for (CompilationTestHelper testCase : testCases) {
+        testCase.markRun();
+        if (testCase.checkWellFormed && testCase.overrideClasspath == null) {
+          groups.computeIfAbsent(testCase.extraArgs, k -> new ArrayList<>()).add(testCase);
+        } else {
+          testCase.verify(testCase.compile());
+        }
+      }
+      for (List<CompilationTestHelper> group : groups.values()) {
+        if (group.size() == 1 || !compileTogether(group)) {
+          for (CompilationTestHelper testCase : group) {
+            testCase.verify(testCase.compile());
+          }
+        }
+      }
+    }
+
+    /**
+     * Compiles the test cases in {@code group}, which all have the same arguments, in a single
+     * compilation and checks their results. Returns false without checking anything if the
+     * diagnostics can't be attributed to individual test cases.
+     */
+    private boolean compileTogether(List<CompilationTestHelper> group) {
+      ImmutableList<JavaFileObject> sources =
+          group.stream().flatMap(t -> t.sources.stream()).collect(toImmutableList());
+      List<String> args = buildArguments(/* overrideClasspath= */ null, group.get(0).extraArgs);
+      if (!compilesWithJavac(fileManager, sources, args, new ByteArrayOutputStream())) {
+        // e.g. because more than one test case declares the same class
+        return false;
+      }
+      fileManager.createAndInstallTempFolderForOutput();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      compiler
+          .getTask(
+              new PrintWriter(
+                  new BufferedWriter(new OutputStreamWriter(output, UTF_8)), /*autoFlush=*/ true),
+              fileManager,
+              diagnostics,
+              /* options= */ ImmutableList.copyOf(args),
+              /* classes= */ ImmutableList.of(),
+              sources)
+          .call();
+
+      Map<URI, CompilationTestHelper> testCaseBySource = new HashMap<>();
+      for (CompilationTestHelper testCase : group) {
+        for (JavaFileObject source : testCase.sources) {
+          testCaseBySource.put(source.toUri(), testCase);
+        }
+      }
+      Map<CompilationTestHelper, Result> results = new HashMap<>();
+      Map<Diagnostic.Kind, Integer> counts = new EnumMap<>(Diagnostic.Kind.class);
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        if (diagnostic.getSource() == null
+            || !testCaseBySource.containsKey(diagnostic.getSource().toUri())
+            || diagnostic.getCode().contains("error.prone.crash")
+            || counts.merge(diagnostic.getKind(), 1, Integer::sum) >= MAX_DIAGNOSTICS) {
+          // A crash may have prevented other test cases from being analyzed, and javac may have
+          // dropped diagnostics that it would have reported for a smaller compilation.
+          return false;
+        }
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          results.put(testCaseBySource.get(diagnostic.getSource().toUri()), Result.ERROR);
+        }
+      }
+
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        testCaseBySource
+            .get(diagnostic.getSource().toUri())
+            .diagnosticHelper
+            .collector
+            .report(diagnostic);
+      }
+      for (CompilationTestHelper testCase : group) {
+        testCase.outputStream.write(output.toByteArray(), 0, output.size());
+        testCase.verify(results.getOrDefault(testCase, Result.OK));
+      }
+      return true;
+    }
   }
 }
@@ -26,12 +26,15 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
+import com.sun.tools.javac.file.CacheFSInfo;
+import com.sun.tools.javac.file.FSInfo;
 import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.util.Context;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -66,11 +69,62 @@ public class ErrorProneInMemoryFileManager extends JavacFileManager {
   }
 
   private ErrorProneInMemoryFileManager(Optional<Class<?>> clazz) {
-    super(new Context(), /* register= */ false, UTF_8);
+    super(newContext(), /* register= */ false, UTF_8);
     this.fileSystem = Jimfs.newFileSystem(Configuration.unix());
     this.clazz = clazz;
   }
 
+  /**
+   * Lookups of classpath entries on the default file system, including reading the {@code
+   * Class-Path} manifest attributes of jars, are shared by every file manager in the JVM. The
+   * classpath doesn't change while tests are running, so there's no need to repeat them for each
+   * test compilation.
+   */
+  private static final FSInfo SHARED_FS_INFO = new SharedFSInfo();
+
+  private static Context newContext() {
+    Context context = new Context();
+    context.put(FSInfo.class, SHARED_FS_INFO);
+    return context;
+  }
+
+  /**
+   * A {@link CacheFSInfo} that only caches paths on the default file system, since the in-memory
+   * file systems of individual tests are short-lived and change as sources are added.
+   */
+  private static final class SharedFSInfo extends CacheFSInfo {
+    private final FSInfo uncached = new FSInfo() {};
+
+    private static boolean isCacheable(Path file) {
+      return file.getFileSystem() == FileSystems.getDefault();
+    }
+
+    @Override
+    public synchronized Path getCanonicalFile(Path file) {
+      return isCacheable(file) ? super.getCanonicalFile(file) : uncached.getCanonicalFile(file);
+    }
+
+    @Override
+    public synchronized boolean exists(Path file) {
+      return isCacheable(file) ? super.exists(file) : uncached.exists(file);
+    }
+
+    @Override
+    public synchronized boolean isDirectory(Path file) {
+      return isCacheable(file) ? super.isDirectory(file) : uncached.isDirectory(file);
+    }
+
+    @Override
+    public synchronized boolean isFile(Path file) {
+      return isCacheable(file) ? super.isFile(file) : uncached.isFile(file);
+    }
+
+    @Override
+    public synchronized List<Path> getJarClassPath(Path file) throws IOException {
+      return isCacheable(file) ? super.getJarClassPath(file) : uncached.getJarClassPath(file);
+    }
+  }
+
   /** Loads resources of the provided class into {@link JavaFileObject}s. */
   public List<JavaFileObject> forResources(Class<?> clazz, String... fileNames) {
     ImmutableList.Builder<JavaFileObject> result = ImmutableList.builder();
@@ -82,7 +136,16 @@ public class ErrorProneInMemoryFileManager extends JavacFileManager {
 
   /** Loads a resource of the provided class into a {@link JavaFileObject}. */
   public JavaFileObject forResource(Class<?> clazz, String fileName) {
-    Path path = fileSystem.getPath("/", clazz.getPackage().getName().replace('.', '/'), fileName);
+    return forResource("/", clazz, fileName);
+  }
+
+  /**
+   * Loads a resource of the provided class into a {@link JavaFileObject} under {@code directory},
+   * so that test cases sharing this file manager can each load the same resource.
+   */
+  JavaFileObject forResource(String directory, Class<?> clazz, String fileName) {
+    Path path =
+        fileSystem.getPath(directory, clazz.getPackage().getName().replace('.', '/'), fileName);
     try (InputStream is = findResource(clazz, fileName)) {
       Files.createDirectories(path.getParent());
       Files.copy(is, path);
@@ -267,4 +267,64 @@ public class BugCheckerRefactoringTestHelperTest {
         assertThrows(IllegalStateException.class, () -> helper.doTest());
     assertThat(expected).hasMessageThat().contains("doTest");
   }
+
+  @Test
+  public void batch() {
+    BugCheckerRefactoringTestHelper.Batch batch =
+        BugCheckerRefactoringTestHelper.newBatch(ReturnNullRefactoring.class, getClass());
+    batch
+        .addTestCase()
+        .addInputLines(
+            "in/foo/Test.java",
+            "package foo;",
+            "public class Test {",
+            "  public Object foo() {",
+            "    return 1;",
+            "  }",
+            "}")
+        .addOutputLines(
+            "out/foo/Test.java",
+            "package foo;",
+            "public class Test {",
+            "  public Object foo() {",
+            "    return null;",
+            "  }",
+            "}");
+    batch
+        .addTestCase()
+        .addInputLines("in/bar/Test.java", "package bar;", "public class Test {}")
+        .expectUnchanged();
+    batch.doTest();
+  }
+
+  @Test
+  public void batchWithConflictingClasses() {
+    BugCheckerRefactoringTestHelper.Batch batch =
+        BugCheckerRefactoringTestHelper.newBatch(ReturnNullRefactoring.class, getClass());
+    batch.addTestCase().addInputLines("in/Test.java", "public class Test {}").expectUnchanged();
+    batch.addTestCase().addInputLines("in/Test.java", "public class Test {}").expectUnchanged();
+    batch.doTest();
+  }
+
+  @Test
+  public void batchReportsFailingTestCase() {
+    BugCheckerRefactoringTestHelper.Batch batch =
+        BugCheckerRefactoringTestHelper.newBatch(ReturnNullRefactoring.class, getClass());
+    batch
+        .addTestCase()
+        .addInputLines("in/foo/Test.java", "package foo;", "public class Test {}")
+        .expectUnchanged();
+    batch
+        .addTestCase()
+        .addInputLines(
+            "in/bar/Test.java",
+            "package bar;",
+            "public class Test {",
+            "  public Object foo() {",
+            "    return 1;",
+            "  }",
+            "}")
+        .expectUnchanged();
+    assertThrows(AssertionError.class, batch::doTest);
+  }
 }
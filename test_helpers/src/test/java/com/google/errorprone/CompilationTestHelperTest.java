@@ -558,4 +558,64 @@ public class CompilationTestHelperTest {
         assertThrows(IllegalStateException.class, () -> compilationHelper.doTest());
     assertThat(expected).hasMessageThat().contains("doTest");
   }
+
+  @Test
+  public void batchIsolatesDiagnostics() {
+    CompilationTestHelper.Batch batch =
+        CompilationTestHelper.newBatch(ReturnTreeChecker.class, getClass());
+    batch
+        .addTestCase()
+        .addSourceLines(
+            "foo/Test.java",
+            "package foo;",
+            "public class Test {",
+            "  public boolean doIt() {",
+            "    // BUG: Diagnostic contains: Method may return normally",
+            "    return true;",
+            "  }",
+            "}")
+        .expectResult(Result.ERROR);
+    batch
+        .addTestCase()
+        .addSourceLines("bar/Test.java", "package bar;", "public class Test {}")
+        .expectNoDiagnostics();
+    batch.doTest();
+  }
+
+  @Test
+  public void batchWithConflictingClasses() {
+    CompilationTestHelper.Batch batch =
+        CompilationTestHelper.newBatch(ReturnTreeChecker.class, getClass());
+    batch
+        .addTestCase()
+        .addSourceLines(
+            "Test.java",
+            "public class Test {",
+            "  public boolean doIt() {",
+            "    // BUG: Diagnostic contains: Method may return normally",
+            "    return true;",
+            "  }",
+            "}");
+    batch.addTestCase().addSourceLines("Test.java", "public class Test {}").expectNoDiagnostics();
+    batch.doTest();
+  }
+
+  @Test
+  public void batchReportsFailingTestCase() {
+    CompilationTestHelper.Batch batch =
+        CompilationTestHelper.newBatch(ReturnTreeChecker.class, getClass());
+    batch.addTestCase().addSourceLines("foo/Test.java", "package foo;", "public class Test {}");
+    batch
+        .addTestCase()
+        .addSourceLines(
+            "bar/Test.java",
+            "package bar;",
+            "public class Test {",
+            "  public boolean doIt() {",
+            "    return true;",
+            "  }",
+            "}");
+    AssertionError expected = assertThrows(AssertionError.class, batch::doTest);
+    assertThat(expected).hasMessageThat().contains("Saw unexpected error on line 4");
+  }
 }